@@ -22,6 +22,7 @@ public final class PrestoHeaders
     public static final String PRESTO_TIME_ZONE = "X-Presto-Time-Zone";
 
     public static final String PRESTO_CURRENT_STATE = "X-Presto-Current-State";
+    public static final String PRESTO_CURRENT_VERSION = "X-Presto-Current-Version";
     public static final String PRESTO_MAX_WAIT = "X-Presto-Max-Wait";
     public static final String PRESTO_MAX_SIZE = "X-Presto-Max-Size";
     public static final String PRESTO_PAGE_TOKEN = "X-Presto-Page-Sequence-Id";
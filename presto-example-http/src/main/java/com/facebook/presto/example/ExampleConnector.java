@@ -21,6 +21,7 @@ import com.facebook.presto.spi.ConnectorOutputHandleResolver;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 
 import javax.inject.Inject;
 
@@ -88,4 +89,10 @@ public class ExampleConnector
     {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public ConnectorStatisticsProvider getStatisticsProvider()
+    {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -0,0 +1,289 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Directory lister that caches complete listings, keyed on the directory path.
+ * <p/>
+ * Cached listings expire after the configured TTL and are reloaded in the background
+ * after the refresh interval. All listings under a partition location are discarded
+ * when the metastore reports a different version of the partition.
+ */
+@ThreadSafe
+public class CachingDirectoryLister
+        implements DirectoryLister
+{
+    private final DirectoryLister delegate;
+    private final boolean enabled;
+    private final LoadingCache<ListingKey, List<LocatedFileStatus>> listingCache;
+    private final Cache<Path, Object> partitionVersions;
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat invalidations = new CounterStat();
+    private final TimeStat listingTime = new TimeStat();
+
+    @Inject
+    public CachingDirectoryLister(HiveClientConfig hiveClientConfig, @ForHiveClient ExecutorService executor)
+    {
+        this(new HadoopDirectoryLister(),
+                checkNotNull(executor, "executor is null"),
+                checkNotNull(hiveClientConfig, "hiveClientConfig is null").getDirectoryListingCacheTtl(),
+                hiveClientConfig.getDirectoryListingRefreshInterval(),
+                hiveClientConfig.getDirectoryListingCacheMaxSize());
+    }
+
+    public CachingDirectoryLister(DirectoryLister delegate, ExecutorService executor, Duration cacheTtl, Duration refreshInterval, long maxSize)
+    {
+        this.delegate = checkNotNull(delegate, "delegate is null");
+        checkNotNull(executor, "executor is null");
+
+        long expiresAfterWriteMillis = checkNotNull(cacheTtl, "cacheTtl is null").toMillis();
+        long refreshMillis = checkNotNull(refreshInterval, "refreshInterval is null").toMillis();
+        this.enabled = expiresAfterWriteMillis > 0;
+
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+                .maximumSize(maxSize);
+        if (enabled) {
+            cacheBuilder.expireAfterWrite(expiresAfterWriteMillis, MILLISECONDS)
+                    .refreshAfterWrite(refreshMillis, MILLISECONDS);
+        }
+
+        listingCache = cacheBuilder.build(new BackgroundCacheLoader<ListingKey, List<LocatedFileStatus>>(MoreExecutors.listeningDecorator(executor))
+        {
+            @Override
+            public List<LocatedFileStatus> load(ListingKey key)
+                    throws Exception
+            {
+                return loadListing(key);
+            }
+        });
+
+        partitionVersions = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+            throws IOException
+    {
+        if (!enabled) {
+            return delegate.list(fs, path);
+        }
+
+        ListingKey key = new ListingKey(fs, path);
+        List<LocatedFileStatus> listing = listingCache.getIfPresent(key);
+        if (listing != null) {
+            hits.update(1);
+        }
+        else {
+            misses.update(1);
+            try {
+                listing = listingCache.get(key);
+            }
+            catch (ExecutionException | UncheckedExecutionException e) {
+                Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+                throw Throwables.propagate(e.getCause());
+            }
+        }
+        return new ListRemoteIterator(listing.iterator());
+    }
+
+    @Override
+    public void invalidateIfChanged(Path partitionLocation, Object partitionVersion)
+    {
+        if (!enabled) {
+            return;
+        }
+
+        Object previous = partitionVersions.asMap().put(partitionLocation, partitionVersion);
+        if (previous != null && previous.equals(partitionVersion)) {
+            return;
+        }
+
+        // without a previous version, which may have been evicted, the cached listings can not be trusted either
+        if (previous != null) {
+            invalidations.update(1);
+        }
+        String prefix = partitionLocation.toString() + Path.SEPARATOR;
+        for (ListingKey key : listingCache.asMap().keySet()) {
+            String path = key.getPath().toString();
+            if (path.equals(partitionLocation.toString()) || path.startsWith(prefix)) {
+                listingCache.invalidate(key);
+            }
+        }
+    }
+
+    private List<LocatedFileStatus> loadListing(ListingKey key)
+            throws IOException
+    {
+        try (TimeStat.BlockTimer timer = listingTime.time()) {
+            ImmutableList.Builder<LocatedFileStatus> listing = ImmutableList.builder();
+            RemoteIterator<LocatedFileStatus> iterator = delegate.list(key.getFileSystem(), key.getPath());
+            while (iterator.hasNext()) {
+                listing.add(iterator.next());
+            }
+            return listing.build();
+        }
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        listingCache.invalidateAll();
+        partitionVersions.invalidateAll();
+    }
+
+    @Managed
+    public long getCachedDirectories()
+    {
+        return listingCache.size();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getInvalidations()
+    {
+        return invalidations;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getListingTime()
+    {
+        return listingTime;
+    }
+
+    private static class ListRemoteIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final Iterator<LocatedFileStatus> iterator;
+
+        private ListRemoteIterator(Iterator<LocatedFileStatus> iterator)
+        {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public LocatedFileStatus next()
+        {
+            return iterator.next();
+        }
+    }
+
+    /**
+     * The file system is carried along for background reloads, and only its URI is part of the identity of the key.
+     */
+    private static class ListingKey
+    {
+        private final FileSystem fileSystem;
+        private final URI fileSystemUri;
+        private final Path path;
+
+        private ListingKey(FileSystem fileSystem, Path path)
+        {
+            this.fileSystem = checkNotNull(fileSystem, "fileSystem is null");
+            this.fileSystemUri = checkNotNull(fileSystem.getUri(), "fileSystem uri is null");
+            this.path = checkNotNull(path, "path is null");
+        }
+
+        public FileSystem getFileSystem()
+        {
+            return fileSystem;
+        }
+
+        public Path getPath()
+        {
+            return path;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hashCode(fileSystemUri, path);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            ListingKey other = (ListingKey) obj;
+            return Objects.equal(this.fileSystemUri, other.fileSystemUri) &&
+                    Objects.equal(this.path, other.path);
+        }
+
+        @Override
+        public String toString()
+        {
+            return fileSystemUri + " " + path;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static java.lang.String.format;
+
+/**
+ * File system that serves reads of the wrapped file system through the {@link LocalFileCache}.
+ * <p/>
+ * The wrapped file system implementation for a scheme is configured with
+ * {@link #delegateImplKey(String)} and the cache is located with {@link #CACHE_ID}.
+ */
+public class CachingFileSystem
+        extends FilterFileSystem
+{
+    public static final String CACHE_ID = "presto.local-cache.id";
+
+    private LocalFileCache cache;
+
+    public static String delegateImplKey(String scheme)
+    {
+        return format("presto.local-cache.fs.%s.impl", scheme);
+    }
+
+    @Override
+    public void initialize(URI uri, Configuration conf)
+            throws IOException
+    {
+        checkNotNull(uri, "uri is null");
+        checkNotNull(conf, "conf is null");
+
+        Class<?> delegateClass = conf.getClass(delegateImplKey(uri.getScheme()), null);
+        if (delegateClass == null) {
+            throw new IOException("No delegate file system configured for scheme: " + uri.getScheme());
+        }
+        try {
+            // the delegate is left unconfigured so that FilterFileSystem initializes it
+            this.fs = (FileSystem) delegateClass.newInstance();
+        }
+        catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IOException("Cannot create delegate file system: " + delegateClass.getName(), e);
+        }
+        this.cache = LocalFileCache.getCache(conf.get(CACHE_ID));
+
+        super.initialize(uri, conf);
+    }
+
+    @Override
+    public FSDataInputStream open(Path path, int bufferSize)
+            throws IOException
+    {
+        FileStatus status = fs.getFileStatus(path);
+        return new FSDataInputStream(new CachingInputStream(fs, cache, status, bufferSize));
+    }
+
+    private static class CachingInputStream
+            extends FSInputStream
+    {
+        private final FileSystem fs;
+        private final LocalFileCache cache;
+        private final Path path;
+        private final String pathName;
+        private final long modificationTime;
+        private final long length;
+        private final int bufferSize;
+
+        private FSDataInputStream delegate;
+        private long position;
+        private boolean closed;
+
+        private CachingInputStream(FileSystem fs, LocalFileCache cache, FileStatus status, int bufferSize)
+        {
+            this.fs = fs;
+            this.cache = cache;
+            this.path = status.getPath();
+            this.pathName = path.toString();
+            this.modificationTime = status.getModificationTime();
+            this.length = status.getLen();
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public void seek(long position)
+                throws IOException
+        {
+            checkOpen();
+            if (position < 0 || position > length) {
+                throw new EOFException(format("Cannot seek to %s in %s of length %s", position, path, length));
+            }
+            this.position = position;
+        }
+
+        @Override
+        public long getPos()
+        {
+            return position;
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPos)
+        {
+            return false;
+        }
+
+        @Override
+        public int available()
+        {
+            return (int) Math.min(Integer.MAX_VALUE, length - position);
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            byte[] bytes = new byte[1];
+            int read = read(bytes, 0, 1);
+            if (read <= 0) {
+                return -1;
+            }
+            return bytes[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            int read = read(position, buffer, offset, length);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            checkOpen();
+            checkPositionIndexes(offset, offset + length, buffer.length);
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= this.length) {
+                return -1;
+            }
+
+            // serve the read from the single block containing the position
+            long blockSize = cache.getBlockSize();
+            long blockOffset = (position / blockSize) * blockSize;
+            ByteBuffer block = cache.getBlock(pathName, modificationTime, blockOffset, new LocalFileCache.BlockLoader()
+            {
+                @Override
+                public byte[] load(long offset, int length)
+                        throws IOException
+                {
+                    return loadBlock(offset, length);
+                }
+            });
+
+            int blockPosition = (int) (position - blockOffset);
+            if (blockPosition >= block.limit()) {
+                return -1;
+            }
+            int read = Math.min(length, block.limit() - blockPosition);
+            block.position(blockPosition);
+            block.get(buffer, offset, read);
+            return read;
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            closed = true;
+            if (delegate != null) {
+                delegate.close();
+                delegate = null;
+            }
+        }
+
+        private byte[] loadBlock(long offset, int blockSize)
+                throws IOException
+        {
+            if (delegate == null) {
+                delegate = fs.open(path, bufferSize);
+            }
+            byte[] data = new byte[(int) Math.min(blockSize, length - offset)];
+            delegate.readFully(offset, data);
+            return data;
+        }
+
+        private void checkOpen()
+                throws IOException
+        {
+            if (closed) {
+                throw new IOException("Stream is closed: " + path);
+            }
+        }
+    }
+}
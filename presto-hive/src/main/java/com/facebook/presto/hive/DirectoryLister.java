@@ -24,4 +24,10 @@ public interface DirectoryLister
 {
     RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
             throws IOException;
+
+    /**
+     * Informs the lister of the current metastore version of a partition, so cached
+     * listings under the partition location can be discarded when the partition changes.
+     */
+    void invalidateIfChanged(Path partitionLocation, Object partitionVersion);
 }
@@ -31,4 +31,10 @@ public class HadoopDirectoryLister
     {
         return listLocatedStatus(fs, path);
     }
+
+    @Override
+    public void invalidateIfChanged(Path partitionLocation, Object partitionVersion)
+    {
+        // listings are not cached
+    }
 }
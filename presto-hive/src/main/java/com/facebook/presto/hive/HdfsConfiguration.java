@@ -26,11 +26,13 @@ import javax.inject.Inject;
 import javax.net.SocketFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
+import static org.apache.hadoop.fs.FileSystem.getFileSystemClass;
 
 public class HdfsConfiguration
 {
@@ -47,6 +49,7 @@ public class HdfsConfiguration
     private final Duration s3ConnectTimeout;
     private final File s3StagingDirectory;
     private final List<String> resourcePaths;
+    private final LocalFileCache localFileCache;
 
     @SuppressWarnings("ThreadLocalNotStaticFinal")
     private final ThreadLocal<Configuration> hadoopConfiguration = new ThreadLocal<Configuration>()
@@ -58,8 +61,13 @@ public class HdfsConfiguration
         }
     };
 
-    @Inject
     public HdfsConfiguration(HiveClientConfig hiveClientConfig)
+    {
+        this(hiveClientConfig, new LocalFileCache(checkNotNull(hiveClientConfig, "hiveClientConfig is null")));
+    }
+
+    @Inject
+    public HdfsConfiguration(HiveClientConfig hiveClientConfig, LocalFileCache localFileCache)
     {
         checkNotNull(hiveClientConfig, "hiveClientConfig is null");
         checkArgument(hiveClientConfig.getDfsTimeout().toMillis() >= 1, "dfsTimeout must be at least 1 ms");
@@ -77,6 +85,7 @@ public class HdfsConfiguration
         this.s3ConnectTimeout = hiveClientConfig.getS3ConnectTimeout();
         this.s3StagingDirectory = hiveClientConfig.getS3StagingDirectory();
         this.resourcePaths = hiveClientConfig.getResourceConfigFiles();
+        this.localFileCache = checkNotNull(localFileCache, "localFileCache is null");
     }
 
     @SuppressWarnings("UnusedParameters")
@@ -140,11 +149,36 @@ public class HdfsConfiguration
         config.set(PrestoS3FileSystem.S3_CONNECT_TIMEOUT, s3ConnectTimeout.toString());
         config.set(PrestoS3FileSystem.S3_STAGING_DIRECTORY, s3StagingDirectory.toString());
 
+        // route reads through the local cache by wrapping the configured file systems
+        if (localFileCache.isEnabled()) {
+            config.set(CachingFileSystem.CACHE_ID, localFileCache.getId());
+            for (String scheme : localFileCache.getSchemes()) {
+                String implKey = format("fs.%s.impl", scheme);
+                String impl = config.get(implKey);
+                if (impl == null) {
+                    // file systems discovered through the service loader, such as hdfs on Hadoop 2, have no impl key
+                    impl = getDiscoveredFileSystemClass(scheme, config);
+                }
+                config.set(CachingFileSystem.delegateImplKey(scheme), impl);
+                config.set(implKey, CachingFileSystem.class.getName());
+            }
+        }
+
         updateConfiguration(config);
 
         return config;
     }
 
+    private static String getDiscoveredFileSystemClass(String scheme, Configuration config)
+    {
+        try {
+            return getFileSystemClass(scheme, config).getName();
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(format("No file system configured for local cache scheme: %s", scheme), e);
+        }
+    }
+
     @SuppressWarnings("UnusedParameters")
     protected void updateConfiguration(Configuration config)
     {
@@ -35,8 +35,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static com.facebook.presto.hive.HiveType.getHiveType;
 import static com.facebook.presto.hive.HiveUtil.getTableStructFields;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Maps.immutableEntry;
 import static com.google.common.collect.Sets.immutableEnumSet;
 import static java.util.Map.Entry;
@@ -65,6 +67,41 @@ final class HiveBucketing
 
     private HiveBucketing() {}
 
+    public static Optional<HiveBucketLayout> getHiveBucketLayout(String connectorId, Table table)
+    {
+        if (!table.getSd().isSetBucketCols() || table.getSd().getBucketCols().isEmpty() ||
+                !table.getSd().isSetNumBuckets() || (table.getSd().getNumBuckets() <= 0)) {
+            return Optional.absent();
+        }
+
+        // the handles must match the data column handles of the table
+        Map<String, HiveColumnHandle> columns = new HashMap<>();
+        try {
+            int hiveColumnIndex = 0;
+            for (StructField field : getTableStructFields(table)) {
+                HiveType hiveType = getHiveType(field.getFieldObjectInspector());
+                if (hiveType != null) {
+                    columns.put(field.getFieldName(), new HiveColumnHandle(connectorId, field.getFieldName(), hiveColumnIndex, hiveType, hiveColumnIndex, false));
+                }
+                hiveColumnIndex++;
+            }
+        }
+        catch (MetaException | SerDeException e) {
+            throw Throwables.propagate(e);
+        }
+
+        ImmutableList.Builder<HiveColumnHandle> bucketColumns = ImmutableList.builder();
+        for (String column : table.getSd().getBucketCols()) {
+            HiveColumnHandle columnHandle = columns.get(column);
+            if (columnHandle == null) {
+                return Optional.absent();
+            }
+            bucketColumns.add(columnHandle);
+        }
+
+        return Optional.of(new HiveBucketLayout(bucketColumns.build(), table.getSd().getNumBuckets()));
+    }
+
     public static Optional<HiveBucket> getHiveBucket(Table table, Map<ColumnHandle, ?> bindings)
     {
         if (!table.getSd().isSetBucketCols() || table.getSd().getBucketCols().isEmpty() ||
@@ -194,6 +231,34 @@ final class HiveBucketing
         throw new RuntimeException("Unsupported type: " + poi.getPrimitiveCategory());
     }
 
+    /**
+     * The bucketing of a table: rows are assigned to one of bucketCount files by the hash of the bucket columns.
+     */
+    public static class HiveBucketLayout
+    {
+        private final List<HiveColumnHandle> bucketColumns;
+        private final int bucketCount;
+
+        public HiveBucketLayout(List<HiveColumnHandle> bucketColumns, int bucketCount)
+        {
+            checkArgument(!checkNotNull(bucketColumns, "bucketColumns is null").isEmpty(), "bucketColumns is empty");
+            checkArgument(bucketCount > 0, "bucketCount must be greater than zero");
+
+            this.bucketColumns = ImmutableList.copyOf(bucketColumns);
+            this.bucketCount = bucketCount;
+        }
+
+        public List<HiveColumnHandle> getBucketColumns()
+        {
+            return bucketColumns;
+        }
+
+        public int getBucketCount()
+        {
+            return bucketCount;
+        }
+    }
+
     public static class HiveBucket
     {
         private final int bucketNumber;
@@ -94,7 +94,9 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.hive.HiveBucketing.HiveBucket;
+import static com.facebook.presto.hive.HiveBucketing.HiveBucketLayout;
 import static com.facebook.presto.hive.HiveBucketing.getHiveBucket;
+import static com.facebook.presto.hive.HiveBucketing.getHiveBucketLayout;
 import static com.facebook.presto.hive.HiveColumnHandle.columnMetadataGetter;
 import static com.facebook.presto.hive.HiveColumnHandle.hiveColumnHandle;
 import static com.facebook.presto.hive.HiveColumnHandle.SAMPLE_WEIGHT_COLUMN_NAME;
@@ -149,6 +151,9 @@ public class HiveClient
     private final DateTimeZone timeZone;
     private final Executor executor;
     private final DataSize maxSplitSize;
+    private final boolean combineSmallFiles;
+    private final int maxCombinedSplitFiles;
+    private final boolean bucketExecutionEnabled;
 
     @Inject
     public HiveClient(HiveConnectorId connectorId,
@@ -170,7 +175,10 @@ public class HiveClient
                 hiveClientConfig.getMaxOutstandingSplits(),
                 hiveClientConfig.getMaxSplitIteratorThreads(),
                 hiveClientConfig.getMinPartitionBatchSize(),
-                hiveClientConfig.getMaxPartitionBatchSize());
+                hiveClientConfig.getMaxPartitionBatchSize(),
+                hiveClientConfig.isCombineSmallFiles(),
+                hiveClientConfig.getMaxCombinedSplitFiles(),
+                hiveClientConfig.isBucketExecutionEnabled());
     }
 
     public HiveClient(HiveConnectorId connectorId,
@@ -184,7 +192,10 @@ public class HiveClient
             int maxOutstandingSplits,
             int maxSplitIteratorThreads,
             int minPartitionBatchSize,
-            int maxPartitionBatchSize)
+            int maxPartitionBatchSize,
+            boolean combineSmallFiles,
+            int maxCombinedSplitFiles,
+            boolean bucketExecutionEnabled)
     {
         this.connectorId = checkNotNull(connectorId, "connectorId is null").toString();
 
@@ -194,6 +205,10 @@ public class HiveClient
         this.maxSplitIteratorThreads = maxSplitIteratorThreads;
         this.minPartitionBatchSize = minPartitionBatchSize;
         this.maxPartitionBatchSize = maxPartitionBatchSize;
+        this.combineSmallFiles = combineSmallFiles;
+        checkArgument(maxCombinedSplitFiles > 0, "maxCombinedSplitFiles must be at least 1");
+        this.maxCombinedSplitFiles = maxCombinedSplitFiles;
+        this.bucketExecutionEnabled = bucketExecutionEnabled;
 
         this.metastore = checkNotNull(metastore, "metastore is null");
         this.hdfsEnvironment = checkNotNull(hdfsEnvironment, "hdfsEnvironment is null");
@@ -644,6 +659,7 @@ public class HiveClient
 
         List<FieldSchema> partitionKeys;
         Optional<HiveBucket> bucket;
+        Optional<HiveBucketLayout> bucketLayout = Optional.absent();
 
         try {
             Table table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
@@ -655,6 +671,9 @@ public class HiveClient
 
             partitionKeys = table.getPartitionKeys();
             bucket = getHiveBucket(table, tupleDomain.extractFixedValues());
+            if (bucketExecutionEnabled) {
+                bucketLayout = getHiveBucketLayout(connectorId, table);
+            }
         }
         catch (NoSuchObjectException e) {
             throw new TableNotFoundException(tableName);
@@ -704,7 +723,7 @@ public class HiveClient
         // do a final pass to filter based on fields that could not be used to build the prefix
         Map<String, ColumnHandle> partitionKeysByName = partitionKeysByNameBuilder.build();
         List<Partition> partitions = FluentIterable.from(partitionNames)
-                .transform(toPartition(tableName, partitionKeysByName, bucket, timeZone))
+                .transform(toPartition(tableName, partitionKeysByName, bucket, bucketLayout, timeZone))
                 .filter(partitionMatches(tupleDomain))
                 .filter(Partition.class)
                 .toList();
@@ -730,6 +749,7 @@ public class HiveClient
         checkArgument(partition instanceof HivePartition, "Partition must be a hive partition");
         SchemaTableName tableName = ((HivePartition) partition).getTableName();
         Optional<HiveBucket> bucket = ((HivePartition) partition).getBucket();
+        Optional<HiveBucketLayout> bucketLayout = ((HivePartition) partition).getBucketLayout();
 
         List<String> partitionNames = new ArrayList<>(Lists.transform(partitions, HiveUtil.partitionIdGetter()));
         Collections.sort(partitionNames, Ordering.natural().reverse());
@@ -749,6 +769,7 @@ public class HiveClient
                 partitionNames,
                 hivePartitions,
                 bucket,
+                bucketLayout,
                 maxSplitSize,
                 maxOutstandingSplits,
                 maxSplitIteratorThreads,
@@ -756,7 +777,9 @@ public class HiveClient
                 namenodeStats,
                 directoryLister,
                 executor,
-                maxPartitionBatchSize).get();
+                maxPartitionBatchSize,
+                combineSmallFiles,
+                maxCombinedSplitFiles).get();
     }
 
     private Iterable<org.apache.hadoop.hive.metastore.api.Partition> getPartitions(final Table table, final SchemaTableName tableName, List<String> partitionNames)
@@ -893,6 +916,7 @@ public class HiveClient
             final SchemaTableName tableName,
             final Map<String, ColumnHandle> columnsByName,
             final Optional<HiveBucket> bucket,
+            final Optional<HiveBucketLayout> bucketLayout,
             final DateTimeZone timeZone)
     {
         return new Function<String, HivePartition>()
@@ -902,7 +926,7 @@ public class HiveClient
             {
                 try {
                     if (partitionId.equals(UNPARTITIONED_ID)) {
-                        return new HivePartition(tableName);
+                        return new HivePartition(tableName, bucketLayout);
                     }
 
                     LinkedHashMap<String, String> keys = Warehouse.makeSpecFromName(partitionId);
@@ -947,7 +971,7 @@ public class HiveClient
                         }
                     }
 
-                    return new HivePartition(tableName, partitionId, builder.build(), bucket);
+                    return new HivePartition(tableName, partitionId, builder.build(), bucket, bucketLayout);
                 }
                 catch (MetaException e) {
                     // invalid partition id
@@ -22,6 +22,7 @@ import io.airlift.configuration.ConfigDescription;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import io.airlift.units.Duration;
+import io.airlift.units.MaxDataSize;
 import io.airlift.units.MinDuration;
 
 import javax.validation.constraints.Min;
@@ -45,9 +46,18 @@ public class HiveClientConfig
     private int minPartitionBatchSize = 10;
     private int maxPartitionBatchSize = 100;
 
+    private boolean combineSmallFiles;
+    private int maxCombinedSplitFiles = 100;
+
+    private boolean bucketExecutionEnabled;
+
     private Duration metastoreCacheTtl = new Duration(1, TimeUnit.HOURS);
     private Duration metastoreRefreshInterval = new Duration(2, TimeUnit.MINUTES);
     private int maxMetastoreRefreshThreads = 100;
+
+    private Duration directoryListingCacheTtl = new Duration(0, TimeUnit.SECONDS);
+    private Duration directoryListingRefreshInterval = new Duration(1, TimeUnit.MINUTES);
+    private long directoryListingCacheMaxSize = 10_000;
     private HostAndPort metastoreSocksProxy;
     private Duration metastoreTimeout = new Duration(10, TimeUnit.SECONDS);
 
@@ -67,6 +77,12 @@ public class HiveClientConfig
 
     private List<String> resourceConfigFiles;
 
+    private boolean localCacheEnabled;
+    private File localCacheDirectory = new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "presto-hive-cache");
+    private DataSize localCacheMaxSize = new DataSize(10, Unit.GIGABYTE);
+    private DataSize localCacheBlockSize = new DataSize(1, Unit.MEGABYTE);
+    private List<String> localCacheSchemes = ImmutableList.of("s3", "s3n");
+
     @NotNull
     public TimeZone getTimeZone()
     {
@@ -177,6 +193,48 @@ public class HiveClientConfig
         return this;
     }
 
+    @NotNull
+    public Duration getDirectoryListingCacheTtl()
+    {
+        return directoryListingCacheTtl;
+    }
+
+    @Config("hive.directory-listing-cache-ttl")
+    @ConfigDescription("Time to cache directory listings, zero disables the cache")
+    public HiveClientConfig setDirectoryListingCacheTtl(Duration directoryListingCacheTtl)
+    {
+        this.directoryListingCacheTtl = directoryListingCacheTtl;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getDirectoryListingRefreshInterval()
+    {
+        return directoryListingRefreshInterval;
+    }
+
+    @Config("hive.directory-listing-refresh-interval")
+    public HiveClientConfig setDirectoryListingRefreshInterval(Duration directoryListingRefreshInterval)
+    {
+        this.directoryListingRefreshInterval = directoryListingRefreshInterval;
+        return this;
+    }
+
+    @Min(1)
+    public long getDirectoryListingCacheMaxSize()
+    {
+        return directoryListingCacheMaxSize;
+    }
+
+    @Config("hive.directory-listing-cache-max-size")
+    @ConfigDescription("Maximum number of directories with cached listings")
+    public HiveClientConfig setDirectoryListingCacheMaxSize(long directoryListingCacheMaxSize)
+    {
+        this.directoryListingCacheMaxSize = directoryListingCacheMaxSize;
+        return this;
+    }
+
     public HostAndPort getMetastoreSocksProxy()
     {
         return metastoreSocksProxy;
@@ -228,6 +286,45 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isCombineSmallFiles()
+    {
+        return combineSmallFiles;
+    }
+
+    @Config("hive.combine-small-files")
+    @ConfigDescription("Pack files smaller than the max split size into a single split")
+    public HiveClientConfig setCombineSmallFiles(boolean combineSmallFiles)
+    {
+        this.combineSmallFiles = combineSmallFiles;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxCombinedSplitFiles()
+    {
+        return maxCombinedSplitFiles;
+    }
+
+    @Config("hive.max-combined-split-files")
+    public HiveClientConfig setMaxCombinedSplitFiles(int maxCombinedSplitFiles)
+    {
+        this.maxCombinedSplitFiles = maxCombinedSplitFiles;
+        return this;
+    }
+
+    public boolean isBucketExecutionEnabled()
+    {
+        return bucketExecutionEnabled;
+    }
+
+    @Config("hive.bucket-execution-enabled")
+    @ConfigDescription("Expose the bucketing of tables to the engine, so operations on the bucket columns are not repartitioned")
+    public HiveClientConfig setBucketExecutionEnabled(boolean bucketExecutionEnabled)
+    {
+        this.bucketExecutionEnabled = bucketExecutionEnabled;
+        return this;
+    }
+
     public List<String> getResourceConfigFiles()
     {
         return resourceConfigFiles;
@@ -388,4 +485,77 @@ public class HiveClientConfig
         this.s3StagingDirectory = s3StagingDirectory;
         return this;
     }
+
+    public boolean isLocalCacheEnabled()
+    {
+        return localCacheEnabled;
+    }
+
+    @Config("hive.local-cache.enabled")
+    @ConfigDescription("Cache ranges of remote files on local disk")
+    public HiveClientConfig setLocalCacheEnabled(boolean localCacheEnabled)
+    {
+        this.localCacheEnabled = localCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public File getLocalCacheDirectory()
+    {
+        return localCacheDirectory;
+    }
+
+    @Config("hive.local-cache.directory")
+    public HiveClientConfig setLocalCacheDirectory(File localCacheDirectory)
+    {
+        this.localCacheDirectory = localCacheDirectory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getLocalCacheMaxSize()
+    {
+        return localCacheMaxSize;
+    }
+
+    @Config("hive.local-cache.max-size")
+    public HiveClientConfig setLocalCacheMaxSize(DataSize localCacheMaxSize)
+    {
+        this.localCacheMaxSize = localCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    @MaxDataSize("1GB")
+    public DataSize getLocalCacheBlockSize()
+    {
+        return localCacheBlockSize;
+    }
+
+    @Config("hive.local-cache.block-size")
+    public HiveClientConfig setLocalCacheBlockSize(DataSize localCacheBlockSize)
+    {
+        this.localCacheBlockSize = localCacheBlockSize;
+        return this;
+    }
+
+    @NotNull
+    public List<String> getLocalCacheSchemes()
+    {
+        return localCacheSchemes;
+    }
+
+    @Config("hive.local-cache.schemes")
+    @ConfigDescription("File system schemes whose reads go through the local cache")
+    public HiveClientConfig setLocalCacheSchemes(String schemes)
+    {
+        this.localCacheSchemes = (schemes == null) ? null : SPLITTER.splitToList(schemes);
+        return this;
+    }
+
+    public HiveClientConfig setLocalCacheSchemes(List<String> schemes)
+    {
+        this.localCacheSchemes = (schemes == null) ? null : ImmutableList.copyOf(schemes);
+        return this;
+    }
 }
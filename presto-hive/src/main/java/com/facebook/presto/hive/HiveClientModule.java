@@ -53,7 +53,10 @@ public class HiveClientModule
 
         binder.bind(HdfsConfiguration.class).in(Scopes.SINGLETON);
         binder.bind(HdfsEnvironment.class).in(Scopes.SINGLETON);
-        binder.bind(DirectoryLister.class).to(HadoopDirectoryLister.class).in(Scopes.SINGLETON);
+        binder.bind(CachingDirectoryLister.class).in(Scopes.SINGLETON);
+        binder.bind(DirectoryLister.class).to(CachingDirectoryLister.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(CachingDirectoryLister.class)
+                .as(generatedNameOf(CachingDirectoryLister.class, connectorId));
         bindConfig(binder).to(HiveClientConfig.class);
         bindConfig(binder).to(HivePluginConfig.class);
 
@@ -62,6 +65,9 @@ public class HiveClientModule
                 .as(generatedNameOf(CachingHiveMetastore.class, connectorId));
         binder.bind(NamenodeStats.class).in(Scopes.SINGLETON);
         newExporter(binder).export(NamenodeStats.class).as(generatedNameOf(NamenodeStats.class));
+        binder.bind(LocalFileCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(LocalFileCache.class)
+                .as(generatedNameOf(LocalFileCache.class, connectorId));
 
         binder.bind(DiscoveryLocatedHiveCluster.class).in(Scopes.SINGLETON);
         binder.bind(HiveMetastoreClientFactory.class).in(Scopes.SINGLETON);
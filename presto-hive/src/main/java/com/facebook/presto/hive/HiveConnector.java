@@ -21,6 +21,7 @@ import com.facebook.presto.spi.ConnectorOutputHandleResolver;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -91,4 +92,10 @@ public class HiveConnector
     {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public ConnectorStatisticsProvider getStatisticsProvider()
+    {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -24,7 +24,8 @@ public enum HiveErrorCode
     HIVE_CANNOT_OPEN_SPLIT(0x0100_0003),
     HIVE_FILE_NOT_FOUND(0x0100_0004),
     HIVE_UNKNOWN_ERROR(0x0100_0005),
-    HIVE_PARTITION_OFFLINE(0x0100_0006);
+    HIVE_PARTITION_OFFLINE(0x0100_0006),
+    HIVE_INVALID_BUCKET_FILES(0x0100_0007);
 
     private final ErrorCode errorCode;
 
@@ -13,21 +13,24 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.spi.BucketedPartition;
 import com.facebook.presto.spi.ColumnHandle;
-import com.facebook.presto.spi.Partition;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.TupleDomain;
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 import static com.facebook.presto.hive.HiveBucketing.HiveBucket;
+import static com.facebook.presto.hive.HiveBucketing.HiveBucketLayout;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class HivePartition
-        implements Partition
+        implements BucketedPartition
 {
     public static final String UNPARTITIONED_ID = "<UNPARTITIONED>";
 
@@ -35,21 +38,30 @@ public class HivePartition
     private final String partitionId;
     private final Map<ColumnHandle, Comparable<?>> keys;
     private final Optional<HiveBucket> bucket;
+    private final Optional<HiveBucketLayout> bucketLayout;
 
     public HivePartition(SchemaTableName tableName)
     {
-        this.tableName = checkNotNull(tableName, "tableName is null");
-        this.partitionId = UNPARTITIONED_ID;
-        this.keys = ImmutableMap.of();
-        this.bucket = Optional.absent();
+        this(tableName, Optional.<HiveBucketLayout>absent());
+    }
+
+    public HivePartition(SchemaTableName tableName, Optional<HiveBucketLayout> bucketLayout)
+    {
+        this(tableName, UNPARTITIONED_ID, ImmutableMap.<ColumnHandle, Comparable<?>>of(), Optional.<HiveBucket>absent(), bucketLayout);
     }
 
     public HivePartition(SchemaTableName tableName, String partitionId, Map<ColumnHandle, Comparable<?>> keys, Optional<HiveBucket> bucket)
+    {
+        this(tableName, partitionId, keys, bucket, Optional.<HiveBucketLayout>absent());
+    }
+
+    public HivePartition(SchemaTableName tableName, String partitionId, Map<ColumnHandle, Comparable<?>> keys, Optional<HiveBucket> bucket, Optional<HiveBucketLayout> bucketLayout)
     {
         this.tableName = checkNotNull(tableName, "tableName is null");
         this.partitionId = checkNotNull(partitionId, "partitionId is null");
         this.keys = ImmutableMap.copyOf(checkNotNull(keys, "keys is null"));
         this.bucket = checkNotNull(bucket, "bucket number is null");
+        this.bucketLayout = checkNotNull(bucketLayout, "bucketLayout is null");
     }
 
     public SchemaTableName getTableName()
@@ -79,6 +91,32 @@ public class HivePartition
         return bucket;
     }
 
+    /**
+     * Present when the table is bucketed and the splits of the partition are assigned to buckets.
+     */
+    public Optional<HiveBucketLayout> getBucketLayout()
+    {
+        return bucketLayout;
+    }
+
+    @Override
+    public List<ColumnHandle> getBucketColumns()
+    {
+        if (!bucketLayout.isPresent()) {
+            return ImmutableList.of();
+        }
+        return ImmutableList.<ColumnHandle>copyOf(bucketLayout.get().getBucketColumns());
+    }
+
+    @Override
+    public int getBucketCount()
+    {
+        if (!bucketLayout.isPresent()) {
+            return 0;
+        }
+        return bucketLayout.get().getBucketCount();
+    }
+
     @Override
     public int hashCode()
     {
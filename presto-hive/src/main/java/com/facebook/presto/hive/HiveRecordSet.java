@@ -18,6 +18,7 @@ import com.facebook.presto.hadoop.HadoopNative;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
@@ -65,6 +66,7 @@ public class HiveRecordSet
         HadoopFileSystemCache.initialize();
     }
 
+    private final HdfsEnvironment hdfsEnvironment;
     private final HiveSplit split;
     private final List<HiveColumnHandle> columns;
     private final List<Type> columnTypes;
@@ -76,6 +78,7 @@ public class HiveRecordSet
 
     public HiveRecordSet(HdfsEnvironment hdfsEnvironment, HiveSplit split, List<HiveColumnHandle> columns, List<HiveRecordCursorProvider> cursorProviders, DateTimeZone timeZone)
     {
+        this.hdfsEnvironment = checkNotNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.split = checkNotNull(split, "split is null");
         this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
         this.columnTypes = ImmutableList.copyOf(Iterables.transform(columns, nativeTypeGetter()));
@@ -112,10 +115,26 @@ public class HiveRecordSet
         // Tell hive the columns we would like to read, this lets hive optimize reading column oriented files
         ColumnProjectionUtils.setReadColumnIDs(configuration, readHiveColumnIndexes);
 
-        RecordReader<?, ?> recordReader = createRecordReader(split, configuration, wrappedPath);
+        List<HiveSplit> fileSplits = split.getFileSplits();
+        if (fileSplits.size() == 1) {
+            return createCursor(split, wrappedPath);
+        }
+        return new MultiFileRecordCursor(fileSplits, columnTypes, new Function<HiveSplit, HiveRecordCursor>()
+        {
+            @Override
+            public HiveRecordCursor apply(HiveSplit fileSplit)
+            {
+                return createCursor(fileSplit, hdfsEnvironment.wrapInputPath(new Path(fileSplit.getPath())));
+            }
+        });
+    }
+
+    private HiveRecordCursor createCursor(HiveSplit fileSplit, Path wrappedPath)
+    {
+        RecordReader<?, ?> recordReader = createRecordReader(fileSplit, configuration, wrappedPath);
 
         for (HiveRecordCursorProvider provider : cursorProviders) {
-            Optional<HiveRecordCursor> cursor = provider.createHiveRecordCursor(split, recordReader, columns, timeZone);
+            Optional<HiveRecordCursor> cursor = provider.createHiveRecordCursor(fileSplit, recordReader, columns, timeZone);
             if (cursor.isPresent()) {
                 return cursor.get();
             }
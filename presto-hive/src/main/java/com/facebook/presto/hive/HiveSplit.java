@@ -13,8 +13,9 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.spi.BucketedSplit;
 import com.facebook.presto.spi.HostAddress;
-import com.facebook.presto.spi.Split;
+import com.facebook.presto.spi.SizedSplit;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Objects;
@@ -28,7 +29,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class HiveSplit
-        implements Split
+        implements BucketedSplit, SizedSplit
 {
     private final String clientId;
     private final String path;
@@ -40,6 +41,23 @@ public class HiveSplit
     private final String database;
     private final String table;
     private final String partitionName;
+    private final List<HiveFileRange> additionalFiles;
+    private final int bucketNumber;
+
+    public HiveSplit(
+            String clientId,
+            String database,
+            String table,
+            String partitionName,
+            String path,
+            long start,
+            long length,
+            Properties schema,
+            List<HivePartitionKey> partitionKeys,
+            List<HostAddress> addresses)
+    {
+        this(clientId, database, table, partitionName, path, start, length, schema, partitionKeys, addresses, ImmutableList.<HiveFileRange>of(), NOT_BUCKETED);
+    }
 
     @JsonCreator
     public HiveSplit(
@@ -52,7 +70,9 @@ public class HiveSplit
             @JsonProperty("length") long length,
             @JsonProperty("schema") Properties schema,
             @JsonProperty("partitionKeys") List<HivePartitionKey> partitionKeys,
-            @JsonProperty("addresses") List<HostAddress> addresses)
+            @JsonProperty("addresses") List<HostAddress> addresses,
+            @JsonProperty("additionalFiles") List<HiveFileRange> additionalFiles,
+            @JsonProperty("bucketNumber") int bucketNumber)
     {
         checkNotNull(clientId, "clientId is null");
         checkArgument(start >= 0, "start must be positive");
@@ -64,6 +84,8 @@ public class HiveSplit
         checkNotNull(schema, "schema is null");
         checkNotNull(partitionKeys, "partitionKeys is null");
         checkNotNull(addresses, "addresses is null");
+        checkNotNull(additionalFiles, "additionalFiles is null");
+        checkArgument(bucketNumber >= NOT_BUCKETED, "invalid bucketNumber");
 
         this.clientId = clientId;
         this.database = database;
@@ -75,6 +97,8 @@ public class HiveSplit
         this.schema = schema;
         this.partitionKeys = ImmutableList.copyOf(partitionKeys);
         this.addresses = ImmutableList.copyOf(addresses);
+        this.additionalFiles = ImmutableList.copyOf(additionalFiles);
+        this.bucketNumber = bucketNumber;
     }
 
     @JsonProperty
@@ -138,6 +162,54 @@ public class HiveSplit
         return addresses;
     }
 
+    /**
+     * Files read after the primary file when small files are combined into one split.
+     */
+    @JsonProperty
+    public List<HiveFileRange> getAdditionalFiles()
+    {
+        return additionalFiles;
+    }
+
+    public long getTotalLength()
+    {
+        long totalLength = length;
+        for (HiveFileRange file : additionalFiles) {
+            totalLength += file.getLength();
+        }
+        return totalLength;
+    }
+
+    @Override
+    public long getSizeInBytes()
+    {
+        return getTotalLength();
+    }
+
+    /**
+     * Returns a single file split for the primary file and each additional file.
+     */
+    public List<HiveSplit> getFileSplits()
+    {
+        if (additionalFiles.isEmpty()) {
+            return ImmutableList.of(this);
+        }
+
+        ImmutableList.Builder<HiveSplit> splits = ImmutableList.builder();
+        splits.add(new HiveSplit(clientId, database, table, partitionName, path, start, length, schema, partitionKeys, addresses));
+        for (HiveFileRange file : additionalFiles) {
+            splits.add(new HiveSplit(clientId, database, table, partitionName, file.getPath(), file.getStart(), file.getLength(), schema, partitionKeys, addresses));
+        }
+        return splits.build();
+    }
+
+    @JsonProperty
+    @Override
+    public int getBucketNumber()
+    {
+        return bucketNumber;
+    }
+
     @Override
     public boolean isRemotelyAccessible()
     {
@@ -155,6 +227,8 @@ public class HiveSplit
                 .put("database", database)
                 .put("table", table)
                 .put("partitionName", partitionName)
+                .put("additionalFiles", additionalFiles.size())
+                .put("bucketNumber", bucketNumber)
                 .build();
     }
 
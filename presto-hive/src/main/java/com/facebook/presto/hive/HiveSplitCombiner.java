@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.HostAddress;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Packs the splits of small files in a partition into multi-file splits.
+ * <p/>
+ * Splits are only combined with splits that have the same addresses, so combined
+ * splits keep their locality. A combined split is emitted once it reaches the max
+ * split size or the max number of files, and the remainder is emitted by {@link #flush()}.
+ */
+@ThreadSafe
+class HiveSplitCombiner
+{
+    private final long maxSplitBytes;
+    private final int maxFiles;
+    private final Map<List<HostAddress>, List<HiveSplit>> pending = new HashMap<>();
+
+    HiveSplitCombiner(DataSize maxSplitSize, int maxFiles)
+    {
+        this.maxSplitBytes = checkNotNull(maxSplitSize, "maxSplitSize is null").toBytes();
+        checkArgument(maxFiles > 0, "maxFiles must be at least 1");
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Adds the splits of a small file and returns the combined splits that are complete.
+     */
+    public synchronized List<HiveSplit> add(Iterable<HiveSplit> splits)
+    {
+        ImmutableList.Builder<HiveSplit> completed = ImmutableList.builder();
+        for (HiveSplit split : splits) {
+            checkArgument(split.getAdditionalFiles().isEmpty(), "split is already combined");
+
+            List<HiveSplit> group = pending.get(split.getAddresses());
+            if (group == null) {
+                group = new ArrayList<>();
+                pending.put(split.getAddresses(), group);
+            }
+            else if (getLength(group) + split.getLength() > maxSplitBytes) {
+                completed.add(combine(group));
+                group.clear();
+            }
+
+            group.add(split);
+            if (group.size() >= maxFiles || getLength(group) >= maxSplitBytes) {
+                completed.add(combine(group));
+                pending.remove(split.getAddresses());
+            }
+        }
+        return completed.build();
+    }
+
+    /**
+     * Returns the combined splits for all files added since the last complete split.
+     */
+    public synchronized List<HiveSplit> flush()
+    {
+        ImmutableList.Builder<HiveSplit> completed = ImmutableList.builder();
+        for (List<HiveSplit> group : pending.values()) {
+            completed.add(combine(group));
+        }
+        pending.clear();
+        return completed.build();
+    }
+
+    private static long getLength(List<HiveSplit> group)
+    {
+        long length = 0;
+        for (HiveSplit split : group) {
+            length += split.getLength();
+        }
+        return length;
+    }
+
+    private static HiveSplit combine(List<HiveSplit> group)
+    {
+        HiveSplit first = group.get(0);
+        if (group.size() == 1) {
+            return first;
+        }
+
+        ImmutableList.Builder<HiveFileRange> additionalFiles = ImmutableList.builder();
+        for (HiveSplit split : group.subList(1, group.size())) {
+            additionalFiles.add(new HiveFileRange(split.getPath(), split.getStart(), split.getLength()));
+        }
+
+        return new HiveSplit(first.getClientId(),
+                first.getDatabase(),
+                first.getTable(),
+                first.getPartitionName(),
+                first.getPath(),
+                first.getStart(),
+                first.getLength(),
+                first.getSchema(),
+                first.getPartitionKeys(),
+                first.getAddresses(),
+                additionalFiles.build(),
+                first.getBucketNumber());
+    }
+}
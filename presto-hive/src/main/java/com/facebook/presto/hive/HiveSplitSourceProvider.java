@@ -25,9 +25,11 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.BlockLocation;
@@ -50,6 +52,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -57,21 +60,25 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.hadoop.HadoopFileStatus.isFile;
 import static com.facebook.presto.hive.HiveBucketing.HiveBucket;
+import static com.facebook.presto.hive.HiveBucketing.HiveBucketLayout;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_BUCKET_FILES;
 import static com.facebook.presto.hive.HiveType.getSupportedHiveType;
 import static com.facebook.presto.hive.HiveUtil.convertNativeHiveType;
 import static com.facebook.presto.hive.HiveUtil.getInputFormat;
 import static com.facebook.presto.hive.HiveUtil.isSplittable;
 import static com.facebook.presto.hive.UnpartitionedPartition.isUnpartitioned;
+import static com.facebook.presto.spi.BucketedSplit.NOT_BUCKETED;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static java.lang.String.format;
 
 class HiveSplitSourceProvider
 {
@@ -96,11 +103,37 @@ class HiveSplitSourceProvider
         }
     };
 
+    /**
+     * Larger splits are handed out first, so the longest running splits start early and
+     * queries are not left waiting on a large split scheduled last. The finished marker
+     * always sorts after all splits.
+     */
+    private static final Comparator<Split> SPLIT_PRIORITY = new Comparator<Split>()
+    {
+        @Override
+        public int compare(Split left, Split right)
+        {
+            if (left == FINISHED_MARKER || right == FINISHED_MARKER) {
+                return Boolean.compare(left == FINISHED_MARKER, right == FINISHED_MARKER);
+            }
+            return Long.compare(getSplitLength(right), getSplitLength(left));
+        }
+
+        private long getSplitLength(Split split)
+        {
+            if (split instanceof HiveSplit) {
+                return ((HiveSplit) split).getTotalLength();
+            }
+            return 0;
+        }
+    };
+
     private final String connectorId;
     private final Table table;
     private final Iterable<String> partitionNames;
     private final Iterable<Partition> partitions;
     private final Optional<HiveBucket> bucket;
+    private final Optional<HiveBucketLayout> bucketLayout;
     private final int maxOutstandingSplits;
     private final int maxThreads;
     private final HdfsEnvironment hdfsEnvironment;
@@ -110,12 +143,15 @@ class HiveSplitSourceProvider
     private final ClassLoader classLoader;
     private final DataSize maxSplitSize;
     private final int maxPartitionBatchSize;
+    private final boolean combineSmallFiles;
+    private final int maxCombinedSplitFiles;
 
     HiveSplitSourceProvider(String connectorId,
             Table table,
             Iterable<String> partitionNames,
             Iterable<Partition> partitions,
             Optional<HiveBucket> bucket,
+            Optional<HiveBucketLayout> bucketLayout,
             DataSize maxSplitSize,
             int maxOutstandingSplits,
             int maxThreads,
@@ -123,15 +159,20 @@ class HiveSplitSourceProvider
             NamenodeStats namenodeStats,
             DirectoryLister directoryLister,
             Executor executor,
-            int maxPartitionBatchSize)
+            int maxPartitionBatchSize,
+            boolean combineSmallFiles,
+            int maxCombinedSplitFiles)
     {
         this.connectorId = connectorId;
         this.table = table;
         this.partitionNames = partitionNames;
         this.partitions = partitions;
         this.bucket = bucket;
+        this.bucketLayout = bucketLayout;
         this.maxSplitSize = maxSplitSize;
         this.maxPartitionBatchSize = maxPartitionBatchSize;
+        this.combineSmallFiles = combineSmallFiles;
+        this.maxCombinedSplitFiles = maxCombinedSplitFiles;
         this.maxOutstandingSplits = maxOutstandingSplits;
         this.maxThreads = maxThreads;
         this.hdfsEnvironment = hdfsEnvironment;
@@ -172,72 +213,20 @@ class HiveSplitSourceProvider
             Iterator<String> nameIterator = partitionNames.iterator();
             for (Partition partition : partitions) {
                 checkState(nameIterator.hasNext(), "different number of partitions and partition names!");
-                final String partitionName = nameIterator.next();
-                final Properties schema = getPartitionSchema(table, partition);
-                final List<HivePartitionKey> partitionKeys = getPartitionKeys(table, partition);
+                String partitionName = nameIterator.next();
+                Properties schema = getPartitionSchema(table, partition);
+                List<HivePartitionKey> partitionKeys = getPartitionKeys(table, partition);
 
                 Path path = new Path(getPartitionLocation(table, partition));
-                final Configuration configuration = hdfsEnvironment.getConfiguration(path);
-                final InputFormat<?, ?> inputFormat = getInputFormat(configuration, schema, false);
-
-                FileSystem fs = path.getFileSystem(configuration);
-
-                if (inputFormat instanceof SymlinkTextInputFormat) {
-                    JobConf jobConf = new JobConf(configuration);
-                    FileInputFormat.setInputPaths(jobConf, path);
-                    InputSplit[] splits = inputFormat.getSplits(jobConf, 0);
-                    for (InputSplit rawSplit : splits) {
-                        FileSplit split = ((SymlinkTextInputFormat.SymlinkTextInputSplit) rawSplit).getTargetSplit();
-
-                        // get the filesystem for the target path -- it may be a different hdfs instance
-                        FileSystem targetFilesystem = split.getPath().getFileSystem(configuration);
-                        FileStatus fileStatus = targetFilesystem.getFileStatus(split.getPath());
-                        hiveSplitSource.addToQueue(createHiveSplits(
-                                partitionName,
-                                fileStatus,
-                                targetFilesystem.getFileBlockLocations(fileStatus, split.getStart(), split.getLength()),
-                                split.getStart(),
-                                split.getLength(),
-                                schema,
-                                partitionKeys,
-                                false));
-                    }
-                    continue;
-                }
-
-                // TODO: this is currently serial across all partitions and should be done in suspendingExecutor
-                if (bucket.isPresent()) {
-                    Optional<FileStatus> bucketFile = getBucketFile(bucket.get(), fs, path);
-                    if (bucketFile.isPresent()) {
-                        FileStatus file = bucketFile.get();
-                        BlockLocation[] blockLocations = fs.getFileBlockLocations(file, 0, file.getLen());
-                        boolean splittable = isSplittable(inputFormat, fs, file.getPath());
-
-                        hiveSplitSource.addToQueue(createHiveSplits(partitionName, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable));
-                        continue;
-                    }
-                }
+                directoryLister.invalidateIfChanged(path, getPartitionVersion(table, partition));
 
                 // Acquire semaphore so that we only have a fixed number of outstanding partitions being processed asynchronously
                 // NOTE: there must not be any calls that throw in the space between acquiring the semaphore and setting the Future
                 // callback to release it. Otherwise, we will need a try-finally block around this section.
                 semaphore.acquire();
 
-                ListenableFuture<Void> partitionFuture = createRecursiveWalker(fs, suspendingExecutor).beginWalk(path, new FileStatusCallback()
-                {
-                    @Override
-                    public void process(FileStatus file, BlockLocation[] blockLocations)
-                    {
-                        try {
-                            boolean splittable = isSplittable(inputFormat, file.getPath().getFileSystem(configuration), file.getPath());
-
-                            hiveSplitSource.addToQueue(createHiveSplits(partitionName, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable));
-                        }
-                        catch (IOException e) {
-                            hiveSplitSource.fail(e);
-                        }
-                    }
-                });
+                // partitions are listed concurrently, so splits of fast partitions are not held up by slow ones
+                ListenableFuture<Void> partitionFuture = loadPartition(hiveSplitSource, suspendingExecutor, partitionName, schema, partitionKeys, path);
 
                 // release the semaphore when the partition finishes
                 Futures.addCallback(partitionFuture, new FutureCallback<Void>()
@@ -280,16 +269,160 @@ class HiveSplitSourceProvider
         }
     }
 
+    private ListenableFuture<Void> loadPartition(
+            final HiveSplitSource hiveSplitSource,
+            final SuspendingExecutor suspendingExecutor,
+            final String partitionName,
+            final Properties schema,
+            final List<HivePartitionKey> partitionKeys,
+            final Path path)
+    {
+        final SettableFuture<Void> partitionFuture = SettableFuture.create();
+        try {
+            suspendingExecutor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+                        final Configuration configuration = hdfsEnvironment.getConfiguration(path);
+                        final InputFormat<?, ?> inputFormat = getInputFormat(configuration, schema, false);
+
+                        FileSystem fs = path.getFileSystem(configuration);
+
+                        if (inputFormat instanceof SymlinkTextInputFormat) {
+                            if (bucketLayout.isPresent()) {
+                                throw new PrestoException(HIVE_INVALID_BUCKET_FILES.toErrorCode(), format("Bucketed execution is not supported for symlink table %s.%s", table.getDbName(), table.getTableName()));
+                            }
+
+                            JobConf jobConf = new JobConf(configuration);
+                            FileInputFormat.setInputPaths(jobConf, path);
+                            InputSplit[] splits = inputFormat.getSplits(jobConf, 0);
+                            for (InputSplit rawSplit : splits) {
+                                FileSplit split = ((SymlinkTextInputFormat.SymlinkTextInputSplit) rawSplit).getTargetSplit();
+
+                                // get the filesystem for the target path -- it may be a different hdfs instance
+                                FileSystem targetFilesystem = split.getPath().getFileSystem(configuration);
+                                FileStatus fileStatus = targetFilesystem.getFileStatus(split.getPath());
+                                hiveSplitSource.addToQueue(createHiveSplits(
+                                        partitionName,
+                                        fileStatus,
+                                        targetFilesystem.getFileBlockLocations(fileStatus, split.getStart(), split.getLength()),
+                                        split.getStart(),
+                                        split.getLength(),
+                                        schema,
+                                        partitionKeys,
+                                        false,
+                                        NOT_BUCKETED));
+                            }
+                            partitionFuture.set(null);
+                            return;
+                        }
+
+                        if (bucketLayout.isPresent()) {
+                            // every split is tagged with its bucket, so the files must match the bucketing declaration
+                            int bucketCount = bucketLayout.get().getBucketCount();
+                            Optional<List<FileStatus>> bucketFiles = getBucketFiles(bucketCount, fs, path);
+                            if (!bucketFiles.isPresent()) {
+                                throw new PrestoException(HIVE_INVALID_BUCKET_FILES.toErrorCode(), format(
+                                        "Partition %s of table %s.%s is declared with %s buckets, but the files do not match the bucketing declaration",
+                                        partitionName,
+                                        table.getDbName(),
+                                        table.getTableName(),
+                                        bucketCount));
+                            }
+
+                            for (int bucketNumber = 0; bucketNumber < bucketCount; bucketNumber++) {
+                                if (bucket.isPresent() && bucket.get().getBucketNumber() != bucketNumber) {
+                                    continue;
+                                }
+                                FileStatus file = bucketFiles.get().get(bucketNumber);
+                                BlockLocation[] blockLocations = fs.getFileBlockLocations(file, 0, file.getLen());
+                                boolean splittable = isSplittable(inputFormat, fs, file.getPath());
+
+                                hiveSplitSource.addToQueue(createHiveSplits(partitionName, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable, bucketNumber));
+                            }
+                            partitionFuture.set(null);
+                            return;
+                        }
+
+                        if (bucket.isPresent()) {
+                            Optional<List<FileStatus>> bucketFiles = getBucketFiles(bucket.get().getBucketCount(), fs, path);
+                            if (bucketFiles.isPresent()) {
+                                FileStatus file = bucketFiles.get().get(bucket.get().getBucketNumber());
+                                BlockLocation[] blockLocations = fs.getFileBlockLocations(file, 0, file.getLen());
+                                boolean splittable = isSplittable(inputFormat, fs, file.getPath());
+
+                                hiveSplitSource.addToQueue(createHiveSplits(partitionName, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable, NOT_BUCKETED));
+                                partitionFuture.set(null);
+                                return;
+                            }
+                        }
+
+                        // files smaller than a split are packed together, so tables with many small files do not produce tiny splits
+                        final HiveSplitCombiner combiner = new HiveSplitCombiner(maxSplitSize, maxCombinedSplitFiles);
+
+                        ListenableFuture<Void> walkFuture = createRecursiveWalker(fs, suspendingExecutor).beginWalk(path, new FileStatusCallback()
+                        {
+                            @Override
+                            public void process(FileStatus file, BlockLocation[] blockLocations)
+                            {
+                                try {
+                                    boolean splittable = isSplittable(inputFormat, file.getPath().getFileSystem(configuration), file.getPath());
+
+                                    List<HiveSplit> splits = createHiveSplits(partitionName, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable, NOT_BUCKETED);
+                                    if (combineSmallFiles && file.getLen() < maxSplitSize.toBytes()) {
+                                        splits = combiner.add(splits);
+                                    }
+                                    hiveSplitSource.addToQueue(splits);
+                                }
+                                catch (IOException e) {
+                                    hiveSplitSource.fail(e);
+                                }
+                            }
+                        });
+
+                        Futures.addCallback(walkFuture, new FutureCallback<Void>()
+                        {
+                            @Override
+                            public void onSuccess(Void result)
+                            {
+                                hiveSplitSource.addToQueue(combiner.flush());
+                                partitionFuture.set(null);
+                            }
+
+                            @Override
+                            public void onFailure(Throwable t)
+                            {
+                                partitionFuture.setException(t);
+                            }
+                        });
+                    }
+                    catch (Throwable t) {
+                        partitionFuture.setException(t);
+                    }
+                }
+            });
+        }
+        catch (Throwable t) {
+            partitionFuture.setException(t);
+        }
+        return partitionFuture;
+    }
+
     private AsyncRecursiveWalker createRecursiveWalker(FileSystem fs, SuspendingExecutor suspendingExecutor)
     {
         return new AsyncRecursiveWalker(fs, suspendingExecutor, directoryLister, namenodeStats);
     }
 
-    private static Optional<FileStatus> getBucketFile(HiveBucket bucket, FileSystem fs, Path path)
+    /**
+     * Returns the files of the partition ordered by bucket number, or absent if they do not form a valid set of bucket files.
+     */
+    private static Optional<List<FileStatus>> getBucketFiles(int bucketCount, FileSystem fs, Path path)
     {
         FileStatus[] statuses = listStatus(fs, path);
 
-        if (statuses.length != bucket.getBucketCount()) {
+        if (statuses.length != bucketCount) {
             return Optional.absent();
         }
 
@@ -307,8 +440,11 @@ class HiveSplitSourceProvider
         // Hive sorts the paths as strings lexicographically
         Collections.sort(paths);
 
-        String pathString = paths.get(bucket.getBucketNumber());
-        return Optional.of(map.get(pathString));
+        ImmutableList.Builder<FileStatus> files = ImmutableList.builder();
+        for (String pathString : paths) {
+            files.add(map.get(pathString));
+        }
+        return Optional.<List<FileStatus>>of(files.build());
     }
 
     private static FileStatus[] listStatus(FileSystem fs, Path path)
@@ -329,7 +465,8 @@ class HiveSplitSourceProvider
             long length,
             Properties schema,
             List<HivePartitionKey> partitionKeys,
-            boolean splittable)
+            boolean splittable,
+            int bucketNumber)
             throws IOException
     {
         ImmutableList.Builder<HiveSplit> builder = ImmutableList.builder();
@@ -357,7 +494,9 @@ class HiveSplitSourceProvider
                             chunkLength,
                             schema,
                             partitionKeys,
-                            addresses));
+                            addresses,
+                            ImmutableList.<HiveFileRange>of(),
+                            bucketNumber));
 
                     chunkOffset += chunkLength;
                 }
@@ -380,7 +519,9 @@ class HiveSplitSourceProvider
                     length,
                     schema,
                     partitionKeys,
-                    addresses));
+                    addresses,
+                    ImmutableList.<HiveFileRange>of(),
+                    bucketNumber));
         }
         return builder.build();
     }
@@ -399,7 +540,7 @@ class HiveSplitSourceProvider
             implements SplitSource
     {
         private final String connectorId;
-        private final BlockingQueue<Split> queue = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Split> queue = new PriorityBlockingQueue<>(11, SPLIT_PRIORITY);
         private final AtomicInteger outstandingSplitCount = new AtomicInteger();
         private final AtomicReference<Throwable> throwable = new AtomicReference<>();
         private final int maxOutstandingSplits;
@@ -553,6 +694,16 @@ class HiveSplitSourceProvider
         return MetaStoreUtils.getSchema(partition, table);
     }
 
+    private static Object getPartitionVersion(Table table, Partition partition)
+    {
+        // the parameters include transient_lastDdlTime, which Hive updates whenever the partition is modified
+        Map<String, String> parameters = isUnpartitioned(partition) ? table.getParameters() : partition.getParameters();
+        if (parameters == null) {
+            return ImmutableMap.of();
+        }
+        return new HashMap<>(parameters);
+    }
+
     private static String getPartitionLocation(Table table, Partition partition)
     {
         if (isUnpartitioned(partition)) {
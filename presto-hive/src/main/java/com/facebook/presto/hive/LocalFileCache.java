@@ -0,0 +1,460 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Worker local, size bounded cache of remote file ranges.
+ * <p/>
+ * Files are cached in fixed size blocks, keyed on the file path, the file
+ * modification time and the block offset, so a rewritten file never serves
+ * stale data. Each block is stored as a file in a directory of this cache
+ * under the configured directory, and is memory mapped when read. Blocks are
+ * evicted in least recently used order.
+ * <p/>
+ * The directory of a cache is locked while the cache is in use, so caches of
+ * other catalogs or servers sharing the configured directory only delete the
+ * directories of caches that are gone.
+ */
+@ThreadSafe
+public class LocalFileCache
+{
+    private static final Logger log = Logger.get(LocalFileCache.class);
+    private static final String LOCK_FILE = "cache.lock";
+
+    // Hadoop instantiates file systems reflectively, so caching file systems find their cache through this registry
+    private static final ConcurrentMap<String, LocalFileCache> CACHES = new ConcurrentHashMap<>();
+
+    private final String id = UUID.randomUUID().toString();
+    private final boolean enabled;
+    private final File directory;
+    private final long maxSize;
+    private final int blockSize;
+    private final List<String> schemes;
+    private final Cache<BlockKey, CachedBlock> blocks;
+    private final FileChannel lockChannel;
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat evictions = new CounterStat();
+    private final CounterStat bytesSaved = new CounterStat();
+    private final CounterStat bytesLoaded = new CounterStat();
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    @Inject
+    public LocalFileCache(HiveClientConfig hiveClientConfig)
+    {
+        checkNotNull(hiveClientConfig, "hiveClientConfig is null");
+
+        this.enabled = hiveClientConfig.isLocalCacheEnabled();
+        File rootDirectory = checkNotNull(hiveClientConfig.getLocalCacheDirectory(), "localCacheDirectory is null");
+        this.directory = new File(rootDirectory, id);
+        this.maxSize = hiveClientConfig.getLocalCacheMaxSize().toBytes();
+        this.blockSize = Ints.checkedCast(hiveClientConfig.getLocalCacheBlockSize().toBytes());
+        this.schemes = ImmutableList.copyOf(checkNotNull(hiveClientConfig.getLocalCacheSchemes(), "localCacheSchemes is null"));
+        checkArgument(blockSize > 0, "localCacheBlockSize must be greater than zero");
+        checkArgument(maxSize >= blockSize, "localCacheMaxSize must be at least localCacheBlockSize");
+
+        this.blocks = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher(new Weigher<BlockKey, CachedBlock>()
+                {
+                    @Override
+                    public int weigh(BlockKey key, CachedBlock block)
+                    {
+                        return block.getLength();
+                    }
+                })
+                .removalListener(new RemovalListener<BlockKey, CachedBlock>()
+                {
+                    @Override
+                    public void onRemoval(RemovalNotification<BlockKey, CachedBlock> notification)
+                    {
+                        if (notification.wasEvicted()) {
+                            evictions.update(1);
+                        }
+                        CachedBlock block = notification.getValue();
+                        if (block != null) {
+                            cachedBytes.addAndGet(-block.getLength());
+                            block.delete();
+                        }
+                    }
+                })
+                .build();
+
+        if (!enabled) {
+            this.lockChannel = null;
+            return;
+        }
+
+        synchronized (CACHES) {
+            this.lockChannel = lockDirectory(directory);
+            CACHES.put(id, this);
+
+            // blocks left by caches that are gone are not indexed, so they would never be read or evicted
+            deleteAbandonedDirectories(rootDirectory);
+        }
+    }
+
+    private static FileChannel lockDirectory(File directory)
+    {
+        try {
+            createDirectories(directory.toPath());
+            FileChannel channel = FileChannel.open(new File(directory, LOCK_FILE).toPath(), CREATE, WRITE);
+            checkState(channel.tryLock() != null, "cache directory %s is locked", directory);
+            return channel;
+        }
+        catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private static void deleteAbandonedDirectories(File rootDirectory)
+    {
+        File[] directories = rootDirectory.listFiles();
+        if (directories == null) {
+            return;
+        }
+        for (File directory : directories) {
+            File lockFile = new File(directory, LOCK_FILE);
+            if (CACHES.containsKey(directory.getName()) || !lockFile.isFile()) {
+                // closing a channel releases every lock of this process on the file,
+                // so the directories of caches in this process are never opened
+                continue;
+            }
+
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), WRITE)) {
+                FileLock lock = channel.tryLock();
+                if (lock == null) {
+                    // in use by another process
+                    continue;
+                }
+                deleteDirectory(directory);
+            }
+            catch (IOException e) {
+                log.warn(e, "Failed to delete abandoned cache directory %s", directory);
+            }
+        }
+    }
+
+    private static void deleteDirectory(File directory)
+    {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    log.warn("Failed to delete stale cached block %s", file);
+                }
+            }
+        }
+        if (!directory.delete()) {
+            log.warn("Failed to delete abandoned cache directory %s", directory);
+        }
+    }
+
+    static LocalFileCache getCache(String id)
+            throws IOException
+    {
+        LocalFileCache cache = CACHES.get(checkNotNull(id, "id is null"));
+        if (cache == null) {
+            throw new IOException("Local file cache is not registered: " + id);
+        }
+        return cache;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public List<String> getSchemes()
+    {
+        return schemes;
+    }
+
+    public int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    /**
+     * Directory the blocks of this cache are stored in.
+     */
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * Returns the block of the file starting at the specified block aligned offset.
+     * On a miss the block is read through the loader and written to the cache
+     * directory before it is returned.
+     */
+    public ByteBuffer getBlock(String path, long modificationTime, long blockOffset, final BlockLoader loader)
+            throws IOException
+    {
+        checkArgument(blockOffset % blockSize == 0, "blockOffset %s is not aligned to the block size %s", blockOffset, blockSize);
+        final BlockKey key = new BlockKey(path, modificationTime, blockOffset);
+
+        CachedBlock block = blocks.getIfPresent(key);
+        if (block != null) {
+            hits.update(1);
+            bytesSaved.update(block.getLength());
+            return block.getBuffer();
+        }
+
+        try {
+            block = blocks.get(key, new Callable<CachedBlock>()
+            {
+                @Override
+                public CachedBlock call()
+                        throws IOException
+                {
+                    misses.update(1);
+                    return loadBlock(key, loader);
+                }
+            });
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        }
+        return block.getBuffer();
+    }
+
+    private CachedBlock loadBlock(BlockKey key, BlockLoader loader)
+            throws IOException
+    {
+        byte[] data = loader.load(key.getOffset(), blockSize);
+        bytesLoaded.update(data.length);
+
+        createDirectories(directory.toPath());
+        File tempFile = createTempFile(directory.toPath(), "block-", ".tmp").toFile();
+        File blockFile = new File(directory, UUID.randomUUID() + ".block");
+        try {
+            Files.write(data, tempFile);
+            move(tempFile.toPath(), blockFile.toPath(), ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+
+        MappedByteBuffer buffer = Files.map(blockFile);
+        cachedBytes.addAndGet(data.length);
+        return new CachedBlock(blockFile, buffer, data.length);
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        blocks.invalidateAll();
+    }
+
+    @Managed
+    public long getCachedBytes()
+    {
+        return cachedBytes.get();
+    }
+
+    @Managed
+    public long getCachedBlocks()
+    {
+        return blocks.size();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        long hitCount = hits.getTotalCount();
+        long total = hitCount + misses.getTotalCount();
+        return (total == 0) ? 0.0 : ((double) hitCount) / total;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getEvictions()
+    {
+        return evictions;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBytesSaved()
+    {
+        return bytesSaved;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBytesLoaded()
+    {
+        return bytesLoaded;
+    }
+
+    public interface BlockLoader
+    {
+        /**
+         * Reads up to length bytes of the file starting at the offset.
+         * Fewer bytes are only returned at the end of the file.
+         */
+        byte[] load(long offset, int length)
+                throws IOException;
+    }
+
+    private static class CachedBlock
+    {
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private final int length;
+
+        private CachedBlock(File file, MappedByteBuffer buffer, int length)
+        {
+            this.file = file;
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        public ByteBuffer getBuffer()
+        {
+            // each reader gets its own position and limit
+            return buffer.asReadOnlyBuffer();
+        }
+
+        public int getLength()
+        {
+            return length;
+        }
+
+        public void delete()
+        {
+            // existing mappings remain valid after the file is removed
+            if (!file.delete() && file.exists()) {
+                log.warn("Failed to delete cached block %s", file);
+            }
+        }
+    }
+
+    private static class BlockKey
+    {
+        private final String path;
+        private final long modificationTime;
+        private final long offset;
+
+        private BlockKey(String path, long modificationTime, long offset)
+        {
+            this.path = checkNotNull(path, "path is null");
+            this.modificationTime = modificationTime;
+            this.offset = offset;
+        }
+
+        public long getOffset()
+        {
+            return offset;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hashCode(path, modificationTime, offset);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            BlockKey other = (BlockKey) obj;
+            return Objects.equal(this.path, other.path) &&
+                    this.modificationTime == other.modificationTime &&
+                    this.offset == other.offset;
+        }
+
+        @Override
+        public String toString()
+        {
+            return Objects.toStringHelper(this)
+                    .add("path", path)
+                    .add("modificationTime", modificationTime)
+                    .add("offset", offset)
+                    .toString();
+        }
+    }
+}
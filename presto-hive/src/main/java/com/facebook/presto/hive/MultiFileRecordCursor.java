@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads the files of a combined split one after another. The cursor for a
+ * file is not opened until the previous file has been read completely.
+ */
+class MultiFileRecordCursor
+        extends HiveRecordCursor
+{
+    private final List<HiveSplit> fileSplits;
+    private final List<Type> columnTypes;
+    private final Function<HiveSplit, HiveRecordCursor> cursorFactory;
+    private final long totalBytes;
+
+    private int nextFile;
+    private HiveRecordCursor current;
+    private long finishedBytes;
+    private long finishedReadTimeNanos;
+    private boolean closed;
+
+    MultiFileRecordCursor(List<HiveSplit> fileSplits, List<Type> columnTypes, Function<HiveSplit, HiveRecordCursor> cursorFactory)
+    {
+        this.fileSplits = ImmutableList.copyOf(checkNotNull(fileSplits, "fileSplits is null"));
+        this.columnTypes = ImmutableList.copyOf(checkNotNull(columnTypes, "columnTypes is null"));
+        this.cursorFactory = checkNotNull(cursorFactory, "cursorFactory is null");
+
+        long totalBytes = 0;
+        for (HiveSplit fileSplit : fileSplits) {
+            totalBytes += fileSplit.getLength();
+        }
+        this.totalBytes = totalBytes;
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        if (current == null) {
+            return finishedBytes;
+        }
+        return finishedBytes + current.getCompletedBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        long readTimeNanos = super.getReadTimeNanos() + finishedReadTimeNanos;
+        if (current != null) {
+            readTimeNanos += current.getReadTimeNanos();
+        }
+        return readTimeNanos;
+    }
+
+    @Override
+    public Type getType(int field)
+    {
+        return columnTypes.get(field);
+    }
+
+    @Override
+    public boolean advanceNextPosition()
+    {
+        while (!closed) {
+            if (current != null && current.advanceNextPosition()) {
+                return true;
+            }
+            if (!openNextFile()) {
+                close();
+            }
+        }
+        return false;
+    }
+
+    private boolean openNextFile()
+    {
+        if (current != null) {
+            finishedBytes += current.getTotalBytes();
+            finishedReadTimeNanos += current.getReadTimeNanos();
+            current.close();
+            current = null;
+        }
+        if (nextFile >= fileSplits.size()) {
+            return false;
+        }
+
+        HiveSplit fileSplit = fileSplits.get(nextFile);
+        nextFile++;
+        current = cursorFactory.apply(fileSplit);
+        return true;
+    }
+
+    @Override
+    public boolean getBoolean(int field)
+    {
+        return current.getBoolean(field);
+    }
+
+    @Override
+    public long getLong(int field)
+    {
+        return current.getLong(field);
+    }
+
+    @Override
+    public double getDouble(int field)
+    {
+        return current.getDouble(field);
+    }
+
+    @Override
+    public byte[] getString(int field)
+    {
+        return current.getString(field);
+    }
+
+    @Override
+    public boolean isNull(int field)
+    {
+        return current.isNull(field);
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current != null) {
+            current.close();
+        }
+    }
+}
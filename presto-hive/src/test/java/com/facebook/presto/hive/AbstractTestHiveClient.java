@@ -205,7 +205,10 @@ public abstract class AbstractTestHiveClient
                 maxOutstandingSplits,
                 maxThreads,
                 hiveClientConfig.getMinPartitionBatchSize(),
-                hiveClientConfig.getMaxPartitionBatchSize());
+                hiveClientConfig.getMaxPartitionBatchSize(),
+                hiveClientConfig.isCombineSmallFiles(),
+                hiveClientConfig.getMaxCombinedSplitFiles(),
+                hiveClientConfig.isBucketExecutionEnabled());
 
         metadata = client;
         splitManager = client;
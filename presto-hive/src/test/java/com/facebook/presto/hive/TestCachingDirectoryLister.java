@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestCachingDirectoryLister
+{
+    private static final Path PARTITION = new Path("hdfs://namenode/warehouse/table/ds=2014-01-01");
+    private static final Path SUBDIRECTORY = new Path(PARTITION, "sub");
+    private static final Path OTHER_PARTITION = new Path("hdfs://namenode/warehouse/table/ds=2014-01-02");
+
+    private final FileSystem fileSystem = new RawLocalFileSystem();
+    private ExecutorService executor;
+    private CountingDirectoryLister delegate;
+    private CachingDirectoryLister lister;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = Executors.newCachedThreadPool();
+        delegate = new CountingDirectoryLister();
+        lister = new CachingDirectoryLister(delegate, executor, new Duration(1, TimeUnit.HOURS), new Duration(1, TimeUnit.HOURS), 1000);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCachedListing()
+            throws Exception
+    {
+        assertEquals(list(PARTITION), 1);
+        assertEquals(list(PARTITION), 1);
+        assertEquals(delegate.getListings(), 1);
+        assertEquals(lister.getHits().getTotalCount(), 1);
+        assertEquals(lister.getMisses().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        lister = new CachingDirectoryLister(delegate, executor, new Duration(0, TimeUnit.SECONDS), new Duration(1, TimeUnit.HOURS), 1000);
+
+        list(PARTITION);
+        list(PARTITION);
+        assertEquals(delegate.getListings(), 2);
+    }
+
+    @Test
+    public void testInvalidateChangedPartition()
+            throws Exception
+    {
+        lister.invalidateIfChanged(PARTITION, ImmutableMap.of("transient_lastDdlTime", "1"));
+        lister.invalidateIfChanged(OTHER_PARTITION, ImmutableMap.of("transient_lastDdlTime", "1"));
+        list(PARTITION);
+        list(SUBDIRECTORY);
+        list(OTHER_PARTITION);
+        assertEquals(delegate.getListings(), 3);
+
+        // same version keeps the cached listings
+        lister.invalidateIfChanged(PARTITION, ImmutableMap.of("transient_lastDdlTime", "1"));
+        list(PARTITION);
+        list(SUBDIRECTORY);
+        assertEquals(delegate.getListings(), 3);
+
+        // a new version discards listings of the partition and everything below it
+        lister.invalidateIfChanged(PARTITION, ImmutableMap.of("transient_lastDdlTime", "2"));
+        list(PARTITION);
+        list(SUBDIRECTORY);
+        list(OTHER_PARTITION);
+        assertEquals(delegate.getListings(), 5);
+        assertEquals(lister.getInvalidations().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testUnknownVersionInvalidatesPartition()
+            throws Exception
+    {
+        list(PARTITION);
+        list(PARTITION);
+        assertEquals(delegate.getListings(), 1);
+
+        // the version of the partition is unknown, for example because it was evicted
+        lister.invalidateIfChanged(PARTITION, ImmutableMap.of("transient_lastDdlTime", "2"));
+        list(PARTITION);
+        assertEquals(delegate.getListings(), 2);
+    }
+
+    @Test
+    public void testFileSystemIsPartOfKey()
+            throws Exception
+    {
+        FileSystem otherFileSystem = new RawLocalFileSystem()
+        {
+            @Override
+            public URI getUri()
+            {
+                return URI.create("hdfs://other-namenode");
+            }
+        };
+        Path path = new Path("/warehouse/table");
+
+        list(fileSystem, path);
+        list(otherFileSystem, path);
+        list(fileSystem, path);
+        assertEquals(delegate.getListings(), 2);
+    }
+
+    private int list(Path path)
+            throws IOException
+    {
+        return list(fileSystem, path);
+    }
+
+    private int list(FileSystem fileSystem, Path path)
+            throws IOException
+    {
+        int count = 0;
+        RemoteIterator<LocatedFileStatus> iterator = lister.list(fileSystem, path);
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    private static class CountingDirectoryLister
+            implements DirectoryLister
+    {
+        private int listings;
+
+        @Override
+        public synchronized RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+                throws IOException
+        {
+            listings++;
+            final List<LocatedFileStatus> files = new ArrayList<>(ImmutableList.of(
+                    new LocatedFileStatus(new FileStatus(1, false, 1, 1, 1, new Path(path, "file")), new BlockLocation[0])));
+            return new RemoteIterator<LocatedFileStatus>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return !files.isEmpty();
+                }
+
+                @Override
+                public LocatedFileStatus next()
+                {
+                    return files.remove(0);
+                }
+            };
+        }
+
+        @Override
+        public void invalidateIfChanged(Path partitionLocation, Object partitionVersion)
+        {
+        }
+
+        public synchronized int getListings()
+        {
+            return listings;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.io.Files;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.net.URI;
+
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestCachingFileSystem
+{
+    private File directory;
+    private File file;
+    private LocalFileCache cache;
+    private CachingFileSystem fileSystem;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        directory = Files.createTempDir();
+        file = new File(directory, "data");
+        Files.write(sequence(10, 0), file);
+
+        cache = new LocalFileCache(new HiveClientConfig()
+                .setLocalCacheEnabled(true)
+                .setLocalCacheDirectory(new File(directory, "cache"))
+                .setLocalCacheBlockSize(new DataSize(4, BYTE))
+                .setLocalCacheMaxSize(new DataSize(64, BYTE)));
+
+        Configuration config = new Configuration(false);
+        config.setClass(CachingFileSystem.delegateImplKey("file"), RawLocalFileSystem.class, FileSystem.class);
+        config.set(CachingFileSystem.CACHE_ID, cache.getId());
+        fileSystem = new CachingFileSystem();
+        fileSystem.initialize(new URI("file:///"), config);
+    }
+
+    @AfterMethod
+    public void tearDown()
+            throws Exception
+    {
+        fileSystem.close();
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void testReadAcrossBlocks()
+            throws Exception
+    {
+        try (FSDataInputStream in = fileSystem.open(path())) {
+            // a read stops at the end of the block containing the position
+            byte[] buffer = new byte[6];
+            assertEquals(in.read(buffer, 0, 6), 4);
+            assertBytes(buffer, 0, 4, 0);
+            assertEquals(in.getPos(), 4);
+
+            in.seek(2);
+            in.readFully(buffer, 0, 6);
+            assertBytes(buffer, 0, 6, 2);
+            assertEquals(in.getPos(), 8);
+        }
+        assertEquals(cache.getCachedBlocks(), 2);
+    }
+
+    @Test
+    public void testPositionalRead()
+            throws Exception
+    {
+        try (FSDataInputStream in = fileSystem.open(path())) {
+            in.seek(1);
+
+            byte[] buffer = new byte[4];
+            assertEquals(in.read(6, buffer, 0, 4), 2);
+            assertBytes(buffer, 0, 2, 6);
+
+            in.readFully(3, buffer, 0, 4);
+            assertBytes(buffer, 0, 4, 3);
+
+            // positional reads leave the position unchanged
+            assertEquals(in.getPos(), 1);
+            assertEquals(in.read(), 1);
+        }
+    }
+
+    @Test
+    public void testEndOfFile()
+            throws Exception
+    {
+        try (FSDataInputStream in = fileSystem.open(path())) {
+            byte[] buffer = new byte[4];
+            in.seek(8);
+            assertEquals(in.read(buffer, 0, 4), 2);
+            assertBytes(buffer, 0, 2, 8);
+
+            assertEquals(in.read(buffer, 0, 4), -1);
+            assertEquals(in.read(), -1);
+            assertEquals(in.read(10, buffer, 0, 4), -1);
+            assertEquals(in.read(12, buffer, 0, 4), -1);
+
+            in.seek(10);
+            assertEquals(in.read(), -1);
+        }
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testSeekPastLength()
+            throws Exception
+    {
+        try (FSDataInputStream in = fileSystem.open(path())) {
+            in.seek(11);
+        }
+    }
+
+    @Test
+    public void testRewrittenFileIsReadAgain()
+            throws Exception
+    {
+        byte[] buffer = new byte[4];
+        try (FSDataInputStream in = fileSystem.open(path())) {
+            in.readFully(0, buffer);
+            assertBytes(buffer, 0, 4, 0);
+        }
+
+        long modificationTime = file.lastModified();
+        Files.write(sequence(10, 100), file);
+        assertTrue(file.setLastModified(modificationTime + 10_000));
+
+        try (FSDataInputStream in = fileSystem.open(path())) {
+            in.readFully(0, buffer);
+            assertBytes(buffer, 0, 4, 100);
+        }
+        assertEquals(cache.getMisses().getTotalCount(), 2);
+    }
+
+    private Path path()
+    {
+        return new Path(file.toURI());
+    }
+
+    private static byte[] sequence(int length, int start)
+    {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (start + i);
+        }
+        return bytes;
+    }
+
+    private static void assertBytes(byte[] buffer, int offset, int length, int start)
+    {
+        for (int i = 0; i < length; i++) {
+            assertEquals(buffer[offset + i], (byte) (start + i));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.io.Files;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static org.testng.Assert.assertEquals;
+
+public class TestHdfsConfiguration
+{
+    private File directory;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        directory = Files.createTempDir();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void testLocalCacheWrapsDiscoveredFileSystems()
+            throws Exception
+    {
+        HdfsConfiguration hdfsConfiguration = new HdfsConfiguration(new HiveClientConfig()
+                .setLocalCacheEnabled(true)
+                .setLocalCacheDirectory(directory)
+                .setLocalCacheSchemes("hdfs,s3"));
+
+        Configuration config = hdfsConfiguration.getConfiguration("localhost");
+        assertEquals(config.get("fs.hdfs.impl"), CachingFileSystem.class.getName());
+        assertEquals(config.get("fs.s3.impl"), CachingFileSystem.class.getName());
+
+        // hdfs may only be registered through the service loader
+        Configuration defaultConfig = new Configuration();
+        assertEquals(config.get(CachingFileSystem.delegateImplKey("hdfs")), FileSystem.getFileSystemClass("hdfs", defaultConfig).getName());
+        assertEquals(config.get(CachingFileSystem.delegateImplKey("s3")), PrestoS3FileSystem.class.getName());
+    }
+}
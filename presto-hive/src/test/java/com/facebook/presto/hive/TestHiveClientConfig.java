@@ -46,10 +46,16 @@ public class TestHiveClientConfig
                 .setMetastoreCacheTtl(new Duration(1, TimeUnit.HOURS))
                 .setMetastoreRefreshInterval(new Duration(2, TimeUnit.MINUTES))
                 .setMaxMetastoreRefreshThreads(100)
+                .setDirectoryListingCacheTtl(new Duration(0, TimeUnit.SECONDS))
+                .setDirectoryListingRefreshInterval(new Duration(1, TimeUnit.MINUTES))
+                .setDirectoryListingCacheMaxSize(10_000)
                 .setMetastoreSocksProxy(null)
                 .setMetastoreTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setMinPartitionBatchSize(10)
                 .setMaxPartitionBatchSize(100)
+                .setCombineSmallFiles(false)
+                .setMaxCombinedSplitFiles(100)
+                .setBucketExecutionEnabled(false)
                 .setDfsTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setDfsConnectTimeout(new Duration(500, TimeUnit.MILLISECONDS))
                 .setDfsConnectMaxRetries(5)
@@ -61,7 +67,12 @@ public class TestHiveClientConfig
                 .setS3MaxClientRetries(3)
                 .setS3MaxErrorRetries(10)
                 .setS3ConnectTimeout(new Duration(5, TimeUnit.SECONDS))
-                .setS3StagingDirectory(new File(StandardSystemProperty.JAVA_IO_TMPDIR.value())));
+                .setS3StagingDirectory(new File(StandardSystemProperty.JAVA_IO_TMPDIR.value()))
+                .setLocalCacheEnabled(false)
+                .setLocalCacheDirectory(new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "presto-hive-cache"))
+                .setLocalCacheMaxSize(new DataSize(10, Unit.GIGABYTE))
+                .setLocalCacheBlockSize(new DataSize(1, Unit.MEGABYTE))
+                .setLocalCacheSchemes("s3,s3n"));
     }
 
     @Test
@@ -76,10 +87,16 @@ public class TestHiveClientConfig
                 .put("hive.metastore-cache-ttl", "2h")
                 .put("hive.metastore-refresh-interval", "30m")
                 .put("hive.metastore-refresh-max-threads", "2500")
+                .put("hive.directory-listing-cache-ttl", "10m")
+                .put("hive.directory-listing-refresh-interval", "30s")
+                .put("hive.directory-listing-cache-max-size", "500")
                 .put("hive.metastore.thrift.client.socks-proxy", "localhost:1080")
                 .put("hive.metastore-timeout", "20s")
                 .put("hive.metastore.partition-batch-size.min", "1")
                 .put("hive.metastore.partition-batch-size.max", "1000")
+                .put("hive.combine-small-files", "true")
+                .put("hive.max-combined-split-files", "20")
+                .put("hive.bucket-execution-enabled", "true")
                 .put("hive.dfs-timeout", "33s")
                 .put("hive.dfs.connect.timeout", "20s")
                 .put("hive.dfs.connect.max-retries", "10")
@@ -92,6 +109,11 @@ public class TestHiveClientConfig
                 .put("hive.s3.max-error-retries", "8")
                 .put("hive.s3.connect-timeout", "8s")
                 .put("hive.s3.staging-directory", "/s3-staging")
+                .put("hive.local-cache.enabled", "true")
+                .put("hive.local-cache.directory", "/ssd/cache")
+                .put("hive.local-cache.max-size", "100GB")
+                .put("hive.local-cache.block-size", "4MB")
+                .put("hive.local-cache.schemes", "s3,hdfs")
                 .build();
 
         HiveClientConfig expected = new HiveClientConfig()
@@ -103,10 +125,16 @@ public class TestHiveClientConfig
                 .setMetastoreCacheTtl(new Duration(2, TimeUnit.HOURS))
                 .setMetastoreRefreshInterval(new Duration(30, TimeUnit.MINUTES))
                 .setMaxMetastoreRefreshThreads(2500)
+                .setDirectoryListingCacheTtl(new Duration(10, TimeUnit.MINUTES))
+                .setDirectoryListingRefreshInterval(new Duration(30, TimeUnit.SECONDS))
+                .setDirectoryListingCacheMaxSize(500)
                 .setMetastoreSocksProxy(HostAndPort.fromParts("localhost", 1080))
                 .setMetastoreTimeout(new Duration(20, TimeUnit.SECONDS))
                 .setMinPartitionBatchSize(1)
                 .setMaxPartitionBatchSize(1000)
+                .setCombineSmallFiles(true)
+                .setMaxCombinedSplitFiles(20)
+                .setBucketExecutionEnabled(true)
                 .setDfsTimeout(new Duration(33, TimeUnit.SECONDS))
                 .setDfsConnectTimeout(new Duration(20, TimeUnit.SECONDS))
                 .setDfsConnectMaxRetries(10)
@@ -118,7 +146,12 @@ public class TestHiveClientConfig
                 .setS3MaxClientRetries(9)
                 .setS3MaxErrorRetries(8)
                 .setS3ConnectTimeout(new Duration(8, TimeUnit.SECONDS))
-                .setS3StagingDirectory(new File("/s3-staging"));
+                .setS3StagingDirectory(new File("/s3-staging"))
+                .setLocalCacheEnabled(true)
+                .setLocalCacheDirectory(new File("/ssd/cache"))
+                .setLocalCacheMaxSize(new DataSize(100, Unit.GIGABYTE))
+                .setLocalCacheBlockSize(new DataSize(4, Unit.MEGABYTE))
+                .setLocalCacheSchemes(ImmutableList.of("s3", "hdfs"));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
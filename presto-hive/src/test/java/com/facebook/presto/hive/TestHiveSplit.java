@@ -35,7 +35,8 @@ public class TestHiveSplit
 
         ImmutableList<HivePartitionKey> partitionKeys = ImmutableList.of(new HivePartitionKey("a", HiveType.STRING, "apple"), new HivePartitionKey("b", HiveType.LONG, "42"));
         ImmutableList<HostAddress> addresses = ImmutableList.of(HostAddress.fromParts("127.0.0.1", 44), HostAddress.fromParts("127.0.0.1", 45));
-        HiveSplit expected = new HiveSplit("clientId", "db", "table", "partitionId", "path", 42, 88, schema, partitionKeys, addresses);
+        ImmutableList<HiveFileRange> additionalFiles = ImmutableList.of(new HiveFileRange("path2", 0, 10), new HiveFileRange("path3", 5, 20));
+        HiveSplit expected = new HiveSplit("clientId", "db", "table", "partitionId", "path", 42, 88, schema, partitionKeys, addresses, additionalFiles, 3);
 
         String json = codec.toJson(expected);
         HiveSplit actual = codec.fromJson(json);
@@ -50,5 +51,8 @@ public class TestHiveSplit
         assertEquals(actual.getSchema(), expected.getSchema());
         assertEquals(actual.getPartitionKeys(), expected.getPartitionKeys());
         assertEquals(actual.getAddresses(), expected.getAddresses());
+        assertEquals(actual.getAdditionalFiles(), expected.getAdditionalFiles());
+        assertEquals(actual.getTotalLength(), 118);
+        assertEquals(actual.getBucketNumber(), 3);
     }
 }
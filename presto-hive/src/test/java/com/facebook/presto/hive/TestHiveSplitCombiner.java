@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.HostAddress;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestHiveSplitCombiner
+{
+    private static final List<HostAddress> HOST_A = ImmutableList.of(HostAddress.fromString("a"));
+    private static final List<HostAddress> HOST_B = ImmutableList.of(HostAddress.fromString("b"));
+
+    @Test
+    public void testCombineUpToMaxSize()
+    {
+        HiveSplitCombiner combiner = new HiveSplitCombiner(new DataSize(100, BYTE), 10);
+
+        assertTrue(combiner.add(ImmutableList.of(createSplit("a", 40, HOST_A))).isEmpty());
+        assertTrue(combiner.add(ImmutableList.of(createSplit("b", 40, HOST_A))).isEmpty());
+
+        // the third file does not fit, so the first two are emitted together
+        List<HiveSplit> completed = combiner.add(ImmutableList.of(createSplit("c", 40, HOST_A)));
+        assertEquals(completed.size(), 1);
+        HiveSplit split = completed.get(0);
+        assertEquals(split.getPath(), "a");
+        assertEquals(split.getAdditionalFiles(), ImmutableList.of(new HiveFileRange("b", 0, 40)));
+        assertEquals(split.getTotalLength(), 80);
+        assertEquals(split.getFileSplits().size(), 2);
+
+        List<HiveSplit> remaining = combiner.flush();
+        assertEquals(remaining.size(), 1);
+        assertEquals(remaining.get(0).getPath(), "c");
+        assertTrue(remaining.get(0).getAdditionalFiles().isEmpty());
+        assertTrue(combiner.flush().isEmpty());
+    }
+
+    @Test
+    public void testMaxFiles()
+    {
+        HiveSplitCombiner combiner = new HiveSplitCombiner(new DataSize(100, BYTE), 2);
+
+        assertTrue(combiner.add(ImmutableList.of(createSplit("a", 1, HOST_A))).isEmpty());
+        List<HiveSplit> completed = combiner.add(ImmutableList.of(createSplit("b", 1, HOST_A)));
+        assertEquals(completed.size(), 1);
+        assertEquals(completed.get(0).getAdditionalFiles().size(), 1);
+        assertTrue(combiner.flush().isEmpty());
+    }
+
+    @Test
+    public void testSplitsOnDifferentHostsAreNotCombined()
+    {
+        HiveSplitCombiner combiner = new HiveSplitCombiner(new DataSize(100, BYTE), 10);
+
+        combiner.add(ImmutableList.of(createSplit("a", 10, HOST_A)));
+        combiner.add(ImmutableList.of(createSplit("b", 10, HOST_B)));
+
+        List<HiveSplit> remaining = combiner.flush();
+        assertEquals(remaining.size(), 2);
+        for (HiveSplit split : remaining) {
+            assertTrue(split.getAdditionalFiles().isEmpty());
+        }
+    }
+
+    private static HiveSplit createSplit(String path, long length, List<HostAddress> addresses)
+    {
+        return new HiveSplit("clientId", "db", "table", "partitionName", path, 0, length, new Properties(), ImmutableList.<HivePartitionKey>of(), addresses);
+    }
+}
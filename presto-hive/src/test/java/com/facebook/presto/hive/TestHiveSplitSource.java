@@ -17,10 +17,12 @@ import com.facebook.presto.hive.HiveSplitSourceProvider.HiveSplitSource;
 import com.facebook.presto.hive.util.SuspendingExecutor;
 import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.Split;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.SettableFuture;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -95,6 +97,26 @@ public class TestHiveSplitSource
         assertFalse(suspendingExecutor.isSuspended());
     }
 
+    @Test
+    public void testLargestSplitsFirst()
+            throws Exception
+    {
+        SuspendingExecutor suspendingExecutor = createSuspendingExecutor();
+        HiveSplitSource hiveSplitSource = new HiveSplitSource("test", 10, suspendingExecutor);
+
+        hiveSplitSource.addToQueue(createHiveSplit(10));
+        hiveSplitSource.addToQueue(createHiveSplit(30));
+        hiveSplitSource.addToQueue(createHiveSplit(20));
+        hiveSplitSource.finished();
+
+        List<Split> batch = hiveSplitSource.getNextBatch(10);
+        assertEquals(batch.size(), 3);
+        assertEquals(((HiveSplit) batch.get(0)).getLength(), 30);
+        assertEquals(((HiveSplit) batch.get(1)).getLength(), 20);
+        assertEquals(((HiveSplit) batch.get(2)).getLength(), 10);
+        assertTrue(hiveSplitSource.isFinished());
+    }
+
     @Test
     public void testFail()
             throws Exception
@@ -194,6 +216,11 @@ public class TestHiveSplitSource
         }
     }
 
+    private static HiveSplit createHiveSplit(long length)
+    {
+        return new HiveSplit("test", "db", "table", "partition", "path", 0, length, new Properties(), ImmutableList.<HivePartitionKey>of(), ImmutableList.<HostAddress>of());
+    }
+
     private SuspendingExecutor createSuspendingExecutor()
     {
         return new SuspendingExecutor(new Executor()
@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.io.Files;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalFileCache
+{
+    private File directory;
+    private LocalFileCache cache;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        directory = Files.createTempDir();
+        cache = createCache();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void testHitAndMiss()
+            throws Exception
+    {
+        CountingLoader loader = new CountingLoader();
+
+        assertBlock(cache.getBlock("/a", 1, 0, loader), 0, 4);
+        assertEquals(loader.getLoads(), 1);
+        assertBlock(cache.getBlock("/a", 1, 0, loader), 0, 4);
+        assertEquals(loader.getLoads(), 1);
+
+        assertEquals(cache.getHits().getTotalCount(), 1);
+        assertEquals(cache.getMisses().getTotalCount(), 1);
+        assertEquals(cache.getBytesSaved().getTotalCount(), 4);
+        assertEquals(cache.getCachedBytes(), 4);
+    }
+
+    @Test
+    public void testModificationTimeIsPartOfKey()
+            throws Exception
+    {
+        CountingLoader loader = new CountingLoader();
+
+        cache.getBlock("/a", 1, 4, loader);
+        cache.getBlock("/a", 2, 4, loader);
+        assertEquals(loader.getLoads(), 2);
+    }
+
+    @Test
+    public void testEviction()
+            throws Exception
+    {
+        CountingLoader loader = new CountingLoader();
+
+        cache.getBlock("/a", 1, 0, loader);
+        cache.getBlock("/b", 1, 0, loader);
+        cache.getBlock("/c", 1, 0, loader);
+
+        assertEquals(cache.getEvictions().getTotalCount(), 1);
+        assertEquals(cache.getCachedBytes(), 8);
+    }
+
+    @Test
+    public void testStaleBlocksAreDeletedOnStartup()
+            throws Exception
+    {
+        // directory of a cache that is gone: the lock file is not locked
+        File staleDirectory = new File(directory, "stale");
+        assertTrue(staleDirectory.mkdir());
+        Files.write(new byte[0], new File(staleDirectory, "cache.lock"));
+        Files.write(new byte[] {1}, new File(staleDirectory, "123.block"));
+        Files.write(new byte[] {1}, new File(staleDirectory, "block-123.tmp"));
+
+        File otherDirectory = new File(directory, "other");
+        assertTrue(otherDirectory.mkdir());
+        File otherFile = new File(directory, "other.txt");
+        Files.write(new byte[] {1}, otherFile);
+
+        LocalFileCache newCache = createCache();
+
+        assertFalse(staleDirectory.exists());
+        assertTrue(otherDirectory.exists());
+        assertTrue(otherFile.exists());
+        assertTrue(newCache.getDirectory().exists());
+    }
+
+    @Test
+    public void testCachesSharingDirectoryKeepEachOtherBlocks()
+            throws Exception
+    {
+        CountingLoader loader = new CountingLoader();
+        cache.getBlock("/a", 1, 0, loader);
+        assertEquals(cache.getDirectory().getParentFile(), directory);
+        assertEquals(countBlockFiles(cache.getDirectory()), 1);
+
+        LocalFileCache otherCache = createCache();
+        otherCache.getBlock("/a", 1, 0, loader);
+        assertEquals(loader.getLoads(), 2);
+
+        assertEquals(countBlockFiles(cache.getDirectory()), 1);
+        assertEquals(countBlockFiles(otherCache.getDirectory()), 1);
+        assertBlock(cache.getBlock("/a", 1, 0, loader), 0, 4);
+        assertEquals(loader.getLoads(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnalignedOffset()
+            throws Exception
+    {
+        cache.getBlock("/a", 1, 3, new CountingLoader());
+    }
+
+    private LocalFileCache createCache()
+    {
+        return new LocalFileCache(new HiveClientConfig()
+                .setLocalCacheEnabled(true)
+                .setLocalCacheDirectory(directory)
+                .setLocalCacheBlockSize(new DataSize(4, BYTE))
+                .setLocalCacheMaxSize(new DataSize(8, BYTE)));
+    }
+
+    private static int countBlockFiles(File directory)
+    {
+        int count = 0;
+        for (File file : directory.listFiles()) {
+            if (file.getName().endsWith(".block")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void assertBlock(ByteBuffer block, int offset, int length)
+    {
+        assertEquals(block.remaining(), length);
+        for (int i = 0; i < length; i++) {
+            assertEquals(block.get(i), (byte) (offset + i));
+        }
+    }
+
+    private static class CountingLoader
+            implements LocalFileCache.BlockLoader
+    {
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public byte[] load(long offset, int length)
+                throws IOException
+        {
+            loads.incrementAndGet();
+            byte[] data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) (offset + i);
+            }
+            return data;
+        }
+
+        public int getLoads()
+        {
+            return loads.get();
+        }
+    }
+}
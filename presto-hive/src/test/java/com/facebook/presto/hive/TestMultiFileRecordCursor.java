@@ -0,0 +1,223 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestMultiFileRecordCursor
+{
+    private final List<StubCursor> cursors = new ArrayList<>();
+
+    @Test
+    public void testReadsFilesInOrder()
+    {
+        MultiFileRecordCursor cursor = createCursor(fileSplit("a", 10), fileSplit("b", 20), fileSplit("c", 30));
+        assertEquals(cursor.getTotalBytes(), 60);
+        assertEquals(cursor.getCompletedBytes(), 0);
+
+        List<Long> values = new ArrayList<>();
+        while (cursor.advanceNextPosition()) {
+            values.add(cursor.getLong(0));
+        }
+
+        // each file produces its length as the value of each of its two rows
+        assertEquals(values, ImmutableList.of(10L, 10L, 20L, 20L, 30L, 30L));
+        assertEquals(cursors.size(), 3);
+        for (StubCursor stubCursor : cursors) {
+            assertTrue(stubCursor.isClosed());
+        }
+    }
+
+    @Test
+    public void testNextFileIsOpenedLazily()
+    {
+        MultiFileRecordCursor cursor = createCursor(fileSplit("a", 10), fileSplit("b", 20));
+        assertEquals(cursors.size(), 0);
+
+        assertTrue(cursor.advanceNextPosition());
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursors.size(), 1);
+
+        // moving past the last row of the first file closes it and opens the second
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursors.size(), 2);
+        assertTrue(cursors.get(0).isClosed());
+        assertFalse(cursors.get(1).isClosed());
+    }
+
+    @Test
+    public void testStatsAreSummedAcrossFiles()
+    {
+        MultiFileRecordCursor cursor = createCursor(fileSplit("a", 10), fileSplit("b", 20));
+        cursor.addReadTime(1);
+
+        // read the first row of the first file
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursor.getCompletedBytes(), 5);
+        assertEquals(cursor.getReadTimeNanos(), 1 + 100);
+
+        // read the first row of the second file
+        assertTrue(cursor.advanceNextPosition());
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursor.getCompletedBytes(), 10 + 10);
+        assertEquals(cursor.getReadTimeNanos(), 1 + 200 + 100);
+
+        while (cursor.advanceNextPosition()) {
+            // consume the remaining rows
+        }
+        assertEquals(cursor.getCompletedBytes(), 30);
+        assertEquals(cursor.getReadTimeNanos(), 1 + 200 + 200);
+    }
+
+    @Test
+    public void testCloseInTheMiddleOfFile()
+    {
+        MultiFileRecordCursor cursor = createCursor(fileSplit("a", 10), fileSplit("b", 20));
+
+        assertTrue(cursor.advanceNextPosition());
+        cursor.close();
+        assertTrue(cursors.get(0).isClosed());
+
+        // a closed cursor does not open the remaining files
+        assertFalse(cursor.advanceNextPosition());
+        assertEquals(cursors.size(), 1);
+
+        // closing again is a no-op
+        cursor.close();
+        assertEquals(cursors.get(0).getCloseCount(), 1);
+    }
+
+    private MultiFileRecordCursor createCursor(HiveSplit... fileSplits)
+    {
+        return new MultiFileRecordCursor(ImmutableList.copyOf(fileSplits), ImmutableList.<Type>of(BIGINT), new Function<HiveSplit, HiveRecordCursor>()
+        {
+            @Override
+            public HiveRecordCursor apply(HiveSplit fileSplit)
+            {
+                StubCursor cursor = new StubCursor(fileSplit.getLength());
+                cursors.add(cursor);
+                return cursor;
+            }
+        });
+    }
+
+    private static HiveSplit fileSplit(String path, long length)
+    {
+        return new HiveSplit("clientId", "db", "table", "partitionName", path, 0, length, new Properties(), ImmutableList.<HivePartitionKey>of(), ImmutableList.<HostAddress>of());
+    }
+
+    /**
+     * Produces two rows. Reading each row completes half of the file and takes 100 nanoseconds.
+     */
+    private static class StubCursor
+            extends HiveRecordCursor
+    {
+        private final long length;
+        private int position = -1;
+        private int closeCount;
+
+        private StubCursor(long length)
+        {
+            this.length = length;
+        }
+
+        @Override
+        public long getTotalBytes()
+        {
+            return length;
+        }
+
+        @Override
+        public long getCompletedBytes()
+        {
+            return Math.min(position + 1, 2) * length / 2;
+        }
+
+        @Override
+        public Type getType(int field)
+        {
+            return BIGINT;
+        }
+
+        @Override
+        public boolean advanceNextPosition()
+        {
+            if (position >= 1) {
+                return false;
+            }
+            position++;
+            addReadTime(100);
+            return true;
+        }
+
+        @Override
+        public boolean getBoolean(int field)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getLong(int field)
+        {
+            return length;
+        }
+
+        @Override
+        public double getDouble(int field)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] getString(int field)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isNull(int field)
+        {
+            return false;
+        }
+
+        @Override
+        public void close()
+        {
+            closeCount++;
+        }
+
+        public boolean isClosed()
+        {
+            return closeCount > 0;
+        }
+
+        public int getCloseCount()
+        {
+            return closeCount;
+        }
+    }
+}
@@ -19,11 +19,17 @@ import com.google.common.base.Optional;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static io.airlift.units.DataSize.Unit.BYTE;
@@ -142,6 +148,92 @@ public final class BlockIterables
         return new ConcatBlockIterable(blockIterables);
     }
 
+    /**
+     * Returns the blocks of the source that contain the positions in the specified set. Blocks
+     * without any selected position are skipped, and partially selected blocks are cut into regions.
+     */
+    public static BlockIterable selectPositions(BlockIterable blockIterable, RangeSet<Integer> positions)
+    {
+        return new SelectedPositionsBlockIterable(blockIterable, positions);
+    }
+
+    private static class SelectedPositionsBlockIterable
+            implements BlockIterable, Closeable
+    {
+        private final BlockIterable source;
+        private final RangeSet<Integer> positions;
+
+        private SelectedPositionsBlockIterable(BlockIterable source, RangeSet<Integer> positions)
+        {
+            this.source = checkNotNull(source, "source is null");
+            this.positions = checkNotNull(positions, "positions is null");
+        }
+
+        @Override
+        public Type getType()
+        {
+            return source.getType();
+        }
+
+        @Override
+        public Optional<DataSize> getDataSize()
+        {
+            return Optional.absent();
+        }
+
+        @Override
+        public Optional<Integer> getPositionCount()
+        {
+            return Optional.absent();
+        }
+
+        @Override
+        public Iterator<Block> iterator()
+        {
+            return new AbstractIterator<Block>()
+            {
+                private final Iterator<Block> blocks = source.iterator();
+                private final Queue<Block> regions = new ArrayDeque<>();
+                private int position;
+
+                @Override
+                protected Block computeNext()
+                {
+                    while (regions.isEmpty() && blocks.hasNext()) {
+                        Block block = blocks.next();
+                        int blockStart = position;
+                        position += block.getPositionCount();
+
+                        Range<Integer> blockPositions = Range.closedOpen(blockStart, position);
+                        if (positions.encloses(blockPositions)) {
+                            return block;
+                        }
+                        for (Range<Integer> selected : positions.subRangeSet(blockPositions).asRanges()) {
+                            int start = selected.lowerEndpoint() - blockStart;
+                            int end = selected.upperEndpoint() - blockStart;
+                            if (end > start) {
+                                regions.add(block.getRegion(start, end - start));
+                            }
+                        }
+                    }
+                    if (regions.isEmpty()) {
+                        return endOfData();
+                    }
+                    return regions.poll();
+                }
+            };
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (source instanceof Closeable) {
+                ((Closeable) source).close();
+            }
+        }
+    }
+
     private static class ConcatBlockIterable
             implements BlockIterable
     {
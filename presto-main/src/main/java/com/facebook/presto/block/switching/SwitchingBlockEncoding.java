@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.block.switching;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockEncoding;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeManager;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Encoding of a column whose blocks were written with one encoding up to a byte offset
+ * and with another encoding after it. Blocks must be read from an input that starts at
+ * the first block of the column.
+ */
+public class SwitchingBlockEncoding
+        implements BlockEncoding
+{
+    public static final BlockEncodingFactory<SwitchingBlockEncoding> FACTORY = new SwitchingBlockEncodingFactory();
+    private static final String NAME = "SWITCH";
+
+    private final BlockEncoding firstEncoding;
+    private final long firstSizeInBytes;
+    private final BlockEncoding secondEncoding;
+
+    public SwitchingBlockEncoding(BlockEncoding firstEncoding, long firstSizeInBytes, BlockEncoding secondEncoding)
+    {
+        this.firstEncoding = checkNotNull(firstEncoding, "firstEncoding is null");
+        this.secondEncoding = checkNotNull(secondEncoding, "secondEncoding is null");
+        checkArgument(firstSizeInBytes >= 0, "firstSizeInBytes is negative");
+        checkArgument(firstEncoding.getType().equals(secondEncoding.getType()), "encodings have different types");
+        this.firstSizeInBytes = firstSizeInBytes;
+    }
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public Type getType()
+    {
+        return firstEncoding.getType();
+    }
+
+    public BlockEncoding getFirstEncoding()
+    {
+        return firstEncoding;
+    }
+
+    public long getFirstSizeInBytes()
+    {
+        return firstSizeInBytes;
+    }
+
+    public BlockEncoding getSecondEncoding()
+    {
+        return secondEncoding;
+    }
+
+    @Override
+    public void writeBlock(SliceOutput sliceOutput, Block block)
+    {
+        throw new UnsupportedOperationException("blocks are written with the first or second encoding");
+    }
+
+    @Override
+    public Block readBlock(SliceInput sliceInput)
+    {
+        if (sliceInput.position() < firstSizeInBytes) {
+            return firstEncoding.readBlock(sliceInput);
+        }
+        return secondEncoding.readBlock(sliceInput);
+    }
+
+    private static class SwitchingBlockEncodingFactory
+            implements BlockEncodingFactory<SwitchingBlockEncoding>
+    {
+        @Override
+        public String getName()
+        {
+            return NAME;
+        }
+
+        @Override
+        public SwitchingBlockEncoding readEncoding(TypeManager manager, BlockEncodingSerde serde, SliceInput input)
+        {
+            BlockEncoding firstEncoding = serde.readBlockEncoding(input);
+            long firstSizeInBytes = input.readLong();
+            BlockEncoding secondEncoding = serde.readBlockEncoding(input);
+            return new SwitchingBlockEncoding(firstEncoding, firstSizeInBytes, secondEncoding);
+        }
+
+        @Override
+        public void writeEncoding(BlockEncodingSerde serde, SliceOutput output, SwitchingBlockEncoding blockEncoding)
+        {
+            serde.writeBlockEncoding(output, blockEncoding.getFirstEncoding());
+            output.writeLong(blockEncoding.getFirstSizeInBytes());
+            serde.writeBlockEncoding(output, blockEncoding.getSecondEncoding());
+        }
+    }
+}
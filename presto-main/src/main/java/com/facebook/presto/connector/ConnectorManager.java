@@ -17,6 +17,7 @@ import com.facebook.presto.index.IndexManager;
 import com.facebook.presto.metadata.HandleResolver;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.metadata.OutputTableHandleResolver;
+import com.facebook.presto.metadata.StatisticsManager;
 import com.facebook.presto.operator.RecordSinkManager;
 import com.facebook.presto.spi.Connector;
 import com.facebook.presto.spi.ConnectorFactory;
@@ -27,6 +28,7 @@ import com.facebook.presto.spi.ConnectorOutputHandleResolver;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 import com.facebook.presto.split.ConnectorDataStreamProvider;
 import com.facebook.presto.split.DataStreamManager;
 import com.facebook.presto.split.RecordSetDataStreamProvider;
@@ -50,6 +52,7 @@ public class ConnectorManager
     private final SplitManager splitManager;
     private final DataStreamManager dataStreamManager;
     private final IndexManager indexManager;
+    private final StatisticsManager statisticsManager;
 
     private final RecordSinkManager recordSinkManager;
     private final HandleResolver handleResolver;
@@ -64,6 +67,7 @@ public class ConnectorManager
             SplitManager splitManager,
             DataStreamManager dataStreamManager,
             IndexManager indexManager,
+            StatisticsManager statisticsManager,
             RecordSinkManager recordSinkManager,
             HandleResolver handleResolver,
             OutputTableHandleResolver outputTableHandleResolver,
@@ -74,6 +78,7 @@ public class ConnectorManager
         this.splitManager = splitManager;
         this.dataStreamManager = dataStreamManager;
         this.indexManager = indexManager;
+        this.statisticsManager = statisticsManager;
         this.recordSinkManager = recordSinkManager;
         this.handleResolver = handleResolver;
         this.outputTableHandleResolver = outputTableHandleResolver;
@@ -200,5 +205,17 @@ public class ConnectorManager
         if (indexResolver != null) {
             indexManager.addIndexResolver(indexResolver);
         }
+
+        ConnectorStatisticsProvider statisticsProvider = null;
+        try {
+            statisticsProvider = connector.getStatisticsProvider();
+            checkNotNull(statisticsProvider, "Connector %s returned a null statistics provider", connectorId);
+        }
+        catch (UnsupportedOperationException ignored) {
+        }
+
+        if (statisticsProvider != null) {
+            statisticsManager.addStatisticsProvider(statisticsProvider);
+        }
     }
 }
@@ -16,6 +16,7 @@ package com.facebook.presto.connector;
 import com.facebook.presto.metadata.NativeHandleResolver;
 import com.facebook.presto.metadata.NativeMetadata;
 import com.facebook.presto.metadata.NativeRecordSinkProvider;
+import com.facebook.presto.metadata.NativeStatisticsProvider;
 import com.facebook.presto.spi.Connector;
 import com.facebook.presto.spi.ConnectorFactory;
 import com.facebook.presto.spi.ConnectorHandleResolver;
@@ -25,6 +26,7 @@ import com.facebook.presto.spi.ConnectorOutputHandleResolver;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 import com.facebook.presto.split.ConnectorDataStreamProvider;
 import com.facebook.presto.split.NativeDataStreamProvider;
 import com.facebook.presto.split.NativeSplitManager;
@@ -42,18 +44,21 @@ public class NativeConnectorFactory
     private final NativeSplitManager splitManager;
     private final NativeDataStreamProvider dataStreamProvider;
     private final NativeRecordSinkProvider recordSinkProvider;
+    private final NativeStatisticsProvider statisticsProvider;
 
     @Inject
     public NativeConnectorFactory(
             NativeMetadata metadata,
             NativeSplitManager splitManager,
             NativeDataStreamProvider dataStreamProvider,
-            NativeRecordSinkProvider recordSinkProvider)
+            NativeRecordSinkProvider recordSinkProvider,
+            NativeStatisticsProvider statisticsProvider)
     {
         this.metadata = checkNotNull(metadata, "metadata is null");
         this.splitManager = checkNotNull(splitManager, "splitManager is null");
         this.dataStreamProvider = checkNotNull(dataStreamProvider, "dataStreamProvider is null");
         this.recordSinkProvider = checkNotNull(recordSinkProvider, "recordSinkProvider is null");
+        this.statisticsProvider = checkNotNull(statisticsProvider, "statisticsProvider is null");
     }
 
     @Override
@@ -113,6 +118,12 @@ public class NativeConnectorFactory
             {
                 throw new UnsupportedOperationException();
             }
+
+            @Override
+            public ConnectorStatisticsProvider getStatisticsProvider()
+            {
+                return statisticsProvider;
+            }
         };
     }
 }
@@ -21,6 +21,7 @@ import com.facebook.presto.spi.ConnectorOutputHandleResolver;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.split.ConnectorDataStreamProvider;
 
@@ -86,4 +87,10 @@ public class DualConnector
     {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public ConnectorStatisticsProvider getStatisticsProvider()
+    {
+        throw new UnsupportedOperationException();
+    }
 }
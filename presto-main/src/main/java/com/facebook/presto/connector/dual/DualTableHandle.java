@@ -16,6 +16,7 @@ package com.facebook.presto.connector.dual;
 import com.facebook.presto.spi.TableHandle;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Objects;
 
 public class DualTableHandle
         implements TableHandle
@@ -39,4 +40,23 @@ public class DualTableHandle
     {
         return "dual:" + schemaName;
     }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hashCode(schemaName);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final DualTableHandle other = (DualTableHandle) obj;
+        return Objects.equal(this.schemaName, other.schemaName);
+    }
 }
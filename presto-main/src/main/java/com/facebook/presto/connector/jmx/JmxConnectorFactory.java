@@ -23,6 +23,7 @@ import com.facebook.presto.spi.ConnectorOutputHandleResolver;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.split.ConnectorDataStreamProvider;
 import io.airlift.node.NodeInfo;
@@ -101,6 +102,12 @@ public class JmxConnectorFactory
                 throw new UnsupportedOperationException();
             }
 
+            @Override
+            public ConnectorStatisticsProvider getStatisticsProvider()
+            {
+                throw new UnsupportedOperationException();
+            }
+
             @Override
             public ConnectorOutputHandleResolver getOutputHandleResolver()
             {
@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.connector.system;
+
+import com.facebook.presto.execution.ClusterMemoryManager;
+import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.InMemoryRecordSet;
+import com.facebook.presto.spi.InMemoryRecordSet.Builder;
+import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.SystemTable;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+
+import javax.inject.Inject;
+
+import java.util.List;
+
+import static com.facebook.presto.metadata.MetadataUtil.TableMetadataBuilder.tableMetadataBuilder;
+import static com.facebook.presto.metadata.MetadataUtil.columnTypeGetter;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Iterables.transform;
+
+public class ClusterMemorySystemTable
+        implements SystemTable
+{
+    public static final SchemaTableName CLUSTER_MEMORY_TABLE_NAME = new SchemaTableName("sys", "cluster_memory");
+
+    public static final ConnectorTableMetadata CLUSTER_MEMORY_TABLE = tableMetadataBuilder(CLUSTER_MEMORY_TABLE_NAME)
+            .column("enabled", BOOLEAN)
+            .column("running_queries", BIGINT)
+            .column("reserved_bytes", BIGINT)
+            .column("max_cluster_bytes", BIGINT)
+            .column("max_query_bytes", BIGINT)
+            .column("queries_exceeded_query_limit", BIGINT)
+            .column("queries_killed_for_cluster_limit", BIGINT)
+            .build();
+
+    private final ClusterMemoryManager clusterMemoryManager;
+
+    @Inject
+    public ClusterMemorySystemTable(ClusterMemoryManager clusterMemoryManager)
+    {
+        this.clusterMemoryManager = checkNotNull(clusterMemoryManager, "clusterMemoryManager is null");
+    }
+
+    @Override
+    public boolean isDistributed()
+    {
+        return false;
+    }
+
+    @Override
+    public ConnectorTableMetadata getTableMetadata()
+    {
+        return CLUSTER_MEMORY_TABLE;
+    }
+
+    @Override
+    public List<Type> getColumnTypes()
+    {
+        return ImmutableList.copyOf(transform(CLUSTER_MEMORY_TABLE.getColumns(), columnTypeGetter()));
+    }
+
+    @Override
+    public RecordCursor cursor()
+    {
+        Builder table = InMemoryRecordSet.builder(CLUSTER_MEMORY_TABLE);
+        table.addRow(
+                clusterMemoryManager.isEnabled(),
+                (long) clusterMemoryManager.getRunningQueries(),
+                clusterMemoryManager.getReservedBytes(),
+                toBytes(clusterMemoryManager.getMaxClusterMemory()),
+                toBytes(clusterMemoryManager.getMaxQueryMemory()),
+                clusterMemoryManager.getQueriesExceededQueryLimit().getTotalCount(),
+                clusterMemoryManager.getQueriesKilledForClusterLimit().getTotalCount());
+        return table.build().cursor();
+    }
+
+    private static Long toBytes(DataSize dataSize)
+    {
+        if (dataSize == null) {
+            return null;
+        }
+        return dataSize.toBytes();
+    }
+}
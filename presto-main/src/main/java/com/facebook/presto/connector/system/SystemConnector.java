@@ -21,6 +21,7 @@ import com.facebook.presto.spi.ConnectorOutputHandleResolver;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 import com.facebook.presto.split.ConnectorDataStreamProvider;
 import com.google.common.base.Preconditions;
 
@@ -91,4 +92,10 @@ public class SystemConnector
     {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public ConnectorStatisticsProvider getStatisticsProvider()
+    {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.metadata.QualifiedTableName;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.SubPlan;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class CachedPlan
+{
+    private final Plan plan;
+    private final SubPlan subPlan;
+    private final List<Input> inputs;
+    private final Map<QualifiedTableName, TableHandle> tables;
+    private final Map<QualifiedTableName, Map<String, ColumnHandle>> tableColumns;
+    private final long planningNanos;
+
+    public CachedPlan(Plan plan,
+            SubPlan subPlan,
+            List<Input> inputs,
+            Map<QualifiedTableName, TableHandle> tables,
+            Map<QualifiedTableName, Map<String, ColumnHandle>> tableColumns,
+            long planningNanos)
+    {
+        this.plan = checkNotNull(plan, "plan is null");
+        this.subPlan = checkNotNull(subPlan, "subPlan is null");
+        this.inputs = ImmutableList.copyOf(checkNotNull(inputs, "inputs is null"));
+        this.tables = ImmutableMap.copyOf(checkNotNull(tables, "tables is null"));
+        this.tableColumns = ImmutableMap.copyOf(checkNotNull(tableColumns, "tableColumns is null"));
+        this.planningNanos = planningNanos;
+    }
+
+    public Plan getPlan()
+    {
+        return plan;
+    }
+
+    public SubPlan getSubPlan()
+    {
+        return subPlan;
+    }
+
+    public List<Input> getInputs()
+    {
+        return inputs;
+    }
+
+    /**
+     * Handles of the tables the statement reads, as resolved when it was analyzed.
+     */
+    public Map<QualifiedTableName, TableHandle> getTables()
+    {
+        return tables;
+    }
+
+    /**
+     * Handles of the columns of each table the statement reads, as resolved when it was analyzed.
+     */
+    public Map<QualifiedTableName, Map<String, ColumnHandle>> getTableColumns()
+    {
+        return tableColumns;
+    }
+
+    /**
+     * Time it took to analyze and plan the statement.
+     */
+    public long getPlanningNanos()
+    {
+        return planningNanos;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.operator.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The complete output of a finished query, as returned to the client.
+ */
+public class CachedQueryResult
+{
+    private final List<String> fieldNames;
+    private final List<Type> types;
+    private final List<Page> pages;
+    private final long sizeInBytes;
+
+    public CachedQueryResult(List<String> fieldNames, List<Type> types, List<Page> pages)
+    {
+        this.fieldNames = ImmutableList.copyOf(checkNotNull(fieldNames, "fieldNames is null"));
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.pages = ImmutableList.copyOf(checkNotNull(pages, "pages is null"));
+        checkArgument(fieldNames.size() == types.size(), "fieldNames and types size mismatch");
+
+        long sizeInBytes = 0;
+        for (Page page : pages) {
+            sizeInBytes += page.getDataSize().toBytes();
+        }
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    public List<String> getFieldNames()
+    {
+        return fieldNames;
+    }
+
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    public List<Page> getPages()
+    {
+        return pages;
+    }
+
+    public long getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+}
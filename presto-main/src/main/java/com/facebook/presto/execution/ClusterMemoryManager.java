@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.spi.PrestoException;
+import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import static com.facebook.presto.spi.StandardErrorCode.CLUSTER_OUT_OF_MEMORY;
+import static com.facebook.presto.spi.StandardErrorCode.EXCEEDED_MEMORY_LIMIT;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.units.DataSize.Unit.BYTE;
+
+/**
+ * Enforces memory limits across the cluster. Workers report the memory
+ * reserved by each task in the task stats, which the coordinator adds up per
+ * query. A query that reserves more than the per query limit is failed, and
+ * when the running queries together reserve more than the cluster limit, the
+ * query with the largest reservation is failed to free memory for the rest.
+ */
+@ThreadSafe
+public class ClusterMemoryManager
+{
+    private static final Logger log = Logger.get(ClusterMemoryManager.class);
+
+    private final boolean enabled;
+    private final DataSize maxQueryMemory;
+    private final DataSize maxClusterMemory;
+
+    private volatile long reservedBytes;
+    private volatile int runningQueries;
+
+    private final CounterStat queriesExceededQueryLimit = new CounterStat();
+    private final CounterStat queriesKilledForClusterLimit = new CounterStat();
+
+    @Inject
+    public ClusterMemoryManager(ClusterMemoryManagerConfig config)
+    {
+        checkNotNull(config, "config is null");
+        this.enabled = config.isEnabled();
+        this.maxQueryMemory = config.getMaxQueryMemory();
+        this.maxClusterMemory = config.getMaxClusterMemory();
+    }
+
+    /**
+     * Updates the cluster memory usage with the current reservations of the
+     * queries, and fails the queries that violate the memory limits.
+     */
+    public synchronized void process(Iterable<QueryExecution> queries)
+    {
+        long reservedBytes = 0;
+        int runningQueries = 0;
+        QueryExecution largestQuery = null;
+        long largestQueryBytes = 0;
+        for (QueryExecution query : queries) {
+            QueryInfo queryInfo = query.getQueryInfo();
+            // queued queries have not reserved any memory yet, and are not the ones to kill
+            if (queryInfo.getState() == QueryState.QUEUED || queryInfo.getState().isDone()) {
+                continue;
+            }
+
+            DataSize memoryReservation = queryInfo.getQueryStats().getTotalMemoryReservation();
+            long bytes = (memoryReservation == null) ? 0 : memoryReservation.toBytes();
+
+            if (enabled && bytes > maxQueryMemory.toBytes()) {
+                log.info("Query %s exceeded the max query memory of %s", queryInfo.getQueryId(), maxQueryMemory);
+                queriesExceededQueryLimit.update(1);
+                query.fail(new PrestoException(EXCEEDED_MEMORY_LIMIT.toErrorCode(), String.format("Query exceeded max memory size of %s", maxQueryMemory)));
+                continue;
+            }
+
+            reservedBytes += bytes;
+            runningQueries++;
+            if (largestQuery == null || bytes > largestQueryBytes) {
+                largestQuery = query;
+                largestQueryBytes = bytes;
+            }
+        }
+
+        if (enabled && maxClusterMemory != null && reservedBytes > maxClusterMemory.toBytes()) {
+            log.info("Cluster reserved %s which exceeds the max cluster memory of %s, killing query %s",
+                    new DataSize(reservedBytes, BYTE).convertToMostSuccinctDataSize(),
+                    maxClusterMemory,
+                    largestQuery.getQueryInfo().getQueryId());
+            queriesKilledForClusterLimit.update(1);
+            largestQuery.fail(new PrestoException(CLUSTER_OUT_OF_MEMORY.toErrorCode(), "Query killed because the cluster is out of memory. Please try again in a few minutes."));
+            reservedBytes -= largestQueryBytes;
+            runningQueries--;
+        }
+
+        this.reservedBytes = reservedBytes;
+        this.runningQueries = runningQueries;
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public DataSize getMaxQueryMemory()
+    {
+        return maxQueryMemory;
+    }
+
+    public DataSize getMaxClusterMemory()
+    {
+        return maxClusterMemory;
+    }
+
+    @Managed
+    public long getReservedBytes()
+    {
+        return reservedBytes;
+    }
+
+    @Managed
+    public int getRunningQueries()
+    {
+        return runningQueries;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getQueriesExceededQueryLimit()
+    {
+        return queriesExceededQueryLimit;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getQueriesKilledForClusterLimit()
+    {
+        return queriesKilledForClusterLimit;
+    }
+}
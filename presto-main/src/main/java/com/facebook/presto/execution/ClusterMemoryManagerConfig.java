@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
+
+import javax.validation.constraints.NotNull;
+
+public class ClusterMemoryManagerConfig
+{
+    private boolean enabled;
+    private DataSize maxQueryMemory = new DataSize(20, Unit.GIGABYTE);
+    private DataSize maxClusterMemory;
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Config("query.cluster-memory-manager.enabled")
+    @ConfigDescription("Enforce memory limits on the memory reserved by queries across all workers")
+    public ClusterMemoryManagerConfig setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxQueryMemory()
+    {
+        return maxQueryMemory;
+    }
+
+    @Config("query.max-memory")
+    @ConfigDescription("Maximum memory a query may reserve across all workers")
+    public ClusterMemoryManagerConfig setMaxQueryMemory(DataSize maxQueryMemory)
+    {
+        this.maxQueryMemory = maxQueryMemory;
+        return this;
+    }
+
+    public DataSize getMaxClusterMemory()
+    {
+        return maxClusterMemory;
+    }
+
+    @Config("query.max-cluster-memory")
+    @ConfigDescription("When all running queries together reserve more memory than this, the query with the largest reservation is killed")
+    public ClusterMemoryManagerConfig setMaxClusterMemory(DataSize maxClusterMemory)
+    {
+        this.maxClusterMemory = maxClusterMemory;
+        return this;
+    }
+}
@@ -54,6 +54,8 @@ public class DropTableExecution
     private final DropTable statement;
     private final MetadataManager metadataManager;
     private final ShardManager shardManager;
+    private final PlanCache planCache;
+    private final QueryResultCache queryResultCache;
     private final QueryStateMachine stateMachine;
 
     DropTableExecution(QueryId queryId,
@@ -63,11 +65,15 @@ public class DropTableExecution
             DropTable statement,
             MetadataManager metadataManager,
             ShardManager shardManager,
+            PlanCache planCache,
+            QueryResultCache queryResultCache,
             Executor executor)
     {
         this.statement = statement;
         this.metadataManager = metadataManager;
         this.shardManager = shardManager;
+        this.planCache = planCache;
+        this.queryResultCache = queryResultCache;
         this.stateMachine = new QueryStateMachine(queryId, query, session, self, executor);
     }
 
@@ -129,6 +135,18 @@ public class DropTableExecution
         stateMachine.recordHeartbeat();
     }
 
+    @Override
+    public Optional<String> getResultCacheKey()
+    {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<CachedQueryResult> getCachedResult()
+    {
+        return Optional.absent();
+    }
+
     @Override
     public QueryInfo getQueryInfo()
     {
@@ -152,6 +170,10 @@ public class DropTableExecution
 
         metadataManager.dropTable(tableHandle.get());
 
+        // plans and results of queries that read the table are no longer valid
+        planCache.invalidateAll();
+        queryResultCache.invalidateAll();
+
         stateMachine.finished();
     }
 
@@ -161,17 +183,23 @@ public class DropTableExecution
         private final LocationFactory locationFactory;
         private final MetadataManager metadataManager;
         private final ShardManager shardManager;
+        private final PlanCache planCache;
+        private final QueryResultCache queryResultCache;
         private final ExecutorService executor;
         private final ThreadPoolExecutorMBean executorMBean;
 
         @Inject
         DropTableExecutionFactory(LocationFactory locationFactory,
                 MetadataManager metadataManager,
-                ShardManager shardManager)
+                ShardManager shardManager,
+                PlanCache planCache,
+                QueryResultCache queryResultCache)
         {
             this.locationFactory = checkNotNull(locationFactory, "locationFactory is null");
             this.metadataManager = checkNotNull(metadataManager, "metadataManager is null");
             this.shardManager = checkNotNull(shardManager, "shardManager is null");
+            this.planCache = checkNotNull(planCache, "planCache is null");
+            this.queryResultCache = checkNotNull(queryResultCache, "queryResultCache is null");
             this.executor = Executors.newCachedThreadPool(daemonThreadsNamed("drop-table-scheduler-%d"));
             this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) executor);
         }
@@ -193,6 +221,8 @@ public class DropTableExecution
                     (DropTable) statement,
                     metadataManager,
                     shardManager,
+                    planCache,
+                    queryResultCache,
                     executor);
         }
     }
@@ -15,6 +15,7 @@ package com.facebook.presto.execution;
 
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.spi.Session;
+import com.google.common.base.Optional;
 import io.airlift.units.Duration;
 
 import java.net.URI;
@@ -81,4 +82,16 @@ public class FailedQueryExecution
     {
         // no-op
     }
+
+    @Override
+    public Optional<String> getResultCacheKey()
+    {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<CachedQueryResult> getCachedResult()
+    {
+        return Optional.absent();
+    }
 }
@@ -13,20 +13,29 @@
  */
 package com.facebook.presto.execution;
 
+import com.facebook.presto.operator.TaskStats;
+import com.facebook.presto.spi.BucketedSplit;
 import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.Node;
 import com.facebook.presto.spi.NodeManager;
+import com.facebook.presto.spi.SizedSplit;
 import com.facebook.presto.spi.Split;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Functions;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.SetMultimap;
+import com.google.common.hash.Hashing;
 import com.google.common.net.InetAddresses;
+import org.joda.time.DateTime;
 import org.weakref.jmx.Managed;
 
 import javax.inject.Inject;
@@ -35,6 +44,7 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -45,22 +55,41 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.max;
 
 public class NodeScheduler
 {
+    // rates measured over a shorter time are too noisy to call a node slow
+    private static final long MIN_RATE_MEASUREMENT_MILLIS = 5_000;
+    // a median over fewer nodes says nothing about which of them is slow
+    private static final int MIN_NODES_FOR_SLOW_NODE_DETECTION = 3;
+
     private final NodeManager nodeManager;
     private final AtomicLong scheduleLocal = new AtomicLong();
     private final AtomicLong scheduleRack = new AtomicLong();
     private final AtomicLong scheduleRandom = new AtomicLong();
+    private final AtomicLong scheduleAffinity = new AtomicLong();
+    private final AtomicLong scheduleBucket = new AtomicLong();
+    private final AtomicLong slowNodesAvoided = new AtomicLong();
     private final int minCandidates;
+    private final boolean splitAffinityEnabled;
+    private final long standardSplitSizeInBytes;
+    private final boolean slowNodeAvoidanceEnabled;
+    private final double slowNodeRatio;
 
     @Inject
     public NodeScheduler(NodeManager nodeManager, NodeSchedulerConfig config)
     {
         this.nodeManager = nodeManager;
         this.minCandidates = config.getMinCandidates();
+        this.splitAffinityEnabled = config.isSplitAffinityEnabled();
+        this.standardSplitSizeInBytes = config.getStandardSplitSize().toBytes();
+        checkArgument(standardSplitSizeInBytes > 0, "standardSplitSize must be greater than zero");
+        this.slowNodeAvoidanceEnabled = config.isSlowNodeAvoidanceEnabled();
+        this.slowNodeRatio = config.getSlowNodeRatio();
     }
 
     @Managed
@@ -81,12 +110,33 @@ public class NodeScheduler
         return scheduleRandom.get();
     }
 
+    @Managed
+    public long getScheduleAffinity()
+    {
+        return scheduleAffinity.get();
+    }
+
+    @Managed
+    public long getScheduleBucket()
+    {
+        return scheduleBucket.get();
+    }
+
+    @Managed
+    public long getSlowNodesAvoided()
+    {
+        return slowNodesAvoided.get();
+    }
+
     @Managed
     public void reset()
     {
         scheduleLocal.set(0);
         scheduleRack.set(0);
         scheduleRandom.set(0);
+        scheduleAffinity.set(0);
+        scheduleBucket.set(0);
+        slowNodesAvoided.set(0);
     }
 
     public NodeSelector createNodeSelector(final String dataSourceName, Map<Node, RemoteTask> taskMap, int maxPendingSplitsPerTask)
@@ -137,6 +187,13 @@ public class NodeScheduler
         private final Map<Node, RemoteTask> taskMap;
         private final int maxPendingSplitsPerTask;
 
+        // all splits of a bucket run on the same node, so operations on the bucket columns do not need to repartition
+        private final Map<Integer, Node> bucketNodes = new HashMap<>();
+
+        // total weight and count of the splits assigned to each node, used to estimate the weight of the splits still queued or running on the node
+        private final Map<Node, Long> assignedWeights = new HashMap<>();
+        private final Map<Node, Long> assignedSplits = new HashMap<>();
+
         public NodeSelector(Supplier<NodeMap> nodeMap, Map<Node, RemoteTask> taskMap, int maxPendingSplitsPerTask)
         {
             this.nodeMap = new AtomicReference<>(nodeMap);
@@ -177,29 +234,137 @@ public class NodeScheduler
         public Multimap<Node, Split> computeAssignments(Set<Split> splits)
         {
             Multimap<Node, Split> assignment = HashMultimap.create();
+            Map<Node, Long> newWeights = new HashMap<>();
+            Set<Node> slowNodes = getSlowNodes();
 
             for (Split split : splits) {
-                List<Node> candidateNodes = selectCandidateNodes(nodeMap.get().get(), split);
+                int bucketNumber = getBucketNumber(split);
+                Node bucketNode = bucketNodes.get(bucketNumber);
+
+                List<Node> candidateNodes;
+                if (bucketNode != null) {
+                    candidateNodes = ImmutableList.of(bucketNode);
+                    scheduleBucket.incrementAndGet();
+                }
+                else {
+                    candidateNodes = excludeSlowNodes(selectCandidateNodes(nodeMap.get().get(), split), slowNodes);
+                }
                 checkState(!candidateNodes.isEmpty(), "No nodes available to run query");
 
+                // pick the node with the least work outstanding, measured in standard splits
                 Node chosen = null;
-                int min = Integer.MAX_VALUE;
+                long min = Long.MAX_VALUE;
                 for (Node node : candidateNodes) {
                     RemoteTask task = taskMap.get(node);
-                    int currentSplits = (task == null) ? 0 : task.getQueuedSplits();
-                    int assignedSplits = currentSplits + assignment.get(node).size();
-                    if (assignedSplits < min && assignedSplits < maxPendingSplitsPerTask) {
+                    int queuedSplits = (task == null) ? 0 : task.getQueuedSplits();
+                    int runningSplits = (task == null) ? 0 : task.getRunningSplits();
+                    if (queuedSplits + assignment.get(node).size() >= maxPendingSplitsPerTask) {
+                        continue;
+                    }
+
+                    long load = estimateWeight(node, queuedSplits + runningSplits) + getOrZero(newWeights, node);
+                    if (load < min) {
                         chosen = node;
-                        min = assignedSplits;
+                        min = load;
                     }
                 }
                 if (chosen != null) {
+                    long weight = getSplitWeight(split);
                     assignment.put(chosen, split);
+                    newWeights.put(chosen, getOrZero(newWeights, chosen) + weight);
+                    assignedWeights.put(chosen, getOrZero(assignedWeights, chosen) + weight);
+                    assignedSplits.put(chosen, getOrZero(assignedSplits, chosen) + 1);
+                    if (bucketNumber != BucketedSplit.NOT_BUCKETED) {
+                        bucketNodes.put(bucketNumber, chosen);
+                    }
                 }
             }
             return assignment;
         }
 
+        /**
+         * Finds the nodes that read the splits of this stage much slower than the other nodes.
+         * Only nodes with queued splits are compared, since a node that ran out of splits
+         * reads slower than it could.
+         */
+        private Set<Node> getSlowNodes()
+        {
+            if (!slowNodeAvoidanceEnabled) {
+                return ImmutableSet.of();
+            }
+
+            long now = System.currentTimeMillis();
+            Map<Node, Double> inputRates = new HashMap<>();
+            for (Map.Entry<Node, RemoteTask> entry : taskMap.entrySet()) {
+                RemoteTask task = entry.getValue();
+                if (task.getQueuedSplits() == 0) {
+                    continue;
+                }
+
+                TaskStats stats = task.getTaskInfo().getStats();
+                DateTime firstStartTime = stats.getFirstStartTime();
+                if (firstStartTime == null || now - firstStartTime.getMillis() < MIN_RATE_MEASUREMENT_MILLIS) {
+                    continue;
+                }
+                inputRates.put(entry.getKey(), stats.getRawInputDataSize().toBytes() * 1.0 / (now - firstStartTime.getMillis()));
+            }
+            return findSlowNodes(inputRates, slowNodeRatio);
+        }
+
+        private List<Node> excludeSlowNodes(List<Node> candidateNodes, Set<Node> slowNodes)
+        {
+            if (slowNodes.isEmpty()) {
+                return candidateNodes;
+            }
+
+            ImmutableList.Builder<Node> builder = ImmutableList.builder();
+            for (Node node : candidateNodes) {
+                if (!slowNodes.contains(node)) {
+                    builder.add(node);
+                }
+            }
+            List<Node> fastNodes = builder.build();
+
+            // a split that can only run on slow nodes still has to run somewhere
+            if (fastNodes.isEmpty()) {
+                return candidateNodes;
+            }
+            if (fastNodes.size() < candidateNodes.size()) {
+                slowNodesAvoided.incrementAndGet();
+            }
+            return fastNodes;
+        }
+
+        /**
+         * Estimates the weight of the specified number of splits on the node, assuming they have
+         * the average weight of all the splits assigned to the node so far.
+         */
+        private long estimateWeight(Node node, int splitCount)
+        {
+            long nodeSplits = getOrZero(assignedSplits, node);
+            if (nodeSplits == 0) {
+                return splitCount;
+            }
+            return splitCount * getOrZero(assignedWeights, node) / nodeSplits;
+        }
+
+        private long getSplitWeight(Split split)
+        {
+            if (split instanceof SizedSplit) {
+                long sizeInBytes = ((SizedSplit) split).getSizeInBytes();
+                return max(1, (sizeInBytes + standardSplitSizeInBytes - 1) / standardSplitSizeInBytes);
+            }
+            return 1;
+        }
+
+        private int getBucketNumber(Split split)
+        {
+            if (split instanceof BucketedSplit) {
+                return ((BucketedSplit) split).getBucketNumber();
+            }
+            return BucketedSplit.NOT_BUCKETED;
+        }
+
         private List<Node> selectCandidateNodes(NodeMap nodeMap, Split split)
         {
             Set<Node> chosen = new LinkedHashSet<>(minCandidates);
@@ -257,6 +422,21 @@ public class NodeScheduler
                 }
             }
 
+            // add the nodes with the highest affinity for this split, so repeated reads of the split hit the same worker caches
+            if (split.isRemotelyAccessible() && splitAffinityEnabled) {
+                if (chosen.size() < minCandidates) {
+                    for (Node node : affinityOrder(nodeMap.getNodesByHost().values(), split)) {
+                        if (chosen.add(node)) {
+                            scheduleAffinity.incrementAndGet();
+                        }
+
+                        if (chosen.size() == minCandidates) {
+                            break;
+                        }
+                    }
+                }
+            }
+
             // add some random nodes if below the minimum count
             if (split.isRemotelyAccessible()) {
                 if (chosen.size() < minCandidates) {
@@ -276,6 +456,60 @@ public class NodeScheduler
         }
     }
 
+    /**
+     * Returns the nodes with an input rate below the specified fraction of the median rate.
+     */
+    @VisibleForTesting
+    static Set<Node> findSlowNodes(Map<Node, Double> inputRates, double slowNodeRatio)
+    {
+        if (inputRates.size() < MIN_NODES_FOR_SLOW_NODE_DETECTION) {
+            return ImmutableSet.of();
+        }
+
+        List<Double> rates = Ordering.<Double>natural().sortedCopy(inputRates.values());
+        double medianRate = rates.get(rates.size() / 2);
+
+        ImmutableSet.Builder<Node> slowNodes = ImmutableSet.builder();
+        for (Map.Entry<Node, Double> entry : inputRates.entrySet()) {
+            if (entry.getValue() < medianRate * slowNodeRatio) {
+                slowNodes.add(entry.getKey());
+            }
+        }
+        return slowNodes.build();
+    }
+
+    private static long getOrZero(Map<Node, Long> map, Node node)
+    {
+        Long value = map.get(node);
+        if (value == null) {
+            return 0;
+        }
+        return value;
+    }
+
+    /**
+     * Orders the nodes by rendezvous hash of the node and the split info, which gives
+     * each split a stable node preference that changes minimally as nodes come and go.
+     */
+    private static List<Node> affinityOrder(Iterable<Node> nodes, Split split)
+    {
+        long splitHash = Hashing.murmur3_128().hashString(String.valueOf(split.getInfo()), UTF_8).asLong();
+
+        Map<Node, Long> scores = new HashMap<>();
+        for (Node node : nodes) {
+            long score = Hashing.murmur3_128().newHasher()
+                    .putLong(splitHash)
+                    .putString(node.getNodeIdentifier(), UTF_8)
+                    .hash()
+                    .asLong();
+            scores.put(node, score);
+        }
+
+        List<Node> ordered = new ArrayList<>(scores.keySet());
+        Collections.sort(ordered, Ordering.<Long>natural().reverse().onResultOf(Functions.forMap(scores)));
+        return ordered;
+    }
+
     private static <T> Iterable<T> lazyShuffle(final Iterable<T> iterable)
     {
         return new Iterable<T>()
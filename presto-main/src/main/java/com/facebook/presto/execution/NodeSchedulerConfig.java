@@ -14,12 +14,22 @@
 package com.facebook.presto.execution;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
 
 public class NodeSchedulerConfig
 {
     private int minCandidates = 10;
+    private boolean splitAffinityEnabled;
+    private DataSize standardSplitSize = new DataSize(64, Unit.MEGABYTE);
+    private boolean slowNodeAvoidanceEnabled;
+    private double slowNodeRatio = 0.25;
 
     @Min(1)
     public int getMinCandidates()
@@ -33,4 +43,59 @@ public class NodeSchedulerConfig
         this.minCandidates = candidates;
         return this;
     }
+
+    public boolean isSplitAffinityEnabled()
+    {
+        return splitAffinityEnabled;
+    }
+
+    @Config("node-scheduler.split-affinity-enabled")
+    @ConfigDescription("Prefer the same nodes for a remotely accessible split across queries, so worker local caches are reused")
+    public NodeSchedulerConfig setSplitAffinityEnabled(boolean splitAffinityEnabled)
+    {
+        this.splitAffinityEnabled = splitAffinityEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getStandardSplitSize()
+    {
+        return standardSplitSize;
+    }
+
+    @Config("node-scheduler.standard-split-size")
+    @ConfigDescription("Size of a split that counts as one unit of work when balancing splits with size hints across nodes")
+    public NodeSchedulerConfig setStandardSplitSize(DataSize standardSplitSize)
+    {
+        this.standardSplitSize = standardSplitSize;
+        return this;
+    }
+
+    public boolean isSlowNodeAvoidanceEnabled()
+    {
+        return slowNodeAvoidanceEnabled;
+    }
+
+    @Config("node-scheduler.slow-node-avoidance-enabled")
+    @ConfigDescription("Stop assigning splits of a stage to nodes that read their splits much slower than the other nodes of the stage")
+    public NodeSchedulerConfig setSlowNodeAvoidanceEnabled(boolean slowNodeAvoidanceEnabled)
+    {
+        this.slowNodeAvoidanceEnabled = slowNodeAvoidanceEnabled;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getSlowNodeRatio()
+    {
+        return slowNodeRatio;
+    }
+
+    @Config("node-scheduler.slow-node-ratio")
+    @ConfigDescription("A node is slow when its input rate for a stage is below this fraction of the median rate of the busy nodes of the stage")
+    public NodeSchedulerConfig setSlowNodeRatio(double slowNodeRatio)
+    {
+        this.slowNodeRatio = slowNodeRatio;
+        return this;
+    }
 }
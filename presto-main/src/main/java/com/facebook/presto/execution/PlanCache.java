@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.sql.SqlFormatter;
+import com.facebook.presto.sql.planner.TimeDependenceEvaluator;
+import com.facebook.presto.sql.tree.Query;
+import com.facebook.presto.sql.tree.Statement;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Distributed plans of queries, keyed on the formatted statement and the session
+ * properties analysis depends on. Entries expire after a fixed time, since the
+ * metadata the plan was created from is not versioned. Before a cached plan is
+ * used, the tables and columns it reads are resolved again and the plan is
+ * dropped if any of them changed. The partitions of the scanned tables are
+ * listed again when a cached plan is executed, so only the table layout and the
+ * pruning predicates are reused.
+ */
+public class PlanCache
+{
+    private final boolean enabled;
+    private final Cache<String, CachedPlan> plans;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong planningNanosSaved = new AtomicLong();
+
+    @Inject
+    public PlanCache(PlanCacheConfig config)
+    {
+        checkNotNull(config, "config is null");
+        this.enabled = config.isEnabled();
+        this.plans = CacheBuilder.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterWrite(config.getTtl().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Returns the key for the plan of the statement, or absent if the plan of the statement can not be reused.
+     */
+    public Optional<String> createKey(Session session, Statement statement)
+    {
+        checkNotNull(session, "session is null");
+        checkNotNull(statement, "statement is null");
+
+        if (!enabled || !(statement instanceof Query) || TimeDependenceEvaluator.isTimeDependent(statement)) {
+            return Optional.absent();
+        }
+
+        String key = Hashing.sha256().newHasher()
+                .putString(session.getCatalog(), UTF_8)
+                .putByte((byte) 0)
+                .putString(session.getSchema(), UTF_8)
+                .putByte((byte) 0)
+                .putString(session.getTimeZoneKey().getTimeZoneId(), UTF_8)
+                .putByte((byte) 0)
+                .putString(session.getLocale().toString(), UTF_8)
+                .putByte((byte) 0)
+                .putString(SqlFormatter.formatSql(statement), UTF_8)
+                .hash()
+                .toString();
+        return Optional.of(key);
+    }
+
+    /**
+     * Returns the plan cached under the key, if any. A plan that is not current,
+     * for example because a table it reads was dropped, is removed and not returned.
+     */
+    public Optional<CachedPlan> get(String key, Predicate<CachedPlan> isCurrent)
+    {
+        checkNotNull(key, "key is null");
+        checkNotNull(isCurrent, "isCurrent is null");
+
+        CachedPlan plan = plans.getIfPresent(key);
+        if (plan != null && !isCurrent.apply(plan)) {
+            plans.invalidate(key);
+            stale.incrementAndGet();
+            plan = null;
+        }
+
+        if (plan == null) {
+            misses.incrementAndGet();
+        }
+        else {
+            hits.incrementAndGet();
+            planningNanosSaved.addAndGet(plan.getPlanningNanos());
+        }
+        return Optional.fromNullable(plan);
+    }
+
+    public void put(String key, CachedPlan plan)
+    {
+        checkNotNull(key, "key is null");
+        checkNotNull(plan, "plan is null");
+
+        plans.put(key, plan);
+    }
+
+    @Managed
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    @Managed
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    @Managed(description = "Cached plans dropped because a table they read changed")
+    public long getStale()
+    {
+        return stale.get();
+    }
+
+    @Managed(description = "Analysis and planning time skipped by reusing cached plans")
+    public String getPlanningTimeSaved()
+    {
+        return new Duration(planningNanosSaved.get(), TimeUnit.NANOSECONDS).convertToMostSuccinctTimeUnit().toString();
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return plans.size();
+    }
+
+    @Managed
+    public void invalidateAll()
+    {
+        plans.invalidateAll();
+    }
+}
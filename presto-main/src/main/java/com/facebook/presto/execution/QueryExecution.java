@@ -16,6 +16,7 @@ package com.facebook.presto.execution;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.spi.Session;
 import com.facebook.presto.sql.tree.Statement;
+import com.google.common.base.Optional;
 import io.airlift.units.Duration;
 
 public interface QueryExecution
@@ -37,6 +38,16 @@ public interface QueryExecution
 
     void addStateChangeListener(StateChangeListener<QueryState> stateChangeListener);
 
+    /**
+     * Gets the key under which the results of this query can be cached, or absent if the results can not be cached.
+     */
+    Optional<String> getResultCacheKey();
+
+    /**
+     * Gets the cached results this query is answered with instead of running, if any.
+     */
+    Optional<CachedQueryResult> getCachedResult();
+
     interface QueryExecutionFactory<T extends QueryExecution>
     {
         T createQueryExecution(QueryId queryId, String query, Session session, Statement statement);
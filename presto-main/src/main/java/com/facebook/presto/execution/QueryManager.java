@@ -14,6 +14,7 @@
 package com.facebook.presto.execution;
 
 import com.facebook.presto.spi.Session;
+import com.google.common.base.Optional;
 import io.airlift.units.Duration;
 
 import java.util.List;
@@ -32,4 +33,8 @@ public interface QueryManager
     void cancelQuery(QueryId queryId);
 
     void cancelStage(StageId stageId);
+
+    Optional<String> getResultCacheKey(QueryId queryId);
+
+    Optional<CachedQueryResult> getCachedResult(QueryId queryId);
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+
+import javax.validation.constraints.Min;
+
+public class QueryQueueConfig
+{
+    private int maxConcurrentQueries = 1000;
+    private int maxQueuedQueries = 5000;
+    private int maxConcurrentQueriesPerSource = 1000;
+    private int maxQueuedQueriesPerSource = 5000;
+    private int maxConcurrentQueriesPerUser = 1000;
+    private int maxQueuedQueriesPerUser = 5000;
+    private DataSize softMemoryLimit;
+
+    @Min(1)
+    public int getMaxConcurrentQueries()
+    {
+        return maxConcurrentQueries;
+    }
+
+    @Config("query.queue.max-concurrent-queries")
+    public QueryQueueConfig setMaxConcurrentQueries(int maxConcurrentQueries)
+    {
+        this.maxConcurrentQueries = maxConcurrentQueries;
+        return this;
+    }
+
+    @Min(0)
+    public int getMaxQueuedQueries()
+    {
+        return maxQueuedQueries;
+    }
+
+    @Config("query.queue.max-queued-queries")
+    public QueryQueueConfig setMaxQueuedQueries(int maxQueuedQueries)
+    {
+        this.maxQueuedQueries = maxQueuedQueries;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxConcurrentQueriesPerSource()
+    {
+        return maxConcurrentQueriesPerSource;
+    }
+
+    @Config("query.queue.max-concurrent-queries-per-source")
+    public QueryQueueConfig setMaxConcurrentQueriesPerSource(int maxConcurrentQueriesPerSource)
+    {
+        this.maxConcurrentQueriesPerSource = maxConcurrentQueriesPerSource;
+        return this;
+    }
+
+    @Min(0)
+    public int getMaxQueuedQueriesPerSource()
+    {
+        return maxQueuedQueriesPerSource;
+    }
+
+    @Config("query.queue.max-queued-queries-per-source")
+    public QueryQueueConfig setMaxQueuedQueriesPerSource(int maxQueuedQueriesPerSource)
+    {
+        this.maxQueuedQueriesPerSource = maxQueuedQueriesPerSource;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxConcurrentQueriesPerUser()
+    {
+        return maxConcurrentQueriesPerUser;
+    }
+
+    @Config("query.queue.max-concurrent-queries-per-user")
+    @ConfigDescription("Maximum number of running queries of a user submitted from one source")
+    public QueryQueueConfig setMaxConcurrentQueriesPerUser(int maxConcurrentQueriesPerUser)
+    {
+        this.maxConcurrentQueriesPerUser = maxConcurrentQueriesPerUser;
+        return this;
+    }
+
+    @Min(0)
+    public int getMaxQueuedQueriesPerUser()
+    {
+        return maxQueuedQueriesPerUser;
+    }
+
+    @Config("query.queue.max-queued-queries-per-user")
+    @ConfigDescription("Maximum number of queued queries of a user submitted from one source")
+    public QueryQueueConfig setMaxQueuedQueriesPerUser(int maxQueuedQueriesPerUser)
+    {
+        this.maxQueuedQueriesPerUser = maxQueuedQueriesPerUser;
+        return this;
+    }
+
+    public DataSize getSoftMemoryLimit()
+    {
+        return softMemoryLimit;
+    }
+
+    @Config("query.queue.soft-memory-limit")
+    @ConfigDescription("Queued queries are not started while the running queries have reserved more memory than this")
+    public QueryQueueConfig setSoftMemoryLimit(DataSize softMemoryLimit)
+    {
+        this.softMemoryLimit = softMemoryLimit;
+        return this;
+    }
+}
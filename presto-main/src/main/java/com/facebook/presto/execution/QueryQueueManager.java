@@ -0,0 +1,285 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.execution.StateMachine.StateChangeListener;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.Session;
+import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.DistributionStat;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.facebook.presto.spi.StandardErrorCode.QUERY_QUEUE_FULL;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.units.DataSize.Unit.BYTE;
+
+/**
+ * Admits queries into the cluster. Queries are grouped by source and then by
+ * user, and each group limits the number of queries it runs and queues.
+ * Queued queries are started in submission order as soon as every group they
+ * belong to has room for them and the memory reserved by the running queries
+ * is below the soft memory limit.
+ */
+@ThreadSafe
+public class QueryQueueManager
+{
+    private static final Logger log = Logger.get(QueryQueueManager.class);
+
+    private static final String UNKNOWN = "unknown";
+
+    private final int maxConcurrentQueriesPerSource;
+    private final int maxQueuedQueriesPerSource;
+    private final int maxConcurrentQueriesPerUser;
+    private final int maxQueuedQueriesPerUser;
+    private final long softMemoryLimitInBytes;
+
+    @GuardedBy("this")
+    private final ResourceGroup root;
+
+    @GuardedBy("this")
+    private final LinkedList<QueueEntry> queuedQueries = new LinkedList<>();
+
+    @GuardedBy("this")
+    private final List<QueueEntry> runningQueries = new ArrayList<>();
+
+    private final CounterStat rejectedQueries = new CounterStat();
+    private final DistributionStat queuedTime = new DistributionStat();
+
+    @Inject
+    public QueryQueueManager(QueryQueueConfig config)
+    {
+        checkNotNull(config, "config is null");
+
+        this.root = new ResourceGroup("global", null, config.getMaxConcurrentQueries(), config.getMaxQueuedQueries());
+        this.maxConcurrentQueriesPerSource = config.getMaxConcurrentQueriesPerSource();
+        this.maxQueuedQueriesPerSource = config.getMaxQueuedQueriesPerSource();
+        this.maxConcurrentQueriesPerUser = config.getMaxConcurrentQueriesPerUser();
+        this.maxQueuedQueriesPerUser = config.getMaxQueuedQueriesPerUser();
+
+        DataSize softMemoryLimit = config.getSoftMemoryLimit();
+        this.softMemoryLimitInBytes = (softMemoryLimit == null) ? Long.MAX_VALUE : softMemoryLimit.toBytes();
+    }
+
+    /**
+     * Queues the query and calls the starter once the query is admitted. If
+     * a group the query belongs to can not queue any more queries, the query
+     * is failed instead and false is returned.
+     */
+    public boolean submit(Session session, final QueryExecution queryExecution, Runnable starter)
+    {
+        checkNotNull(session, "session is null");
+        checkNotNull(queryExecution, "queryExecution is null");
+        checkNotNull(starter, "starter is null");
+
+        final QueueEntry entry;
+        synchronized (this) {
+            ResourceGroup group = root.getOrCreateSubGroup(nameOf(session.getSource()), maxConcurrentQueriesPerSource, maxQueuedQueriesPerSource)
+                    .getOrCreateSubGroup(nameOf(session.getUser()), maxConcurrentQueriesPerUser, maxQueuedQueriesPerUser);
+
+            ResourceGroup fullGroup = group.findFullQueue();
+            if (fullGroup != null) {
+                rejectedQueries.update(1);
+                queryExecution.fail(new PrestoException(QUERY_QUEUE_FULL.toErrorCode(), "Too many queued queries for " + fullGroup));
+                return false;
+            }
+
+            entry = new QueueEntry(queryExecution, group, starter);
+            group.queryQueued();
+            queuedQueries.add(entry);
+        }
+
+        queryExecution.addStateChangeListener(new StateChangeListener<QueryState>()
+        {
+            @Override
+            public void stateChanged(QueryState newValue)
+            {
+                if (newValue.isDone()) {
+                    entry.setDone();
+                    processQueue();
+                }
+            }
+        });
+
+        // the query may have finished before the listener was added
+        if (queryExecution.getQueryInfo().getState().isDone()) {
+            entry.setDone();
+        }
+
+        processQueue();
+        return true;
+    }
+
+    /**
+     * Releases the slots of finished queries and starts the queued queries that can run.
+     */
+    public synchronized void processQueue()
+    {
+        for (Iterator<QueueEntry> iterator = runningQueries.iterator(); iterator.hasNext(); ) {
+            QueueEntry entry = iterator.next();
+            if (entry.isDone()) {
+                iterator.remove();
+                entry.getGroup().queryFinished();
+            }
+        }
+
+        long memoryReservation = -1;
+        for (Iterator<QueueEntry> iterator = queuedQueries.iterator(); iterator.hasNext(); ) {
+            QueueEntry entry = iterator.next();
+            if (entry.isDone()) {
+                // canceled or abandoned while queued
+                iterator.remove();
+                entry.getGroup().queryDequeued();
+                continue;
+            }
+
+            if (!entry.getGroup().canRunMore()) {
+                continue;
+            }
+
+            // the memory limit is soft, so a query is always allowed to start on an idle cluster
+            if (softMemoryLimitInBytes != Long.MAX_VALUE && !runningQueries.isEmpty()) {
+                if (memoryReservation < 0) {
+                    memoryReservation = getMemoryReservation();
+                }
+                if (memoryReservation >= softMemoryLimitInBytes) {
+                    return;
+                }
+            }
+
+            iterator.remove();
+            entry.getGroup().queryStarted();
+            runningQueries.add(entry);
+            queuedTime.add(entry.getQueuedMillis());
+            try {
+                entry.getStarter().run();
+            }
+            catch (RuntimeException e) {
+                log.error(e, "Error starting query");
+                entry.getQueryExecution().fail(e);
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private long getMemoryReservation()
+    {
+        long bytes = 0;
+        for (QueueEntry entry : runningQueries) {
+            DataSize memoryReservation = entry.getQueryExecution().getQueryInfo().getQueryStats().getTotalMemoryReservation();
+            if (memoryReservation != null) {
+                bytes += memoryReservation.toBytes();
+            }
+        }
+        return bytes;
+    }
+
+    @Managed
+    public synchronized int getRunningQueries()
+    {
+        return root.getRunningQueries();
+    }
+
+    @Managed
+    public synchronized int getQueuedQueries()
+    {
+        return root.getQueuedQueries();
+    }
+
+    @Managed
+    public synchronized String getRunningMemoryReservation()
+    {
+        return new DataSize(getMemoryReservation(), BYTE).convertToMostSuccinctDataSize().toString();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRejectedQueries()
+    {
+        return rejectedQueries;
+    }
+
+    @Managed(description = "Time queries wait in the queue in milliseconds")
+    @Nested
+    public DistributionStat getQueuedTime()
+    {
+        return queuedTime;
+    }
+
+    private static String nameOf(String value)
+    {
+        if (value == null || value.isEmpty()) {
+            return UNKNOWN;
+        }
+        return value;
+    }
+
+    private static class QueueEntry
+    {
+        private final QueryExecution queryExecution;
+        private final ResourceGroup group;
+        private final Runnable starter;
+        private final long queuedNanos = System.nanoTime();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private QueueEntry(QueryExecution queryExecution, ResourceGroup group, Runnable starter)
+        {
+            this.queryExecution = queryExecution;
+            this.group = group;
+            this.starter = starter;
+        }
+
+        public QueryExecution getQueryExecution()
+        {
+            return queryExecution;
+        }
+
+        public ResourceGroup getGroup()
+        {
+            return group;
+        }
+
+        public Runnable getStarter()
+        {
+            return starter;
+        }
+
+        public long getQueuedMillis()
+        {
+            return (System.nanoTime() - queuedNanos) / 1_000_000;
+        }
+
+        public boolean isDone()
+        {
+            return done.get();
+        }
+
+        public void setDone()
+        {
+            done.set(true);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.connector.informationSchema.InformationSchemaTableHandle;
+import com.facebook.presto.connector.jmx.JmxTableHandle;
+import com.facebook.presto.connector.system.SystemTableHandle;
+import com.facebook.presto.spi.Partition;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.split.SplitManager;
+import com.facebook.presto.sql.planner.DeterminismEvaluator;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanPrinter;
+import com.facebook.presto.sql.planner.TimeDependenceEvaluator;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.MaterializeSampleNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanVisitor;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SampleNode;
+import com.facebook.presto.sql.planner.plan.TableCommitNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.planner.plan.WindowNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Results of finished queries, keyed on the logical plan of the query, the session
+ * properties the results depend on and the partitions of the scanned tables.
+ * <p/>
+ * The partitions are listed again for every lookup, so results are not reused after a
+ * connector adds or drops partitions, like new Hive partitions. Changes to the data of
+ * an existing partition are not visible to the cache, so entries also expire after a
+ * fixed time. Tables dropped or created by this coordinator invalidate all entries.
+ */
+public class QueryResultCache
+{
+    private final SplitManager splitManager;
+    private final boolean enabled;
+    private final long maxResultSizeInBytes;
+    private final Cache<String, CachedQueryResult> results;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Inject
+    public QueryResultCache(QueryResultCacheConfig config, SplitManager splitManager)
+    {
+        checkNotNull(config, "config is null");
+        this.splitManager = checkNotNull(splitManager, "splitManager is null");
+        this.enabled = config.isEnabled();
+        this.maxResultSizeInBytes = config.getMaxResultSize().toBytes();
+        this.results = CacheBuilder.newBuilder()
+                .maximumWeight(config.getMaxSize().toBytes())
+                .weigher(new Weigher<String, CachedQueryResult>()
+                {
+                    @Override
+                    public int weigh(String key, CachedQueryResult result)
+                    {
+                        return (int) Math.min(result.getSizeInBytes(), Integer.MAX_VALUE);
+                    }
+                })
+                .expireAfterWrite(config.getTtl().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public long getMaxResultSizeInBytes()
+    {
+        return maxResultSizeInBytes;
+    }
+
+    /**
+     * Returns the key for the results of the plan, or absent if the results of the plan can not be cached.
+     */
+    public Optional<String> createKey(Session session, Plan plan)
+    {
+        checkNotNull(session, "session is null");
+        checkNotNull(plan, "plan is null");
+
+        if (!enabled || !plan.getRoot().accept(new CacheablePlanVisitor(), null)) {
+            return Optional.absent();
+        }
+
+        String planText = PlanPrinter.textLogicalPlan(plan.getRoot(), plan.getTypes());
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(session.getCatalog(), UTF_8)
+                .putByte((byte) 0)
+                .putString(session.getSchema(), UTF_8)
+                .putByte((byte) 0)
+                .putString(session.getTimeZoneKey().getTimeZoneId(), UTF_8)
+                .putByte((byte) 0)
+                .putString(session.getLocale().toString(), UTF_8)
+                .putByte((byte) 0)
+                .putString(planText, UTF_8);
+
+        for (TableScanNode tableScan : getTableScans(plan.getRoot())) {
+            hasher.putByte((byte) 0);
+            for (String partitionId : getPartitionIds(tableScan)) {
+                hasher.putString(partitionId, UTF_8).putByte((byte) 1);
+            }
+        }
+        return Optional.of(hasher.hash().toString());
+    }
+
+    private List<String> getPartitionIds(TableScanNode node)
+    {
+        Optional<TupleDomain> tupleDomain = Optional.absent();
+        if (node.getGeneratedPartitions().isPresent()) {
+            tupleDomain = Optional.of(node.getGeneratedPartitions().get().getTupleDomainInput());
+        }
+
+        List<String> partitionIds = new ArrayList<>();
+        for (Partition partition : splitManager.getPartitions(node.getTable(), tupleDomain).getPartitions()) {
+            partitionIds.add(partition.getPartitionId());
+        }
+        Collections.sort(partitionIds);
+        return partitionIds;
+    }
+
+    private static List<TableScanNode> getTableScans(PlanNode node)
+    {
+        ImmutableList.Builder<TableScanNode> tableScans = ImmutableList.builder();
+        addTableScans(node, tableScans);
+        return tableScans.build();
+    }
+
+    private static void addTableScans(PlanNode node, ImmutableList.Builder<TableScanNode> tableScans)
+    {
+        if (node instanceof TableScanNode) {
+            tableScans.add((TableScanNode) node);
+        }
+        for (PlanNode source : node.getSources()) {
+            addTableScans(source, tableScans);
+        }
+    }
+
+    public Optional<CachedQueryResult> get(String key)
+    {
+        checkNotNull(key, "key is null");
+
+        CachedQueryResult result = results.getIfPresent(key);
+        if (result == null) {
+            misses.incrementAndGet();
+        }
+        else {
+            hits.incrementAndGet();
+        }
+        return Optional.fromNullable(result);
+    }
+
+    public void put(String key, CachedQueryResult result)
+    {
+        checkNotNull(key, "key is null");
+        checkNotNull(result, "result is null");
+
+        if (result.getSizeInBytes() > maxResultSizeInBytes) {
+            recordRejected();
+            return;
+        }
+        results.put(key, result);
+    }
+
+    /**
+     * Records a result that was dropped before it was complete, because it grew too large.
+     */
+    public void recordRejected()
+    {
+        rejected.incrementAndGet();
+    }
+
+    @Managed
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    @Managed
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    @Managed(description = "Results not cached because they were too large")
+    public long getRejected()
+    {
+        return rejected.get();
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return results.size();
+    }
+
+    @Managed
+    public void invalidateAll()
+    {
+        results.invalidateAll();
+    }
+
+    private static boolean isCacheable(Expression expression)
+    {
+        return DeterminismEvaluator.isDeterministic(expression) && !TimeDependenceEvaluator.isTimeDependent(expression);
+    }
+
+    private static boolean isCacheable(Iterable<? extends Expression> expressions)
+    {
+        for (Expression expression : expressions) {
+            if (!isCacheable(expression)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * System, information schema and JMX tables describe the current state of the
+     * server, so their contents change from one query to the next.
+     */
+    private static boolean isSystemTable(TableHandle table)
+    {
+        return table instanceof SystemTableHandle ||
+                table instanceof InformationSchemaTableHandle ||
+                table instanceof JmxTableHandle;
+    }
+
+    private static class CacheablePlanVisitor
+            extends PlanVisitor<Void, Boolean>
+    {
+        @Override
+        protected Boolean visitPlan(PlanNode node, Void context)
+        {
+            for (PlanNode source : node.getSources()) {
+                if (!source.accept(this, context)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Boolean visitFilter(FilterNode node, Void context)
+        {
+            return isCacheable(node.getPredicate()) && visitPlan(node, context);
+        }
+
+        @Override
+        public Boolean visitProject(ProjectNode node, Void context)
+        {
+            return isCacheable(node.getExpressions()) && visitPlan(node, context);
+        }
+
+        @Override
+        public Boolean visitAggregation(AggregationNode node, Void context)
+        {
+            return isCacheable(node.getAggregations().values()) && visitPlan(node, context);
+        }
+
+        @Override
+        public Boolean visitWindow(WindowNode node, Void context)
+        {
+            return isCacheable(node.getWindowFunctions().values()) && visitPlan(node, context);
+        }
+
+        @Override
+        public Boolean visitValues(ValuesNode node, Void context)
+        {
+            for (List<Expression> row : node.getRows()) {
+                if (!isCacheable(row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Boolean visitTableScan(TableScanNode node, Void context)
+        {
+            if (isSystemTable(node.getTable())) {
+                return false;
+            }
+            return node.getOriginalConstraint() == null || isCacheable(node.getOriginalConstraint());
+        }
+
+        @Override
+        public Boolean visitSample(SampleNode node, Void context)
+        {
+            return false;
+        }
+
+        @Override
+        public Boolean visitMaterializeSample(MaterializeSampleNode node, Void context)
+        {
+            return false;
+        }
+
+        @Override
+        public Boolean visitTableWriter(TableWriterNode node, Void context)
+        {
+            return false;
+        }
+
+        @Override
+        public Boolean visitTableCommit(TableCommitNode node, Void context)
+        {
+            return false;
+        }
+    }
+}
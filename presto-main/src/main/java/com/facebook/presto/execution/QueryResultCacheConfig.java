@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
+import io.airlift.units.Duration;
+
+import javax.validation.constraints.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+public class QueryResultCacheConfig
+{
+    private boolean enabled;
+    private Duration ttl = new Duration(1, TimeUnit.MINUTES);
+    private DataSize maxSize = new DataSize(256, Unit.MEGABYTE);
+    private DataSize maxResultSize = new DataSize(8, Unit.MEGABYTE);
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Config("query.result-cache.enabled")
+    @ConfigDescription("Serve repeated deterministic queries from the results of an earlier run on the coordinator")
+    public QueryResultCacheConfig setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+        return this;
+    }
+
+    @NotNull
+    public Duration getTtl()
+    {
+        return ttl;
+    }
+
+    @Config("query.result-cache.ttl")
+    @ConfigDescription("How long cached results are served after the query that produced them finished")
+    public QueryResultCacheConfig setTtl(Duration ttl)
+    {
+        this.ttl = ttl;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxSize()
+    {
+        return maxSize;
+    }
+
+    @Config("query.result-cache.max-size")
+    public QueryResultCacheConfig setMaxSize(DataSize maxSize)
+    {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxResultSize()
+    {
+        return maxResultSize;
+    }
+
+    @Config("query.result-cache.max-result-size")
+    @ConfigDescription("Results larger than this are not cached")
+    public QueryResultCacheConfig setMaxResultSize(DataSize maxResultSize)
+    {
+        this.maxResultSize = maxResultSize;
+        return this;
+    }
+}
@@ -39,6 +39,8 @@ public interface RemoteTask
 
     int getQueuedSplits();
 
+    int getRunningSplits();
+
     Duration waitForTaskToFinish(Duration maxWait)
             throws InterruptedException;
 }
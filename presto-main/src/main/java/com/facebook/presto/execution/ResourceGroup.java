@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A node in the tree of groups queries are admitted through. A query may only
+ * be queued or started if every group from its leaf group up to the root has
+ * room for it.
+ */
+@NotThreadSafe
+class ResourceGroup
+{
+    private final String name;
+    private final ResourceGroup parent;
+    private final int maxRunningQueries;
+    private final int maxQueuedQueries;
+    private final Map<String, ResourceGroup> subGroups = new HashMap<>();
+
+    private int runningQueries;
+    private int queuedQueries;
+
+    ResourceGroup(String name, ResourceGroup parent, int maxRunningQueries, int maxQueuedQueries)
+    {
+        this.name = checkNotNull(name, "name is null");
+        this.parent = parent;
+        this.maxRunningQueries = maxRunningQueries;
+        this.maxQueuedQueries = maxQueuedQueries;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getRunningQueries()
+    {
+        return runningQueries;
+    }
+
+    public int getQueuedQueries()
+    {
+        return queuedQueries;
+    }
+
+    public ResourceGroup getOrCreateSubGroup(String name, int maxRunningQueries, int maxQueuedQueries)
+    {
+        ResourceGroup subGroup = subGroups.get(name);
+        if (subGroup == null) {
+            subGroup = new ResourceGroup(this.name + "." + name, this, maxRunningQueries, maxQueuedQueries);
+            subGroups.put(name, subGroup);
+        }
+        return subGroup;
+    }
+
+    /**
+     * Returns the group closest to the root that can not queue another query, or null if all can.
+     * A query that can start right away does not wait in the queue, so no group is full in that case.
+     */
+    public ResourceGroup findFullQueue()
+    {
+        if (canRunMore()) {
+            return null;
+        }
+
+        ResourceGroup full = null;
+        for (ResourceGroup group = this; group != null; group = group.parent) {
+            if (group.queuedQueries >= group.maxQueuedQueries) {
+                full = group;
+            }
+        }
+        return full;
+    }
+
+    public boolean canRunMore()
+    {
+        for (ResourceGroup group = this; group != null; group = group.parent) {
+            if (group.runningQueries >= group.maxRunningQueries) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void queryQueued()
+    {
+        for (ResourceGroup group = this; group != null; group = group.parent) {
+            group.queuedQueries++;
+        }
+    }
+
+    public void queryDequeued()
+    {
+        for (ResourceGroup group = this; group != null; group = group.parent) {
+            checkState(group.queuedQueries > 0, "group %s has no queued queries", group.name);
+            group.queuedQueries--;
+        }
+        removeIfUnused();
+    }
+
+    public void queryStarted()
+    {
+        for (ResourceGroup group = this; group != null; group = group.parent) {
+            checkState(group.queuedQueries > 0, "group %s has no queued queries", group.name);
+            group.queuedQueries--;
+            group.runningQueries++;
+        }
+    }
+
+    public void queryFinished()
+    {
+        for (ResourceGroup group = this; group != null; group = group.parent) {
+            checkState(group.runningQueries > 0, "group %s has no running queries", group.name);
+            group.runningQueries--;
+        }
+        removeIfUnused();
+    }
+
+    private void removeIfUnused()
+    {
+        // groups are created per source and user, so drop them once idle to bound the size of the tree
+        for (ResourceGroup group = this; group.parent != null; group = group.parent) {
+            if (group.runningQueries != 0 || group.queuedQueries != 0 || !group.subGroups.isEmpty()) {
+                return;
+            }
+            group.parent.subGroups.values().remove(group);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
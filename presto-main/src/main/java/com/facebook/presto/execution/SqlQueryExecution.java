@@ -17,12 +17,16 @@ import com.facebook.presto.OutputBuffers;
 import com.facebook.presto.UnpartitionedPagePartitionFunction;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.QualifiedTableName;
+import com.facebook.presto.metadata.StatisticsManager;
 import com.facebook.presto.split.SplitManager;
 import com.facebook.presto.sql.analyzer.Analysis;
 import com.facebook.presto.sql.analyzer.Analyzer;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.analyzer.QueryExplainer;
+import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.TableHandle;
 import com.facebook.presto.sql.planner.DistributedExecutionPlanner;
 import com.facebook.presto.sql.planner.DistributedLogicalPlanner;
 import com.facebook.presto.sql.planner.InputExtractor;
@@ -32,10 +36,13 @@ import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
 import com.facebook.presto.sql.planner.StageExecutionPlan;
 import com.facebook.presto.sql.planner.SubPlan;
 import com.facebook.presto.sql.planner.optimizations.PlanOptimizer;
+import com.facebook.presto.sql.tree.CreateTable;
 import com.facebook.presto.sql.tree.Statement;
+import com.facebook.presto.sql.tree.Table;
 import com.facebook.presto.util.SetThreadName;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
 import io.airlift.concurrent.ThreadPoolExecutorMBean;
 import io.airlift.units.Duration;
@@ -46,13 +53,17 @@ import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 
 import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.OutputBuffers.INITIAL_EMPTY_OUTPUT_BUFFERS;
+import static com.facebook.presto.metadata.MetadataUtil.createQualifiedTableName;
 import static com.facebook.presto.util.Threads.threadsNamed;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -69,6 +80,7 @@ public class SqlQueryExecution
 
     private final Statement statement;
     private final Metadata metadata;
+    private final StatisticsManager statisticsManager;
     private final SplitManager splitManager;
     private final NodeScheduler nodeScheduler;
     private final List<PlanOptimizer> planOptimizers;
@@ -77,18 +89,26 @@ public class SqlQueryExecution
     private final int scheduleSplitBatchSize;
     private final int maxPendingSplitsPerNode;
     private final int initialHashPartitions;
+    private final FeaturesConfig featuresConfig;
     private final boolean experimentalSyntaxEnabled;
     private final ExecutorService queryExecutor;
 
     private final QueryExplainer queryExplainer;
     private final AtomicReference<SqlStageExecution> outputStage = new AtomicReference<>();
 
+    private final QueryResultCache queryResultCache;
+    private final PlanCache planCache;
+    private final AtomicReference<String> resultCacheKey = new AtomicReference<>();
+    private final AtomicReference<CachedQueryResult> cachedResult = new AtomicReference<>();
+    private final AtomicBoolean planFromCache = new AtomicBoolean();
+
     public SqlQueryExecution(QueryId queryId,
             String query,
             Session session,
             URI self,
             Statement statement,
             Metadata metadata,
+            StatisticsManager statisticsManager,
             SplitManager splitManager,
             NodeScheduler nodeScheduler,
             List<PlanOptimizer> planOptimizers,
@@ -97,19 +117,25 @@ public class SqlQueryExecution
             int scheduleSplitBatchSize,
             int maxPendingSplitsPerNode,
             int initialHashPartitions,
-            boolean experimentalSyntaxEnabled,
+            FeaturesConfig featuresConfig,
+            QueryResultCache queryResultCache,
+            PlanCache planCache,
             ExecutorService queryExecutor)
     {
         try (SetThreadName setThreadName = new SetThreadName("Query-%s", queryId)) {
             this.statement = checkNotNull(statement, "statement is null");
             this.metadata = checkNotNull(metadata, "metadata is null");
+            this.statisticsManager = checkNotNull(statisticsManager, "statisticsManager is null");
             this.splitManager = checkNotNull(splitManager, "splitManager is null");
             this.nodeScheduler = checkNotNull(nodeScheduler, "nodeScheduler is null");
             this.planOptimizers = checkNotNull(planOptimizers, "planOptimizers is null");
             this.remoteTaskFactory = checkNotNull(remoteTaskFactory, "remoteTaskFactory is null");
             this.locationFactory = checkNotNull(locationFactory, "locationFactory is null");
             this.queryExecutor = checkNotNull(queryExecutor, "queryExecutor is null");
-            this.experimentalSyntaxEnabled = experimentalSyntaxEnabled;
+            this.featuresConfig = checkNotNull(featuresConfig, "featuresConfig is null");
+            this.experimentalSyntaxEnabled = featuresConfig.isExperimentalSyntaxEnabled();
+            this.queryResultCache = checkNotNull(queryResultCache, "queryResultCache is null");
+            this.planCache = checkNotNull(planCache, "planCache is null");
 
             checkArgument(maxPendingSplitsPerNode > 0, "scheduleSplitBatchSize must be greater than 0");
             this.scheduleSplitBatchSize = scheduleSplitBatchSize;
@@ -126,7 +152,22 @@ public class SqlQueryExecution
             checkNotNull(self, "self is null");
             this.stateMachine = new QueryStateMachine(queryId, query, session, self, queryExecutor);
 
-            this.queryExplainer = new QueryExplainer(session, planOptimizers, metadata, experimentalSyntaxEnabled);
+            if (statement instanceof CreateTable) {
+                // the new table may replace one that cached plans and results were created from
+                stateMachine.addStateChangeListener(new StateChangeListener<QueryState>()
+                {
+                    @Override
+                    public void stateChanged(QueryState newValue)
+                    {
+                        if (newValue == QueryState.FINISHED) {
+                            SqlQueryExecution.this.planCache.invalidateAll();
+                            SqlQueryExecution.this.queryResultCache.invalidateAll();
+                        }
+                    }
+                });
+            }
+
+            this.queryExplainer = new QueryExplainer(session, planOptimizers, metadata, statisticsManager, featuresConfig);
         }
     }
 
@@ -144,6 +185,15 @@ public class SqlQueryExecution
                 // analyze query
                 SubPlan subplan = analyzeQuery();
 
+                // answer the query with the results of an earlier run of the same plan
+                CachedQueryResult cachedResult = this.cachedResult.get();
+                if (cachedResult != null) {
+                    stateMachine.setOutputFieldNames(cachedResult.getFieldNames());
+                    stateMachine.starting();
+                    stateMachine.finished();
+                    return;
+                }
+
                 // plan distribution of query
                 planDistribution(subplan);
 
@@ -193,6 +243,20 @@ public class SqlQueryExecution
         // time analysis phase
         long analysisStart = System.nanoTime();
 
+        // reuse the plan of an earlier run of the same statement
+        Optional<String> planCacheKey = planCache.createKey(stateMachine.getSession(), statement);
+        if (planCacheKey.isPresent()) {
+            Optional<CachedPlan> cachedPlan = planCache.get(planCacheKey.get(), isCurrent());
+            if (cachedPlan.isPresent()) {
+                planFromCache.set(true);
+                stateMachine.setInputs(cachedPlan.get().getInputs());
+                checkResultCache(cachedPlan.get().getPlan());
+
+                stateMachine.recordAnalysisTime(analysisStart);
+                return cachedPlan.get().getSubPlan();
+            }
+        }
+
         // analyze query
         Analyzer analyzer = new Analyzer(stateMachine.getSession(), metadata, Optional.of(queryExplainer), experimentalSyntaxEnabled);
 
@@ -205,13 +269,60 @@ public class SqlQueryExecution
         List<Input> inputs = new InputExtractor(metadata).extract(plan.getRoot());
         stateMachine.setInputs(inputs);
 
+        Map<QualifiedTableName, TableHandle> tables = new HashMap<>();
+        Map<QualifiedTableName, Map<String, ColumnHandle>> tableColumns = new HashMap<>();
+        for (Map.Entry<Table, TableHandle> entry : analysis.getTables().entrySet()) {
+            QualifiedTableName tableName = createQualifiedTableName(stateMachine.getSession(), entry.getKey().getName());
+            tables.put(tableName, entry.getValue());
+            tableColumns.put(tableName, metadata.getColumnHandles(entry.getValue()));
+        }
+
+        checkResultCache(plan);
+
         // fragment the plan
-        SubPlan subplan = new DistributedLogicalPlanner(metadata, idAllocator).createSubPlans(plan, false);
+        SubPlan subplan = new DistributedLogicalPlanner(stateMachine.getSession(), metadata, statisticsManager, featuresConfig, idAllocator).createSubPlans(plan, false);
+
+        if (planCacheKey.isPresent()) {
+            planCache.put(planCacheKey.get(), new CachedPlan(plan, subplan, inputs, tables, tableColumns, System.nanoTime() - analysisStart));
+        }
 
         stateMachine.recordAnalysisTime(analysisStart);
         return subplan;
     }
 
+    /**
+     * A cached plan is current if the tables and columns it reads still resolve to the same handles.
+     */
+    private Predicate<CachedPlan> isCurrent()
+    {
+        return new Predicate<CachedPlan>()
+        {
+            @Override
+            public boolean apply(CachedPlan plan)
+            {
+                for (Map.Entry<QualifiedTableName, TableHandle> entry : plan.getTables().entrySet()) {
+                    Optional<TableHandle> tableHandle = metadata.getTableHandle(entry.getKey());
+                    if (!tableHandle.isPresent() || !tableHandle.get().equals(entry.getValue())) {
+                        return false;
+                    }
+                    if (!metadata.getColumnHandles(tableHandle.get()).equals(plan.getTableColumns().get(entry.getKey()))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    private void checkResultCache(Plan plan)
+    {
+        Optional<String> resultCacheKey = queryResultCache.createKey(stateMachine.getSession(), plan);
+        if (resultCacheKey.isPresent()) {
+            this.resultCacheKey.set(resultCacheKey.get());
+            this.cachedResult.set(queryResultCache.get(resultCacheKey.get()).orNull());
+        }
+    }
+
     private void planDistribution(SubPlan subplan)
     {
         // time distribution planning
@@ -219,7 +330,7 @@ public class SqlQueryExecution
 
         // plan the execution on the active nodes
         DistributedExecutionPlanner distributedPlanner = new DistributedExecutionPlanner(splitManager);
-        StageExecutionPlan outputStageExecutionPlan = distributedPlanner.plan(subplan);
+        StageExecutionPlan outputStageExecutionPlan = distributedPlanner.plan(subplan, planFromCache.get());
 
         if (stateMachine.isDone()) {
             return;
@@ -314,6 +425,18 @@ public class SqlQueryExecution
         stateMachine.recordHeartbeat();
     }
 
+    @Override
+    public Optional<String> getResultCacheKey()
+    {
+        return Optional.fromNullable(resultCacheKey.get());
+    }
+
+    @Override
+    public Optional<CachedQueryResult> getCachedResult()
+    {
+        return Optional.fromNullable(cachedResult.get());
+    }
+
     @Override
     public QueryInfo getQueryInfo()
     {
@@ -384,13 +507,16 @@ public class SqlQueryExecution
         private final int scheduleSplitBatchSize;
         private final int maxPendingSplitsPerNode;
         private final int initialHashPartitions;
-        private final boolean experimentalSyntaxEnabled;
+        private final FeaturesConfig featuresConfig;
         private final Metadata metadata;
+        private final StatisticsManager statisticsManager;
         private final SplitManager splitManager;
         private final NodeScheduler nodeScheduler;
         private final List<PlanOptimizer> planOptimizers;
         private final RemoteTaskFactory remoteTaskFactory;
         private final LocationFactory locationFactory;
+        private final QueryResultCache queryResultCache;
+        private final PlanCache planCache;
 
         private final ExecutorService executor;
         private final ThreadPoolExecutorMBean executorMBean;
@@ -399,23 +525,29 @@ public class SqlQueryExecution
         SqlQueryExecutionFactory(QueryManagerConfig config,
                 FeaturesConfig featuresConfig,
                 Metadata metadata,
+                StatisticsManager statisticsManager,
                 LocationFactory locationFactory,
                 SplitManager splitManager,
                 NodeScheduler nodeScheduler,
                 List<PlanOptimizer> planOptimizers,
-                RemoteTaskFactory remoteTaskFactory)
+                RemoteTaskFactory remoteTaskFactory,
+                QueryResultCache queryResultCache,
+                PlanCache planCache)
         {
             checkNotNull(config, "config is null");
             this.scheduleSplitBatchSize = config.getScheduleSplitBatchSize();
             this.maxPendingSplitsPerNode = config.getMaxPendingSplitsPerNode();
             this.initialHashPartitions = config.getInitialHashPartitions();
             this.metadata = checkNotNull(metadata, "metadata is null");
+            this.statisticsManager = checkNotNull(statisticsManager, "statisticsManager is null");
             this.locationFactory = checkNotNull(locationFactory, "locationFactory is null");
             this.splitManager = checkNotNull(splitManager, "splitManager is null");
             this.nodeScheduler = checkNotNull(nodeScheduler, "nodeScheduler is null");
             this.planOptimizers = checkNotNull(planOptimizers, "planOptimizers is null");
             this.remoteTaskFactory = checkNotNull(remoteTaskFactory, "remoteTaskFactory is null");
-            this.experimentalSyntaxEnabled = checkNotNull(featuresConfig, "featuresConfig is null").isExperimentalSyntaxEnabled();
+            this.featuresConfig = checkNotNull(featuresConfig, "featuresConfig is null");
+            this.queryResultCache = checkNotNull(queryResultCache, "queryResultCache is null");
+            this.planCache = checkNotNull(planCache, "planCache is null");
 
             this.executor = Executors.newCachedThreadPool(threadsNamed("query-scheduler-%d"));
             this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) executor);
@@ -437,6 +569,7 @@ public class SqlQueryExecution
                     locationFactory.createQueryLocation(queryId),
                     statement,
                     metadata,
+                    statisticsManager,
                     splitManager,
                     nodeScheduler,
                     planOptimizers,
@@ -445,7 +578,9 @@ public class SqlQueryExecution
                     scheduleSplitBatchSize,
                     maxPendingSplitsPerNode,
                     initialHashPartitions,
-                    experimentalSyntaxEnabled,
+                    featuresConfig,
+                    queryResultCache,
+                    planCache,
                     executor);
 
             return queryExecution;
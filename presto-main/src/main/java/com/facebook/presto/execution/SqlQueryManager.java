@@ -23,6 +23,7 @@ import com.facebook.presto.sql.tree.Statement;
 import com.facebook.presto.util.IterableTransformer;
 import com.facebook.presto.util.SetThreadName;
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
@@ -82,6 +83,8 @@ public class SqlQueryManager
     private final QueryMonitor queryMonitor;
     private final LocationFactory locationFactory;
     private final QueryIdGenerator queryIdGenerator;
+    private final QueryQueueManager queryQueueManager;
+    private final ClusterMemoryManager clusterMemoryManager;
 
     private final Map<Class<? extends Statement>, QueryExecutionFactory<?>> executionFactories;
 
@@ -92,6 +95,8 @@ public class SqlQueryManager
             QueryMonitor queryMonitor,
             QueryIdGenerator queryIdGenerator,
             LocationFactory locationFactory,
+            QueryQueueManager queryQueueManager,
+            ClusterMemoryManager clusterMemoryManager,
             Map<Class<? extends Statement>, QueryExecutionFactory<?>> executionFactories)
     {
         checkNotNull(config, "config is null");
@@ -104,6 +109,8 @@ public class SqlQueryManager
         this.queryMonitor = checkNotNull(queryMonitor, "queryMonitor is null");
         this.locationFactory = checkNotNull(locationFactory, "locationFactory is null");
         this.queryIdGenerator = checkNotNull(queryIdGenerator, "queryIdGenerator is null");
+        this.queryQueueManager = checkNotNull(queryQueueManager, "queryQueueManager is null");
+        this.clusterMemoryManager = checkNotNull(clusterMemoryManager, "clusterMemoryManager is null");
 
         this.maxQueryAge = config.getMaxQueryAge();
         this.maxQueryHistory = config.getMaxQueryHistory();
@@ -128,6 +135,19 @@ public class SqlQueryManager
                 catch (Throwable e) {
                     log.warn(e, "Error removing old queries");
                 }
+                try {
+                    clusterMemoryManager.process(queries.values());
+                }
+                catch (Throwable e) {
+                    log.warn(e, "Error enforcing memory limits");
+                }
+                try {
+                    // memory reserved by running queries is released without a state change
+                    queryQueueManager.processQueue();
+                }
+                catch (Throwable e) {
+                    log.warn(e, "Error starting queued queries");
+                }
             }
         }, 200, 200, TimeUnit.MILLISECONDS);
     }
@@ -224,8 +244,19 @@ public class SqlQueryManager
 
         queries.put(queryId, queryExecution);
 
-        // start the query in the background
-        queryExecutor.submit(new QueryStarter(queryExecution, stats));
+        // start the query in the background once it is admitted
+        boolean queued = queryQueueManager.submit(session, queryExecution, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                queryExecutor.submit(new QueryStarter(queryExecution, stats));
+            }
+        });
+        if (!queued) {
+            // the query was failed without starting
+            stats.queryStarted();
+        }
 
         return queryExecution.getQueryInfo();
     }
@@ -256,6 +287,30 @@ public class SqlQueryManager
         }
     }
 
+    @Override
+    public Optional<String> getResultCacheKey(QueryId queryId)
+    {
+        checkNotNull(queryId, "queryId is null");
+
+        QueryExecution query = queries.get(queryId);
+        if (query == null) {
+            return Optional.absent();
+        }
+        return query.getResultCacheKey();
+    }
+
+    @Override
+    public Optional<CachedQueryResult> getCachedResult(QueryId queryId)
+    {
+        checkNotNull(queryId, "queryId is null");
+
+        QueryExecution query = queries.get(queryId);
+        if (query == null) {
+            return Optional.absent();
+        }
+        return query.getCachedResult();
+    }
+
     @Managed
     @Flatten
     public SqlQueryManagerStats getStats()
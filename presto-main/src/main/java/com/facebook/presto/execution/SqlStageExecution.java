@@ -125,6 +125,11 @@ public class SqlStageExecution
     @GuardedBy("this")
     private OutputBuffers nextOutputBuffers;
 
+    // incremented on every task or sub stage state change, so the scheduler can tell
+    // whether capacity may have been freed since it last computed split assignments
+    @GuardedBy("this")
+    private long stateChangeVersion;
+
     private final ExecutorService executor;
 
     private final AtomicReference<DateTime> schedulingComplete = new AtomicReference<>();
@@ -629,13 +634,15 @@ public class SqlStageExecution
 
             Set<Split> pendingSplits = ImmutableSet.copyOf(splitSource.getNextBatch(splitBatchSize));
             while (!pendingSplits.isEmpty() && !getState().isDone()) {
+                // read the version before looking at the queued splits, so no state change is missed while waiting
+                long stateChangeVersion = getStateChangeVersion();
                 Multimap<Node, Split> splitAssignment = nodeSelector.computeAssignments(pendingSplits);
                 pendingSplits = ImmutableSet.copyOf(Sets.difference(pendingSplits, ImmutableSet.copyOf(splitAssignment.values())));
 
                 assignSplits(nextTaskId, splitAssignment);
 
                 if (!pendingSplits.isEmpty()) {
-                    waitForFreeNode(nextTaskId);
+                    waitForFreeNode(nextTaskId, stateChangeVersion);
                 }
             }
         }
@@ -670,7 +677,12 @@ public class SqlStageExecution
             }
         }
     }
-    private void waitForFreeNode(AtomicInteger nextTaskId)
+    private synchronized long getStateChangeVersion()
+    {
+        return stateChangeVersion;
+    }
+
+    private void waitForFreeNode(AtomicInteger nextTaskId, long stateChangeVersion)
     {
         // if we have sub stages...
         if (!subStages.isEmpty()) {
@@ -685,10 +697,12 @@ public class SqlStageExecution
         }
 
         synchronized (this) {
-            // otherwise wait for some tasks to complete
+            // otherwise wait for a task to report a state change, which happens as soon as it starts
+            // or finishes splits; the timeout only guards against tasks that never report progress
             try {
-                // todo this adds latency: replace this wait with an event listener
-                TimeUnit.SECONDS.timedWait(this, 1);
+                if (this.stateChangeVersion == stateChangeVersion) {
+                    TimeUnit.SECONDS.timedWait(this, 1);
+                }
             }
             catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -873,6 +887,7 @@ public class SqlStageExecution
         try (SetThreadName setThreadName = new SetThreadName("Stage-%s", stageId)) {
             synchronized (this) {
                 // wake up worker thread waiting for state changes
+                stateChangeVersion++;
                 this.notifyAll();
 
                 StageState currentState = stageState.get();
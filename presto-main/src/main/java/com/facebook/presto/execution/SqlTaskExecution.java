@@ -61,7 +61,6 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.util.Failures.toFailures;
@@ -106,7 +105,8 @@ public class SqlTaskExecution
 
     private final List<DriverSplitRunnerFactory> unpartitionedDriverFactories;
 
-    private final AtomicLong nextTaskInfoVersion = new AtomicLong(TaskInfo.STARTING_VERSION);
+    // version of the task info, changes whenever the state, the buffers, the sources or the running drivers of the task change
+    private final StateMachine<Long> taskInfoVersion;
 
     public static SqlTaskExecution createSqlTaskExecution(Session session,
             TaskId taskId,
@@ -166,12 +166,15 @@ public class SqlTaskExecution
             this.taskExecutor = checkNotNull(taskExecutor, "driverExecutor is null");
             this.notificationExecutor = checkNotNull(notificationExecutor, "notificationExecutor is null");
 
+            this.taskInfoVersion = new StateMachine<>("task info version " + taskId, notificationExecutor, TaskInfo.STARTING_VERSION);
+
             this.taskStateMachine = new TaskStateMachine(taskId, notificationExecutor);
             taskStateMachine.addStateChangeListener(new StateChangeListener<TaskState>()
             {
                 @Override
                 public void stateChanged(TaskState taskState)
                 {
+                    taskInfoChanged();
                     if (taskState.isDone()) {
                         SqlTaskExecution.this.taskExecutor.removeTask(taskHandle);
                         // make sure buffers are cleaned up
@@ -201,6 +204,7 @@ public class SqlTaskExecution
                 @Override
                 public void stateChanged(QueueState taskState)
                 {
+                    taskInfoChanged();
                     if (taskState == QueueState.FINISHED) {
                         checkTaskCompletion();
                     }
@@ -220,10 +224,10 @@ public class SqlTaskExecution
             for (DriverFactory driverFactory : driverFactories) {
                 if (driverFactory.getSourceIds().contains(fragment.getPartitionedSource())) {
                     checkState(partitionedDriverFactory == null, "multiple partitioned sources are not supported");
-                    partitionedDriverFactory = new DriverSplitRunnerFactory(driverFactory);
+                    partitionedDriverFactory = new DriverSplitRunnerFactory(driverFactory, true);
                 }
                 else {
-                    unpartitionedDriverFactories.add(new DriverSplitRunnerFactory(driverFactory));
+                    unpartitionedDriverFactories.add(new DriverSplitRunnerFactory(driverFactory, false));
                 }
             }
             this.unpartitionedDriverFactories = unpartitionedDriverFactories.build();
@@ -271,21 +275,32 @@ public class SqlTaskExecution
         }
     }
 
+    @Override
+    public void waitForTaskInfoChange(long currentVersion, Duration maxWait)
+            throws InterruptedException
+    {
+        try (SetThreadName setThreadName = new SetThreadName("Task-%s", taskId)) {
+            taskInfoVersion.waitForStateChange(currentVersion, maxWait);
+        }
+    }
+
     @Override
     public TaskInfo getTaskInfo(boolean full)
     {
         try (SetThreadName setThreadName = new SetThreadName("Task-%s", taskId)) {
             checkTaskCompletion();
 
+            // read the version before the contents, so a concurrent change can only make the info newer than its version
+            long version = taskInfoVersion.get();
             TaskState state = taskStateMachine.getState();
             List<ExecutionFailureInfo> failures = ImmutableList.of();
             if (state == TaskState.FAILED) {
                 failures = toFailures(taskStateMachine.getFailureCauses());
             }
 
-            return new TaskInfo(
+            TaskInfo taskInfo = new TaskInfo(
                     taskStateMachine.getTaskId(),
-                    nextTaskInfoVersion.getAndIncrement(),
+                    version,
                     state,
                     location,
                     lastHeartbeat.get(),
@@ -293,6 +308,21 @@ public class SqlTaskExecution
                     getNoMoreSplits(),
                     taskContext.getTaskStats(),
                     failures);
+
+            if (full) {
+                return taskInfo;
+            }
+            return taskInfo.summarize();
+        }
+    }
+
+    private void taskInfoChanged()
+    {
+        while (true) {
+            long version = taskInfoVersion.get();
+            if (taskInfoVersion.compareAndSet(version, version + 1)) {
+                return;
+            }
         }
     }
 
@@ -305,6 +335,7 @@ public class SqlTaskExecution
         try (SetThreadName setThreadName = new SetThreadName("Task-%s", taskId)) {
             // update our record of sources and schedule drivers for new partitioned splits
             Map<PlanNodeId, TaskSource> updatedUnpartitionedSources = updateSources(sources);
+            taskInfoChanged();
 
             // tell existing drivers about the new splits; it is safe to update drivers
             // multiple times and out of order because sources contain full record of
@@ -392,6 +423,7 @@ public class SqlTaskExecution
         try (SetThreadName setThreadName = new SetThreadName("Task-%s", taskId)) {
             sharedBuffer.setOutputBuffers(outputBuffers);
         }
+        taskInfoChanged();
     }
 
     private synchronized void enqueueDrivers(boolean forceRunSplit, List<DriverSplitRunner> runners)
@@ -415,6 +447,7 @@ public class SqlTaskExecution
                     try (SetThreadName setThreadName = new SetThreadName("Task-%s", taskId)) {
                         // record driver is finished
                         remainingDrivers.decrementAndGet();
+                        taskInfoChanged();
 
                         checkTaskCompletion();
 
@@ -430,6 +463,7 @@ public class SqlTaskExecution
 
                         // record driver is finished
                         remainingDrivers.decrementAndGet();
+                        taskInfoChanged();
 
                         DriverContext driverContext = splitRunner.getDriverContext();
                         DriverStats driverStats;
@@ -552,10 +586,10 @@ public class SqlTaskExecution
         private final AtomicInteger pendingCreation = new AtomicInteger();
         private final AtomicBoolean noMoreSplits = new AtomicBoolean();
 
-        private DriverSplitRunnerFactory(DriverFactory driverFactory)
+        private DriverSplitRunnerFactory(DriverFactory driverFactory, boolean partitioned)
         {
             this.driverFactory = driverFactory;
-            this.pipelineContext = taskContext.addPipelineContext(driverFactory.isInputDriver(), driverFactory.isOutputDriver());
+            this.pipelineContext = taskContext.addPipelineContext(driverFactory.isInputDriver(), driverFactory.isOutputDriver(), partitioned);
         }
 
         private DriverSplitRunner createDriverRunner(@Nullable ScheduledSplit partitionedSplit)
@@ -587,6 +621,7 @@ public class SqlTaskExecution
 
             pendingCreation.decrementAndGet();
             closeDriverFactoryIfFullyCreated();
+            taskInfoChanged();
 
             return driver;
         }
@@ -22,6 +22,7 @@ import com.facebook.presto.spi.Session;
 import com.facebook.presto.sql.planner.LocalExecutionPlanner;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -236,6 +237,22 @@ public class SqlTaskManager
         taskExecution.waitForStateChange(currentState, maxWait);
     }
 
+    @Override
+    public void waitForTaskInfoChange(TaskId taskId, long currentVersion, Duration maxWait)
+            throws InterruptedException
+    {
+        checkNotNull(taskId, "taskId is null");
+        checkNotNull(maxWait, "maxWait is null");
+
+        TaskExecution taskExecution = tasks.get(taskId);
+        if (taskExecution == null) {
+            return;
+        }
+
+        taskExecution.recordHeartbeat();
+        taskExecution.waitForTaskInfoChange(currentVersion, maxWait);
+    }
+
     @Override
     public TaskInfo getTaskInfo(TaskId taskId, boolean full)
     {
@@ -258,6 +275,11 @@ public class SqlTaskManager
     {
         TaskInfo taskInfo = taskExecution.getTaskInfo(full);
         if (taskInfo.getState().isDone()) {
+            if (!full) {
+                // the final info is cached and served for the rest of the life of the task, so it must be complete
+                taskInfo = taskExecution.getTaskInfo(true);
+            }
+
             if (taskInfo.getStats().getEndTime() == null) {
                 log.warn("Task %s is in done state %s but does not have an end time", taskInfo.getTaskId(), taskInfo.getState());
             }
@@ -279,8 +301,10 @@ public class SqlTaskManager
     }
 
     @Override
-    public TaskInfo updateTask(Session session, TaskId taskId, PlanFragment fragment, List<TaskSource> sources, OutputBuffers outputBuffers)
+    public TaskInfo updateTask(Session session, TaskId taskId, Optional<PlanFragment> fragment, List<TaskSource> sources, OutputBuffers outputBuffers)
     {
+        checkNotNull(fragment, "fragment is null");
+
         URI location = locationFactory.createLocalTaskLocation(taskId);
 
         TaskExecution taskExecution;
@@ -293,10 +317,12 @@ public class SqlTaskManager
                     return taskInfo;
                 }
 
+                // the fragment is only sent until the task has been created
+                Preconditions.checkArgument(fragment.isPresent(), "Task %s does not exist and the update does not contain its fragment", taskId);
                 taskExecution = SqlTaskExecution.createSqlTaskExecution(session,
                         taskId,
                         location,
-                        fragment,
+                        fragment.get(),
                         sources,
                         outputBuffers,
                         planner,
@@ -32,6 +32,9 @@ public interface TaskExecution
     void waitForStateChange(TaskState currentState, Duration maxWait)
             throws InterruptedException;
 
+    void waitForTaskInfoChange(long currentVersion, Duration maxWait)
+            throws InterruptedException;
+
     void addSources(List<TaskSource> sources);
 
     void addResultQueue(OutputBuffers outputIds);
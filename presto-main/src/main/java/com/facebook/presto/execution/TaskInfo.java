@@ -142,6 +142,14 @@ public class TaskInfo
         return failures;
     }
 
+    /**
+     * Returns a compact copy of this info, without the per pipeline and per operator stats.
+     */
+    public TaskInfo summarize()
+    {
+        return new TaskInfo(taskId, version, state, self, lastHeartbeat, outputBuffers, noMoreSplits, stats.summarize(), failures);
+    }
+
     @Override
     public String toString()
     {
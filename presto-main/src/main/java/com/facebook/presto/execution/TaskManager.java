@@ -17,6 +17,7 @@ import com.facebook.presto.OutputBuffers;
 import com.facebook.presto.TaskSource;
 import com.facebook.presto.spi.Session;
 import com.facebook.presto.sql.planner.PlanFragment;
+import com.google.common.base.Optional;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 
@@ -29,9 +30,12 @@ public interface TaskManager
     void waitForStateChange(TaskId taskId, TaskState currentState, Duration maxWait)
             throws InterruptedException;
 
+    void waitForTaskInfoChange(TaskId taskId, long currentVersion, Duration maxWait)
+            throws InterruptedException;
+
     TaskInfo getTaskInfo(TaskId taskId, boolean full);
 
-    TaskInfo updateTask(Session session, TaskId taskId, PlanFragment fragment, List<TaskSource> sources, OutputBuffers outputIds);
+    TaskInfo updateTask(Session session, TaskId taskId, Optional<PlanFragment> fragment, List<TaskSource> sources, OutputBuffers outputIds);
 
     BufferResult getTaskResults(TaskId taskId, String outputName, long startingSequenceId, DataSize maxSize, Duration maxWaitTime)
             throws InterruptedException;
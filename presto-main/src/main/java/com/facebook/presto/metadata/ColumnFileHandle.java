@@ -17,9 +17,12 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.operator.Page;
 import com.facebook.presto.serde.BlocksFileEncoding;
+import com.facebook.presto.serde.BlocksFileStats;
 import com.facebook.presto.serde.BlocksFileWriter;
 import com.facebook.presto.spi.ColumnHandle;
+import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.io.OutputSupplier;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
@@ -100,6 +103,38 @@ public class ColumnFileHandle
         return positionCount[0]; // they are all the same. And [0] is guaranteed to exist...
     }
 
+    /**
+     * Appends a block to a single column. The same number of positions must be appended to every column.
+     */
+    public void append(ColumnHandle columnHandle, Block block)
+    {
+        checkNotNull(columnHandle, "columnHandle is null");
+        checkNotNull(block, "block is null");
+        checkState(!committed.get(), "already committed: %s", shardUuid);
+
+        BlocksFileWriter writer = writers.get(columnHandle);
+        checkArgument(writer != null, "no writer for column %s", columnHandle);
+        writer.append(block);
+    }
+
+    /**
+     * Returns the stats of the written columns. Only available after the handle is committed,
+     * and columns without rows have no stats.
+     */
+    public Map<ColumnHandle, BlocksFileStats> getStats()
+    {
+        checkState(committed.get(), "not committed: %s", shardUuid);
+
+        ImmutableMap.Builder<ColumnHandle, BlocksFileStats> stats = ImmutableMap.builder();
+        for (Map.Entry<ColumnHandle, BlocksFileWriter> entry : writers.entrySet()) {
+            Optional<BlocksFileStats> columnStats = entry.getValue().getStats();
+            if (columnStats.isPresent()) {
+                stats.put(entry.getKey(), columnStats.get());
+            }
+        }
+        return stats.build();
+    }
+
     public void commit()
             throws IOException
     {
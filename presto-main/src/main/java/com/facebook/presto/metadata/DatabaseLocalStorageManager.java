@@ -15,32 +15,21 @@ package com.facebook.presto.metadata;
 
 import com.facebook.presto.block.BlockIterable;
 import com.facebook.presto.block.BlockUtils;
-import com.facebook.presto.execution.TaskId;
-import com.facebook.presto.operator.AlignmentOperator;
-import com.facebook.presto.operator.OperatorContext;
-import com.facebook.presto.operator.Page;
-import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.serde.BlocksFileEncoding;
 import com.facebook.presto.serde.BlocksFileReader;
 import com.facebook.presto.serde.BlocksFileStats;
 import com.facebook.presto.spi.ColumnHandle;
-import com.facebook.presto.spi.Session;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.util.KeyBoundedExecutor;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Function;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
+import com.google.common.base.Optional;
 import com.google.common.io.Files;
 import com.google.inject.Inject;
 import io.airlift.concurrent.ThreadPoolExecutorMBean;
 import io.airlift.log.Logger;
-import io.airlift.slice.Slice;
-import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.TransactionStatus;
@@ -50,18 +39,17 @@ import org.weakref.jmx.Nested;
 
 import javax.annotation.PreDestroy;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
-import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.util.Threads.threadsNamed;
-import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
@@ -71,11 +59,6 @@ import static java.util.concurrent.Executors.newFixedThreadPool;
 public class DatabaseLocalStorageManager
         implements LocalStorageManager
 {
-    private static final boolean ENABLE_OPTIMIZATION = false;
-
-    private static final int RUN_LENGTH_AVERAGE_CUTOFF = 3;
-    private static final int DICTIONARY_CARDINALITY_CUTOFF = 1000;
-
     private static final Logger log = Logger.get(DatabaseLocalStorageManager.class);
 
     private final ExecutorService executor;
@@ -88,20 +71,7 @@ public class DatabaseLocalStorageManager
     private final File baseStagingDir;
     private final StorageManagerDao dao;
 
-    private final LoadingCache<File, Slice> mappedFileCache = CacheBuilder.newBuilder().build(new CacheLoader<File, Slice>()
-    {
-        @Override
-        public Slice load(File file)
-                throws Exception
-        {
-            checkArgument(file.isAbsolute(), "file is not absolute: %s", file);
-            checkArgument(file.canRead(), "file is not readable: %s", file);
-            if (file.length() == 0) {
-                return Slices.EMPTY_SLICE;
-            }
-            return Slices.mapFileReadOnly(file);
-        }
-    });
+    private final MappedFileCache mappedFileCache;
     private final BlocksFileEncoding defaultEncoding;
 
     @Inject
@@ -120,11 +90,13 @@ public class DatabaseLocalStorageManager
         this.executor = newFixedThreadPool(config.getTasksPerNode(), threadsNamed("local-storage-manager-%s"));
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) executor);
         this.shardBoundedExecutor = new KeyBoundedExecutor<>(executor);
+        this.mappedFileCache = new MappedFileCache(config.getMaxMappedSize());
 
         dao.createTableColumns();
 
         if (config.isCompressed()) {
-            defaultEncoding = BlocksFileEncoding.SNAPPY;
+            // pick dictionary, run length, snappy or raw encoding for each column as it is written
+            defaultEncoding = BlocksFileEncoding.AUTO;
         }
         else {
             defaultEncoding = BlocksFileEncoding.RAW;
@@ -144,6 +116,13 @@ public class DatabaseLocalStorageManager
         return executorMBean;
     }
 
+    @Managed
+    @Nested
+    public MappedFileCache getMappedFileCache()
+    {
+        return mappedFileCache;
+    }
+
     @Override
     public ColumnFileHandle createStagingFileHandles(UUID shardUuid, List<? extends ColumnHandle> columnHandles)
             throws IOException
@@ -169,8 +148,7 @@ public class DatabaseLocalStorageManager
 
         columnFileHandle.commit();
 
-        // Process staged files to optimize encodings if necessary
-        ColumnFileHandle finalColumnFileHandle = optimizeEncodings(columnFileHandle);
+        ColumnFileHandle finalColumnFileHandle = moveStagedFiles(columnFileHandle);
 
         // Commit all the columns at the same time once everything has been successfully imported
         commitShardColumns(finalColumnFileHandle);
@@ -179,83 +157,32 @@ public class DatabaseLocalStorageManager
         deleteStagingDirectory(columnFileHandle);
     }
 
-    private ColumnFileHandle optimizeEncodings(ColumnFileHandle columnFileHandle)
+    /**
+     * Moves the staged column files to their final location. The encoding of each column was
+     * picked by the writer while the column was written, so the files are not rewritten.
+     */
+    private ColumnFileHandle moveStagedFiles(ColumnFileHandle columnFileHandle)
             throws IOException
     {
         UUID shardUuid = columnFileHandle.getShardUuid();
         File shardPath = getShardPath(baseStorageDir, shardUuid);
 
-        ImmutableList.Builder<BlockIterable> sourcesBuilder = ImmutableList.builder();
         ColumnFileHandle.Builder builder = ColumnFileHandle.builder(shardUuid, blockEncodingSerde);
-
         for (Map.Entry<ColumnHandle, File> entry : columnFileHandle.getFiles().entrySet()) {
             File file = entry.getValue();
             ColumnHandle columnHandle = entry.getKey();
 
+            File outputFile = getColumnFile(shardPath, columnHandle, defaultEncoding);
             if (file.length() > 0) {
-                Slice slice = mappedFileCache.getUnchecked(file.getAbsoluteFile());
-                checkState(file.length() == slice.length(), "File %s, length %s was mapped to Slice length %s", file.getAbsolutePath(), file.length(), slice.length());
-                // Compute optimal encoding from stats
-                BlocksFileReader blocks = BlocksFileReader.readBlocks(blockEncodingSerde, slice);
-                BlocksFileStats stats = blocks.getStats();
-                boolean rleEncode = stats.getAvgRunLength() > RUN_LENGTH_AVERAGE_CUTOFF;
-                boolean dicEncode = stats.getUniqueCount() < DICTIONARY_CARDINALITY_CUTOFF;
-
-                BlocksFileEncoding encoding = defaultEncoding;
-
-                if (ENABLE_OPTIMIZATION) {
-                    if (dicEncode && rleEncode) {
-                        encoding = BlocksFileEncoding.DIC_RLE;
-                    }
-                    else if (dicEncode) {
-                        encoding = BlocksFileEncoding.DIC_RAW;
-                    }
-                    else if (rleEncode) {
-                        encoding = BlocksFileEncoding.RLE;
-                    }
-                }
-
-                File outputFile = getColumnFile(shardPath, columnHandle, encoding);
                 Files.createParentDirs(outputFile);
-
-                if (encoding == defaultEncoding) {
-                    // Optimization: source is already raw, so just move.
-                    Files.move(file, outputFile);
-                    // still register the file with the builder so that it can
-                    // be committed correctly.
-                    builder.addColumn(columnHandle, outputFile);
-                }
-                else {
-                    // source builder and output builder move in parallel if the
-                    // column gets written
-                    sourcesBuilder.add(blocks);
-                    builder.addColumn(columnHandle, outputFile, encoding);
-                }
-            }
-            else {
-                // fake file
-                File outputFile = getColumnFile(shardPath, columnHandle, defaultEncoding);
-                builder.addColumn(columnHandle, outputFile);
+                Files.move(file, outputFile);
             }
+            // empty files are not moved, a missing file is read as a column without rows
+            builder.addColumn(columnHandle, outputFile);
         }
 
-        List<BlockIterable> sources = sourcesBuilder.build();
         ColumnFileHandle targetFileHandle = builder.build();
-
-        if (!sources.isEmpty()) {
-            // Throw out any stats generated by the optimization step
-            Session session = new Session("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
-            OperatorContext operatorContext = new TaskContext(new TaskId("query", "stage", "task"), executor, session)
-                    .addPipelineContext(true, true)
-                    .addDriverContext()
-                    .addOperatorContext(0, "OptimizeEncodings");
-
-            AlignmentOperator source = new AlignmentOperator(operatorContext, sources);
-            importData(source, targetFileHandle);
-        }
-
         targetFileHandle.commit();
-
         return targetFileHandle;
     }
 
@@ -269,17 +196,6 @@ public class DatabaseLocalStorageManager
         }
     }
 
-    private static void importData(AlignmentOperator source, ColumnFileHandle fileHandle)
-    {
-        while (!source.isFinished()) {
-            Page page = source.getOutput();
-            if (page != null) {
-                fileHandle.append(page);
-            }
-            checkState(source.isBlocked().isDone(), "Alignment operator is blocked");
-        }
-    }
-
     /**
      * Generate a file system path for a shard UUID.
      * <p/>
@@ -341,37 +257,42 @@ public class DatabaseLocalStorageManager
     @Override
     public BlockIterable getBlocks(UUID shardUuid, ColumnHandle columnHandle)
     {
-        checkNotNull(columnHandle);
-        checkState(columnHandle instanceof NativeColumnHandle, "Can only load blocks from a native column");
-        long columnId = ((NativeColumnHandle) columnHandle).getColumnId();
-
-        checkState(shardExists(shardUuid), "shard %s does not exist in local database", shardUuid);
-        String filename = dao.getColumnFilename(shardUuid, columnId);
-        File file = new File(getShardPath(baseStorageDir, shardUuid), filename);
+        File file = getShardColumnFile(shardUuid, columnHandle);
 
         // TODO: remove this hack when empty blocks are allowed
         if (!file.exists()) {
+            // shards are removed from the database before their files are deleted, so the
+            // file of a shard that is still in the database belongs to a column without rows
+            checkState(shardExists(shardUuid), "shard %s was dropped while it was being read", shardUuid);
             return BlockUtils.emptyBlockIterable();
         }
 
-        return convertFilesToBlocks(ImmutableList.of(file));
+        return new MappedBlockIterable(mappedFileCache.acquire(file.getAbsoluteFile()));
     }
 
-    private BlockIterable convertFilesToBlocks(Iterable<File> files)
+    @Override
+    public Optional<BlocksFileStats> getColumnStats(UUID shardUuid, ColumnHandle columnHandle)
     {
-        checkArgument(files.iterator().hasNext(), "no files in stream");
+        File file = getShardColumnFile(shardUuid, columnHandle);
+        if (!file.exists() || file.length() == 0) {
+            return Optional.absent();
+        }
 
-        Iterable<Block> blocks = Iterables.concat(Iterables.transform(files, new Function<File, Iterable<? extends Block>>()
-        {
-            @Override
-            public Iterable<? extends Block> apply(File file)
-            {
-                Slice slice = mappedFileCache.getUnchecked(file.getAbsoluteFile());
-                return BlocksFileReader.readBlocks(blockEncodingSerde, slice);
-            }
-        }));
+        // only the footer of the mapped file is read
+        try (MappedFileCache.Reference reference = mappedFileCache.acquire(file.getAbsoluteFile())) {
+            return Optional.of(BlocksFileReader.readBlocks(blockEncodingSerde, reference.getSlice()).getStats());
+        }
+    }
+
+    private File getShardColumnFile(UUID shardUuid, ColumnHandle columnHandle)
+    {
+        checkNotNull(columnHandle);
+        checkState(columnHandle instanceof NativeColumnHandle, "Can only load blocks from a native column");
+        long columnId = ((NativeColumnHandle) columnHandle).getColumnId();
 
-        return BlockUtils.toBlocks(blocks);
+        checkState(shardExists(shardUuid), "shard %s does not exist in local database", shardUuid);
+        String filename = dao.getColumnFilename(shardUuid, columnId);
+        return new File(getShardPath(baseStorageDir, shardUuid), filename);
     }
 
     @Override
@@ -380,6 +301,17 @@ public class DatabaseLocalStorageManager
         return dao.shardExists(shardUuid);
     }
 
+    @Override
+    public DataSize getShardSize(UUID shardUuid)
+    {
+        long bytes = 0;
+        for (String shardFile : dao.getShardFiles(shardUuid)) {
+            // missing files are columns without rows
+            bytes += new File(getShardPath(baseStorageDir, shardUuid), shardFile).length();
+        }
+        return new DataSize(bytes, DataSize.Unit.BYTE);
+    }
+
     @Override
     public void dropShard(UUID shardUuid)
     {
@@ -412,15 +344,62 @@ public class DatabaseLocalStorageManager
         @Override
         public void run()
         {
-            // TODO: dropping needs to be globally coordinated with read queries
+            // drop the shard from the database first, so readers fail instead of finding no files
             List<String> shardFiles = dao.getShardFiles(shardUuid);
+            dao.dropShard(shardUuid);
             for (String shardFile : shardFiles) {
                 File file = new File(getShardPath(baseStorageDir, shardUuid), shardFile);
+                mappedFileCache.invalidate(file.getAbsoluteFile());
                 if (!file.delete()) {
                     log.warn("failed to delete file: %s", file.getAbsolutePath());
                 }
             }
-            dao.dropShard(shardUuid);
+        }
+    }
+
+    /**
+     * Blocks of a memory mapped column file. The mapping stays referenced until the iterable is closed.
+     */
+    private class MappedBlockIterable
+            implements BlockIterable, Closeable
+    {
+        private final MappedFileCache.Reference reference;
+        private final BlocksFileReader reader;
+
+        private MappedBlockIterable(MappedFileCache.Reference reference)
+        {
+            this.reference = checkNotNull(reference, "reference is null");
+            this.reader = BlocksFileReader.readBlocks(blockEncodingSerde, reference.getSlice());
+        }
+
+        @Override
+        public Type getType()
+        {
+            return reader.getType();
+        }
+
+        @Override
+        public Optional<DataSize> getDataSize()
+        {
+            return reader.getDataSize();
+        }
+
+        @Override
+        public Optional<Integer> getPositionCount()
+        {
+            return reader.getPositionCount();
+        }
+
+        @Override
+        public Iterator<Block> iterator()
+        {
+            return reader.iterator();
+        }
+
+        @Override
+        public void close()
+        {
+            reference.close();
         }
     }
 }
@@ -15,6 +15,8 @@ package com.facebook.presto.metadata;
 
 import io.airlift.configuration.Config;
 import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -26,6 +28,7 @@ public class DatabaseLocalStorageManagerConfig
     private File dataDirectory = new File("var/data");
     private int tasksPerNode = 32;
     private boolean compressed = true;
+    private DataSize maxMappedSize = new DataSize(4, Unit.GIGABYTE);
 
     @NotNull
     public File getDataDirectory()
@@ -68,4 +71,18 @@ public class DatabaseLocalStorageManagerConfig
         this.compressed = compressed;
         return this;
     }
+
+    @NotNull
+    public DataSize getMaxMappedSize()
+    {
+        return maxMappedSize;
+    }
+
+    @Config("storage-manager.max-mapped-size")
+    @ConfigDescription("Maximum size of idle memory mapped column files to keep mapped")
+    public DatabaseLocalStorageManagerConfig setMaxMappedSize(DataSize maxMappedSize)
+    {
+        this.maxMappedSize = maxMappedSize;
+        return this;
+    }
 }
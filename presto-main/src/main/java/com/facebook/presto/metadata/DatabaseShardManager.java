@@ -14,14 +14,20 @@
 package com.facebook.presto.metadata;
 
 import com.facebook.presto.metadata.ShardManagerDao.Utils;
+import com.facebook.presto.serde.RangeStats;
+import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.PartitionKey;
 import com.facebook.presto.spi.TableHandle;
 import com.facebook.presto.split.NativePartitionKey;
 import com.google.common.base.Optional;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
+import io.airlift.units.Duration;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.TransactionStatus;
@@ -30,12 +36,14 @@ import org.skife.jdbi.v2.VoidTransactionCallback;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 
+import static com.facebook.presto.metadata.ShardColumnStats.serializeRange;
 import static com.facebook.presto.util.SqlUtils.runIgnoringConstraintViolation;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -59,12 +67,19 @@ public class DatabaseShardManager
     }
 
     @Override
-    public void commitPartition(TableHandle tableHandle, final String partition, final List<? extends PartitionKey> partitionKeys, final Map<UUID, String> shards)
+    public void commitPartition(TableHandle tableHandle, String partition, List<? extends PartitionKey> partitionKeys, Map<UUID, String> shards)
+    {
+        commitPartition(tableHandle, partition, partitionKeys, shards, ImmutableMap.<UUID, Map<Long, RangeStats>>of());
+    }
+
+    @Override
+    public void commitPartition(TableHandle tableHandle, final String partition, final List<? extends PartitionKey> partitionKeys, final Map<UUID, String> shards, final Map<UUID, Map<Long, RangeStats>> shardColumnRanges)
     {
         checkNotNull(tableHandle, "tableHandle is null");
         checkNotNull(partition, "partition is null");
         checkNotNull(partitionKeys, "partitionKeys is null");
         checkNotNull(shards, "shards is null");
+        checkNotNull(shardColumnRanges, "shardColumnRanges is null");
 
         checkState(tableHandle instanceof NativeTableHandle, "can only commit partitions for native tables");
         final long tableId = ((NativeTableHandle) tableHandle).getTableId();
@@ -87,6 +102,11 @@ public class DatabaseShardManager
                     long shardId = dao.insertShard(shardUuid);
                     dao.insertShardNode(shardId, nodeId);
                     dao.insertPartitionShard(shardId, tableId, partitionId);
+
+                    Map<Long, RangeStats> columnRanges = shardColumnRanges.get(shardUuid);
+                    if (columnRanges != null) {
+                        insertColumnRanges(dao, shardId, columnRanges);
+                    }
                 }
             }
         });
@@ -95,7 +115,13 @@ public class DatabaseShardManager
     @Override
     public void commitUnpartitionedTable(TableHandle tableHandle, Map<UUID, String> shards)
     {
-        commitPartition(tableHandle, "<UNPARTITIONED>", ImmutableList.<PartitionKey>of(), shards);
+        commitUnpartitionedTable(tableHandle, shards, ImmutableMap.<UUID, Map<Long, RangeStats>>of());
+    }
+
+    @Override
+    public void commitUnpartitionedTable(TableHandle tableHandle, Map<UUID, String> shards, Map<UUID, Map<Long, RangeStats>> shardColumnRanges)
+    {
+        commitPartition(tableHandle, "<UNPARTITIONED>", ImmutableList.<PartitionKey>of(), shards, shardColumnRanges);
     }
 
     @Override
@@ -114,6 +140,9 @@ public class DatabaseShardManager
             {
                 ShardManagerDao dao = handle.attach(ShardManagerDao.class);
                 dao.deleteShardFromPartitionShards(shardId);
+                dao.deleteShardColumnSketches(shardId);
+                dao.deleteShardColumnStats(shardId);
+                dao.deleteReplacedShard(shardId);
                 dao.deleteShard(shardId);
             }
         });
@@ -158,6 +187,93 @@ public class DatabaseShardManager
         return map.build();
     }
 
+    @Override
+    public Map<UUID, RangeStats> getShardColumnRanges(TableHandle tableHandle, ColumnHandle columnHandle)
+    {
+        checkNotNull(tableHandle, "tableHandle is null");
+        checkNotNull(columnHandle, "columnHandle is null");
+        checkState(tableHandle instanceof NativeTableHandle, "tableHandle not a native table");
+        checkState(columnHandle instanceof NativeColumnHandle, "columnHandle not a native column");
+        long tableId = ((NativeTableHandle) tableHandle).getTableId();
+        long columnId = ((NativeColumnHandle) columnHandle).getColumnId();
+
+        ImmutableMap.Builder<UUID, RangeStats> map = ImmutableMap.builder();
+        for (ShardColumnStats stats : dao.getShardColumnStats(tableId, columnId)) {
+            map.put(stats.getShardUuid(), stats.getRange());
+        }
+        return map.build();
+    }
+
+    @Override
+    public Map<Long, RangeStats> getTableColumnRanges(TableHandle tableHandle)
+    {
+        checkNotNull(tableHandle, "tableHandle is null");
+        checkState(tableHandle instanceof NativeTableHandle, "tableHandle not a native table");
+        long tableId = ((NativeTableHandle) tableHandle).getTableId();
+
+        long shardCount = dao.getTableShardCount(tableId);
+
+        Map<Long, RangeStats> ranges = new HashMap<>();
+        Multiset<Long> columnShardCounts = HashMultiset.create();
+        for (ShardColumnStats stats : dao.getTableShardColumnStats(tableId)) {
+            RangeStats range = ranges.get(stats.getColumnId());
+            ranges.put(stats.getColumnId(), (range == null) ? stats.getRange() : range.merge(stats.getRange()));
+            columnShardCounts.add(stats.getColumnId());
+        }
+
+        ImmutableMap.Builder<Long, RangeStats> map = ImmutableMap.builder();
+        for (Map.Entry<Long, RangeStats> entry : ranges.entrySet()) {
+            // the stats would be misleading if some of the shards have none
+            if (columnShardCounts.count(entry.getKey()) == shardCount) {
+                map.put(entry);
+            }
+        }
+        return map.build();
+    }
+
+    @Override
+    public List<ShardNode> getNodeShards(String nodeIdentifier)
+    {
+        checkNotNull(nodeIdentifier, "nodeIdentifier is null");
+        return dao.getNodeShards(nodeIdentifier);
+    }
+
+    @Override
+    public void replaceShards(final long tableId, final long partitionId, final Set<UUID> shardUuids, final UUID newShardUuid, final String nodeIdentifier, final Map<Long, RangeStats> columnRanges)
+    {
+        checkNotNull(shardUuids, "shardUuids is null");
+        checkNotNull(newShardUuid, "newShardUuid is null");
+        checkNotNull(nodeIdentifier, "nodeIdentifier is null");
+        checkNotNull(columnRanges, "columnRanges is null");
+
+        final long nodeId = getOrCreateNodeId(nodeIdentifier);
+        final long replaceTime = System.currentTimeMillis();
+        dbi.inTransaction(new VoidTransactionCallback()
+        {
+            @Override
+            protected void execute(Handle handle, TransactionStatus status)
+            {
+                ShardManagerDao dao = handle.attach(ShardManagerDao.class);
+
+                // the shards may have been dropped with their partition since they were listed
+                for (UUID shardUuid : shardUuids) {
+                    Long shardId = dao.getShardId(shardUuid);
+                    checkState(shardId != null && dao.deleteShardFromPartitionShards(shardId) == 1, "shard %s is no longer part of partition %s", shardUuid, partitionId);
+                    dao.deleteShardColumnSketches(shardId);
+                    dao.deleteShardColumnStats(shardId);
+
+                    // queries planned before the replacement may still read the shard
+                    dao.insertReplacedShard(shardId, replaceTime);
+                }
+
+                long shardId = dao.insertShard(newShardUuid);
+                dao.insertShardNode(shardId, nodeId);
+                dao.insertPartitionShard(shardId, tableId, partitionId);
+                insertColumnRanges(dao, shardId, columnRanges);
+            }
+        });
+    }
+
     @Override
     public Set<String> getTableNodes(TableHandle tableHandle)
     {
@@ -198,13 +314,15 @@ public class DatabaseShardManager
     }
 
     @Override
-    public Iterable<Long> getOrphanedShardIds(Optional<String> nodeIdentifier)
+    public Iterable<Long> getOrphanedShardIds(Optional<String> nodeIdentifier, Duration replacedShardRetention)
     {
+        checkNotNull(replacedShardRetention, "replacedShardRetention is null");
+        long replacedAfter = System.currentTimeMillis() - replacedShardRetention.toMillis();
         if (nodeIdentifier.isPresent()) {
-            return dao.getOrphanedShards(nodeIdentifier.get());
+            return dao.getOrphanedShards(nodeIdentifier.get(), replacedAfter);
         }
         else {
-            return dao.getAllOrphanedShards();
+            return dao.getAllOrphanedShards(replacedAfter);
         }
     }
 
@@ -214,6 +332,17 @@ public class DatabaseShardManager
         dao.dropAllOrphanedPartitions();
     }
 
+    private static void insertColumnRanges(ShardManagerDao dao, long shardId, Map<Long, RangeStats> columnRanges)
+    {
+        for (Map.Entry<Long, RangeStats> columnRange : columnRanges.entrySet()) {
+            RangeStats range = columnRange.getValue();
+            dao.insertShardColumnStats(shardId, columnRange.getKey(), serializeRange(range));
+            if (range.getDistinctSketch() != null) {
+                dao.insertShardColumnSketch(shardId, columnRange.getKey(), range.getDistinctSketch().getBytes());
+            }
+        }
+    }
+
     private long getOrCreateNodeId(final String nodeIdentifier)
     {
         Long id = dao.getNodeId(nodeIdentifier);
@@ -14,7 +14,10 @@
 package com.facebook.presto.metadata;
 
 import com.facebook.presto.block.BlockIterable;
+import com.facebook.presto.serde.BlocksFileStats;
 import com.facebook.presto.spi.ColumnHandle;
+import com.google.common.base.Optional;
+import io.airlift.units.DataSize;
 
 import java.io.IOException;
 import java.util.List;
@@ -24,8 +27,18 @@ public interface LocalStorageManager
 {
     BlockIterable getBlocks(UUID shardUuid, ColumnHandle columnHandle);
 
+    /**
+     * Returns the stats of a column of a shard, or absent if the column has no rows.
+     */
+    Optional<BlocksFileStats> getColumnStats(UUID shardUuid, ColumnHandle columnHandle);
+
     boolean shardExists(UUID shardUuid);
 
+    /**
+     * Returns the size of the column files of a shard.
+     */
+    DataSize getShardSize(UUID shardUuid);
+
     void dropShard(UUID shardUuid);
 
     boolean isShardActive(UUID shardUuid);
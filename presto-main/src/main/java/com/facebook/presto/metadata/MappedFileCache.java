@@ -0,0 +1,272 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.google.common.base.Throwables;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Size bounded cache of memory mapped files.
+ * <p/>
+ * Each {@link #acquire(File)} returns a reference that must be closed once the caller is done
+ * with the mapping. Files that are referenced are never evicted, so the total mapped size can
+ * temporarily exceed the limit while many files are being scanned. Once the last reference is
+ * closed, the least recently used idle files are evicted until the cache is within the limit.
+ * <p/>
+ * Evicted mappings are not unmapped explicitly, since blocks read from them may still be in use
+ * downstream; the mapping is released when the last slice pointing into it is garbage collected.
+ */
+@ThreadSafe
+public class MappedFileCache
+{
+    private final long maxMappedBytes;
+
+    @GuardedBy("this")
+    private final LinkedHashMap<File, MappedFile> files = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("this")
+    private long mappedBytes;
+    @GuardedBy("this")
+    private long invalidations;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public MappedFileCache(DataSize maxMappedSize)
+    {
+        this.maxMappedBytes = checkNotNull(maxMappedSize, "maxMappedSize is null").toBytes();
+    }
+
+    /**
+     * Returns a reference to the mapping of the file, mapping it if necessary.
+     */
+    public Reference acquire(File file)
+    {
+        checkNotNull(file, "file is null");
+        checkArgument(file.isAbsolute(), "file is not absolute: %s", file);
+
+        long invalidationsBeforeMapping;
+        synchronized (this) {
+            MappedFile mappedFile = files.get(file);
+            if (mappedFile != null) {
+                hitCount.incrementAndGet();
+                return reference(mappedFile);
+            }
+            invalidationsBeforeMapping = invalidations;
+        }
+
+        // map outside of the lock, so a miss does not block callers acquiring other files
+        missCount.incrementAndGet();
+        MappedFile newMappedFile = new MappedFile(file, mapFile(file));
+
+        synchronized (this) {
+            if (invalidations != invalidationsBeforeMapping) {
+                // the file may have been replaced while it was mapped, so the mapping is not cached
+                return reference(newMappedFile);
+            }
+
+            MappedFile mappedFile = files.get(file);
+            if (mappedFile != null) {
+                // another caller mapped the file first, and the new mapping is released once it is garbage collected
+                return reference(mappedFile);
+            }
+            files.put(file, newMappedFile);
+            mappedBytes += newMappedFile.getSlice().length();
+            return reference(newMappedFile);
+        }
+    }
+
+    @GuardedBy("this")
+    private Reference reference(MappedFile mappedFile)
+    {
+        mappedFile.references++;
+        evictIdleFiles();
+        return new Reference(mappedFile);
+    }
+
+    /**
+     * Removes the file from the cache, e.g. because the file was deleted.
+     * Outstanding references stay valid.
+     */
+    public synchronized void invalidate(File file)
+    {
+        MappedFile mappedFile = files.remove(checkNotNull(file, "file is null"));
+        invalidations++;
+        if (mappedFile != null) {
+            mappedBytes -= mappedFile.getSlice().length();
+        }
+    }
+
+    private synchronized void release(MappedFile mappedFile)
+    {
+        mappedFile.references--;
+        evictIdleFiles();
+    }
+
+    @GuardedBy("this")
+    private void evictIdleFiles()
+    {
+        Iterator<MappedFile> iterator = files.values().iterator();
+        while (mappedBytes > maxMappedBytes && iterator.hasNext()) {
+            MappedFile mappedFile = iterator.next();
+            if (mappedFile.references == 0) {
+                iterator.remove();
+                mappedBytes -= mappedFile.getSlice().length();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static Slice mapFile(File file)
+    {
+        checkArgument(file.canRead(), "file is not readable: %s", file);
+        if (file.length() == 0) {
+            return Slices.EMPTY_SLICE;
+        }
+        try {
+            return Slices.mapFileReadOnly(file);
+        }
+        catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    @Managed
+    public long getMaxMappedBytes()
+    {
+        return maxMappedBytes;
+    }
+
+    @Managed
+    public synchronized long getMappedBytes()
+    {
+        return mappedBytes;
+    }
+
+    @Managed
+    public synchronized int getMappedFileCount()
+    {
+        return files.size();
+    }
+
+    @Managed
+    public synchronized int getReferencedFileCount()
+    {
+        int count = 0;
+        for (MappedFile mappedFile : files.values()) {
+            if (mappedFile.references > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return evictionCount.get();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        long hits = hitCount.get();
+        long requests = hits + missCount.get();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    private static class MappedFile
+    {
+        private final File file;
+        private final Slice slice;
+
+        @GuardedBy("MappedFileCache.this")
+        private int references;
+
+        private MappedFile(File file, Slice slice)
+        {
+            this.file = file;
+            this.slice = slice;
+        }
+
+        public File getFile()
+        {
+            return file;
+        }
+
+        public Slice getSlice()
+        {
+            return slice;
+        }
+    }
+
+    public class Reference
+            implements Closeable
+    {
+        private final MappedFile mappedFile;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Reference(MappedFile mappedFile)
+        {
+            this.mappedFile = mappedFile;
+        }
+
+        public File getFile()
+        {
+            return mappedFile.getFile();
+        }
+
+        public Slice getSlice()
+        {
+            return mappedFile.getSlice();
+        }
+
+        @Override
+        public void close()
+        {
+            if (closed.compareAndSet(false, true)) {
+                release(mappedFile);
+            }
+        }
+    }
+}
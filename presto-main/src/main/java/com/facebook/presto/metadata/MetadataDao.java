@@ -48,6 +48,16 @@ public interface MetadataDao
             ")")
     void createColumnsTable();
 
+    @SqlUpdate("CREATE TABLE IF NOT EXISTS sort_columns (\n" +
+            "  table_id BIGINT NOT NULL,\n" +
+            "  column_id BIGINT NOT NULL,\n" +
+            "  sort_ordinal_position INT NOT NULL,\n" +
+            "  PRIMARY KEY (table_id, column_id),\n" +
+            "  UNIQUE (table_id, sort_ordinal_position),\n" +
+            "  FOREIGN KEY (table_id, column_id) REFERENCES columns (table_id, column_id)\n" +
+            ")")
+    void createSortColumnsTable();
+
     @SqlQuery("SELECT table_id FROM tables\n" +
             "WHERE catalog_name = :catalogName\n" +
             "  AND schema_name = :schemaName\n" +
@@ -78,6 +88,13 @@ public interface MetadataDao
             "ORDER BY ordinal_position")
     List<ColumnMetadata> getTableColumnMetaData(@Bind("tableId") long tableId);
 
+    @SqlQuery("SELECT c.column_name\n" +
+            "FROM sort_columns s\n" +
+            "JOIN columns c ON (s.table_id = c.table_id AND s.column_id = c.column_id)\n" +
+            "WHERE s.table_id = :tableId\n" +
+            "ORDER BY s.sort_ordinal_position")
+    List<String> getTableSortColumnNames(@Bind("tableId") long tableId);
+
     @SqlQuery("SELECT column_id\n" +
             "FROM columns\n" +
             "WHERE table_id = :tableId AND column_name = :columnName")
@@ -133,9 +150,19 @@ public interface MetadataDao
             @Bind("ordinalPosition") int ordinalPosition,
             @Bind("dataType") String dataType);
 
+    @SqlUpdate("INSERT INTO sort_columns (table_id, column_id, sort_ordinal_position)\n" +
+            "VALUES (:tableId, :columnId, :sortOrdinalPosition)")
+    void insertSortColumn(
+            @Bind("tableId") long tableId,
+            @Bind("columnId") long columnId,
+            @Bind("sortOrdinalPosition") int sortOrdinalPosition);
+
     @SqlUpdate("DELETE FROM tables WHERE table_id = :tableId")
     int dropTable(@Bind("tableId") long tableId);
 
     @SqlUpdate("DELETE FROM columns WHERE table_id = :tableId")
     int dropColumns(@Bind("tableId") long tableId);
+
+    @SqlUpdate("DELETE FROM sort_columns WHERE table_id = :tableId")
+    int dropSortColumns(@Bind("tableId") long tableId);
 }
@@ -28,6 +28,7 @@ public final class MetadataDaoUtils
 
     public static void dropTable(MetadataDao dao, long tableId)
     {
+        dao.dropSortColumns(tableId);
         dao.dropColumns(tableId);
         dao.dropTable(tableId);
     }
@@ -51,6 +52,7 @@ public final class MetadataDaoUtils
     {
         dao.createTablesTable();
         dao.createColumnsTable();
+        dao.createSortColumnsTable();
     }
 
     private static void sleep(Duration duration)
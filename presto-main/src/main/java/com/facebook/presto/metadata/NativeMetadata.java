@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.metadata;
 
+import com.facebook.presto.serde.RangeStats;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorMetadata;
@@ -46,6 +47,7 @@ import java.util.UUID;
 import java.util.concurrent.Callable;
 
 import static com.facebook.presto.metadata.MetadataDaoUtils.createMetadataTablesWithRetry;
+import static com.facebook.presto.metadata.ShardColumnStats.decodeColumnRanges;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.util.SqlUtils.runIgnoringConstraintViolation;
 import static com.facebook.presto.util.Types.checkType;
@@ -124,7 +126,8 @@ public class NativeMetadata
             return null;
         }
 
-        return new ConnectorTableMetadata(tableName, columns);
+        List<String> sortColumns = dao.getTableSortColumnNames(nativeTableHandle.getTableId());
+        return new ConnectorTableMetadata(tableName, columns, null, false, sortColumns);
     }
 
     @Override
@@ -296,6 +299,11 @@ public class NativeMetadata
             columnHandles.add(new NativeColumnHandle(column.getName(), columnId));
             columnTypes.add(column.getType());
         }
+        ImmutableList.Builder<NativeColumnHandle> sortColumnHandles = ImmutableList.builder();
+        for (String sortColumn : tableMetadata.getSortColumns()) {
+            sortColumnHandles.add(getColumnHandle(columnHandles.build(), sortColumn));
+        }
+
         NativeColumnHandle sampleWeightColumnHandle = null;
         if (tableMetadata.isSampled()) {
             sampleWeightColumnHandle = new NativeColumnHandle(NativeColumnHandle.SAMPLE_WEIGHT_COLUMN_NAME, maxColumnId + 1);
@@ -308,9 +316,20 @@ public class NativeMetadata
                 tableMetadata.getTable().getTableName(),
                 columnHandles.build(),
                 columnTypes.build(),
+                sortColumnHandles.build(),
                 sampleWeightColumnHandle);
     }
 
+    private static NativeColumnHandle getColumnHandle(List<NativeColumnHandle> columnHandles, String columnName)
+    {
+        for (NativeColumnHandle columnHandle : columnHandles) {
+            if (columnHandle.getColumnName().equals(columnName)) {
+                return columnHandle;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Sort column %s is not a column of the table", columnName));
+    }
+
     @Override
     public void commitCreateTable(OutputTableHandle outputTableHandle, Collection<String> fragments)
     {
@@ -328,19 +347,27 @@ public class NativeMetadata
                     Type columnType = table.getColumnTypes().get(i);
                     dao.insertColumn(tableId, i + 1, column.getColumnName(), i, columnType.getName());
                 }
+                for (int i = 0; i < table.getSortColumnHandles().size(); i++) {
+                    int ordinalPosition = table.getColumnHandles().indexOf(table.getSortColumnHandles().get(i));
+                    dao.insertSortColumn(tableId, ordinalPosition + 1, i);
+                }
             }
         });
 
         ImmutableMap.Builder<UUID, String> shards = ImmutableMap.builder();
+        ImmutableMap.Builder<UUID, Map<Long, RangeStats>> shardColumnRanges = ImmutableMap.builder();
         for (String fragment : fragments) {
             Iterator<String> split = Splitter.on(':').split(fragment).iterator();
             String nodeId = split.next();
             UUID shardUuid = UUID.fromString(split.next());
             shards.put(shardUuid, nodeId);
+            if (split.hasNext()) {
+                shardColumnRanges.put(shardUuid, decodeColumnRanges(split.next()));
+            }
         }
 
         TableHandle tableHandle = getTableHandle(new SchemaTableName(table.getSchemaName(), table.getTableName()));
 
-        shardManager.commitUnpartitionedTable(tableHandle, shards.build());
+        shardManager.commitUnpartitionedTable(tableHandle, shards.build(), shardColumnRanges.build());
     }
 }
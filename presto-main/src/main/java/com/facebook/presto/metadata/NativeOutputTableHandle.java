@@ -34,6 +34,7 @@ public class NativeOutputTableHandle
     private final String tableName;
     private final List<NativeColumnHandle> columnHandles;
     private final List<Type> columnTypes;
+    private final List<NativeColumnHandle> sortColumnHandles;
     @Nullable
     private final NativeColumnHandle sampleWeightColumnHandle;
 
@@ -43,12 +44,14 @@ public class NativeOutputTableHandle
             @JsonProperty("tableName") String tableName,
             @JsonProperty("columnHandles") List<NativeColumnHandle> columnHandles,
             @JsonProperty("columnTypes") List<Type> columnTypes,
+            @JsonProperty("sortColumnHandles") List<NativeColumnHandle> sortColumnHandles,
             @JsonProperty("sampleWeightColumnHandle") NativeColumnHandle sampleWeightColumnHandle)
     {
         this.schemaName = checkSchemaName(schemaName);
         this.tableName = checkTableName(tableName);
         this.columnHandles = ImmutableList.copyOf(checkNotNull(columnHandles, "columnHandles is null"));
         this.columnTypes = ImmutableList.copyOf(checkNotNull(columnTypes, "columnTypes is null"));
+        this.sortColumnHandles = ImmutableList.copyOf(checkNotNull(sortColumnHandles, "sortColumnHandles is null"));
         this.sampleWeightColumnHandle = sampleWeightColumnHandle;
     }
 
@@ -76,6 +79,12 @@ public class NativeOutputTableHandle
         return columnTypes;
     }
 
+    @JsonProperty
+    public List<NativeColumnHandle> getSortColumnHandles()
+    {
+        return sortColumnHandles;
+    }
+
     @JsonProperty
     public NativeColumnHandle getSampleWeightColumnHandle()
     {
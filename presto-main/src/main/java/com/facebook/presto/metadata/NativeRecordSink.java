@@ -14,22 +14,27 @@
 package com.facebook.presto.metadata;
 
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.operator.Page;
 import com.facebook.presto.operator.PageBuilder;
-import com.facebook.presto.spi.RecordSink;
+import com.facebook.presto.spi.BlockRecordSink;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
+import static com.facebook.presto.metadata.ShardColumnStats.encodeColumnRanges;
+import static com.facebook.presto.metadata.ShardColumnStats.getColumnRanges;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 public class NativeRecordSink
-        implements RecordSink
+        implements BlockRecordSink
 {
     private final String nodeId;
     private final ColumnFileHandle fileHandle;
@@ -114,14 +119,31 @@ public class NativeRecordSink
         nextColumn().append(value);
     }
 
+    @Override
+    public void appendBlocks(Block[] blocks, Block sampleWeights)
+    {
+        checkNotNull(blocks, "blocks is null");
+        checkNotNull(sampleWeights, "sampleWeights is null");
+        checkState(field == -1, "already in record");
+        checkArgument(blocks.length == lastField(), "expected %s blocks, but got %s", lastField(), blocks.length);
+
+        // rows appended one at a time must be written first
+        flushPageBuilder();
+
+        Block[] columns = blocks;
+        if (sampleWeightField >= 0) {
+            columns = Arrays.copyOf(blocks, blocks.length + 1);
+            columns[sampleWeightField] = sampleWeights;
+        }
+        fileHandle.append(new Page(columns));
+    }
+
     @Override
     public String commit()
     {
         checkState(field == -1, "record not finished");
 
-        if (!pageBuilder.isEmpty()) {
-            fileHandle.append(pageBuilder.build());
-        }
+        flushPageBuilder();
 
         try {
             storageManager.commit(fileHandle);
@@ -130,7 +152,15 @@ public class NativeRecordSink
             throw Throwables.propagate(e);
         }
 
-        return Joiner.on(':').join(nodeId, fileHandle.getShardUuid());
+        return Joiner.on(':').join(nodeId, fileHandle.getShardUuid(), encodeColumnRanges(getColumnRanges(fileHandle)));
+    }
+
+    private void flushPageBuilder()
+    {
+        if (!pageBuilder.isEmpty()) {
+            fileHandle.append(pageBuilder.build());
+            pageBuilder.reset();
+        }
     }
 
     private BlockBuilder nextColumn()
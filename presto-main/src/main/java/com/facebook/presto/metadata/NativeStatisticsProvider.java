@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.facebook.presto.serde.RangeStats;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ColumnStatistics;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.TableStatistics;
+import com.google.common.collect.ImmutableMap;
+
+import javax.inject.Inject;
+
+import java.util.Map;
+
+import static com.facebook.presto.spi.ColumnStatistics.UNKNOWN_DISTINCT_VALUES_COUNT;
+import static com.facebook.presto.util.Types.checkType;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Serves the statistics of native tables from the value ranges recorded for their shards.
+ * Rows of sampled tables are counted once, regardless of their sample weight.
+ */
+public class NativeStatisticsProvider
+        implements ConnectorStatisticsProvider
+{
+    private final NativeMetadata metadata;
+    private final ShardManager shardManager;
+
+    @Inject
+    public NativeStatisticsProvider(NativeMetadata metadata, ShardManager shardManager)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.shardManager = checkNotNull(shardManager, "shardManager is null");
+    }
+
+    @Override
+    public boolean canHandle(TableHandle tableHandle)
+    {
+        return tableHandle instanceof NativeTableHandle;
+    }
+
+    @Override
+    public TableStatistics getTableStatistics(TableHandle tableHandle)
+    {
+        checkType(tableHandle, NativeTableHandle.class, "tableHandle");
+
+        Map<Long, RangeStats> columnRanges = shardManager.getTableColumnRanges(tableHandle);
+        if (columnRanges.isEmpty()) {
+            return null;
+        }
+
+        long rowCount = 0;
+        ImmutableMap.Builder<ColumnHandle, ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        for (ColumnHandle columnHandle : metadata.getColumnHandles(tableHandle).values()) {
+            RangeStats range = columnRanges.get(((NativeColumnHandle) columnHandle).getColumnId());
+            if (range == null) {
+                continue;
+            }
+            rowCount = Math.max(rowCount, range.getPositionCount());
+            columnStatistics.put(columnHandle, toColumnStatistics(range));
+        }
+        return new TableStatistics(rowCount, columnStatistics.build());
+    }
+
+    private static ColumnStatistics toColumnStatistics(RangeStats range)
+    {
+        double nullsFraction = 0;
+        if (range.getPositionCount() > 0) {
+            nullsFraction = ((double) range.getNullCount()) / range.getPositionCount();
+        }
+        long distinctValuesCount = range.getDistinctValuesCount().or(UNKNOWN_DISTINCT_VALUES_COUNT);
+        return new ColumnStatistics(nullsFraction, distinctValuesCount, range.getMin(), range.getMax());
+    }
+}
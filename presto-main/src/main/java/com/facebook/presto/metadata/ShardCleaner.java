@@ -63,6 +63,7 @@ public class ShardCleaner
     private final HttpClient httpClient;
 
     private final Duration interval;
+    private final Duration replacedShardRetention;
 
     private final boolean enabled;
     private final AtomicBoolean started = new AtomicBoolean();
@@ -86,6 +87,7 @@ public class ShardCleaner
         checkNotNull(config, "config is null");
 
         this.interval = config.getCleanerInterval();
+        this.replacedShardRetention = config.getReplacedShardRetention();
 
         ExecutorService nodeExecutor = newScheduledThreadPool(config.getMaxThreads(), daemonThreadsNamed("shard-cleaner-worker-%s"));
         this.nodeBoundedExecutor = new KeyBoundedExecutor<>(nodeExecutor, config.getMaxThreads());
@@ -129,7 +131,7 @@ public class ShardCleaner
                         continue;
                     }
 
-                    Iterable<Long> orphanedShards = shardManager.getOrphanedShardIds(Optional.of(nodeIdentifier));
+                    Iterable<Long> orphanedShards = shardManager.getOrphanedShardIds(Optional.of(nodeIdentifier), replacedShardRetention);
                     Node node = activeNodes.get(nodeIdentifier);
 
                     for (Long shardId : orphanedShards) {
@@ -148,7 +150,7 @@ public class ShardCleaner
                 }
 
                 // node run complete. Now vacuum out all the shards that are no longer on any local node.
-                Iterable<Long> allOrphanedShards = shardManager.getOrphanedShardIds(Optional.<String>absent());
+                Iterable<Long> allOrphanedShards = shardManager.getOrphanedShardIds(Optional.<String>absent(), replacedShardRetention);
                 for (Long shardId : allOrphanedShards) {
                     shardManager.dropShard(shardId);
                 }
@@ -28,6 +28,7 @@ public class ShardCleanerConfig
     private boolean enabled = false;
     private Duration storageCleanerInterval = new Duration(60, TimeUnit.SECONDS);
     private int maxShardDropThreads = 32;
+    private Duration replacedShardRetention = new Duration(1, TimeUnit.HOURS);
 
     public boolean isEnabled()
     {
@@ -68,4 +69,18 @@ public class ShardCleanerConfig
         this.maxShardDropThreads = maxShardDropThreads;
         return this;
     }
+
+    @NotNull
+    public Duration getReplacedShardRetention()
+    {
+        return replacedShardRetention;
+    }
+
+    @Config("shard-cleaner.replaced-shard-retention")
+    @ConfigDescription("How long shards replaced by compaction are kept for queries that are still reading them")
+    public ShardCleanerConfig setReplacedShardRetention(Duration replacedShardRetention)
+    {
+        this.replacedShardRetention = replacedShardRetention;
+        return this;
+    }
 }
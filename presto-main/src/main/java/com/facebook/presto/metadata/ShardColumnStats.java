@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.facebook.presto.serde.BlocksFileStats;
+import com.facebook.presto.serde.RangeStats;
+import com.facebook.presto.spi.ColumnHandle;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.Slices;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.facebook.presto.metadata.UuidArguments.uuidFromBytes;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.io.BaseEncoding.base64;
+
+/**
+ * Value range of a column in a shard, as stored in the shard manager.
+ */
+public class ShardColumnStats
+{
+    private final UUID shardUuid;
+    private final long columnId;
+    private final RangeStats range;
+
+    public ShardColumnStats(UUID shardUuid, long columnId, RangeStats range)
+    {
+        this.shardUuid = checkNotNull(shardUuid, "shardUuid is null");
+        this.columnId = columnId;
+        this.range = checkNotNull(range, "range is null");
+    }
+
+    public UUID getShardUuid()
+    {
+        return shardUuid;
+    }
+
+    public long getColumnId()
+    {
+        return columnId;
+    }
+
+    public RangeStats getRange()
+    {
+        return range;
+    }
+
+    /**
+     * Serializes the range without its distinct value sketch, which is stored in a separate
+     * table because it does not fit the stats column of databases created before it was added.
+     */
+    public static byte[] serializeRange(RangeStats range)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(64);
+        RangeStats.serialize(range.withDistinctSketch(null), output);
+        return output.slice().getBytes();
+    }
+
+    public static RangeStats deserializeRange(byte[] bytes)
+    {
+        return RangeStats.deserialize(Slices.wrappedBuffer(bytes).getInput());
+    }
+
+    /**
+     * Encodes the value ranges of the columns of a shard, so they can be shipped in a commit fragment.
+     */
+    public static String encodeColumnRanges(Map<Long, RangeStats> columnRanges)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(64);
+        output.appendInt(columnRanges.size());
+        for (Map.Entry<Long, RangeStats> entry : columnRanges.entrySet()) {
+            output.appendLong(entry.getKey());
+            RangeStats.serialize(entry.getValue(), output);
+        }
+        return base64().encode(output.slice().getBytes());
+    }
+
+    public static Map<Long, RangeStats> decodeColumnRanges(String encoded)
+    {
+        SliceInput input = Slices.wrappedBuffer(base64().decode(encoded)).getInput();
+        int columnCount = input.readInt();
+        ImmutableMap.Builder<Long, RangeStats> columnRanges = ImmutableMap.builder();
+        for (int i = 0; i < columnCount; i++) {
+            long columnId = input.readLong();
+            columnRanges.put(columnId, RangeStats.deserialize(input));
+        }
+        return columnRanges.build();
+    }
+
+    /**
+     * Returns the value ranges of the columns of a committed shard, keyed by column id.
+     */
+    public static Map<Long, RangeStats> getColumnRanges(ColumnFileHandle fileHandle)
+    {
+        ImmutableMap.Builder<Long, RangeStats> columnRanges = ImmutableMap.builder();
+        for (Map.Entry<ColumnHandle, BlocksFileStats> entry : fileHandle.getStats().entrySet()) {
+            Optional<RangeStats> range = entry.getValue().getRange();
+            if (range.isPresent()) {
+                columnRanges.put(((NativeColumnHandle) entry.getKey()).getColumnId(), range.get());
+            }
+        }
+        return columnRanges.build();
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("shardUuid", shardUuid)
+                .add("columnId", columnId)
+                .add("range", range)
+                .toString();
+    }
+
+    public static class Mapper
+            implements ResultSetMapper<ShardColumnStats>
+    {
+        @Override
+        public ShardColumnStats map(int index, ResultSet r, StatementContext ctx)
+                throws SQLException
+        {
+            RangeStats range = deserializeRange(r.getBytes("stats"));
+            byte[] distinctSketch = r.getBytes("distinct_sketch");
+            if (distinctSketch != null) {
+                range = range.withDistinctSketch(Slices.wrappedBuffer(distinctSketch));
+            }
+            return new ShardColumnStats(
+                    uuidFromBytes(r.getBytes("shard_uuid")),
+                    r.getLong("column_id"),
+                    range);
+        }
+    }
+}
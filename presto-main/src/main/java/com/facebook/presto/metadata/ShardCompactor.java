@@ -0,0 +1,263 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.facebook.presto.block.BlockIterable;
+import com.facebook.presto.spi.NodeManager;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimaps;
+import com.google.inject.Inject;
+import io.airlift.log.Logger;
+import io.airlift.units.Duration;
+import org.skife.jdbi.v2.IDBI;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.presto.metadata.ShardColumnStats.getColumnRanges;
+import static com.facebook.presto.util.Threads.daemonThreadsNamed;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+
+/**
+ * Periodically merges the small shards of a table partition that are stored on this node
+ * into larger shards. Many small shards are created by frequent small inserts, and each of
+ * them costs a split, a set of column files and a row in the shard manager.
+ * <p/>
+ * The column files of the new shard are written with the default encoding of this node, and
+ * the old shards are replaced in the shard manager in a single transaction. The old shards
+ * are then orphaned, and their files are deleted by the {@link ShardCleaner}. Shards of sorted
+ * tables are not compacted, as concatenating them would break the order of the rows.
+ */
+public class ShardCompactor
+{
+    private static final Logger log = Logger.get(ShardCompactor.class);
+
+    private final NodeManager nodeManager;
+    private final ShardManager shardManager;
+    private final LocalStorageManager storageManager;
+    private final MetadataDao metadataDao;
+
+    private final boolean enabled;
+    private final Duration interval;
+    private final long smallShardBytes;
+    private final long maxShardBytes;
+    private final int minShardCount;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final ScheduledExecutorService executorService = newSingleThreadScheduledExecutor(daemonThreadsNamed("shard-compactor-%s"));
+
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong compactedShards = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Inject
+    public ShardCompactor(NodeManager nodeManager,
+            ShardManager shardManager,
+            LocalStorageManager storageManager,
+            @ForMetadata IDBI dbi,
+            ShardCompactorConfig config)
+    {
+        this.nodeManager = checkNotNull(nodeManager, "nodeManager is null");
+        this.shardManager = checkNotNull(shardManager, "shardManager is null");
+        this.storageManager = checkNotNull(storageManager, "storageManager is null");
+        this.metadataDao = checkNotNull(dbi, "dbi is null").onDemand(MetadataDao.class);
+
+        checkNotNull(config, "config is null");
+
+        this.enabled = config.isEnabled();
+        this.interval = config.getCompactorInterval();
+        this.smallShardBytes = config.getSmallShardSize().toBytes();
+        this.maxShardBytes = config.getMaxShardSize().toBytes();
+        this.minShardCount = config.getMinShardCount();
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        if (enabled && started.compareAndSet(false, true)) {
+            executorService.scheduleWithFixedDelay(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try {
+                        compact();
+                    }
+                    catch (Throwable e) {
+                        log.error(e, "Caught problem when compacting shards!");
+                    }
+                }
+            }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        executorService.shutdownNow();
+    }
+
+    @Managed
+    public long getCompactions()
+    {
+        return compactions.get();
+    }
+
+    @Managed
+    public long getCompactedShards()
+    {
+        return compactedShards.get();
+    }
+
+    @Managed
+    public long getFailures()
+    {
+        return failures.get();
+    }
+
+    @VisibleForTesting
+    void compact()
+    {
+        String nodeIdentifier = nodeManager.getCurrentNode().getNodeIdentifier();
+        List<ShardNode> shards = shardManager.getNodeShards(nodeIdentifier);
+
+        for (Collection<ShardNode> partitionShards : Multimaps.index(shards, partitionIdGetter()).asMap().values()) {
+            long tableId = partitionShards.iterator().next().getTableId();
+            if (!metadataDao.getTableSortColumnNames(tableId).isEmpty()) {
+                continue;
+            }
+
+            for (List<UUID> batch : getCompactionBatches(partitionShards)) {
+                try {
+                    compactShards(tableId, partitionShards.iterator().next().getPartitionId(), batch, nodeIdentifier);
+                    compactions.incrementAndGet();
+                    compactedShards.addAndGet(batch.size());
+                }
+                catch (IOException | RuntimeException e) {
+                    failures.incrementAndGet();
+                    log.warn(e, "Failed to compact shards %s of table %s", batch, tableId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups the small shards of a partition into batches that are not larger than the
+     * maximum shard size. Nothing is compacted while there are only a few small shards.
+     */
+    private List<List<UUID>> getCompactionBatches(Collection<ShardNode> partitionShards)
+    {
+        List<UUID> smallShards = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        for (ShardNode shard : partitionShards) {
+            if (!storageManager.shardExists(shard.getShardUuid())) {
+                continue;
+            }
+            long size = storageManager.getShardSize(shard.getShardUuid()).toBytes();
+            if (size < smallShardBytes) {
+                smallShards.add(shard.getShardUuid());
+                sizes.add(size);
+            }
+        }
+
+        ImmutableList.Builder<List<UUID>> batches = ImmutableList.builder();
+        if (smallShards.size() < minShardCount) {
+            return batches.build();
+        }
+
+        List<UUID> batch = new ArrayList<>();
+        long batchBytes = 0;
+        for (int i = 0; i < smallShards.size(); i++) {
+            if (!batch.isEmpty() && batchBytes + sizes.get(i) > maxShardBytes) {
+                if (batch.size() > 1) {
+                    batches.add(batch);
+                }
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batch.add(smallShards.get(i));
+            batchBytes += sizes.get(i);
+        }
+        if (batch.size() > 1) {
+            batches.add(batch);
+        }
+        return batches.build();
+    }
+
+    private void compactShards(long tableId, long partitionId, List<UUID> shardUuids, String nodeIdentifier)
+            throws IOException
+    {
+        ImmutableList.Builder<NativeColumnHandle> columns = ImmutableList.builder();
+        for (TableColumn column : metadataDao.listTableColumns(tableId)) {
+            columns.add(new NativeColumnHandle(column.getColumnName(), column.getColumnId()));
+        }
+
+        UUID newShardUuid = UUID.randomUUID();
+        ColumnFileHandle fileHandle = storageManager.createStagingFileHandles(newShardUuid, columns.build());
+        for (NativeColumnHandle column : columns.build()) {
+            for (UUID shardUuid : shardUuids) {
+                BlockIterable blocks = storageManager.getBlocks(shardUuid, column);
+                try {
+                    for (Block block : blocks) {
+                        fileHandle.append(column, block);
+                    }
+                }
+                finally {
+                    if (blocks instanceof Closeable) {
+                        ((Closeable) blocks).close();
+                    }
+                }
+            }
+        }
+        storageManager.commit(fileHandle);
+
+        try {
+            shardManager.replaceShards(tableId, partitionId, ImmutableSet.copyOf(shardUuids), newShardUuid, nodeIdentifier, getColumnRanges(fileHandle));
+        }
+        catch (RuntimeException e) {
+            storageManager.dropShard(newShardUuid);
+            throw e;
+        }
+        log.debug("Compacted shards %s of table %s into shard %s", shardUuids, tableId, newShardUuid);
+    }
+
+    private static Function<ShardNode, Long> partitionIdGetter()
+    {
+        return new Function<ShardNode, Long>()
+        {
+            @Override
+            public Long apply(ShardNode shard)
+            {
+                return shard.getPartitionId();
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.airlift.units.MinDuration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class ShardCompactorConfig
+{
+    private boolean enabled = false;
+    private Duration compactorInterval = new Duration(5, TimeUnit.MINUTES);
+    private DataSize smallShardSize = new DataSize(16, MEGABYTE);
+    private DataSize maxShardSize = new DataSize(256, MEGABYTE);
+    private int minShardCount = 10;
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Config("shard-compactor.enabled")
+    @ConfigDescription("Run the periodic compaction of small shards stored on this node")
+    public ShardCompactorConfig setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+        return this;
+    }
+
+    @MinDuration("1s")
+    @NotNull
+    public Duration getCompactorInterval()
+    {
+        return compactorInterval;
+    }
+
+    @Config("shard-compactor.interval")
+    public ShardCompactorConfig setCompactorInterval(Duration compactorInterval)
+    {
+        this.compactorInterval = compactorInterval;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getSmallShardSize()
+    {
+        return smallShardSize;
+    }
+
+    @Config("shard-compactor.small-shard-size")
+    @ConfigDescription("Shards smaller than this size are compacted")
+    public ShardCompactorConfig setSmallShardSize(DataSize smallShardSize)
+    {
+        this.smallShardSize = smallShardSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxShardSize()
+    {
+        return maxShardSize;
+    }
+
+    @Config("shard-compactor.max-shard-size")
+    @ConfigDescription("Maximum size of a shard created by compaction")
+    public ShardCompactorConfig setMaxShardSize(DataSize maxShardSize)
+    {
+        this.maxShardSize = maxShardSize;
+        return this;
+    }
+
+    @Min(2)
+    public int getMinShardCount()
+    {
+        return minShardCount;
+    }
+
+    @Config("shard-compactor.min-shard-count")
+    @ConfigDescription("Minimum number of small shards of a partition on this node before they are compacted")
+    public ShardCompactorConfig setMinShardCount(int minShardCount)
+    {
+        this.minShardCount = minShardCount;
+        return this;
+    }
+}
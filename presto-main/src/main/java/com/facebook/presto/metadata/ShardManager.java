@@ -13,10 +13,13 @@
  */
 package com.facebook.presto.metadata;
 
+import com.facebook.presto.serde.RangeStats;
+import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.PartitionKey;
 import com.facebook.presto.spi.TableHandle;
 import com.google.common.base.Optional;
 import com.google.common.collect.Multimap;
+import io.airlift.units.Duration;
 
 import javax.annotation.Nullable;
 
@@ -44,11 +47,25 @@ public interface ShardManager
      */
     void commitPartition(TableHandle tableHandle, String partition, List<? extends PartitionKey> partitionKeys, Map<UUID, String> shards);
 
+    /**
+     * Commit a partition for a table, along with the value ranges of the shard columns.
+     *
+     * @param shardColumnRanges shardUuid -> (columnId -> value range)
+     */
+    void commitPartition(TableHandle tableHandle, String partition, List<? extends PartitionKey> partitionKeys, Map<UUID, String> shards, Map<UUID, Map<Long, RangeStats>> shardColumnRanges);
+
     /**
      * Commit an unpartitioned table.
      */
     void commitUnpartitionedTable(TableHandle tableHandle, Map<UUID, String> shards);
 
+    /**
+     * Commit an unpartitioned table, along with the value ranges of the shard columns.
+     *
+     * @param shardColumnRanges shardUuid -> (columnId -> value range)
+     */
+    void commitUnpartitionedTable(TableHandle tableHandle, Map<UUID, String> shards, Map<UUID, Map<Long, RangeStats>> shardColumnRanges);
+
     /**
      * Get the names of all partitions that have been successfully imported.
      *
@@ -68,6 +85,36 @@ public interface ShardManager
      */
     Multimap<Long, Entry<UUID, String>> getShardNodesByPartition(TableHandle tableHandle);
 
+    /**
+     * Return the value ranges of a column for the shards of a table. Shards committed
+     * without a value range for the column are not included.
+     *
+     * @return shardUuid -> value range
+     */
+    Map<UUID, RangeStats> getShardColumnRanges(TableHandle tableHandle, ColumnHandle columnHandle);
+
+    /**
+     * Return the value ranges of the columns of a table, merged over all shards of the table.
+     * Columns are only included if every shard of the table has a value range for them.
+     *
+     * @return columnId -> value range
+     */
+    Map<Long, RangeStats> getTableColumnRanges(TableHandle tableHandle);
+
+    /**
+     * Return the shards of all tables that are stored on a node.
+     */
+    List<ShardNode> getNodeShards(String nodeIdentifier);
+
+    /**
+     * Atomically replace shards of a table partition with a shard that contains their rows.
+     * The replaced shards are orphaned, and are dropped from the nodes by the shard cleaner.
+     * Nothing is replaced if any of the shards is no longer part of the partition.
+     *
+     * @param columnRanges columnId -> value range of the new shard
+     */
+    void replaceShards(long tableId, long partitionId, Set<UUID> shardUuids, UUID newShardUuid, String nodeIdentifier, Map<Long, RangeStats> columnRanges);
+
     /**
      * Return list of nodes used by table shards.
      *
@@ -92,6 +139,8 @@ public interface ShardManager
 
     /**
      * Return a list of all shard ids for a given node that are no referenced by a table.
+     * Shards replaced by compaction within the retention are left out, since running
+     * queries may still read them.
      */
-    Iterable<Long> getOrphanedShardIds(Optional<String> nodeIdentifier);
+    Iterable<Long> getOrphanedShardIds(Optional<String> nodeIdentifier, Duration replacedShardRetention);
 }
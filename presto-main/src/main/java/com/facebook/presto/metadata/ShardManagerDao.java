@@ -87,6 +87,31 @@ public interface ShardManagerDao
             ")")
     void createPartitionShards();
 
+    @SqlUpdate("CREATE TABLE IF NOT EXISTS shard_column_stats (\n" +
+            "  shard_id BIGINT NOT NULL,\n" +
+            "  column_id BIGINT NOT NULL,\n" +
+            "  stats VARBINARY(1024) NOT NULL,\n" +
+            "  PRIMARY KEY (shard_id, column_id),\n" +
+            "  FOREIGN KEY (shard_id) REFERENCES shards (shard_id)\n" +
+            ")")
+    void createShardColumnStats();
+
+    @SqlUpdate("CREATE TABLE IF NOT EXISTS shard_column_sketches (\n" +
+            "  shard_id BIGINT NOT NULL,\n" +
+            "  column_id BIGINT NOT NULL,\n" +
+            "  distinct_sketch VARBINARY(4096) NOT NULL,\n" +
+            "  PRIMARY KEY (shard_id, column_id),\n" +
+            "  FOREIGN KEY (shard_id) REFERENCES shards (shard_id)\n" +
+            ")")
+    void createShardColumnSketches();
+
+    @SqlUpdate("CREATE TABLE IF NOT EXISTS replaced_shards (\n" +
+            "  shard_id BIGINT PRIMARY KEY,\n" +
+            "  replace_time BIGINT NOT NULL,\n" +
+            "  FOREIGN KEY (shard_id) REFERENCES shards (shard_id)\n" +
+            ")")
+    void createReplacedShards();
+
     @SqlUpdate("INSERT INTO nodes (node_identifier) VALUES (:nodeIdentifier)")
     void insertNode(@Bind("nodeIdentifier") String nodeIdentifier);
 
@@ -100,6 +125,20 @@ public interface ShardManagerDao
             @Bind("shardId") long shardId,
             @Bind("nodeId") long nodeId);
 
+    @SqlUpdate("INSERT INTO shard_column_stats (shard_id, column_id, stats)\n" +
+            "VALUES (:shardId, :columnId, :stats)\n")
+    void insertShardColumnStats(
+            @Bind("shardId") long shardId,
+            @Bind("columnId") long columnId,
+            @Bind("stats") byte[] stats);
+
+    @SqlUpdate("INSERT INTO shard_column_sketches (shard_id, column_id, distinct_sketch)\n" +
+            "VALUES (:shardId, :columnId, :distinctSketch)\n")
+    void insertShardColumnSketch(
+            @Bind("shardId") long shardId,
+            @Bind("columnId") long columnId,
+            @Bind("distinctSketch") byte[] distinctSketch);
+
     @SqlUpdate("INSERT INTO partition_keys (table_id, partition_name, key_name, key_type, key_value)\n" +
             "VALUES (:tableId, :partitionName, :keyName, :keyType, :keyValue)")
     @GetGeneratedKeys
@@ -147,6 +186,37 @@ public interface ShardManagerDao
     @Mapper(ShardNode.Mapper.class)
     List<ShardNode> getShardNodes(@Bind("tableId") long tableId);
 
+    @SqlQuery("SELECT s.shard_uuid, n.node_identifier, ps.table_id, ps.partition_id\n" +
+            "FROM shard_nodes sn\n" +
+            "JOIN shards s ON (sn.shard_id = s.shard_id)\n" +
+            "JOIN nodes n ON (sn.node_id = n.node_id)\n" +
+            "JOIN partition_shards ps ON (ps.shard_id = s.shard_id)\n" +
+            "WHERE n.node_identifier = :nodeIdentifier")
+    @Mapper(ShardNode.Mapper.class)
+    List<ShardNode> getNodeShards(@Bind("nodeIdentifier") String nodeIdentifier);
+
+    @SqlQuery("SELECT shard_id FROM shards WHERE shard_uuid = :shardUuid")
+    Long getShardId(@Bind("shardUuid") UUID shardUuid);
+
+    @SqlQuery("SELECT s.shard_uuid, cs.column_id, cs.stats, sk.distinct_sketch\n" +
+            "FROM shard_column_stats cs\n" +
+            "JOIN shards s ON (cs.shard_id = s.shard_id)\n" +
+            "JOIN partition_shards ps ON (ps.shard_id = s.shard_id)\n" +
+            "LEFT JOIN shard_column_sketches sk ON (sk.shard_id = cs.shard_id AND sk.column_id = cs.column_id)\n" +
+            "WHERE ps.table_id = :tableId\n" +
+            "  AND cs.column_id = :columnId")
+    @Mapper(ShardColumnStats.Mapper.class)
+    List<ShardColumnStats> getShardColumnStats(@Bind("tableId") long tableId, @Bind("columnId") long columnId);
+
+    @SqlQuery("SELECT s.shard_uuid, cs.column_id, cs.stats, sk.distinct_sketch\n" +
+            "FROM shard_column_stats cs\n" +
+            "JOIN shards s ON (cs.shard_id = s.shard_id)\n" +
+            "JOIN partition_shards ps ON (ps.shard_id = s.shard_id)\n" +
+            "LEFT JOIN shard_column_sketches sk ON (sk.shard_id = cs.shard_id AND sk.column_id = cs.column_id)\n" +
+            "WHERE ps.table_id = :tableId")
+    @Mapper(ShardColumnStats.Mapper.class)
+    List<ShardColumnStats> getTableShardColumnStats(@Bind("tableId") long tableId);
+
     @SqlQuery("SELECT DISTINCT n.node_identifier\n" +
             "FROM shard_nodes sn\n" +
             "JOIN shards s ON (sn.shard_id = s.shard_id)\n" +
@@ -165,9 +235,32 @@ public interface ShardManagerDao
             "  AND tp.partition_name = :partitionName\n")
     List<Long> getAllShards(@Bind("tableId") long tableId, @Bind("partitionName") String partitionName);
 
+    @SqlQuery("SELECT COUNT(*)\n" +
+            "FROM partition_shards\n" +
+            "WHERE table_id = :tableId\n")
+    long getTableShardCount(@Bind("tableId") long tableId);
+
     @SqlUpdate("DELETE FROM partition_shards\n" +
             "WHERE shard_id = :shardId\n")
-    void deleteShardFromPartitionShards(@Bind("shardId") long shardId);
+    int deleteShardFromPartitionShards(@Bind("shardId") long shardId);
+
+    @SqlUpdate("DELETE FROM shard_column_stats\n" +
+            "WHERE shard_id = :shardId\n")
+    void deleteShardColumnStats(@Bind("shardId") long shardId);
+
+    @SqlUpdate("DELETE FROM shard_column_sketches\n" +
+            "WHERE shard_id = :shardId\n")
+    void deleteShardColumnSketches(@Bind("shardId") long shardId);
+
+    @SqlUpdate("INSERT INTO replaced_shards (shard_id, replace_time)\n" +
+            "VALUES (:shardId, :replaceTime)\n")
+    void insertReplacedShard(
+            @Bind("shardId") long shardId,
+            @Bind("replaceTime") long replaceTime);
+
+    @SqlUpdate("DELETE FROM replaced_shards\n" +
+            "WHERE shard_id = :shardId\n")
+    void deleteReplacedShard(@Bind("shardId") long shardId);
 
     @SqlUpdate("DELETE FROM shards\n" +
             "  WHERE shard_id = :shardId\n")
@@ -191,15 +284,17 @@ public interface ShardManagerDao
     @SqlQuery("SELECT shard_id\n" +
             "FROM shards\n" +
             "WHERE shard_id NOT IN (SELECT shard_id FROM partition_shards)\n" +
-            "  AND shard_id NOT IN (SELECT shard_id FROM shard_nodes WHERE node_id =\n" +
-            "    (SELECT node_id FROM nodes WHERE node_identifier = :nodeIdentifier))")
-    List<Long> getOrphanedShards(@Bind("nodeIdentifier") String nodeIdentifier);
+            "  AND shard_id IN (SELECT shard_id FROM shard_nodes WHERE node_id =\n" +
+            "    (SELECT node_id FROM nodes WHERE node_identifier = :nodeIdentifier))\n" +
+            "  AND shard_id NOT IN (SELECT shard_id FROM replaced_shards WHERE replace_time > :replacedAfter)")
+    List<Long> getOrphanedShards(@Bind("nodeIdentifier") String nodeIdentifier, @Bind("replacedAfter") long replacedAfter);
 
     @SqlQuery("SELECT shard_id\n" +
             "FROM shards\n" +
             "WHERE shard_id NOT IN (SELECT shard_id FROM partition_shards)\n" +
-            "  AND shard_id NOT IN (SELECT shard_id FROM shard_nodes)")
-    List<Long> getAllOrphanedShards();
+            "  AND shard_id NOT IN (SELECT shard_id FROM shard_nodes)\n" +
+            "  AND shard_id NOT IN (SELECT shard_id FROM replaced_shards WHERE replace_time > :replacedAfter)")
+    List<Long> getAllOrphanedShards(@Bind("replacedAfter") long replacedAfter);
 
     @SqlUpdate("DELETE FROM table_partitions\n" +
             "  WHERE table_id NOT IN (SELECT table_id FROM tables)\n" +
@@ -234,6 +329,9 @@ public interface ShardManagerDao
             dao.createTablePartitions();
             dao.createPartitionKeys();
             dao.createPartitionShards();
+            dao.createShardColumnStats();
+            dao.createShardColumnSketches();
+            dao.createReplacedShards();
         }
     }
 }
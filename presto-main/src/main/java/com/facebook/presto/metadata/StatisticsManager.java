@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.TableStatistics;
+import com.google.common.base.Optional;
+import com.google.common.collect.Sets;
+
+import javax.inject.Inject;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class StatisticsManager
+{
+    private final Set<ConnectorStatisticsProvider> statisticsProviders = Sets.newSetFromMap(new ConcurrentHashMap<ConnectorStatisticsProvider, Boolean>());
+
+    @Inject
+    public StatisticsManager(Set<ConnectorStatisticsProvider> statisticsProviders)
+    {
+        this.statisticsProviders.addAll(statisticsProviders);
+    }
+
+    public StatisticsManager()
+    {
+    }
+
+    public void addStatisticsProvider(ConnectorStatisticsProvider statisticsProvider)
+    {
+        statisticsProviders.add(statisticsProvider);
+    }
+
+    /**
+     * Returns the statistics of a table, or absent if the connector of the table has no statistics for it.
+     */
+    public Optional<TableStatistics> getTableStatistics(TableHandle tableHandle)
+    {
+        checkNotNull(tableHandle, "tableHandle is null");
+        for (ConnectorStatisticsProvider statisticsProvider : statisticsProviders) {
+            if (statisticsProvider.canHandle(tableHandle)) {
+                return Optional.fromNullable(statisticsProvider.getTableStatistics(tableHandle));
+            }
+        }
+        return Optional.absent();
+    }
+}
@@ -29,6 +29,7 @@ public abstract class AbstractFilterAndProjectOperator
     private final List<Type> types;
 
     private final PageBuilder pageBuilder;
+    private final EncodedPageProcessor encodedPageProcessor;
     private boolean finishing;
 
     public AbstractFilterAndProjectOperator(OperatorContext operatorContext, Iterable<? extends Type> types)
@@ -36,10 +37,27 @@ public abstract class AbstractFilterAndProjectOperator
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
         this.pageBuilder = new PageBuilder(getTypes());
+        this.encodedPageProcessor = new EncodedPageProcessor(this.types, new EncodedPageProcessor.RowOrientedProcessor()
+        {
+            @Override
+            public void filterAndProject(Page page, PageBuilder pageBuilder)
+            {
+                filterAndProjectRowOriented(page, pageBuilder);
+            }
+        });
     }
 
     protected abstract void filterAndProjectRowOriented(Page page, PageBuilder pageBuilder);
 
+    /**
+     * Returns true if the filter and projections always produce the same output for the same input,
+     * which allows them to be evaluated once per distinct value of encoded pages.
+     */
+    protected boolean isDeterministic()
+    {
+        return false;
+    }
+
     @Override
     public OperatorContext getOperatorContext()
     {
@@ -83,7 +101,9 @@ public abstract class AbstractFilterAndProjectOperator
         checkNotNull(page, "page is null");
         checkState(!pageBuilder.isFull(), "Page buffer is full");
 
-        filterAndProjectRowOriented(page, pageBuilder);
+        if (!isDeterministic() || !encodedPageProcessor.process(page, pageBuilder)) {
+            filterAndProjectRowOriented(page, pageBuilder);
+        }
     }
 
     @Override
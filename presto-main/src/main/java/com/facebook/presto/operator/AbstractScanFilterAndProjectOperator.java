@@ -42,6 +42,7 @@ public abstract class AbstractScanFilterAndProjectOperator
     private final List<Type> types;
     private final List<ColumnHandle> columns;
     private final PageBuilder pageBuilder;
+    private final EncodedPageProcessor encodedPageProcessor;
 
     @GuardedBy("this")
     private RecordCursor cursor;
@@ -68,12 +69,29 @@ public abstract class AbstractScanFilterAndProjectOperator
         this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
 
         this.pageBuilder = new PageBuilder(getTypes());
+        this.encodedPageProcessor = new EncodedPageProcessor(this.types, new EncodedPageProcessor.RowOrientedProcessor()
+        {
+            @Override
+            public void filterAndProject(Page page, PageBuilder pageBuilder)
+            {
+                filterAndProjectRowOriented(page, pageBuilder);
+            }
+        });
     }
 
     protected abstract void filterAndProjectRowOriented(Page page, PageBuilder pageBuilder);
 
     protected abstract int filterAndProjectRowOriented(RecordCursor cursor, PageBuilder pageBuilder);
 
+    /**
+     * Returns true if the filter and projections always produce the same output for the same input,
+     * which allows them to be evaluated once per distinct value of encoded pages.
+     */
+    protected boolean isDeterministic()
+    {
+        return false;
+    }
+
     @Override
     public OperatorContext getOperatorContext()
     {
@@ -186,7 +204,7 @@ public abstract class AbstractScanFilterAndProjectOperator
             }
             else {
                 Page output = operator.getOutput();
-                if (output != null) {
+                if (output != null && (!isDeterministic() || !encodedPageProcessor.process(output, pageBuilder))) {
                     filterAndProjectRowOriented(output, pageBuilder);
                 }
             }
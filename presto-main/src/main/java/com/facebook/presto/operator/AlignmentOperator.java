@@ -19,10 +19,13 @@ import com.facebook.presto.block.BlockIterable;
 import com.facebook.presto.block.BlockIterables;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -31,7 +34,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 public class AlignmentOperator
-        implements Operator
+        implements Operator, Closeable
 {
     public static class AlignmentOperatorFactory
             implements OperatorFactory
@@ -83,6 +86,7 @@ public class AlignmentOperator
     private final Optional<DataSize> expectedDataSize;
     private final Optional<Integer> expectedPositionCount;
 
+    private final List<BlockIterable> channels;
     private final List<Iterator<Block>> iterators;
     private final List<BlockCursor> cursors;
 
@@ -96,7 +100,8 @@ public class AlignmentOperator
     public AlignmentOperator(OperatorContext operatorContext, Iterable<BlockIterable> channels)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
-        this.types = toTypes(checkNotNull(channels, "channels is null"));
+        this.channels = ImmutableList.copyOf(checkNotNull(channels, "channels is null"));
+        this.types = toTypes(channels);
 
         expectedDataSize = BlockIterables.getDataSize(channels);
         expectedPositionCount = BlockIterables.getPositionCount(channels);
@@ -118,7 +123,7 @@ public class AlignmentOperator
             for (Iterator<Block> iterator : this.iterators) {
                 checkState(!iterator.hasNext());
             }
-            finished = true;
+            close();
         }
     }
 
@@ -147,7 +152,7 @@ public class AlignmentOperator
     @Override
     public void finish()
     {
-        finished = true;
+        close();
     }
 
     @Override
@@ -186,7 +191,7 @@ public class AlignmentOperator
             for (Iterator<Block> iterator : iterators) {
                 checkState(!iterator.hasNext());
             }
-            finished = true;
+            close();
             return null;
         }
 
@@ -215,6 +220,25 @@ public class AlignmentOperator
         return page;
     }
 
+    /**
+     * Finishes the operator and releases the channels that hold resources, such as memory mapped files.
+     */
+    @Override
+    public void close()
+    {
+        finished = true;
+        for (BlockIterable channel : channels) {
+            if (channel instanceof Closeable) {
+                try {
+                    ((Closeable) channel).close();
+                }
+                catch (IOException e) {
+                    throw Throwables.propagate(e);
+                }
+            }
+        }
+    }
+
     private static List<Type> toTypes(Iterable<BlockIterable> channels)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.RandomAccessBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Filters and projects pages of run length or dictionary encoded blocks by evaluating
+ * the expressions once per distinct row instead of once per position.
+ * <p/>
+ * A page qualifies when all of its channels are run length encoded, or when one channel is
+ * dictionary encoded and all other channels are run length encoded. Each distinct row is
+ * evaluated by the row oriented processor on a single position page, and the result is copied
+ * to every position with that row. Results are kept while consecutive pages share the same
+ * dictionary and run values, which is the case for pages read from the same column file.
+ * <p/>
+ * This is only valid for deterministic expressions.
+ */
+public class EncodedPageProcessor
+{
+    private static final int UNKNOWN = -1;
+    private static final int FILTERED = -2;
+
+    public interface RowOrientedProcessor
+    {
+        void filterAndProject(Page page, PageBuilder pageBuilder);
+    }
+
+    private final List<Type> types;
+    private final RowOrientedProcessor processor;
+
+    private PageBuilder results;
+    private RandomAccessBlock[] cachedRow;
+    private RandomAccessBlock cachedDictionary;
+    private int[] resultPositions;
+
+    public EncodedPageProcessor(List<Type> types, RowOrientedProcessor processor)
+    {
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.processor = checkNotNull(processor, "processor is null");
+    }
+
+    /**
+     * Filters and projects the page if it is encoded, and returns false if the page does not qualify.
+     */
+    public boolean process(Page page, PageBuilder pageBuilder)
+    {
+        int dictionaryChannel = -1;
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel);
+            if (block instanceof DictionaryEncodedBlock && dictionaryChannel < 0) {
+                dictionaryChannel = channel;
+            }
+            else if (!(block instanceof RunLengthEncodedBlock)) {
+                return false;
+            }
+        }
+        if (page.getChannelCount() == 0) {
+            return false;
+        }
+
+        RandomAccessBlock dictionary = null;
+        RandomAccessBlock ids = null;
+        if (dictionaryChannel >= 0) {
+            DictionaryEncodedBlock block = (DictionaryEncodedBlock) page.getBlock(dictionaryChannel);
+            dictionary = block.getDictionary();
+            ids = block.getIdBlock();
+        }
+        prepareCache(page, dictionaryChannel, dictionary);
+
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int id = (ids == null) ? 0 : (int) ids.getLong(position);
+            int resultPosition = resultPositions[id];
+            if (resultPosition == UNKNOWN) {
+                resultPosition = evaluate(id, dictionaryChannel, dictionary);
+                resultPositions[id] = resultPosition;
+            }
+            if (resultPosition != FILTERED) {
+                pageBuilder.declarePosition();
+                for (int channel = 0; channel < types.size(); channel++) {
+                    results.getBlockBuilder(channel).appendTo(resultPosition, pageBuilder.getBlockBuilder(channel));
+                }
+            }
+        }
+        return true;
+    }
+
+    private void prepareCache(Page page, int dictionaryChannel, RandomAccessBlock dictionary)
+    {
+        RandomAccessBlock[] row = new RandomAccessBlock[page.getChannelCount()];
+        for (int channel = 0; channel < row.length; channel++) {
+            if (channel != dictionaryChannel) {
+                row[channel] = ((RunLengthEncodedBlock) page.getBlock(channel)).getValue();
+            }
+        }
+
+        // the run values of pages read from the same run are the same instances
+        if (results != null && dictionary == cachedDictionary && Arrays.equals(row, cachedRow)) {
+            return;
+        }
+
+        results = new PageBuilder(types);
+        cachedRow = row;
+        cachedDictionary = dictionary;
+        resultPositions = new int[dictionary == null ? 1 : dictionary.getPositionCount()];
+        Arrays.fill(resultPositions, UNKNOWN);
+    }
+
+    private int evaluate(int id, int dictionaryChannel, RandomAccessBlock dictionary)
+    {
+        Block[] blocks = new Block[cachedRow.length];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = (channel == dictionaryChannel) ? dictionary.getSingleValueBlock(id) : cachedRow[channel];
+        }
+
+        int positionCount = results.getPositionCount();
+        processor.filterAndProject(new Page(blocks), results);
+        if (results.getPositionCount() == positionCount) {
+            return FILTERED;
+        }
+        return positionCount;
+    }
+}
@@ -13,6 +13,9 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.BlockCursor;
@@ -57,6 +60,10 @@ public class GroupByHash
 
     private int nextGroupId;
 
+    // group ids of the values of the last dictionary seen, or -1 if not looked up yet
+    private RandomAccessBlock dictionary;
+    private int[] dictionaryGroupIds;
+
     public GroupByHash(List<Type> types, int[] channels, int expectedSize)
     {
         this.types = checkNotNull(types, "types is null");
@@ -114,6 +121,41 @@ public class GroupByHash
         // we know the exact size required for the block
         BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(positionCount);
 
+        if (isRunLengthEncoded(page)) {
+            // all positions are in the same group
+            BlockCursor[] row = new BlockCursor[channels.length];
+            for (int i = 0; i < channels.length; i++) {
+                row[i] = singleValueCursor(((RunLengthEncodedBlock) page.getBlock(channels[i])).getValue());
+            }
+            int groupId = putIfAbsentInternal(row);
+            for (int position = 0; position < positionCount; position++) {
+                blockBuilder.append(groupId);
+            }
+            return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+        }
+
+        if (channels.length == 1 && page.getBlock(channels[0]) instanceof DictionaryEncodedBlock) {
+            // look up each dictionary value once
+            DictionaryEncodedBlock block = (DictionaryEncodedBlock) page.getBlock(channels[0]);
+            if (block.getDictionary() != dictionary) {
+                dictionary = block.getDictionary();
+                dictionaryGroupIds = new int[dictionary.getPositionCount()];
+                Arrays.fill(dictionaryGroupIds, -1);
+            }
+
+            RandomAccessBlock ids = block.getIdBlock();
+            for (int position = 0; position < positionCount; position++) {
+                int id = (int) ids.getLong(position);
+                int groupId = dictionaryGroupIds[id];
+                if (groupId < 0) {
+                    groupId = putIfAbsentInternal(new BlockCursor[] {singleValueCursor(dictionary.getSingleValueBlock(id))});
+                    dictionaryGroupIds[id] = groupId;
+                }
+                blockBuilder.append(groupId);
+            }
+            return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+        }
+
         // open cursors for group blocks
         BlockCursor[] currentRow = new BlockCursor[channels.length];
         for (int i = 0; i < channels.length; i++) {
@@ -137,6 +179,23 @@ public class GroupByHash
         return new GroupByIdBlock(nextGroupId, block);
     }
 
+    private boolean isRunLengthEncoded(Page page)
+    {
+        for (int channel : channels) {
+            if (!(page.getBlock(channel) instanceof RunLengthEncodedBlock)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static BlockCursor singleValueCursor(Block block)
+    {
+        BlockCursor cursor = block.cursor();
+        checkState(cursor.advanceNextPosition());
+        return cursor;
+    }
+
     public int putIfAbsent(BlockCursor[] cursors)
     {
         int maxPossibleGroupId = nextGroupId + cursors[0].getRemainingPositions() + 1;
@@ -72,6 +72,14 @@ public class PageBuilder
         declaredPositions++;
     }
 
+    public int getPositionCount()
+    {
+        if (blockBuilders.length == 0) {
+            return declaredPositions;
+        }
+        return blockBuilders[0].getPositionCount();
+    }
+
     public boolean isFull()
     {
         return declaredPositions == Integer.MAX_VALUE || blockBuilderStatus.isFull();
@@ -51,6 +51,7 @@ public class PipelineContext
 
     private final boolean inputPipeline;
     private final boolean outputPipeline;
+    private final boolean partitionedPipeline;
 
     private final List<DriverContext> drivers = new CopyOnWriteArrayList<>();
 
@@ -77,10 +78,11 @@ public class PipelineContext
 
     private final ConcurrentMap<Integer, OperatorStats> operatorSummaries = new ConcurrentHashMap<>();
 
-    public PipelineContext(TaskContext taskContext, Executor executor, boolean inputPipeline, boolean outputPipeline)
+    public PipelineContext(TaskContext taskContext, Executor executor, boolean inputPipeline, boolean outputPipeline, boolean partitionedPipeline)
     {
         this.inputPipeline = inputPipeline;
         this.outputPipeline = outputPipeline;
+        this.partitionedPipeline = partitionedPipeline;
         this.taskContext = checkNotNull(taskContext, "taskContext is null");
         this.executor = checkNotNull(executor, "executor is null");
     }
@@ -105,6 +107,14 @@ public class PipelineContext
         return outputPipeline;
     }
 
+    /**
+     * Returns true if the drivers of this pipeline run the splits of the partitioned source of the task.
+     */
+    public boolean isPartitionedPipeline()
+    {
+        return partitionedPipeline;
+    }
+
     public DriverContext addDriverContext()
     {
         DriverContext driverContext = new DriverContext(this, executor);
@@ -13,8 +13,14 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.spi.BlockRecordSink;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.BlockCursor;
 import com.facebook.presto.spi.RecordSink;
+import com.facebook.presto.spi.block.RandomAccessBlock;
+import com.facebook.presto.spi.block.SortOrder;
 import com.google.common.base.Optional;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Function;
@@ -22,6 +28,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.Collections;
 import java.util.List;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -32,11 +39,20 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
+/**
+ * Writes the input rows to a record sink. If sort channels are set, the rows are buffered
+ * and written sorted ascending by the sort channels, with nulls last, when the input is finished.
+ * Sinks that implement {@link BlockRecordSink} are given the blocks of the rows instead of the
+ * individual values.
+ */
 public class TableWriterOperator
         implements Operator
 {
     public static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
 
+    private static final int EXPECTED_SORTED_POSITIONS = 10_000;
+    private static final RandomAccessBlock SAMPLE_WEIGHT_ONE = BIGINT.createBlockBuilder(new BlockBuilderStatus()).append(1).build();
+
     public static class TableWriterOperatorFactory
             implements OperatorFactory
     {
@@ -44,13 +60,20 @@ public class TableWriterOperator
         private final RecordSink recordSink;
         private final List<Integer> inputChannels;
         private final List<Type> recordTypes;
+        private final List<Integer> sortChannels;
         private final Optional<Integer> sampleWeightChannel;
         private boolean closed;
 
         public TableWriterOperatorFactory(int operatorId, RecordSink recordSink, List<Type> recordTypes, List<Integer> inputChannels, Optional<Integer> sampleWeightChannel)
+        {
+            this(operatorId, recordSink, recordTypes, inputChannels, ImmutableList.<Integer>of(), sampleWeightChannel);
+        }
+
+        public TableWriterOperatorFactory(int operatorId, RecordSink recordSink, List<Type> recordTypes, List<Integer> inputChannels, List<Integer> sortChannels, Optional<Integer> sampleWeightChannel)
         {
             this.operatorId = operatorId;
             this.inputChannels = checkNotNull(inputChannels, "inputChannels is null");
+            this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
             this.recordSink = checkNotNull(recordSink, "recordSink is null");
 
             checkNotNull(recordTypes, "types is null");
@@ -76,7 +99,7 @@ public class TableWriterOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext context = driverContext.addOperatorContext(operatorId, TableWriterOperator.class.getSimpleName());
-            return new TableWriterOperator(context, recordSink, recordTypes, inputChannels, sampleWeightChannel);
+            return new TableWriterOperator(context, recordSink, recordTypes, inputChannels, sortChannels, sampleWeightChannel);
         }
 
         @Override
@@ -96,6 +119,8 @@ public class TableWriterOperator
     private final Optional<Integer> sampleWeightChannel;
     private final List<Type> recordTypes;
     private final List<Integer> inputChannels;
+    private final List<Integer> sortChannels;
+    private final PagesIndex sortedRecords;
 
     private State state = State.RUNNING;
     private long rowCount;
@@ -105,12 +130,35 @@ public class TableWriterOperator
             List<Type> recordTypes,
             List<Integer> inputChannels,
             Optional<Integer> sampleWeightChannel)
+    {
+        this(operatorContext, recordSink, recordTypes, inputChannels, ImmutableList.<Integer>of(), sampleWeightChannel);
+    }
+
+    public TableWriterOperator(OperatorContext operatorContext,
+            RecordSink recordSink,
+            List<Type> recordTypes,
+            List<Integer> inputChannels,
+            List<Integer> sortChannels,
+            Optional<Integer> sampleWeightChannel)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.recordSink = checkNotNull(recordSink, "recordSink is null");
         this.recordTypes = recordTypes;
         this.sampleWeightChannel = checkNotNull(sampleWeightChannel, "sampleWeightChannel is null");
         this.inputChannels = checkNotNull(inputChannels, "inputChannels is null");
+        this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
+
+        if (this.sortChannels.isEmpty()) {
+            sortedRecords = null;
+        }
+        else {
+            // records are buffered with the sample weight in the last channel
+            ImmutableList.Builder<Type> types = ImmutableList.<Type>builder().addAll(recordTypes);
+            if (sampleWeightChannel.isPresent()) {
+                types.add(BIGINT);
+            }
+            sortedRecords = new PagesIndex(types.build(), EXPECTED_SORTED_POSITIONS, operatorContext);
+        }
     }
 
     @Override
@@ -157,22 +205,63 @@ public class TableWriterOperator
         checkNotNull(page, "page is null");
         checkState(state == State.RUNNING, "Operator is %s", state);
 
-        BlockCursor[] cursors;
-        BlockCursor sampleWeightCursor = null;
-        if (sampleWeightChannel.isPresent()) {
-            cursors = new BlockCursor[page.getChannelCount() - 1];
-            sampleWeightCursor = page.getBlock(sampleWeightChannel.get()).cursor();
+        Page record = getRecordPage(page);
+        if (sortedRecords != null) {
+            sortedRecords.addPage(record);
         }
         else {
-            cursors = new BlockCursor[recordTypes.size()];
+            writeRecords(record);
         }
+    }
 
-        for (int outputChannel = 0; outputChannel < cursors.length; outputChannel++) {
-            cursors[outputChannel] = page.getBlock(inputChannels.get(outputChannel)).cursor();
+    private Page getRecordPage(Page page)
+    {
+        Block[] blocks = new Block[recordTypes.size() + (sampleWeightChannel.isPresent() ? 1 : 0)];
+        for (int field = 0; field < recordTypes.size(); field++) {
+            blocks[field] = page.getBlock(inputChannels.get(field));
+        }
+        if (sampleWeightChannel.isPresent()) {
+            blocks[recordTypes.size()] = page.getBlock(sampleWeightChannel.get());
+        }
+        return new Page(blocks);
+    }
+
+    private void writeSortedRecords()
+    {
+        sortedRecords.sort(sortChannels, Collections.nCopies(sortChannels.size(), SortOrder.ASC_NULLS_LAST));
+
+        int[] outputChannels = new int[sortedRecords.getTypes().size()];
+        for (int channel = 0; channel < outputChannels.length; channel++) {
+            outputChannels[channel] = channel;
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(sortedRecords.getTypes());
+        int position = 0;
+        while (position < sortedRecords.getPositionCount()) {
+            pageBuilder.reset();
+            position = sortedRecords.buildPage(position, outputChannels, pageBuilder);
+            writeRecords(pageBuilder.build());
+        }
+    }
+
+    private void writeRecords(Page record)
+    {
+        if (recordSink instanceof BlockRecordSink) {
+            writeBlocks((BlockRecordSink) recordSink, record);
+            return;
+        }
+
+        BlockCursor[] cursors = new BlockCursor[recordTypes.size()];
+        for (int field = 0; field < cursors.length; field++) {
+            cursors[field] = record.getBlock(field).cursor();
+        }
+        BlockCursor sampleWeightCursor = null;
+        if (sampleWeightChannel.isPresent()) {
+            sampleWeightCursor = record.getBlock(cursors.length).cursor();
         }
 
         int rows = 0;
-        for (int position = 0; position < page.getPositionCount(); position++) {
+        for (int position = 0; position < record.getPositionCount(); position++) {
             long sampleWeight = 1;
             if (sampleWeightCursor != null) {
                 checkArgument(sampleWeightCursor.advanceNextPosition());
@@ -193,6 +282,29 @@ public class TableWriterOperator
         }
     }
 
+    private void writeBlocks(BlockRecordSink blockRecordSink, Page record)
+    {
+        Block[] blocks = new Block[recordTypes.size()];
+        for (int field = 0; field < blocks.length; field++) {
+            blocks[field] = record.getBlock(field);
+        }
+
+        Block sampleWeights;
+        if (sampleWeightChannel.isPresent()) {
+            sampleWeights = record.getBlock(blocks.length);
+            BlockCursor cursor = sampleWeights.cursor();
+            while (cursor.advanceNextPosition()) {
+                rowCount += cursor.getLong();
+            }
+        }
+        else {
+            sampleWeights = new RunLengthEncodedBlock(SAMPLE_WEIGHT_ONE, record.getPositionCount());
+            rowCount += record.getPositionCount();
+        }
+
+        blockRecordSink.appendBlocks(blocks, sampleWeights);
+    }
+
     private void writeField(BlockCursor cursor, Type type)
     {
         if (cursor.isNull()) {
@@ -225,6 +337,9 @@ public class TableWriterOperator
         }
         state = State.FINISHED;
 
+        if (sortedRecords != null) {
+            writeSortedRecords();
+        }
         String fragment = recordSink.commit();
 
         PageBuilder page = new PageBuilder(TYPES);
@@ -118,7 +118,12 @@ public class TaskContext
 
     public PipelineContext addPipelineContext(boolean inputPipeline, boolean outputPipeline)
     {
-        PipelineContext pipelineContext = new PipelineContext(this, executor, inputPipeline, outputPipeline);
+        return addPipelineContext(inputPipeline, outputPipeline, false);
+    }
+
+    public PipelineContext addPipelineContext(boolean inputPipeline, boolean outputPipeline, boolean partitionedPipeline)
+    {
+        PipelineContext pipelineContext = new PipelineContext(this, executor, inputPipeline, outputPipeline, partitionedPipeline);
         pipelineContexts.add(pipelineContext);
         return pipelineContext;
     }
@@ -235,6 +240,7 @@ public class TaskContext
             }
         }
 
+        List<PipelineContext> pipelineContexts = ImmutableList.copyOf(this.pipelineContexts);
         List<PipelineStats> pipelineStats = ImmutableList.copyOf(transform(pipelineContexts, pipelineStatsGetter()));
 
         int totalDrivers = 0;
@@ -281,6 +287,14 @@ public class TaskContext
             }
         }
 
+        // only the drivers of the partitioned pipeline run splits of the partitioned source
+        int runningPartitionedDrivers = 0;
+        for (int i = 0; i < pipelineContexts.size(); i++) {
+            if (pipelineContexts.get(i).isPartitionedPipeline()) {
+                runningPartitionedDrivers += pipelineStats.get(i).getRunningDrivers();
+            }
+        }
+
         long startNanos = this.startNanos.get();
         if (startNanos < createNanos) {
             startNanos = System.nanoTime();
@@ -306,6 +320,7 @@ public class TaskContext
                 totalDrivers,
                 queuedDrivers,
                 runningDrivers,
+                runningPartitionedDrivers,
                 completedDrivers,
                 new DataSize(memoryReservation.get(), BYTE).convertToMostSuccinctDataSize(),
                 new Duration(totalScheduledTime, NANOSECONDS).convertToMostSuccinctTimeUnit(),
@@ -0,0 +1,247 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.serde;
+
+import com.facebook.presto.block.switching.SwitchingBlockEncoding;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockCursor;
+import com.facebook.presto.spi.block.BlockEncoding;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.SliceOutput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Encoder that picks the encoding of a column from a sample of its values.
+ * <p/>
+ * The first blocks of the column are buffered until the sample is large enough,
+ * then the sample is encoded with each candidate encoding and the encoding with the
+ * lowest size, weighted by its relative decode cost, is used for the column.
+ * <p/>
+ * The dictionary of a dictionary encoding is limited to the size allowed for the sample.
+ * If the rest of the column has more unique values, the encoding is picked again from a
+ * new sample, without dictionary encodings, and used for the remaining blocks.
+ */
+public class AdaptiveEncoder
+        implements Encoder
+{
+    private static final int SAMPLE_POSITIONS = 64 * 1024;
+    private static final int SAMPLE_BYTES = 1024 * 1024;
+    private static final int MAX_DICTIONARY_SIZE = 1000;
+
+    // relative cost of decoding a byte of each encoding, compared to raw blocks
+    private static final Map<BlocksFileEncoding, Double> DECODE_COST = ImmutableMap.<BlocksFileEncoding, Double>builder()
+            .put(BlocksFileEncoding.RAW, 1.0)
+            .put(BlocksFileEncoding.RLE, 1.0)
+            .put(BlocksFileEncoding.DIC_RLE, 1.05)
+            .put(BlocksFileEncoding.DIC_RAW, 1.1)
+            .put(BlocksFileEncoding.SNAPPY, 1.5)
+            .build();
+
+    private final SliceOutput sliceOutput;
+    private final int startSize;
+    private final List<Block> sample = new ArrayList<>();
+    private int samplePositions;
+    private int sampleBytes;
+    private BlocksFileEncoding encoding;
+    private Encoder encoder;
+    private DictionaryEncoder dictionaryEncoder;
+    private BlockEncoding firstEncoding;
+    private long firstSizeInBytes;
+    private boolean finished;
+
+    public AdaptiveEncoder(SliceOutput sliceOutput)
+    {
+        this.sliceOutput = checkNotNull(sliceOutput, "sliceOutput is null");
+        this.startSize = sliceOutput.size();
+    }
+
+    @Override
+    public Encoder append(Block block)
+    {
+        checkNotNull(block, "block is null");
+        checkState(!finished, "already finished");
+
+        appendBlock(block);
+        return this;
+    }
+
+    @Override
+    public BlockEncoding finish()
+    {
+        checkState(encoder != null || !sample.isEmpty(), "nothing appended");
+        checkState(!finished, "already finished");
+        finished = true;
+
+        if (encoder == null) {
+            flushSample();
+        }
+
+        BlockEncoding blockEncoding = encoder.finish();
+        if (firstEncoding != null) {
+            return new SwitchingBlockEncoding(firstEncoding, firstSizeInBytes, blockEncoding);
+        }
+        return blockEncoding;
+    }
+
+    /**
+     * Returns the encoding picked for the column, or null if it has not been picked yet.
+     */
+    @VisibleForTesting
+    BlocksFileEncoding getEncoding()
+    {
+        return encoding;
+    }
+
+    private void appendBlock(Block block)
+    {
+        if (encoder != null) {
+            appendToEncoder(block);
+        }
+        else {
+            appendToSample(block);
+        }
+    }
+
+    private void appendToSample(Block block)
+    {
+        sample.add(block);
+        samplePositions += block.getPositionCount();
+        sampleBytes += block.getSizeInBytes();
+        if (samplePositions >= SAMPLE_POSITIONS || sampleBytes >= SAMPLE_BYTES) {
+            flushSample();
+        }
+    }
+
+    private void appendToEncoder(Block block)
+    {
+        if (dictionaryEncoder == null) {
+            encoder.append(block);
+            return;
+        }
+
+        int positions = dictionaryEncoder.appendUntilFull(block);
+        if (positions < block.getPositionCount()) {
+            // the dictionary is full, so the rest of the column is written with another encoding
+            switchEncoding();
+            appendToSample(block.getRegion(positions, block.getPositionCount() - positions));
+        }
+    }
+
+    private void switchEncoding()
+    {
+        firstEncoding = encoder.finish();
+        firstSizeInBytes = sliceOutput.size() - startSize;
+        encoding = null;
+        encoder = null;
+        dictionaryEncoder = null;
+    }
+
+    private void flushSample()
+    {
+        List<Block> blocks = ImmutableList.copyOf(sample);
+        sample.clear();
+        samplePositions = 0;
+        sampleBytes = 0;
+
+        // dictionary encodings are only considered for the first part of the column
+        encoding = selectEncoding(blocks, firstEncoding == null);
+        if (encoding == BlocksFileEncoding.DIC_RAW) {
+            dictionaryEncoder = new DictionaryEncoder(new UncompressedEncoder(sliceOutput), MAX_DICTIONARY_SIZE);
+            encoder = dictionaryEncoder;
+        }
+        else if (encoding == BlocksFileEncoding.DIC_RLE) {
+            dictionaryEncoder = new DictionaryEncoder(new RunLengthEncoder(sliceOutput), MAX_DICTIONARY_SIZE);
+            encoder = dictionaryEncoder;
+        }
+        else {
+            encoder = encoding.createBlocksWriter(sliceOutput);
+        }
+
+        for (Block block : blocks) {
+            appendBlock(block);
+        }
+    }
+
+    @VisibleForTesting
+    static BlocksFileEncoding selectEncoding(List<Block> sample)
+    {
+        return selectEncoding(sample, true);
+    }
+
+    private static BlocksFileEncoding selectEncoding(List<Block> sample, boolean allowDictionary)
+    {
+        // the dictionary is stored in the file footer, so it counts towards the size of dictionary encodings
+        long dictionaryBytes = allowDictionary ? getDictionaryBytes(sample) : -1;
+
+        BlocksFileEncoding bestEncoding = BlocksFileEncoding.RAW;
+        double bestCost = Double.MAX_VALUE;
+        for (Map.Entry<BlocksFileEncoding, Double> entry : DECODE_COST.entrySet()) {
+            BlocksFileEncoding candidate = entry.getKey();
+            boolean dictionary = candidate == BlocksFileEncoding.DIC_RAW || candidate == BlocksFileEncoding.DIC_RLE;
+            if (dictionary && dictionaryBytes < 0) {
+                continue;
+            }
+
+            long size = getEncodedSize(candidate, sample);
+            if (dictionary) {
+                size += dictionaryBytes;
+            }
+
+            double cost = size * entry.getValue();
+            if (cost < bestCost) {
+                bestEncoding = candidate;
+                bestCost = cost;
+            }
+        }
+        return bestEncoding;
+    }
+
+    private static long getEncodedSize(BlocksFileEncoding encoding, List<Block> sample)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(SAMPLE_BYTES);
+        Encoder encoder = encoding.createBlocksWriter(output);
+        for (Block block : sample) {
+            encoder.append(block);
+        }
+        encoder.finish();
+        return output.size();
+    }
+
+    /**
+     * Returns the size of the dictionary of the sample, or -1 if there are too many unique values.
+     */
+    private static long getDictionaryBytes(List<Block> sample)
+    {
+        DictionaryBuilder dictionaryBuilder = new DictionaryBuilder(sample.get(0).getType());
+        for (Block block : sample) {
+            BlockCursor cursor = block.cursor();
+            while (cursor.advanceNextPosition()) {
+                dictionaryBuilder.putIfAbsent(cursor);
+                if (dictionaryBuilder.size() > MAX_DICTIONARY_SIZE) {
+                    return -1;
+                }
+            }
+        }
+        return dictionaryBuilder.build().getSizeInBytes();
+    }
+}
@@ -58,6 +58,14 @@ public enum BlocksFileEncoding
                 {
                     return new SnappyEncoder(sliceOutput);
                 }
+            },
+    AUTO("auto")
+            {
+                @Override
+                public Encoder createBlocksWriter(SliceOutput sliceOutput)
+                {
+                    return new AdaptiveEncoder(sliceOutput);
+                }
             };
 
     private final String name;
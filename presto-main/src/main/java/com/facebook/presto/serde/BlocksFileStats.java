@@ -13,23 +13,38 @@
  */
 package com.facebook.presto.serde;
 
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
 
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
 public class BlocksFileStats
 {
     private final long rowCount;
     private final long runsCount;
     private final long avgRunLength;
     private final int uniqueCount;
+    private final Optional<RangeStats> range;
+    private final List<RangeStats> blockRanges;
 
     public BlocksFileStats(long rowCount, long runsCount, long avgRunLength, int uniqueCount)
+    {
+        this(rowCount, runsCount, avgRunLength, uniqueCount, Optional.<RangeStats>absent(), ImmutableList.<RangeStats>of());
+    }
+
+    public BlocksFileStats(long rowCount, long runsCount, long avgRunLength, int uniqueCount, Optional<RangeStats> range, List<RangeStats> blockRanges)
     {
         this.rowCount = rowCount;
         this.runsCount = runsCount;
         this.avgRunLength = avgRunLength;
         this.uniqueCount = uniqueCount;
+        this.range = checkNotNull(range, "range is null");
+        this.blockRanges = ImmutableList.copyOf(checkNotNull(blockRanges, "blockRanges is null"));
     }
 
     public static void serialize(BlocksFileStats stats, SliceOutput sliceOutput)
@@ -39,6 +54,15 @@ public class BlocksFileStats
                 .appendLong(stats.getRunsCount())
                 .appendLong(stats.getAvgRunLength())
                 .appendInt(stats.getUniqueCount());
+
+        // the value ranges are optional so that files written without them can still be read
+        if (stats.getRange().isPresent()) {
+            RangeStats.serialize(stats.getRange().get(), sliceOutput);
+            sliceOutput.appendInt(stats.getBlockRanges().size());
+            for (RangeStats blockRange : stats.getBlockRanges()) {
+                RangeStats.serialize(blockRange, sliceOutput);
+            }
+        }
     }
 
     public static BlocksFileStats deserialize(Slice slice)
@@ -53,7 +77,17 @@ public class BlocksFileStats
         long runsCount = input.readLong();
         long avgRunLength = input.readLong();
         int uniqueCount = input.readInt();
-        return new BlocksFileStats(rowCount, runsCount, avgRunLength, uniqueCount);
+        if (!input.isReadable()) {
+            return new BlocksFileStats(rowCount, runsCount, avgRunLength, uniqueCount);
+        }
+
+        RangeStats range = RangeStats.deserialize(input);
+        int blockCount = input.readInt();
+        ImmutableList.Builder<RangeStats> blockRanges = ImmutableList.builder();
+        for (int i = 0; i < blockCount; i++) {
+            blockRanges.add(RangeStats.deserialize(input));
+        }
+        return new BlocksFileStats(rowCount, runsCount, avgRunLength, uniqueCount, Optional.of(range), blockRanges.build());
     }
 
     public long getRowCount()
@@ -75,4 +109,20 @@ public class BlocksFileStats
     {
         return uniqueCount;
     }
+
+    /**
+     * Value range of the whole file. Absent for files written without value ranges.
+     */
+    public Optional<RangeStats> getRange()
+    {
+        return range;
+    }
+
+    /**
+     * Value ranges of the consecutive blocks appended to the file, in file order.
+     */
+    public List<RangeStats> getBlockRanges()
+    {
+        return blockRanges;
+    }
 }
@@ -18,9 +18,12 @@ import com.facebook.presto.spi.block.BlockCursor;
 import com.facebook.presto.spi.block.BlockEncoding;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.block.RandomAccessBlock;
+import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.OutputSupplier;
 import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.SliceOutput;
 
 import java.io.Closeable;
@@ -40,6 +43,7 @@ public class BlocksFileWriter
     private Encoder encoder;
     private SliceOutput sliceOutput;
     private boolean closed;
+    private BlocksFileStats stats;
 
     public BlocksFileWriter(BlockEncodingSerde blockEncodingSerde, BlocksFileEncoding encoding, OutputSupplier<? extends OutputStream> outputSupplier)
     {
@@ -100,7 +104,8 @@ public class BlocksFileWriter
         blockEncodingSerde.writeBlockEncoding(sliceOutput, blockEncoding);
 
         // write stats
-        BlocksFileStats.serialize(statsBuilder.build(), sliceOutput);
+        stats = statsBuilder.build();
+        BlocksFileStats.serialize(stats, sliceOutput);
 
         // write footer size
         int footerSize = sliceOutput.size() - startingIndex;
@@ -115,6 +120,14 @@ public class BlocksFileWriter
         }
     }
 
+    /**
+     * Returns the stats of the written file, or absent if the writer is not closed or no rows were written.
+     */
+    public Optional<BlocksFileStats> getStats()
+    {
+        return Optional.fromNullable(stats);
+    }
+
     private void createEmptyFile()
     {
         try {
@@ -133,6 +146,9 @@ public class BlocksFileWriter
         private long runsCount;
         private RandomAccessBlock lastValue;
         private DictionaryBuilder dictionaryBuilder;
+        private RangeStats range;
+        private Slice distinctSketch;
+        private final ImmutableList.Builder<RangeStats> blockRanges = ImmutableList.builder();
 
         public void process(Block block)
         {
@@ -140,10 +156,19 @@ public class BlocksFileWriter
 
             if (dictionaryBuilder == null) {
                 dictionaryBuilder = new DictionaryBuilder(block.getType());
+                distinctSketch = RangeStats.createDistinctSketch();
             }
 
+            RangeStats.Builder blockRange = new RangeStats.Builder(block.getType());
+
             BlockCursor cursor = block.cursor();
             while (cursor.advanceNextPosition()) {
+                // update value range stats
+                blockRange.add(cursor);
+
+                // update distinct value stats
+                RangeStats.addToDistinctSketch(distinctSketch, cursor);
+
                 // update run length stats
                 RandomAccessBlock randomAccessBlock = cursor.getSingleValueBlock();
                 if (lastValue == null) {
@@ -161,6 +186,10 @@ public class BlocksFileWriter
 
                 rowCount++;
             }
+
+            RangeStats stats = blockRange.build();
+            blockRanges.add(stats);
+            range = (range == null) ? stats : range.merge(stats);
         }
 
         public BlocksFileStats build()
@@ -170,7 +199,9 @@ public class BlocksFileWriter
                     rowCount,
                     runsCount + 1,
                     rowCount / (runsCount + 1),
-                    (dictionaryBuilder.size() >= MAX_UNIQUE_COUNT) ? Integer.MAX_VALUE : dictionaryBuilder.size());
+                    (dictionaryBuilder.size() >= MAX_UNIQUE_COUNT) ? Integer.MAX_VALUE : dictionaryBuilder.size(),
+                    Optional.fromNullable(range == null ? null : range.withDistinctSketch(distinctSketch)),
+                    blockRanges.build());
         }
     }
 }
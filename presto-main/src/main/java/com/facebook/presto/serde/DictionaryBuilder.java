@@ -46,6 +46,12 @@ public class DictionaryBuilder
         return positions.size();
     }
 
+    public boolean contains(BlockCursor value)
+    {
+        hashStrategy.setCurrentValue(value);
+        return positions.containsKey(CURRENT_VALUE_POSITION);
+    }
+
     public int putIfAbsent(BlockCursor value)
     {
         hashStrategy.setCurrentValue(value);
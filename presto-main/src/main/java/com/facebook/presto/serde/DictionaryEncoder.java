@@ -22,6 +22,7 @@ import com.facebook.presto.block.dictionary.DictionaryBlockEncoding;
 import com.facebook.presto.spi.type.Type;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
@@ -29,17 +30,37 @@ public class DictionaryEncoder
         implements Encoder
 {
     private final Encoder idWriter;
+    private final int maxDictionarySize;
     private Type type;
     private DictionaryBuilder dictionaryBuilder;
     private boolean finished;
 
     public DictionaryEncoder(Encoder idWriter)
     {
+        this(idWriter, Integer.MAX_VALUE);
+    }
+
+    public DictionaryEncoder(Encoder idWriter, int maxDictionarySize)
+    {
+        checkArgument(maxDictionarySize > 0, "maxDictionarySize must be greater than zero");
         this.idWriter = checkNotNull(idWriter, "idWriter is null");
+        this.maxDictionarySize = maxDictionarySize;
     }
 
     @Override
     public Encoder append(Block block)
+    {
+        checkArgument(appendUntilFull(block) == block.getPositionCount(), "dictionary is full");
+        return this;
+    }
+
+    /**
+     * Appends the leading positions of the block, up to the first value that does not
+     * fit in the dictionary anymore.
+     *
+     * @return the number of positions appended
+     */
+    public int appendUntilFull(Block block)
     {
         checkNotNull(block, "block is null");
         checkState(!finished, "already finished");
@@ -51,13 +72,20 @@ public class DictionaryEncoder
 
         BlockCursor cursor = block.cursor();
         BlockBuilder idBlockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        int positions = 0;
         while (cursor.advanceNextPosition()) {
+            if (dictionaryBuilder.size() >= maxDictionarySize && !dictionaryBuilder.contains(cursor)) {
+                break;
+            }
             int key = dictionaryBuilder.putIfAbsent(cursor);
             idBlockBuilder.append(key);
+            positions++;
+        }
+        if (positions > 0) {
+            idWriter.append(idBlockBuilder.build());
         }
-        idWriter.append(idBlockBuilder.build());
 
-        return this;
+        return positions;
     }
 
     @Override
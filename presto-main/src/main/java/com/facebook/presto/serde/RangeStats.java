@@ -0,0 +1,433 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.serde;
+
+import com.facebook.presto.operator.aggregation.HyperLogLog;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.block.BlockCursor;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import io.airlift.slice.Murmur3;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Min/max and null count of the values in a range of positions of a column.
+ * <p/>
+ * The min and max are absent when all values are null, or when the range of
+ * values is unknown (NaN doubles, or strings that are too long to be recorded).
+ * <p/>
+ * The stats of a whole column file also carry a HyperLogLog sketch of the non-null
+ * values, which is merged across shards to estimate the number of distinct values.
+ */
+public class RangeStats
+{
+    private static final int MAX_SLICE_LENGTH = 256;
+    private static final HyperLogLog DISTINCT_ESTIMATOR = new HyperLogLog(1024);
+
+    private static final byte NO_VALUE = 0;
+    private static final byte BOOLEAN_VALUE = 1;
+    private static final byte LONG_VALUE = 2;
+    private static final byte DOUBLE_VALUE = 3;
+    private static final byte SLICE_VALUE = 4;
+
+    // stats written before the distinct sketch was added start with the position count, which is never negative
+    private static final long SKETCH_FORMAT = -1;
+
+    private final long positionCount;
+    private final long nullCount;
+    private final Comparable<?> min;
+    private final Comparable<?> max;
+    private final Slice distinctSketch;
+
+    public RangeStats(long positionCount, long nullCount, @Nullable Comparable<?> min, @Nullable Comparable<?> max)
+    {
+        this(positionCount, nullCount, min, max, null);
+    }
+
+    public RangeStats(long positionCount, long nullCount, @Nullable Comparable<?> min, @Nullable Comparable<?> max, @Nullable Slice distinctSketch)
+    {
+        checkArgument(positionCount >= 0, "positionCount is negative");
+        checkArgument(nullCount >= 0 && nullCount <= positionCount, "nullCount must be between 0 and positionCount");
+        checkArgument((min == null) == (max == null), "min and max must both be present or absent");
+        checkArgument(distinctSketch == null || distinctSketch.length() == DISTINCT_ESTIMATOR.getSizeInBytes(), "distinctSketch has the wrong size");
+
+        this.positionCount = positionCount;
+        this.nullCount = nullCount;
+        this.min = min;
+        this.max = max;
+        this.distinctSketch = distinctSketch;
+    }
+
+    public long getPositionCount()
+    {
+        return positionCount;
+    }
+
+    public long getNullCount()
+    {
+        return nullCount;
+    }
+
+    @Nullable
+    public Comparable<?> getMin()
+    {
+        return min;
+    }
+
+    @Nullable
+    public Comparable<?> getMax()
+    {
+        return max;
+    }
+
+    @Nullable
+    public Slice getDistinctSketch()
+    {
+        return distinctSketch;
+    }
+
+    /**
+     * Returns the estimated number of distinct non-null values, if the stats carry a sketch.
+     */
+    public Optional<Long> getDistinctValuesCount()
+    {
+        if (distinctSketch == null) {
+            return Optional.absent();
+        }
+        return Optional.of(DISTINCT_ESTIMATOR.estimate(distinctSketch, 0));
+    }
+
+    public RangeStats withDistinctSketch(@Nullable Slice distinctSketch)
+    {
+        return new RangeStats(positionCount, nullCount, min, max, distinctSketch);
+    }
+
+    /**
+     * Returns false if none of the values in the range can be contained in the domain.
+     */
+    public boolean mightMatch(Domain domain)
+    {
+        checkNotNull(domain, "domain is null");
+
+        if (positionCount == 0 || domain.isNone()) {
+            return false;
+        }
+        if (nullCount > 0 && domain.isNullAllowed()) {
+            return true;
+        }
+        if (nullCount == positionCount) {
+            return false;
+        }
+        if (min == null || min.getClass() != domain.getType()) {
+            // the range of values is unknown
+            return true;
+        }
+        return domain.getRanges().overlaps(SortedRangeSet.of(Range.range(min, true, max, true)));
+    }
+
+    /**
+     * Combines the stats of two ranges of positions. The result only has a distinct
+     * value sketch if both ranges have one.
+     */
+    public RangeStats merge(RangeStats other)
+    {
+        checkNotNull(other, "other is null");
+
+        Comparable<?> mergedMin = null;
+        Comparable<?> mergedMax = null;
+        if (hasUnknownRange() || other.hasUnknownRange()) {
+            // unknown ranges stay unknown
+        }
+        else if (other.min == null) {
+            mergedMin = min;
+            mergedMax = max;
+        }
+        else if (min == null) {
+            mergedMin = other.min;
+            mergedMax = other.max;
+        }
+        else {
+            mergedMin = compare(min, other.min) <= 0 ? min : other.min;
+            mergedMax = compare(max, other.max) >= 0 ? max : other.max;
+        }
+
+        Slice mergedSketch = null;
+        if (distinctSketch != null && other.distinctSketch != null) {
+            mergedSketch = Slices.wrappedBuffer(distinctSketch.getBytes());
+            DISTINCT_ESTIMATOR.mergeInto(mergedSketch, 0, other.distinctSketch, 0);
+        }
+        return new RangeStats(positionCount + other.positionCount, nullCount + other.nullCount, mergedMin, mergedMax, mergedSketch);
+    }
+
+    /**
+     * Creates an empty sketch for {@link #addToDistinctSketch}.
+     */
+    public static Slice createDistinctSketch()
+    {
+        return Slices.allocate(DISTINCT_ESTIMATOR.getSizeInBytes());
+    }
+
+    /**
+     * Adds the value at the current position of the cursor to the sketch. Values are hashed
+     * the same way as in approx_distinct.
+     */
+    public static void addToDistinctSketch(Slice distinctSketch, BlockCursor cursor)
+    {
+        if (cursor.isNull()) {
+            return;
+        }
+
+        Class<?> javaType = cursor.getType().getJavaType();
+        long hash;
+        if (javaType == boolean.class) {
+            hash = Murmur3.hash64(cursor.getBoolean() ? 1 : 0);
+        }
+        else if (javaType == long.class) {
+            hash = Murmur3.hash64(cursor.getLong());
+        }
+        else if (javaType == double.class) {
+            hash = Murmur3.hash64(Double.doubleToLongBits(cursor.getDouble()));
+        }
+        else if (javaType == Slice.class) {
+            hash = Murmur3.hash64(cursor.getSlice());
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported type: " + cursor.getType());
+        }
+        DISTINCT_ESTIMATOR.update(hash, distinctSketch, 0);
+    }
+
+    private boolean hasUnknownRange()
+    {
+        return min == null && nullCount < positionCount;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Comparable<?> left, Comparable<?> right)
+    {
+        return ((Comparable) left).compareTo(right);
+    }
+
+    public static void serialize(RangeStats stats, SliceOutput sliceOutput)
+    {
+        sliceOutput.appendLong(SKETCH_FORMAT)
+                .appendLong(stats.getPositionCount())
+                .appendLong(stats.getNullCount());
+        writeValue(stats.getMin(), sliceOutput);
+        writeValue(stats.getMax(), sliceOutput);
+
+        Slice distinctSketch = stats.getDistinctSketch();
+        if (distinctSketch == null) {
+            sliceOutput.writeInt(0);
+        }
+        else {
+            sliceOutput.writeInt(distinctSketch.length());
+            sliceOutput.writeBytes(distinctSketch);
+        }
+    }
+
+    public static RangeStats deserialize(SliceInput input)
+    {
+        long positionCount = input.readLong();
+        boolean hasSketch = false;
+        if (positionCount < 0) {
+            checkArgument(positionCount == SKETCH_FORMAT, "Unknown range stats format: %s", positionCount);
+            hasSketch = true;
+            positionCount = input.readLong();
+        }
+        long nullCount = input.readLong();
+        Comparable<?> min = readValue(input);
+        Comparable<?> max = readValue(input);
+
+        Slice distinctSketch = null;
+        if (hasSketch) {
+            int sketchLength = input.readInt();
+            if (sketchLength != 0) {
+                distinctSketch = input.readSlice(sketchLength);
+            }
+        }
+        return new RangeStats(positionCount, nullCount, min, max, distinctSketch);
+    }
+
+    private static void writeValue(Comparable<?> value, SliceOutput sliceOutput)
+    {
+        if (value == null) {
+            sliceOutput.writeByte(NO_VALUE);
+        }
+        else if (value instanceof Boolean) {
+            sliceOutput.writeByte(BOOLEAN_VALUE);
+            sliceOutput.writeByte((Boolean) value ? 1 : 0);
+        }
+        else if (value instanceof Long) {
+            sliceOutput.writeByte(LONG_VALUE);
+            sliceOutput.writeLong((Long) value);
+        }
+        else if (value instanceof Double) {
+            sliceOutput.writeByte(DOUBLE_VALUE);
+            sliceOutput.writeDouble((Double) value);
+        }
+        else if (value instanceof Slice) {
+            Slice slice = (Slice) value;
+            sliceOutput.writeByte(SLICE_VALUE);
+            sliceOutput.writeInt(slice.length());
+            sliceOutput.writeBytes(slice);
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    private static Comparable<?> readValue(SliceInput input)
+    {
+        byte valueType = input.readByte();
+        switch (valueType) {
+            case NO_VALUE:
+                return null;
+            case BOOLEAN_VALUE:
+                return input.readByte() != 0;
+            case LONG_VALUE:
+                return input.readLong();
+            case DOUBLE_VALUE:
+                return input.readDouble();
+            case SLICE_VALUE:
+                return input.readSlice(input.readInt());
+            default:
+                throw new IllegalArgumentException("Unsupported value type: " + valueType);
+        }
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hashCode(positionCount, nullCount, min, max, distinctSketch);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        RangeStats other = (RangeStats) obj;
+        return this.positionCount == other.positionCount &&
+                this.nullCount == other.nullCount &&
+                Objects.equal(this.min, other.min) &&
+                Objects.equal(this.max, other.max) &&
+                Objects.equal(this.distinctSketch, other.distinctSketch);
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("positionCount", positionCount)
+                .add("nullCount", nullCount)
+                .add("min", min instanceof Slice ? ((Slice) min).toStringUtf8() : min)
+                .add("max", max instanceof Slice ? ((Slice) max).toStringUtf8() : max)
+                .add("distinctValuesCount", getDistinctValuesCount().orNull())
+                .toString();
+    }
+
+    public static class Builder
+    {
+        private final Class<?> javaType;
+
+        private long positionCount;
+        private long nullCount;
+        private boolean unknownRange;
+        private Comparable<?> min;
+        private Comparable<?> max;
+
+        public Builder(Type type)
+        {
+            this.javaType = checkNotNull(type, "type is null").getJavaType();
+            this.unknownRange = javaType != boolean.class && javaType != long.class && javaType != double.class && javaType != Slice.class;
+        }
+
+        public Builder add(BlockCursor cursor)
+        {
+            positionCount++;
+            if (cursor.isNull()) {
+                nullCount++;
+                return this;
+            }
+            if (unknownRange) {
+                return this;
+            }
+
+            Comparable<?> value;
+            if (javaType == boolean.class) {
+                value = cursor.getBoolean();
+            }
+            else if (javaType == long.class) {
+                value = cursor.getLong();
+            }
+            else if (javaType == double.class) {
+                double doubleValue = cursor.getDouble();
+                if (Double.isNaN(doubleValue)) {
+                    unknownRange = true;
+                    return this;
+                }
+                value = doubleValue;
+            }
+            else {
+                Slice slice = cursor.getSlice();
+                if (slice.length() > MAX_SLICE_LENGTH) {
+                    unknownRange = true;
+                    return this;
+                }
+                value = slice;
+            }
+
+            if (min == null || compare(value, min) < 0) {
+                min = value;
+            }
+            if (max == null || compare(value, max) > 0) {
+                max = value;
+            }
+            return this;
+        }
+
+        public RangeStats build()
+        {
+            if (unknownRange || min == null) {
+                return new RangeStats(positionCount, nullCount, null, null);
+            }
+            // slices may point into the block being written, so keep a copy
+            return new RangeStats(positionCount, nullCount, copy(min), copy(max));
+        }
+
+        private static Comparable<?> copy(Comparable<?> value)
+        {
+            if (value instanceof Slice) {
+                return Slices.wrappedBuffer(((Slice) value).getBytes());
+            }
+            return value;
+        }
+    }
+}
@@ -14,17 +14,29 @@
 package com.facebook.presto.split;
 
 import com.facebook.presto.block.BlockIterable;
+import com.facebook.presto.block.BlockIterables;
 import com.facebook.presto.metadata.LocalStorageManager;
 import com.facebook.presto.metadata.NativeColumnHandle;
 import com.facebook.presto.operator.AlignmentOperator;
 import com.facebook.presto.operator.Operator;
 import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.serde.BlocksFileStats;
+import com.facebook.presto.serde.RangeStats;
 import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.Split;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+import com.google.common.primitives.Ints;
 import com.google.inject.Inject;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -60,12 +72,59 @@ public class NativeDataStreamProvider
         checkArgument(!columns.isEmpty(), "must provide at least one column");
 
         NativeSplit nativeSplit = (NativeSplit) split;
+        Optional<RangeSet<Integer>> selectedPositions = getSelectedPositions(nativeSplit.getShardUuid(), nativeSplit.getTupleDomain());
 
         ImmutableList.Builder<BlockIterable> builder = ImmutableList.builder();
         for (ColumnHandle column : columns) {
             checkArgument(column instanceof NativeColumnHandle, "column must be native, not %s", column);
-            builder.add(storageManager.getBlocks(nativeSplit.getShardUuid(), column));
+            BlockIterable blocks = storageManager.getBlocks(nativeSplit.getShardUuid(), column);
+            if (selectedPositions.isPresent()) {
+                blocks = BlockIterables.selectPositions(blocks, selectedPositions.get());
+            }
+            builder.add(blocks);
         }
         return builder.build();
     }
+
+    /**
+     * Uses the block value ranges of the constrained columns to find the positions of the shard
+     * that might match the tuple domain. Returns absent if no positions can be skipped.
+     */
+    private Optional<RangeSet<Integer>> getSelectedPositions(UUID shardUuid, TupleDomain tupleDomain)
+    {
+        if (tupleDomain.isNone()) {
+            return Optional.<RangeSet<Integer>>of(TreeRangeSet.<Integer>create());
+        }
+
+        RangeSet<Integer> skippedPositions = TreeRangeSet.create();
+        int positionCount = -1;
+        for (Map.Entry<ColumnHandle, Domain> entry : tupleDomain.getDomains().entrySet()) {
+            if (!(entry.getKey() instanceof NativeColumnHandle)) {
+                continue;
+            }
+            Optional<BlocksFileStats> stats = storageManager.getColumnStats(shardUuid, entry.getKey());
+            if (!stats.isPresent() || !stats.get().getRange().isPresent()) {
+                continue;
+            }
+            positionCount = Ints.checkedCast(stats.get().getRowCount());
+
+            int position = 0;
+            for (RangeStats blockRange : stats.get().getBlockRanges()) {
+                int blockPositions = Ints.checkedCast(blockRange.getPositionCount());
+                if (!blockRange.mightMatch(entry.getValue())) {
+                    skippedPositions.add(Range.closedOpen(position, position + blockPositions));
+                }
+                position += blockPositions;
+            }
+        }
+
+        if (skippedPositions.isEmpty()) {
+            return Optional.absent();
+        }
+
+        RangeSet<Integer> selectedPositions = TreeRangeSet.create();
+        selectedPositions.add(Range.closedOpen(0, positionCount));
+        selectedPositions.removeAll(skippedPositions);
+        return Optional.of(selectedPositions);
+    }
 }
@@ -15,6 +15,7 @@ package com.facebook.presto.split;
 
 import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.Split;
+import com.facebook.presto.spi.TupleDomain;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Objects;
@@ -30,16 +31,19 @@ public class NativeSplit
 {
     private final UUID shardUuid;
     private final List<HostAddress> addresses;
+    private final TupleDomain tupleDomain;
 
     @JsonCreator
     public NativeSplit(
             @JsonProperty("shardUuid") UUID shardUuid,
-            @JsonProperty("addresses") List<HostAddress> addresses)
+            @JsonProperty("addresses") List<HostAddress> addresses,
+            @JsonProperty("tupleDomain") TupleDomain tupleDomain)
     {
         this.shardUuid = checkNotNull(shardUuid, "shardUuid is null");
 
         checkNotNull(addresses, "addresses is null");
         this.addresses = ImmutableList.copyOf(addresses);
+        this.tupleDomain = checkNotNull(tupleDomain, "tupleDomain is null");
     }
 
     @Override
@@ -62,6 +66,16 @@ public class NativeSplit
         return shardUuid;
     }
 
+    /**
+     * Constraint on the rows of the shard that are read. Blocks whose value ranges
+     * fall outside the constraint can be skipped.
+     */
+    @JsonProperty
+    public TupleDomain getTupleDomain()
+    {
+        return tupleDomain;
+    }
+
     @Override
     public Object getInfo()
     {
@@ -13,13 +13,16 @@
  */
 package com.facebook.presto.split;
 
+import com.facebook.presto.metadata.NativeColumnHandle;
 import com.facebook.presto.metadata.NativeMetadata;
 import com.facebook.presto.metadata.NativeTableHandle;
 import com.facebook.presto.metadata.ShardManager;
 import com.facebook.presto.metadata.TablePartition;
+import com.facebook.presto.serde.RangeStats;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorSplitManager;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.FixedSplitSource;
 import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.Node;
@@ -44,6 +47,7 @@ import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -110,7 +114,7 @@ public class NativeSplitManager
 
         log.debug("Partition key retrieval, native table %s (%d keys): %dms", tableHandle, allPartitionKeys.size(), partitionTimer.elapsed(TimeUnit.MILLISECONDS));
 
-        List<Partition> partitions = ImmutableList.copyOf(Collections2.transform(tablePartitions, new PartitionFunction(columnHandles, allPartitionKeys)));
+        List<Partition> partitions = ImmutableList.copyOf(Collections2.transform(tablePartitions, new PartitionFunction(columnHandles, allPartitionKeys, tupleDomain)));
 
         log.debug("Partition generation, native table %s (%d partitions): %dms", tableHandle, partitions.size(), partitionTimer.elapsed(TimeUnit.MILLISECONDS));
 
@@ -134,9 +138,17 @@ public class NativeSplitManager
 
         Multimap<Long, Entry<UUID, String>> partitionShardNodes = shardManager.getShardNodesByPartition(tableHandle);
 
+        // value ranges of the constrained columns, loaded once per column
+        Map<ColumnHandle, Map<UUID, RangeStats>> columnRanges = new HashMap<>();
+        int prunedShards = 0;
+
         for (Partition partition : partitions) {
             checkArgument(partition instanceof NativePartition, "Partition must be a native partition");
             NativePartition nativePartition = (NativePartition) partition;
+            TupleDomain predicate = nativePartition.getPredicate();
+            if (predicate.isNone()) {
+                continue;
+            }
 
             ImmutableMultimap.Builder<UUID, String> shardNodes = ImmutableMultimap.builder();
             for (Entry<UUID, String> shardNode : partitionShardNodes.get(nativePartition.getNativePartitionId())) {
@@ -144,14 +156,18 @@ public class NativeSplitManager
             }
 
             for (Map.Entry<UUID, Collection<String>> entry : shardNodes.build().asMap().entrySet()) {
+                if (!shardMightMatch(tableHandle, entry.getKey(), predicate, columnRanges)) {
+                    prunedShards++;
+                    continue;
+                }
                 List<HostAddress> addresses = getAddressesForNodes(nodesById, entry.getValue());
                 checkState(addresses.size() > 0, "no host for shard %s found", entry.getKey());
-                Split split = new NativeSplit(entry.getKey(), addresses);
+                Split split = new NativeSplit(entry.getKey(), addresses, predicate);
                 splits.add(split);
             }
         }
 
-        log.debug("Split retrieval for %d partitions (%d splits): %dms", partitions.size(), splits.size(), splitTimer.elapsed(TimeUnit.MILLISECONDS));
+        log.debug("Split retrieval for %d partitions (%d splits, %d shards pruned): %dms", partitions.size(), splits.size(), prunedShards, splitTimer.elapsed(TimeUnit.MILLISECONDS));
 
         // the query engine assumes that splits are returned in a somewhat random fashion. The native split manager,
         // because it loads the data from a db table will return the splits somewhat ordered by node id so only a sub
@@ -161,6 +177,31 @@ public class NativeSplitManager
         return new FixedSplitSource(getConnectorId(), splits);
     }
 
+    /**
+     * Returns false if the value range of a constrained column of the shard is outside the predicate.
+     */
+    private boolean shardMightMatch(TableHandle tableHandle, UUID shardUuid, TupleDomain predicate, Map<ColumnHandle, Map<UUID, RangeStats>> columnRanges)
+    {
+        for (Map.Entry<ColumnHandle, Domain> entry : predicate.getDomains().entrySet()) {
+            ColumnHandle columnHandle = entry.getKey();
+            if (!(columnHandle instanceof NativeColumnHandle)) {
+                continue;
+            }
+
+            Map<UUID, RangeStats> shardRanges = columnRanges.get(columnHandle);
+            if (shardRanges == null) {
+                shardRanges = shardManager.getShardColumnRanges(tableHandle, columnHandle);
+                columnRanges.put(columnHandle, shardRanges);
+            }
+
+            RangeStats range = shardRanges.get(shardUuid);
+            if (range != null && !range.mightMatch(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static List<HostAddress> getAddressesForNodes(Map<String, Node> nodeMap, Iterable<String> nodeIdentifiers)
     {
         return ImmutableList.copyOf(transform(transform(nodeIdentifiers, forMap(nodeMap)), hostAndPortGetter()));
@@ -171,11 +212,18 @@ public class NativeSplitManager
     {
         private final long partitionId;
         private final TupleDomain tupleDomain;
+        private final TupleDomain predicate;
 
         public NativePartition(long partitionId, TupleDomain tupleDomain)
+        {
+            this(partitionId, tupleDomain, TupleDomain.all());
+        }
+
+        public NativePartition(long partitionId, TupleDomain tupleDomain, TupleDomain predicate)
         {
             this.partitionId = partitionId;
             this.tupleDomain = checkNotNull(tupleDomain, "tupleDomain is null");
+            this.predicate = checkNotNull(predicate, "predicate is null");
         }
 
         @Override
@@ -195,10 +243,18 @@ public class NativeSplitManager
             return tupleDomain;
         }
 
+        /**
+         * Constraint of the query on the rows of the partition, used to skip shards and blocks.
+         */
+        public TupleDomain getPredicate()
+        {
+            return predicate;
+        }
+
         @Override
         public int hashCode()
         {
-            return Objects.hashCode(partitionId, tupleDomain);
+            return Objects.hashCode(partitionId, tupleDomain, predicate);
         }
 
         @Override
@@ -212,7 +268,8 @@ public class NativeSplitManager
             }
             final NativePartition other = (NativePartition) obj;
             return this.partitionId == other.partitionId
-                    && Objects.equal(this.tupleDomain, other.tupleDomain);
+                    && Objects.equal(this.tupleDomain, other.tupleDomain)
+                    && Objects.equal(this.predicate, other.predicate);
         }
 
         @Override
@@ -221,6 +278,7 @@ public class NativeSplitManager
             return Objects.toStringHelper(this)
                     .add("partitionId", partitionId)
                     .add("tupleDomain", tupleDomain)
+                    .add("predicate", predicate)
                     .toString();
         }
     }
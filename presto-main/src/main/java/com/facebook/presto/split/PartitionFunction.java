@@ -36,12 +36,15 @@ public class PartitionFunction
 {
     private final Map<String, ColumnHandle> columnHandles;
     private final Multimap<String, ? extends PartitionKey> allPartitionKeys;
+    private final TupleDomain predicate;
 
     PartitionFunction(Map<String, ColumnHandle> columnHandles,
-            Multimap<String, ? extends PartitionKey> allPartitionKeys)
+            Multimap<String, ? extends PartitionKey> allPartitionKeys,
+            TupleDomain predicate)
     {
         this.columnHandles = checkNotNull(columnHandles, "columnHandles is null");
         this.allPartitionKeys = checkNotNull(allPartitionKeys, "allPartitionKeys is null");
+        this.predicate = checkNotNull(predicate, "predicate is null");
     }
 
     @Override
@@ -85,6 +88,6 @@ public class PartitionFunction
             }
         }
 
-        return new NativePartition(tablePartition.getPartitionId(), TupleDomain.withColumnDomains(builder.build()));
+        return new NativePartition(tablePartition.getPartitionId(), TupleDomain.withColumnDomains(builder.build()), predicate);
     }
 }
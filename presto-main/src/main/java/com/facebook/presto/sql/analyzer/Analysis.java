@@ -35,6 +35,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.SetMultimap;
 
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
@@ -254,6 +255,11 @@ public class Analysis
         tables.put(table, handle);
     }
 
+    public Map<Table, TableHandle> getTables()
+    {
+        return Collections.unmodifiableMap(tables);
+    }
+
     public FunctionInfo getFunctionInfo(FunctionCall function)
     {
         return functionInfo.get(function);
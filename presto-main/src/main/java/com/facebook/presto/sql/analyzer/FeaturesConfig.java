@@ -14,11 +14,17 @@
 package com.facebook.presto.sql.analyzer;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.LegacyConfig;
 
+import javax.validation.constraints.Min;
+
 public class FeaturesConfig
 {
     private boolean experimentalSyntaxEnabled;
+    private boolean joinReorderingEnabled = true;
+    private boolean distributedJoinsEnabled;
+    private long broadcastJoinMaxRows = 1_000_000;
 
     @LegacyConfig("analyzer.experimental-syntax-enabled")
     @Config("experimental-syntax-enabled")
@@ -32,4 +38,44 @@ public class FeaturesConfig
     {
         return experimentalSyntaxEnabled;
     }
+
+    @Config("optimizer.reorder-joins")
+    @ConfigDescription("Reorder inner joins using the statistics of the joined tables")
+    public FeaturesConfig setJoinReorderingEnabled(boolean joinReorderingEnabled)
+    {
+        this.joinReorderingEnabled = joinReorderingEnabled;
+        return this;
+    }
+
+    public boolean isJoinReorderingEnabled()
+    {
+        return joinReorderingEnabled;
+    }
+
+    @Config("distributed-joins-enabled")
+    @ConfigDescription("Hash partition both sides of joins on the join keys instead of replicating the build side to every task")
+    public FeaturesConfig setDistributedJoinsEnabled(boolean distributedJoinsEnabled)
+    {
+        this.distributedJoinsEnabled = distributedJoinsEnabled;
+        return this;
+    }
+
+    public boolean isDistributedJoinsEnabled()
+    {
+        return distributedJoinsEnabled;
+    }
+
+    @Config("optimizer.broadcast-join-max-rows")
+    @ConfigDescription("Replicate the build side of distributed joins when it is estimated to have at most this many rows")
+    public FeaturesConfig setBroadcastJoinMaxRows(long broadcastJoinMaxRows)
+    {
+        this.broadcastJoinMaxRows = broadcastJoinMaxRows;
+        return this;
+    }
+
+    @Min(0)
+    public long getBroadcastJoinMaxRows()
+    {
+        return broadcastJoinMaxRows;
+    }
 }
@@ -14,6 +14,7 @@
 package com.facebook.presto.sql.analyzer;
 
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.StatisticsManager;
 import com.facebook.presto.spi.Session;
 import com.facebook.presto.sql.planner.DistributedLogicalPlanner;
 import com.facebook.presto.sql.planner.LogicalPlanner;
@@ -35,17 +36,22 @@ public class QueryExplainer
     public final Session session;
     public final List<PlanOptimizer> planOptimizers;
     public final Metadata metadata;
+    public final StatisticsManager statisticsManager;
+    public final FeaturesConfig featuresConfig;
     public final boolean experimentalSyntaxEnabled;
 
     public QueryExplainer(Session session,
             List<PlanOptimizer> planOptimizers,
             Metadata metadata,
-            boolean experimentalSyntaxEnabled)
+            StatisticsManager statisticsManager,
+            FeaturesConfig featuresConfig)
     {
         this.session = checkNotNull(session, "session is null");
         this.planOptimizers = checkNotNull(planOptimizers, "planOptimizers is null");
         this.metadata = checkNotNull(metadata, "metadata is null");
-        this.experimentalSyntaxEnabled = experimentalSyntaxEnabled;
+        this.statisticsManager = checkNotNull(statisticsManager, "statisticsManager is null");
+        this.featuresConfig = checkNotNull(featuresConfig, "featuresConfig is null");
+        this.experimentalSyntaxEnabled = featuresConfig.isExperimentalSyntaxEnabled();
     }
 
     public String getPlan(Statement statement, ExplainType.Type planType)
@@ -105,6 +111,6 @@ public class QueryExplainer
         LogicalPlanner logicalPlanner = new LogicalPlanner(session, planOptimizers, idAllocator, metadata);
         Plan plan = logicalPlanner.plan(analysis);
 
-        return new DistributedLogicalPlanner(metadata, idAllocator).createSubPlans(plan, false);
+        return new DistributedLogicalPlanner(session, metadata, statisticsManager, featuresConfig, idAllocator).createSubPlans(plan, false);
     }
 }
@@ -60,6 +60,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
@@ -91,6 +92,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.byteCode.Access.FINAL;
 import static com.facebook.presto.byteCode.Access.PRIVATE;
+import static com.facebook.presto.byteCode.Access.PROTECTED;
 import static com.facebook.presto.byteCode.Access.PUBLIC;
 import static com.facebook.presto.byteCode.Access.STATIC;
 import static com.facebook.presto.byteCode.Access.a;
@@ -99,6 +101,8 @@ import static com.facebook.presto.byteCode.OpCodes.NOP;
 import static com.facebook.presto.byteCode.ParameterizedType.type;
 import static com.facebook.presto.byteCode.ParameterizedType.typeFromPathName;
 import static com.facebook.presto.byteCode.control.ForLoop.forLoopBuilder;
+import static com.facebook.presto.sql.planner.DeterminismEvaluator.deterministic;
+import static com.facebook.presto.sql.planner.DeterminismEvaluator.isDeterministic;
 import static com.google.common.base.Objects.toStringHelper;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -305,6 +309,11 @@ public class ExpressionCompiler
             projectionIndex++;
         }
 
+        //
+        // isDeterministic method
+        //
+        generateIsDeterministicMethod(classDefinition, filter, projections);
+
         //
         // toString method
         //
@@ -428,6 +437,11 @@ public class ExpressionCompiler
             projectionIndex++;
         }
 
+        //
+        // isDeterministic method
+        //
+        generateIsDeterministicMethod(classDefinition, filter, projections);
+
         //
         // toString method
         //
@@ -443,6 +457,15 @@ public class ExpressionCompiler
         return new TypedOperatorClass(filterAndProjectClass, types);
     }
 
+    private void generateIsDeterministicMethod(ClassDefinition classDefinition, Expression filter, List<Expression> projections)
+    {
+        boolean deterministic = isDeterministic(filter) && Iterables.all(projections, deterministic());
+        classDefinition.declareMethod(new CompilerContext(bootstrapMethod), a(PROTECTED), "isDeterministic", type(boolean.class))
+                .getBody()
+                .push(deterministic)
+                .retBoolean();
+    }
+
     private void generateFilterAndProjectRowOriented(ClassDefinition classDefinition,
             List<Expression> projections,
             IdentityHashMap<Expression, Type> expressionTypes)
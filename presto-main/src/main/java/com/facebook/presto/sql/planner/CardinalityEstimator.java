@@ -0,0 +1,458 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.StatisticsManager;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ColumnStatistics;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
+import com.facebook.presto.sql.planner.plan.OutputNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanVisitor;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SampleNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.SortNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.planner.plan.UnionNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.planner.plan.WindowNode;
+import com.facebook.presto.sql.tree.BooleanLiteral;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.facebook.presto.spi.ColumnStatistics.UNKNOWN_DISTINCT_VALUES_COUNT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Estimates the number of rows produced by a plan, from the table and column statistics
+ * supplied by the connectors. The estimate is absent if the plan reads a table without
+ * statistics, or contains a node that can not be estimated.
+ * <p/>
+ * Predicates are translated to domains with the {@link DomainTranslator}. The selectivity of a
+ * domain is derived from the null fraction, distinct value count and value range of the column,
+ * assuming a uniform distribution of the values. Equi-joins assume that every value of the key
+ * with fewer distinct values has a match on the other side.
+ */
+public class CardinalityEstimator
+        extends PlanVisitor<Void, Optional<CardinalityEstimator.Estimate>>
+{
+    private static final double UNKNOWN_FILTER_SELECTIVITY = 0.9;
+    private static final double UNKNOWN_EQUALITY_SELECTIVITY = 0.1;
+    private static final double UNKNOWN_RANGE_SELECTIVITY = 0.5;
+
+    private final Metadata metadata;
+    private final StatisticsManager statisticsManager;
+    private final Session session;
+    private final Map<Symbol, Type> types;
+    private final Map<TableHandle, Optional<TableStatistics>> tableStatistics = new HashMap<>();
+
+    public CardinalityEstimator(Metadata metadata, StatisticsManager statisticsManager, Session session, Map<Symbol, Type> types)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.statisticsManager = checkNotNull(statisticsManager, "statisticsManager is null");
+        this.session = checkNotNull(session, "session is null");
+        this.types = ImmutableMap.copyOf(checkNotNull(types, "types is null"));
+    }
+
+    public Optional<Estimate> estimate(PlanNode node)
+    {
+        return node.accept(this, null);
+    }
+
+    @Override
+    protected Optional<Estimate> visitPlan(PlanNode node, Void context)
+    {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<Estimate> visitTableScan(TableScanNode node, Void context)
+    {
+        Optional<TableStatistics> tableStatistics = getTableStatistics(node.getTable());
+        if (!tableStatistics.isPresent()) {
+            return Optional.absent();
+        }
+        Map<ColumnHandle, ColumnStatistics> columnStatistics = tableStatistics.get().getColumnStatistics();
+
+        double selectivity = 1;
+        if (node.getGeneratedPartitions().isPresent()) {
+            selectivity = selectivity(node.getGeneratedPartitions().get().getTupleDomainInput(), columnStatistics);
+        }
+
+        ImmutableMap.Builder<Symbol, ColumnStatistics> symbolStatistics = ImmutableMap.builder();
+        for (Map.Entry<Symbol, ColumnHandle> entry : node.getAssignments().entrySet()) {
+            ColumnStatistics statistics = columnStatistics.get(entry.getValue());
+            if (statistics != null) {
+                symbolStatistics.put(entry.getKey(), statistics);
+            }
+        }
+        return Optional.of(new Estimate(tableStatistics.get().getRowCount() * selectivity, symbolStatistics.build()));
+    }
+
+    @Override
+    public Optional<Estimate> visitFilter(FilterNode node, Void context)
+    {
+        Optional<Estimate> source = estimate(node.getSource());
+        if (!source.isPresent()) {
+            return source;
+        }
+
+        // the domains of a filter over a table scan have been pushed into the scan, and are already accounted for
+        if (node.getSource() instanceof TableScanNode) {
+            Map<Symbol, ColumnHandle> assignments = ((TableScanNode) node.getSource()).getAssignments();
+            DomainTranslator.ExtractionResult extractionResult = DomainTranslator.fromPredicate(metadata, session, node.getPredicate(), types, assignments);
+            if (extractionResult.getRemainingExpression().equals(BooleanLiteral.TRUE_LITERAL)) {
+                return source;
+            }
+        }
+        return Optional.of(source.get().withRowCount(source.get().getRowCount() * UNKNOWN_FILTER_SELECTIVITY));
+    }
+
+    @Override
+    public Optional<Estimate> visitProject(ProjectNode node, Void context)
+    {
+        Optional<Estimate> source = estimate(node.getSource());
+        if (!source.isPresent()) {
+            return source;
+        }
+
+        ImmutableMap.Builder<Symbol, ColumnStatistics> symbolStatistics = ImmutableMap.builder();
+        for (Map.Entry<Symbol, Expression> entry : node.getOutputMap().entrySet()) {
+            if (entry.getValue() instanceof QualifiedNameReference) {
+                Symbol symbol = Symbol.fromQualifiedName(((QualifiedNameReference) entry.getValue()).getName());
+                ColumnStatistics statistics = source.get().getSymbolStatistics().get(symbol);
+                if (statistics != null) {
+                    symbolStatistics.put(entry.getKey(), statistics);
+                }
+            }
+        }
+        return Optional.of(new Estimate(source.get().getRowCount(), symbolStatistics.build()));
+    }
+
+    @Override
+    public Optional<Estimate> visitJoin(JoinNode node, Void context)
+    {
+        Optional<Estimate> left = estimate(node.getLeft());
+        Optional<Estimate> right = estimate(node.getRight());
+        if (!left.isPresent() || !right.isPresent()) {
+            return Optional.absent();
+        }
+
+        double leftRows = left.get().getRowCount();
+        double rightRows = right.get().getRowCount();
+
+        double innerRows;
+        if (node.getType() == JoinNode.Type.CROSS || node.getCriteria().isEmpty()) {
+            innerRows = leftRows * rightRows;
+        }
+        else {
+            // without distinct value counts, assume a foreign key join
+            innerRows = Math.max(leftRows, rightRows);
+            for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                long leftDistinct = distinctValuesCount(left.get(), clause.getLeft());
+                long rightDistinct = distinctValuesCount(right.get(), clause.getRight());
+                long distinct = Math.max(leftDistinct, rightDistinct);
+                if (distinct > 0) {
+                    innerRows = Math.min(innerRows, leftRows * rightRows / distinct);
+                }
+            }
+        }
+
+        double rowCount;
+        switch (node.getType()) {
+            case LEFT:
+                rowCount = Math.max(innerRows, leftRows);
+                break;
+            case RIGHT:
+                rowCount = Math.max(innerRows, rightRows);
+                break;
+            default:
+                rowCount = innerRows;
+        }
+
+        return Optional.of(new Estimate(rowCount, ImmutableMap.<Symbol, ColumnStatistics>builder()
+                .putAll(left.get().getSymbolStatistics())
+                .putAll(right.get().getSymbolStatistics())
+                .build()));
+    }
+
+    @Override
+    public Optional<Estimate> visitSemiJoin(SemiJoinNode node, Void context)
+    {
+        return estimate(node.getSource());
+    }
+
+    @Override
+    public Optional<Estimate> visitAggregation(AggregationNode node, Void context)
+    {
+        Optional<Estimate> source = estimate(node.getSource());
+        if (!source.isPresent()) {
+            return source;
+        }
+
+        if (node.getGroupBy().isEmpty()) {
+            return Optional.of(new Estimate(1, ImmutableMap.<Symbol, ColumnStatistics>of()));
+        }
+
+        double groups = 1;
+        ImmutableMap.Builder<Symbol, ColumnStatistics> symbolStatistics = ImmutableMap.builder();
+        for (Symbol symbol : node.getGroupBy()) {
+            long distinct = distinctValuesCount(source.get(), symbol);
+            if (distinct < 0) {
+                groups = source.get().getRowCount();
+                break;
+            }
+            // nulls form a group of their own
+            groups *= distinct + 1;
+            symbolStatistics.put(symbol, source.get().getSymbolStatistics().get(symbol));
+        }
+        return Optional.of(new Estimate(Math.min(groups, source.get().getRowCount()), symbolStatistics.build()));
+    }
+
+    @Override
+    public Optional<Estimate> visitLimit(LimitNode node, Void context)
+    {
+        Optional<Estimate> source = estimate(node.getSource());
+        if (!source.isPresent()) {
+            return source;
+        }
+        return Optional.of(source.get().withRowCount(Math.min(node.getCount(), source.get().getRowCount())));
+    }
+
+    @Override
+    public Optional<Estimate> visitTopN(TopNNode node, Void context)
+    {
+        Optional<Estimate> source = estimate(node.getSource());
+        if (!source.isPresent()) {
+            return source;
+        }
+        return Optional.of(source.get().withRowCount(Math.min(node.getCount(), source.get().getRowCount())));
+    }
+
+    @Override
+    public Optional<Estimate> visitSample(SampleNode node, Void context)
+    {
+        Optional<Estimate> source = estimate(node.getSource());
+        if (!source.isPresent()) {
+            return source;
+        }
+        return Optional.of(source.get().withRowCount(source.get().getRowCount() * node.getSampleRatio()));
+    }
+
+    @Override
+    public Optional<Estimate> visitSort(SortNode node, Void context)
+    {
+        return estimate(node.getSource());
+    }
+
+    @Override
+    public Optional<Estimate> visitWindow(WindowNode node, Void context)
+    {
+        return estimate(node.getSource());
+    }
+
+    @Override
+    public Optional<Estimate> visitMarkDistinct(MarkDistinctNode node, Void context)
+    {
+        return estimate(node.getSource());
+    }
+
+    @Override
+    public Optional<Estimate> visitOutput(OutputNode node, Void context)
+    {
+        return estimate(node.getSource());
+    }
+
+    @Override
+    public Optional<Estimate> visitValues(ValuesNode node, Void context)
+    {
+        return Optional.of(new Estimate(node.getRows().size(), ImmutableMap.<Symbol, ColumnStatistics>of()));
+    }
+
+    @Override
+    public Optional<Estimate> visitUnion(UnionNode node, Void context)
+    {
+        double rowCount = 0;
+        for (PlanNode source : node.getSources()) {
+            Optional<Estimate> estimate = estimate(source);
+            if (!estimate.isPresent()) {
+                return Optional.absent();
+            }
+            rowCount += estimate.get().getRowCount();
+        }
+        return Optional.of(new Estimate(rowCount, ImmutableMap.<Symbol, ColumnStatistics>of()));
+    }
+
+    private Optional<TableStatistics> getTableStatistics(TableHandle tableHandle)
+    {
+        // the same tables are estimated many times while joins are reordered
+        Optional<TableStatistics> statistics = tableStatistics.get(tableHandle);
+        if (statistics == null) {
+            statistics = statisticsManager.getTableStatistics(tableHandle);
+            tableStatistics.put(tableHandle, statistics);
+        }
+        return statistics;
+    }
+
+    private static long distinctValuesCount(Estimate estimate, Symbol symbol)
+    {
+        ColumnStatistics statistics = estimate.getSymbolStatistics().get(symbol);
+        if (statistics == null) {
+            return UNKNOWN_DISTINCT_VALUES_COUNT;
+        }
+        return statistics.getDistinctValuesCount();
+    }
+
+    /**
+     * Returns the fraction of the rows that match the tuple domain, assuming the columns are independent.
+     */
+    private static double selectivity(TupleDomain tupleDomain, Map<ColumnHandle, ColumnStatistics> columnStatistics)
+    {
+        if (tupleDomain.isNone()) {
+            return 0;
+        }
+
+        double selectivity = 1;
+        for (Map.Entry<ColumnHandle, Domain> entry : tupleDomain.getDomains().entrySet()) {
+            selectivity *= selectivity(entry.getValue(), columnStatistics.get(entry.getKey()));
+        }
+        return selectivity;
+    }
+
+    private static double selectivity(Domain domain, ColumnStatistics statistics)
+    {
+        if (domain.isAll()) {
+            return 1;
+        }
+        if (domain.isNone()) {
+            return 0;
+        }
+
+        double nullsFraction = (statistics == null) ? 0 : statistics.getNullsFraction();
+
+        double rangesSelectivity = 0;
+        for (Range range : domain.getRanges()) {
+            rangesSelectivity += selectivity(range, statistics);
+        }
+        rangesSelectivity = Math.min(rangesSelectivity, 1);
+
+        double selectivity = (1 - nullsFraction) * rangesSelectivity;
+        if (domain.isNullAllowed()) {
+            selectivity += nullsFraction;
+        }
+        return selectivity;
+    }
+
+    private static double selectivity(Range range, ColumnStatistics statistics)
+    {
+        if (range.isAll()) {
+            return 1;
+        }
+
+        if (range.isSingleValue()) {
+            if (statistics == null || statistics.getDistinctValuesCount() == UNKNOWN_DISTINCT_VALUES_COUNT) {
+                return UNKNOWN_EQUALITY_SELECTIVITY;
+            }
+            if (statistics.getMin() != null && !contains(statistics, range.getSingleValue())) {
+                return 0;
+            }
+            return 1.0 / Math.max(statistics.getDistinctValuesCount(), 1);
+        }
+
+        if (statistics == null || statistics.getMin() == null || !isNumeric(statistics.getMin())) {
+            return UNKNOWN_RANGE_SELECTIVITY;
+        }
+
+        // interpolate the range over the span of the values
+        double min = toDouble(statistics.getMin());
+        double max = toDouble(statistics.getMax());
+        double low = range.getLow().isLowerUnbounded() ? min : Math.max(min, toDouble(range.getLow().getValue()));
+        double high = range.getHigh().isUpperUnbounded() ? max : Math.min(max, toDouble(range.getHigh().getValue()));
+        if (high < low) {
+            return 0;
+        }
+        if (max == min) {
+            return 1;
+        }
+        return (high - low) / (max - min);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean contains(ColumnStatistics statistics, Comparable<?> value)
+    {
+        if (statistics.getMin().getClass() != value.getClass()) {
+            return true;
+        }
+        return ((Comparable) statistics.getMin()).compareTo(value) <= 0 && ((Comparable) statistics.getMax()).compareTo(value) >= 0;
+    }
+
+    private static boolean isNumeric(Comparable<?> value)
+    {
+        return value instanceof Long || value instanceof Double;
+    }
+
+    private static double toDouble(Comparable<?> value)
+    {
+        checkArgument(isNumeric(value), "value is not numeric: %s", value);
+        return ((Number) value).doubleValue();
+    }
+
+    public static class Estimate
+    {
+        private final double rowCount;
+        private final Map<Symbol, ColumnStatistics> symbolStatistics;
+
+        public Estimate(double rowCount, Map<Symbol, ColumnStatistics> symbolStatistics)
+        {
+            checkArgument(rowCount >= 0, "rowCount is negative");
+            this.rowCount = rowCount;
+            this.symbolStatistics = ImmutableMap.copyOf(checkNotNull(symbolStatistics, "symbolStatistics is null"));
+        }
+
+        public double getRowCount()
+        {
+            return rowCount;
+        }
+
+        public Map<Symbol, ColumnStatistics> getSymbolStatistics()
+        {
+            return symbolStatistics;
+        }
+
+        public Estimate withRowCount(double rowCount)
+        {
+            return new Estimate(rowCount, symbolStatistics);
+        }
+    }
+}
@@ -49,6 +49,7 @@ import javax.inject.Inject;
 
 import java.util.List;
 
+import static com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class DistributedExecutionPlanner
@@ -62,17 +63,26 @@ public class DistributedExecutionPlanner
     }
 
     public StageExecutionPlan plan(SubPlan root)
+    {
+        return plan(root, false);
+    }
+
+    /**
+     * @param regeneratePartitions list the partitions of the scanned tables again instead of
+     * using the ones generated during planning, for plans that are reused across queries
+     */
+    public StageExecutionPlan plan(SubPlan root, boolean regeneratePartitions)
     {
         PlanFragment currentFragment = root.getFragment();
 
         // get splits for this fragment, this is lazy so split assignments aren't actually calculated here
-        Visitor visitor = new Visitor();
+        Visitor visitor = new Visitor(regeneratePartitions);
         Optional<SplitSource> splits = currentFragment.getRoot().accept(visitor, null);
 
         // create child stages
         ImmutableList.Builder<StageExecutionPlan> dependencies = ImmutableList.builder();
         for (SubPlan childPlan : root.getChildren()) {
-            dependencies.add(plan(childPlan));
+            dependencies.add(plan(childPlan, regeneratePartitions));
         }
 
         return new StageExecutionPlan(currentFragment,
@@ -84,6 +94,13 @@ public class DistributedExecutionPlanner
     private final class Visitor
             extends PlanVisitor<Void, Optional<SplitSource>>
     {
+        private final boolean regeneratePartitions;
+
+        private Visitor(boolean regeneratePartitions)
+        {
+            this.regeneratePartitions = regeneratePartitions;
+        }
+
         @Override
         public Optional<SplitSource> visitTableScan(TableScanNode node, Void context)
         {
@@ -96,7 +113,12 @@ public class DistributedExecutionPlanner
         private List<Partition> getPartitions(TableScanNode node)
         {
             if (node.getGeneratedPartitions().isPresent()) {
-                return node.getGeneratedPartitions().get().getPartitions();
+                GeneratedPartitions generatedPartitions = node.getGeneratedPartitions().get();
+                if (regeneratePartitions) {
+                    // partitions may have been added or dropped since the plan was created
+                    return splitManager.getPartitions(node.getTable(), Optional.of(generatedPartitions.getTupleDomainInput())).getPartitions();
+                }
+                return generatedPartitions.getPartitions();
             }
 
             PartitionResult allPartitions = splitManager.getPartitions(node.getTable(), Optional.<TupleDomain>absent());
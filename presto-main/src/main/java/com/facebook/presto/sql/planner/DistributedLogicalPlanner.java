@@ -16,7 +16,15 @@ package com.facebook.presto.sql.planner;
 import com.facebook.presto.metadata.FunctionInfo;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.metadata.StatisticsManager;
+import com.facebook.presto.spi.BucketedPartition;
+import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.OutputTableHandle;
+import com.facebook.presto.spi.Partition;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.planner.CardinalityEstimator.Estimate;
 import com.facebook.presto.sql.planner.PlanFragment.OutputPartitioning;
 import com.facebook.presto.sql.planner.PlanFragment.PlanDistribution;
 import com.facebook.presto.sql.planner.plan.AggregationNode;
@@ -54,9 +62,11 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.FINAL;
 import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.PARTIAL;
@@ -69,18 +79,29 @@ import static com.google.common.base.Preconditions.checkState;
  */
 public class DistributedLogicalPlanner
 {
+    private final Session session;
     private final Metadata metadata;
+    private final StatisticsManager statisticsManager;
     private final PlanNodeIdAllocator idAllocator;
+    private final boolean distributedJoinsEnabled;
+    private final long broadcastJoinMaxRows;
 
-    public DistributedLogicalPlanner(Metadata metadata, PlanNodeIdAllocator idAllocator)
+    public DistributedLogicalPlanner(Session session, Metadata metadata, StatisticsManager statisticsManager, FeaturesConfig featuresConfig, PlanNodeIdAllocator idAllocator)
     {
-        this.metadata = metadata;
-        this.idAllocator = idAllocator;
+        this.session = checkNotNull(session, "session is null");
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.statisticsManager = checkNotNull(statisticsManager, "statisticsManager is null");
+        this.idAllocator = checkNotNull(idAllocator, "idAllocator is null");
+
+        checkNotNull(featuresConfig, "featuresConfig is null");
+        this.distributedJoinsEnabled = featuresConfig.isDistributedJoinsEnabled();
+        this.broadcastJoinMaxRows = featuresConfig.getBroadcastJoinMaxRows();
     }
 
     public SubPlan createSubPlans(Plan plan, boolean createSingleNodePlan)
     {
-        Visitor visitor = new Visitor(plan.getSymbolAllocator(), createSingleNodePlan);
+        CardinalityEstimator estimator = new CardinalityEstimator(metadata, statisticsManager, session, plan.getTypes());
+        Visitor visitor = new Visitor(plan.getSymbolAllocator(), estimator, createSingleNodePlan);
         SubPlanBuilder builder = plan.getRoot().accept(visitor, null);
 
         SubPlan subplan = builder.build();
@@ -95,11 +116,13 @@ public class DistributedLogicalPlanner
         private int nextFragmentId = 0;
 
         private final SymbolAllocator allocator;
+        private final CardinalityEstimator estimator;
         private final boolean createSingleNodePlan;
 
-        public Visitor(SymbolAllocator allocator, boolean createSingleNodePlan)
+        public Visitor(SymbolAllocator allocator, CardinalityEstimator estimator, boolean createSingleNodePlan)
         {
             this.allocator = allocator;
+            this.estimator = estimator;
             this.createSingleNodePlan = createSingleNodePlan;
         }
 
@@ -114,6 +137,15 @@ public class DistributedLogicalPlanner
                 return current;
             }
 
+            Set<Symbol> bucketedBy = current.getBucketedBy();
+            if (current.getDistribution() == PlanDistribution.SOURCE && !bucketedBy.isEmpty() && node.getGroupBy().containsAll(bucketedBy)) {
+                // every group is contained in a single bucket, and all splits of a bucket are processed by the same task,
+                // so the aggregation can be completed in the source fragment without repartitioning the rows
+                current.setRoot(new AggregationNode(node.getId(), current.getRoot(), node.getGroupBy(), node.getAggregations(), node.getFunctions(), node.getMasks(), SINGLE, node.getSampleWeight(), node.getConfidence()));
+                current.setBucketedBy(bucketedBy);
+                return current;
+            }
+
             Map<Symbol, FunctionCall> aggregations = node.getAggregations();
             Map<Symbol, Signature> functions = node.getFunctions();
             Map<Symbol, Symbol> masks = node.getMasks();
@@ -250,7 +282,9 @@ public class DistributedLogicalPlanner
         public SubPlanBuilder visitFilter(FilterNode node, Void context)
         {
             SubPlanBuilder current = node.getSource().accept(this, context);
+            Set<Symbol> bucketedBy = current.getBucketedBy();
             current.setRoot(new FilterNode(node.getId(), current.getRoot(), node.getPredicate()));
+            current.setBucketedBy(bucketedBy);
             return current;
         }
 
@@ -274,7 +308,9 @@ public class DistributedLogicalPlanner
         public SubPlanBuilder visitProject(ProjectNode node, Void context)
         {
             SubPlanBuilder current = node.getSource().accept(this, context);
+            Set<Symbol> bucketedBy = current.getBucketedBy();
             current.setRoot(new ProjectNode(node.getId(), current.getRoot(), node.getOutputMap()));
+            current.setBucketedBy(projectBucketing(bucketedBy, node.getOutputMap()));
             return current;
         }
 
@@ -283,7 +319,13 @@ public class DistributedLogicalPlanner
         {
             SubPlanBuilder current = node.getSource().accept(this, context);
 
-            current.setRoot(new TopNNode(node.getId(), current.getRoot(), node.getCount(), node.getOrderBy(), node.getOrderings(), false, node.getSampleWeight()));
+            if (current.isDistributed() && isSortedPerSplit(current.getRoot(), node.getOrderBy(), node.getOrderings())) {
+                // each split is read in the order of the top n, so the first rows of a split are its top rows
+                current.setRoot(new LimitNode(node.getId(), current.getRoot(), node.getCount(), node.getSampleWeight()));
+            }
+            else {
+                current.setRoot(new TopNNode(node.getId(), current.getRoot(), node.getCount(), node.getOrderBy(), node.getOrderings(), false, node.getSampleWeight()));
+            }
 
             if (current.isDistributed()) {
                 current.setRoot(new SinkNode(idAllocator.getNextId(), current.getRoot(), current.getRoot().getOutputSymbols()));
@@ -374,7 +416,11 @@ public class DistributedLogicalPlanner
         @Override
         public SubPlanBuilder visitTableScan(TableScanNode node, Void context)
         {
-            return createSourceDistributionPlan(node, node.getId());
+            SubPlanBuilder current = createSourceDistributionPlan(node, node.getId());
+            if (!createSingleNodePlan) {
+                current.setBucketedBy(getBucketSymbols(node));
+            }
+            return current;
         }
 
         @Override
@@ -392,7 +438,7 @@ public class DistributedLogicalPlanner
             OutputTableHandle target = metadata.beginCreateTable(node.getCatalog(), node.getTableMetadata());
 
             SubPlanBuilder current = node.getSource().accept(this, context);
-            current.setRoot(new TableWriterNode(node.getId(), current.getRoot(), target, node.getColumns(), node.getColumnNames(), node.getOutputSymbols(), node.getSampleWeightSymbol()));
+            current.setRoot(new TableWriterNode(node.getId(), current.getRoot(), target, node.getColumns(), node.getColumnNames(), node.getSortColumnNames(), node.getOutputSymbols(), node.getSampleWeightSymbol()));
             return current;
         }
 
@@ -423,10 +469,34 @@ public class DistributedLogicalPlanner
             SubPlanBuilder left = node.getLeft().accept(this, context);
             SubPlanBuilder right = node.getRight().accept(this, context);
 
-            if (left.isDistributed() || right.isDistributed()) {
+            if (left.isDistributed() && right.isDistributed() && isPartitionedJoin(node)) {
+                // repartition both sides on the join keys, so each task joins the rows of a single hash partition
+                List<Symbol> leftSymbols = new ArrayList<>();
+                List<Symbol> rightSymbols = new ArrayList<>();
+                for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                    leftSymbols.add(clause.getLeft());
+                    rightSymbols.add(clause.getRight());
+                }
+
+                left.setRoot(new SinkNode(idAllocator.getNextId(), left.getRoot(), left.getRoot().getOutputSymbols()))
+                        .setHashOutputPartitioning(leftSymbols);
+                right.setRoot(new SinkNode(idAllocator.getNextId(), right.getRoot(), right.getRoot().getOutputSymbols()))
+                        .setHashOutputPartitioning(rightSymbols);
+
+                JoinNode join = new JoinNode(node.getId(),
+                        node.getType(),
+                        new ExchangeNode(idAllocator.getNextId(), left.getId(), left.getRoot().getOutputSymbols()),
+                        new ExchangeNode(idAllocator.getNextId(), right.getId(), right.getRoot().getOutputSymbols()),
+                        node.getCriteria());
+                return createFixedDistributionPlan(join)
+                        .addChild(left.build())
+                        .addChild(right.build());
+            }
+            else if (left.isDistributed() || right.isDistributed()) {
                 switch (node.getType()) {
                     case INNER:
                     case LEFT:
+                        Set<Symbol> bucketedBy = left.getBucketedBy();
                         right.setRoot(new SinkNode(idAllocator.getNextId(), right.getRoot(), right.getRoot().getOutputSymbols()));
                         left.setRoot(new JoinNode(node.getId(),
                                 node.getType(),
@@ -434,6 +504,8 @@ public class DistributedLogicalPlanner
                                 new ExchangeNode(idAllocator.getNextId(), right.getId(), right.getRoot().getOutputSymbols()),
                                 node.getCriteria()));
                         left.addChild(right.build());
+                        // the build side is replicated to every task, so the probe side keeps its bucketing
+                        left.setBucketedBy(bucketedBy);
 
                         return left;
                     case RIGHT:
@@ -457,6 +529,21 @@ public class DistributedLogicalPlanner
             }
         }
 
+        /**
+         * Joins are partitioned when distributed joins are enabled, unless the side that would
+         * be replicated to every task is estimated to be small enough to broadcast.
+         */
+        private boolean isPartitionedJoin(JoinNode node)
+        {
+            if (!distributedJoinsEnabled || node.getCriteria().isEmpty()) {
+                return false;
+            }
+
+            PlanNode replicated = (node.getType() == JoinNode.Type.RIGHT) ? node.getLeft() : node.getRight();
+            Optional<Estimate> estimate = estimator.estimate(replicated);
+            return !estimate.isPresent() || estimate.get().getRowCount() > broadcastJoinMaxRows;
+        }
+
         @Override
         public SubPlanBuilder visitSemiJoin(SemiJoinNode node, Void context)
         {
@@ -523,6 +610,121 @@ public class DistributedLogicalPlanner
             throw new UnsupportedOperationException("not yet implemented: " + node.getClass().getName());
         }
 
+        /**
+         * Returns true if the plan filters and projects the scan of a table with files sorted by the specified order.
+         */
+        private boolean isSortedPerSplit(PlanNode node, List<Symbol> orderBy, Map<Symbol, SortOrder> orderings)
+        {
+            List<Symbol> symbols = new ArrayList<>(orderBy);
+            while (!(node instanceof TableScanNode)) {
+                if (node instanceof FilterNode) {
+                    node = ((FilterNode) node).getSource();
+                }
+                else if (node instanceof ProjectNode) {
+                    ProjectNode projectNode = (ProjectNode) node;
+                    for (int i = 0; i < symbols.size(); i++) {
+                        Expression expression = projectNode.getOutputMap().get(symbols.get(i));
+                        if (!(expression instanceof QualifiedNameReference)) {
+                            return false;
+                        }
+                        symbols.set(i, Symbol.fromQualifiedName(((QualifiedNameReference) expression).getName()));
+                    }
+                    node = projectNode.getSource();
+                }
+                else {
+                    return false;
+                }
+            }
+
+            TableScanNode tableScan = (TableScanNode) node;
+            List<String> sortColumns = metadata.getTableMetadata(tableScan.getTable()).getMetadata().getSortColumns();
+            if (symbols.size() > sortColumns.size()) {
+                return false;
+            }
+            for (int i = 0; i < symbols.size(); i++) {
+                ColumnHandle columnHandle = tableScan.getAssignments().get(symbols.get(i));
+                if (orderings.get(orderBy.get(i)) != SortOrder.ASC_NULLS_LAST || columnHandle == null) {
+                    return false;
+                }
+                if (!metadata.getColumnMetadata(tableScan.getTable(), columnHandle).getName().equals(sortColumns.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the symbols the scanned rows are bucketed on, or an empty set if the partitions
+         * of the table do not all share the same bucketing or some bucket column is not scanned.
+         */
+        private Set<Symbol> getBucketSymbols(TableScanNode node)
+        {
+            if (!node.getGeneratedPartitions().isPresent()) {
+                return ImmutableSet.of();
+            }
+
+            List<ColumnHandle> bucketColumns = null;
+            int bucketCount = 0;
+            for (Partition partition : node.getGeneratedPartitions().get().getPartitions()) {
+                if (!(partition instanceof BucketedPartition)) {
+                    return ImmutableSet.of();
+                }
+                BucketedPartition bucketedPartition = (BucketedPartition) partition;
+                if (bucketColumns == null) {
+                    bucketColumns = bucketedPartition.getBucketColumns();
+                    bucketCount = bucketedPartition.getBucketCount();
+                }
+                else if (!bucketColumns.equals(bucketedPartition.getBucketColumns()) || bucketCount != bucketedPartition.getBucketCount()) {
+                    return ImmutableSet.of();
+                }
+            }
+            if (bucketColumns == null || bucketColumns.isEmpty()) {
+                return ImmutableSet.of();
+            }
+
+            Map<ColumnHandle, Symbol> symbols = new HashMap<>();
+            for (Map.Entry<Symbol, ColumnHandle> entry : node.getAssignments().entrySet()) {
+                symbols.put(entry.getValue(), entry.getKey());
+            }
+
+            ImmutableSet.Builder<Symbol> bucketSymbols = ImmutableSet.builder();
+            for (ColumnHandle column : bucketColumns) {
+                Symbol symbol = symbols.get(column);
+                if (symbol == null) {
+                    return ImmutableSet.of();
+                }
+                bucketSymbols.add(symbol);
+            }
+            return bucketSymbols.build();
+        }
+
+        /**
+         * Maps the bucketing of the source through the identity assignments of a projection.
+         */
+        private Set<Symbol> projectBucketing(Set<Symbol> bucketedBy, Map<Symbol, Expression> assignments)
+        {
+            if (bucketedBy.isEmpty()) {
+                return bucketedBy;
+            }
+
+            Map<Symbol, Symbol> outputs = new HashMap<>();
+            for (Map.Entry<Symbol, Expression> entry : assignments.entrySet()) {
+                if (entry.getValue() instanceof QualifiedNameReference) {
+                    outputs.put(Symbol.fromQualifiedName(((QualifiedNameReference) entry.getValue()).getName()), entry.getKey());
+                }
+            }
+
+            ImmutableSet.Builder<Symbol> projected = ImmutableSet.builder();
+            for (Symbol symbol : bucketedBy) {
+                Symbol output = outputs.get(symbol);
+                if (output == null) {
+                    return ImmutableSet.of();
+                }
+                projected.add(output);
+            }
+            return projected.build();
+        }
+
         public SubPlanBuilder createSingleNodePlan(PlanNode root)
         {
             return new SubPlanBuilder(new PlanFragmentId(nextSubPlanId()), allocator, PlanDistribution.NONE, root, null);
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.sql.planner;
 
+import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.index.IndexManager;
 import com.facebook.presto.metadata.LocalStorageManager;
 import com.facebook.presto.metadata.Metadata;
@@ -48,6 +49,7 @@ import com.facebook.presto.operator.SetBuilderOperator.SetBuilderOperatorFactory
 import com.facebook.presto.operator.SetBuilderOperator.SetSupplier;
 import com.facebook.presto.operator.SourceOperatorFactory;
 import com.facebook.presto.operator.TableScanOperator.TableScanOperatorFactory;
+import com.facebook.presto.operator.TableWriterOperator;
 import com.facebook.presto.operator.TopNOperator.TopNOperatorFactory;
 import com.facebook.presto.operator.ValuesOperator.ValuesOperatorFactory;
 import com.facebook.presto.operator.WindowOperator.WindowOperatorFactory;
@@ -161,6 +163,7 @@ public class LocalExecutionPlanner
     private final RecordSinkManager recordSinkManager;
     private final Supplier<ExchangeClient> exchangeClientSupplier;
     private final ExpressionCompiler compiler;
+    private final int writerCount;
 
     @Inject
     public LocalExecutionPlanner(NodeInfo nodeInfo,
@@ -170,7 +173,8 @@ public class LocalExecutionPlanner
             LocalStorageManager storageManager,
             RecordSinkManager recordSinkManager,
             Supplier<ExchangeClient> exchangeClientSupplier,
-            ExpressionCompiler compiler)
+            ExpressionCompiler compiler,
+            TaskManagerConfig taskManagerConfig)
     {
         this.nodeInfo = checkNotNull(nodeInfo, "nodeInfo is null");
         this.dataStreamProvider = dataStreamProvider;
@@ -180,6 +184,7 @@ public class LocalExecutionPlanner
         this.storageManager = checkNotNull(storageManager, "storageManager is null");
         this.recordSinkManager = checkNotNull(recordSinkManager, "recordSinkManager is null");
         this.compiler = checkNotNull(compiler, "compiler is null");
+        this.writerCount = checkNotNull(taskManagerConfig, "taskManagerConfig is null").getWriterCount();
     }
 
     public LocalExecutionPlan plan(Session session,
@@ -506,7 +511,15 @@ public class LocalExecutionPlanner
         @Override
         public PhysicalOperation visitAggregation(AggregationNode node, LocalExecutionPlanContext context)
         {
-            PhysicalOperation source = node.getSource().accept(this, context);
+            PhysicalOperation source;
+            if (node.getStep() == AggregationNode.Step.SINGLE && containsTableScan(node.getSource())) {
+                // each split of a table is processed by a separate driver, so a single step
+                // aggregation must gather the rows of all drivers in the task
+                source = createInMemoryExchange(node.getSource(), context);
+            }
+            else {
+                source = node.getSource().accept(this, context);
+            }
 
             if (node.getGroupBy().isEmpty()) {
                 return planGlobalAggregation(context.getNextOperatorId(), node, source);
@@ -1098,10 +1111,40 @@ public class LocalExecutionPlanner
         @Override
         public PhysicalOperation visitTableWriter(TableWriterNode node, LocalExecutionPlanContext context)
         {
-            // serialize writes by forcing data through a single writer
-            PhysicalOperation exchange = createInMemoryExchange(node.getSource(), context);
+            // serialize writes by forcing data through the writers
+            InMemoryExchange sourceExchange = createInMemoryExchangeSink(node.getSource(), context);
+
+            Map<Symbol, Input> layout = ImmutableMap.<Symbol, Input>builder()
+                    .put(node.getOutputSymbols().get(0), new Input(0))
+                    .put(node.getOutputSymbols().get(1), new Input(1))
+                    .build();
 
-            Optional<Integer> sampleWeightChannel = node.getSampleWeightSymbol().transform(exchange.channelGetter());
+            if (writerCount == 1) {
+                PhysicalOperation exchange = createInMemoryExchangeSource(node.getSource(), sourceExchange, context);
+                return new PhysicalOperation(createTableWriter(node, exchange, context), layout, exchange);
+            }
+
+            // each writer driver takes pages from the source exchange and writes them to its own record sink,
+            // and the fragments of all writers are gathered for the table commit
+            InMemoryExchange writerExchange = new InMemoryExchange(TableWriterOperator.TYPES);
+            for (int writer = 0; writer < writerCount; writer++) {
+                LocalExecutionPlanContext writerContext = context.createSubContext();
+                PhysicalOperation exchange = createInMemoryExchangeSource(node.getSource(), sourceExchange, writerContext);
+                List<OperatorFactory> factories = ImmutableList.<OperatorFactory>builder()
+                        .addAll(exchange.getOperatorFactories())
+                        .add(createTableWriter(node, exchange, writerContext))
+                        .add(writerExchange.createSinkFactory(writerContext.getNextOperatorId()))
+                        .build();
+                context.addDriverFactory(new DriverFactory(false, false, factories));
+            }
+            writerExchange.noMoreSinkFactories();
+
+            return new PhysicalOperation(new InMemoryExchangeSourceOperatorFactory(context.getNextOperatorId(), writerExchange), layout);
+        }
+
+        private OperatorFactory createTableWriter(TableWriterNode node, PhysicalOperation source, LocalExecutionPlanContext context)
+        {
+            Optional<Integer> sampleWeightChannel = node.getSampleWeightSymbol().transform(source.channelGetter());
 
             // create the table writer
             RecordSink recordSink = recordSinkManager.getRecordSink(node.getTarget());
@@ -1111,20 +1154,46 @@ public class LocalExecutionPlanner
                     .list();
 
             List<Integer> inputChannels = IterableTransformer.on(node.getColumns())
-                    .transform(exchange.channelGetter())
+                    .transform(source.channelGetter())
                     .list();
 
-            OperatorFactory operatorFactory = new TableWriterOperatorFactory(context.getNextOperatorId(), recordSink, types, inputChannels, sampleWeightChannel);
+            // sort channels are positions in the written record
+            List<Integer> sortChannels = IterableTransformer.on(node.getSortColumnNames())
+                    .transform(Functions.forMap(indexColumnNames(node.getColumnNames())))
+                    .list();
 
-            Map<Symbol, Input> layout = ImmutableMap.<Symbol, Input>builder()
-                    .put(node.getOutputSymbols().get(0), new Input(0))
-                    .put(node.getOutputSymbols().get(1), new Input(1))
-                    .build();
+            return new TableWriterOperatorFactory(context.getNextOperatorId(), recordSink, types, inputChannels, sortChannels, sampleWeightChannel);
+        }
 
-            return new PhysicalOperation(operatorFactory, layout, exchange);
+        private Map<String, Integer> indexColumnNames(List<String> columnNames)
+        {
+            ImmutableMap.Builder<String, Integer> index = ImmutableMap.builder();
+            for (int i = 0; i < columnNames.size(); i++) {
+                index.put(columnNames.get(i), i);
+            }
+            return index.build();
+        }
+
+        private boolean containsTableScan(PlanNode node)
+        {
+            if (node instanceof TableScanNode) {
+                return true;
+            }
+            for (PlanNode source : node.getSources()) {
+                if (containsTableScan(source)) {
+                    return true;
+                }
+            }
+            return false;
         }
 
         private PhysicalOperation createInMemoryExchange(PlanNode node, LocalExecutionPlanContext context)
+        {
+            InMemoryExchange exchange = createInMemoryExchangeSink(node, context);
+            return createInMemoryExchangeSource(node, exchange, context);
+        }
+
+        private InMemoryExchange createInMemoryExchangeSink(PlanNode node, LocalExecutionPlanContext context)
         {
             LocalExecutionPlanContext subContext = context.createSubContext();
             PhysicalOperation source = node.accept(this, subContext);
@@ -1145,6 +1214,11 @@ public class LocalExecutionPlanner
             // the main driver is not an input: the source is the input for the plan
             context.setInputDriver(false);
 
+            return exchange;
+        }
+
+        private PhysicalOperation createInMemoryExchangeSource(PlanNode node, InMemoryExchange exchange, LocalExecutionPlanContext context)
+        {
             List<Symbol> layout = node.getOutputSymbols();
             ImmutableMap.Builder<Symbol, Input> outputMappings = ImmutableMap.builder();
             for (int i = 0; i < layout.size(); i++) {
@@ -18,19 +18,27 @@ import com.facebook.presto.metadata.QualifiedTableName;
 import com.facebook.presto.metadata.TableMetadata;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.sql.analyzer.Analysis;
 import com.facebook.presto.sql.analyzer.Field;
 import com.facebook.presto.spi.Session;
 import com.facebook.presto.sql.planner.optimizations.PlanOptimizer;
 import com.facebook.presto.sql.planner.plan.OutputNode;
 import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SortNode;
 import com.facebook.presto.sql.planner.plan.TableCommitNode;
 import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
@@ -93,7 +101,14 @@ public class LogicalPlanner
         RelationPlanner planner = new RelationPlanner(analysis, symbolAllocator, idAllocator, metadata, session);
         RelationPlan plan = planner.process(analysis.getQuery(), null);
 
-        TableMetadata tableMetadata = createTableMetadata(destination, getTableColumns(plan));
+        // the rows of a table are not ordered, so the order of the query only declares
+        // the order the writers sort the rows of each file by
+        List<String> sortColumns = getSortColumns(plan);
+        if (!sortColumns.isEmpty()) {
+            plan = new RelationPlan(removeSort(plan.getRoot()), plan.getDescriptor(), plan.getOutputSymbols());
+        }
+
+        TableMetadata tableMetadata = createTableMetadata(destination, getTableColumns(plan), sortColumns);
 
         ImmutableList<Symbol> writerOutputs = ImmutableList.of(
                 symbolAllocator.newSymbol("partialrows", BIGINT),
@@ -105,6 +120,7 @@ public class LogicalPlanner
                 null,
                 plan.getOutputSymbols(),
                 getColumnNames(tableMetadata),
+                sortColumns,
                 writerOutputs,
                 Optional.<Symbol>absent(),
                 destination.getCatalogName(),
@@ -138,10 +154,10 @@ public class LogicalPlanner
         return new OutputNode(idAllocator.getNextId(), plan.getRoot(), names.build(), outputs.build());
     }
 
-    private TableMetadata createTableMetadata(QualifiedTableName table, List<ColumnMetadata> columns)
+    private TableMetadata createTableMetadata(QualifiedTableName table, List<ColumnMetadata> columns, List<String> sortColumns)
     {
         String owner = session.getUser();
-        ConnectorTableMetadata metadata = new ConnectorTableMetadata(table.asSchemaTableName(), columns, owner);
+        ConnectorTableMetadata metadata = new ConnectorTableMetadata(table.asSchemaTableName(), columns, owner, false, sortColumns);
         // TODO: first argument should actually be connectorId
         return new TableMetadata(table.getCatalogName(), metadata);
     }
@@ -157,6 +173,60 @@ public class LogicalPlanner
         return columns.build();
     }
 
+    /**
+     * Returns the names of the columns the query is sorted by, if the query is sorted ascending
+     * with nulls last by columns of the created table.
+     */
+    private static List<String> getSortColumns(RelationPlan plan)
+    {
+        List<ProjectNode> projections = new ArrayList<>();
+        PlanNode node = plan.getRoot();
+        while (node instanceof ProjectNode) {
+            projections.add((ProjectNode) node);
+            node = ((ProjectNode) node).getSource();
+        }
+        if (!(node instanceof SortNode)) {
+            return ImmutableList.of();
+        }
+        SortNode sort = (SortNode) node;
+
+        // map the symbols of the sort to the fields they are passed through to unchanged
+        Map<Symbol, Integer> fields = new HashMap<>();
+        for (int field = 0; field < plan.getOutputSymbols().size(); field++) {
+            Symbol symbol = plan.getOutputSymbols().get(field);
+            for (ProjectNode projection : projections) {
+                Expression expression = projection.getOutputMap().get(symbol);
+                if (!(expression instanceof QualifiedNameReference)) {
+                    symbol = null;
+                    break;
+                }
+                symbol = Symbol.fromQualifiedName(((QualifiedNameReference) expression).getName());
+            }
+            if (symbol != null && !fields.containsKey(symbol)) {
+                fields.put(symbol, field);
+            }
+        }
+
+        ImmutableList.Builder<String> sortColumns = ImmutableList.builder();
+        for (Symbol symbol : sort.getOrderBy()) {
+            Integer field = fields.get(symbol);
+            if (field == null || sort.getOrderings().get(symbol) != SortOrder.ASC_NULLS_LAST) {
+                return ImmutableList.of();
+            }
+            sortColumns.add(plan.getDescriptor().getFields().get(field).getName().get());
+        }
+        return sortColumns.build();
+    }
+
+    private static PlanNode removeSort(PlanNode node)
+    {
+        if (node instanceof SortNode) {
+            return ((SortNode) node).getSource();
+        }
+        ProjectNode projection = (ProjectNode) node;
+        return new ProjectNode(projection.getId(), removeSort(projection.getSource()), projection.getOutputMap());
+    }
+
     private static List<String> getColumnNames(TableMetadata tableMetadata)
     {
         ImmutableList.Builder<String> list = ImmutableList.builder();
@@ -15,6 +15,7 @@ package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.index.IndexManager;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.StatisticsManager;
 import com.facebook.presto.split.SplitManager;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.planner.optimizations.CanonicalizeExpressions;
@@ -27,6 +28,7 @@ import com.facebook.presto.sql.planner.optimizations.PlanOptimizer;
 import com.facebook.presto.sql.planner.optimizations.PredicatePushDown;
 import com.facebook.presto.sql.planner.optimizations.PruneRedundantProjections;
 import com.facebook.presto.sql.planner.optimizations.PruneUnreferencedOutputs;
+import com.facebook.presto.sql.planner.optimizations.ReorderJoins;
 import com.facebook.presto.sql.planner.optimizations.SetFlatteningOptimizer;
 import com.facebook.presto.sql.planner.optimizations.SimplifyExpressions;
 import com.facebook.presto.sql.planner.optimizations.UnaliasSymbolReferences;
@@ -43,7 +45,7 @@ public class PlanOptimizersFactory
     private final List<PlanOptimizer> optimizers;
 
     @Inject
-    public PlanOptimizersFactory(Metadata metadata, SplitManager splitManager, IndexManager indexManager, FeaturesConfig featuresConfig)
+    public PlanOptimizersFactory(Metadata metadata, SplitManager splitManager, IndexManager indexManager, StatisticsManager statisticsManager, FeaturesConfig featuresConfig)
     {
         ImmutableList.Builder<PlanOptimizer> builder = ImmutableList.builder();
 
@@ -59,8 +61,13 @@ public class PlanOptimizersFactory
                 new PredicatePushDown(metadata, splitManager, featuresConfig.isExperimentalSyntaxEnabled()), // Run predicate push down one more time in case we can leverage new information from generated partitions
                 new MergeProjections(),
                 new SimplifyExpressions(metadata), // Re-run the SimplifyExpressions to simplify any recomposed expressions from other optimizations
-                new UnaliasSymbolReferences(), // Run again because predicate pushdown might add more projections
-                new IndexJoinOptimizer(indexManager), // Run this after projections and filters have been fully simplified and pushed down
+                new UnaliasSymbolReferences()); // Run again because predicate pushdown might add more projections
+
+        if (featuresConfig.isJoinReorderingEnabled()) {
+            builder.add(new ReorderJoins(metadata, statisticsManager)); // Run this after predicate push down, as the estimates use the predicates of the table scans
+        }
+
+        builder.add(new IndexJoinOptimizer(indexManager), // Run this after projections and filters have been fully simplified and pushed down
                 new PruneUnreferencedOutputs(), // Make sure to run this at the end to help clean the plan for logging/execution and not remove info that other optimizers might need at an earlier point
                 new PruneRedundantProjections()); // This MUST run after PruneUnreferencedOutputs as it may introduce new redundant projections
         // TODO: consider adding a formal final plan sanitization optimizer that prepares the plan for transmission/execution/logging
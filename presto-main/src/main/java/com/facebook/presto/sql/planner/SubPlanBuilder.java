@@ -19,6 +19,7 @@ import com.facebook.presto.sql.planner.plan.PlanFragmentId;
 import com.facebook.presto.sql.planner.plan.PlanNode;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -41,6 +42,7 @@ public class SubPlanBuilder
     private List<Symbol> partitionBy = ImmutableList.of();
     private List<SubPlan> children = new ArrayList<>();
     private OutputPartitioning outputPartitioning = OutputPartitioning.NONE;
+    private Set<Symbol> bucketedBy = ImmutableSet.of();
 
     public SubPlanBuilder(PlanFragmentId id, SymbolAllocator allocator, PlanDistribution distribution, PlanNode root, PlanNodeId partitionedSource)
     {
@@ -76,6 +78,25 @@ public class SubPlanBuilder
     {
         checkNotNull(root, "root is null");
         this.root = root;
+        this.bucketedBy = ImmutableSet.of();
+        return this;
+    }
+
+    /**
+     * Gets the symbols the output of the root is bucketed on. All rows with the same values
+     * for these symbols are produced by the same task. Empty if the output is not bucketed.
+     */
+    public Set<Symbol> getBucketedBy()
+    {
+        return bucketedBy;
+    }
+
+    /**
+     * Sets the bucketing of the output of the current root, which is reset whenever the root changes.
+     */
+    public SubPlanBuilder setBucketedBy(Set<Symbol> bucketedBy)
+    {
+        this.bucketedBy = ImmutableSet.copyOf(checkNotNull(bucketedBy, "bucketedBy is null"));
         return this;
     }
 
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.sql.tree.CurrentTime;
+import com.facebook.presto.sql.tree.DefaultTraversalVisitor;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.Node;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Determines whether a given statement or expression depends on the time the
+ * query starts at. The planner folds these functions into literals using the
+ * start time of the query, so neither the plan nor the results can be reused.
+ */
+public final class TimeDependenceEvaluator
+{
+    private static final Set<String> TIME_DEPENDENT_FUNCTIONS = ImmutableSet.of("now", "current_date", "current_time", "localtime", "localtimestamp");
+
+    private TimeDependenceEvaluator() {}
+
+    public static boolean isTimeDependent(Node node)
+    {
+        Preconditions.checkNotNull(node, "node is null");
+
+        AtomicBoolean timeDependent = new AtomicBoolean();
+        new Visitor().process(node, timeDependent);
+        return timeDependent.get();
+    }
+
+    private static class Visitor
+            extends DefaultTraversalVisitor<Void, AtomicBoolean>
+    {
+        @Override
+        protected Void visitFunctionCall(FunctionCall node, AtomicBoolean timeDependent)
+        {
+            if (TIME_DEPENDENT_FUNCTIONS.contains(node.getName().toString())) {
+                timeDependent.set(true);
+            }
+            return super.visitFunctionCall(node, timeDependent);
+        }
+
+        @Override
+        protected Void visitCurrentTime(CurrentTime node, AtomicBoolean timeDependent)
+        {
+            timeDependent.set(true);
+            return null;
+        }
+    }
+}
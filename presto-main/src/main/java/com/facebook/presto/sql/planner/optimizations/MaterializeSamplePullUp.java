@@ -102,12 +102,13 @@ public class MaterializeSamplePullUp
             if (source instanceof MaterializeSampleNode) {
                 checkArgument(node.isSampleWeightSupported(), "Cannot write sampled data to a store that doesn't support sampling");
                 ConnectorTableMetadata connectorTableMetadata = node.getTableMetadata().getMetadata();
-                connectorTableMetadata = new ConnectorTableMetadata(connectorTableMetadata.getTable(), connectorTableMetadata.getColumns(), connectorTableMetadata.getOwner(), true);
+                connectorTableMetadata = new ConnectorTableMetadata(connectorTableMetadata.getTable(), connectorTableMetadata.getColumns(), connectorTableMetadata.getOwner(), true, connectorTableMetadata.getSortColumns());
                 return new TableWriterNode(node.getId(),
                         ((MaterializeSampleNode) source).getSource(),
                         node.getTarget(),
                         node.getColumns(),
                         node.getColumnNames(),
+                        node.getSortColumnNames(),
                         node.getOutputSymbols(),
                         Optional.of(((MaterializeSampleNode) source).getSampleWeightSymbol()),
                         node.getCatalog(),
@@ -0,0 +1,229 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.StatisticsManager;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.CardinalityEstimator;
+import com.facebook.presto.sql.planner.CardinalityEstimator.Estimate;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeRewriter;
+import com.facebook.presto.sql.planner.plan.PlanRewriter;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reorders trees of inner equi-joins using the estimated sizes of their inputs, so that the
+ * largest input is the probe side at the bottom of a left deep tree, and the inputs that
+ * produce the smallest joins are built first. The build side of every join is the smaller one.
+ * <p/>
+ * Joins are left in the order of the query if the size of any input can not be estimated,
+ * or if the inputs can not be joined without a cross join.
+ */
+public class ReorderJoins
+        extends PlanOptimizer
+{
+    private final Metadata metadata;
+    private final StatisticsManager statisticsManager;
+
+    public ReorderJoins(Metadata metadata, StatisticsManager statisticsManager)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.statisticsManager = checkNotNull(statisticsManager, "statisticsManager is null");
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        checkNotNull(plan, "plan is null");
+        checkNotNull(session, "session is null");
+        checkNotNull(types, "types is null");
+        checkNotNull(symbolAllocator, "symbolAllocator is null");
+        checkNotNull(idAllocator, "idAllocator is null");
+
+        CardinalityEstimator estimator = new CardinalityEstimator(metadata, statisticsManager, session, types);
+        return PlanRewriter.rewriteWith(new Rewriter(estimator, idAllocator), plan);
+    }
+
+    private static class Rewriter
+            extends PlanNodeRewriter<Void>
+    {
+        private final CardinalityEstimator estimator;
+        private final PlanNodeIdAllocator idAllocator;
+
+        private Rewriter(CardinalityEstimator estimator, PlanNodeIdAllocator idAllocator)
+        {
+            this.estimator = checkNotNull(estimator, "estimator is null");
+            this.idAllocator = checkNotNull(idAllocator, "idAllocator is null");
+        }
+
+        @Override
+        public PlanNode rewriteJoin(JoinNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            if (!isInnerEquiJoin(node)) {
+                return planRewriter.defaultRewrite(node, context);
+            }
+
+            List<PlanNode> sources = new ArrayList<>();
+            List<JoinNode.EquiJoinClause> criteria = new ArrayList<>();
+            flatten(node, sources, criteria);
+
+            List<PlanNode> rewrittenSources = new ArrayList<>();
+            List<Estimate> estimates = new ArrayList<>();
+            boolean estimated = true;
+            for (PlanNode source : sources) {
+                PlanNode rewritten = planRewriter.rewrite(source, context);
+                rewrittenSources.add(rewritten);
+
+                Optional<Estimate> estimate = estimator.estimate(rewritten);
+                estimated &= estimate.isPresent();
+                estimates.add(estimate.orNull());
+            }
+
+            if (estimated) {
+                Optional<PlanNode> reordered = reorder(rewrittenSources, estimates, criteria);
+                if (reordered.isPresent()) {
+                    return restoreOutputs(reordered.get(), node.getOutputSymbols());
+                }
+            }
+            return planRewriter.defaultRewrite(node, context);
+        }
+
+        /**
+         * Builds a join tree by greedily adding the input that yields the smallest join. The tree is
+         * left deep, except where the joined inputs are smaller than the next input, which then
+         * becomes the probe side.
+         */
+        private Optional<PlanNode> reorder(List<PlanNode> sources, List<Estimate> estimates, List<JoinNode.EquiJoinClause> criteria)
+        {
+            List<Integer> remaining = new ArrayList<>();
+            int probe = 0;
+            for (int i = 0; i < sources.size(); i++) {
+                remaining.add(i);
+                if (estimates.get(i).getRowCount() > estimates.get(probe).getRowCount()) {
+                    probe = i;
+                }
+            }
+            remaining.remove(Integer.valueOf(probe));
+
+            PlanNode current = sources.get(probe);
+            double currentRowCount = estimates.get(probe).getRowCount();
+            while (!remaining.isEmpty()) {
+                JoinNode best = null;
+                int bestIndex = -1;
+                double bestRowCount = 0;
+                for (int index : remaining) {
+                    List<JoinNode.EquiJoinClause> clauses = getJoinClauses(current, sources.get(index), criteria);
+                    if (clauses.isEmpty()) {
+                        continue;
+                    }
+                    JoinNode join = new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, current, sources.get(index), clauses);
+                    double rowCount = estimator.estimate(join).get().getRowCount();
+                    if (best == null || rowCount < bestRowCount || (rowCount == bestRowCount && isSmaller(estimates.get(index), estimates.get(bestIndex)))) {
+                        best = join;
+                        bestIndex = index;
+                        bestRowCount = rowCount;
+                    }
+                }
+                if (best == null) {
+                    // the remaining inputs can only be added with a cross join
+                    return Optional.absent();
+                }
+                remaining.remove(Integer.valueOf(bestIndex));
+
+                // build the smaller side
+                if (currentRowCount < estimates.get(bestIndex).getRowCount()) {
+                    PlanNode source = sources.get(bestIndex);
+                    best = new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, source, current, getJoinClauses(source, current, criteria));
+                }
+                current = best;
+                currentRowCount = bestRowCount;
+            }
+            return Optional.of(current);
+        }
+
+        private PlanNode restoreOutputs(PlanNode node, List<Symbol> outputSymbols)
+        {
+            if (node.getOutputSymbols().equals(outputSymbols)) {
+                return node;
+            }
+            ImmutableMap.Builder<Symbol, Expression> assignments = ImmutableMap.builder();
+            for (Symbol symbol : outputSymbols) {
+                assignments.put(symbol, new QualifiedNameReference(symbol.toQualifiedName()));
+            }
+            return new ProjectNode(idAllocator.getNextId(), node, assignments.build());
+        }
+
+        private static boolean isSmaller(Estimate estimate, Estimate other)
+        {
+            return estimate.getRowCount() < other.getRowCount();
+        }
+
+        private static boolean isInnerEquiJoin(JoinNode node)
+        {
+            return node.getType() == JoinNode.Type.INNER && !node.getCriteria().isEmpty();
+        }
+
+        private static void flatten(PlanNode node, List<PlanNode> sources, List<JoinNode.EquiJoinClause> criteria)
+        {
+            if (node instanceof JoinNode && isInnerEquiJoin((JoinNode) node)) {
+                JoinNode join = (JoinNode) node;
+                flatten(join.getLeft(), sources, criteria);
+                flatten(join.getRight(), sources, criteria);
+                criteria.addAll(join.getCriteria());
+            }
+            else {
+                sources.add(node);
+            }
+        }
+
+        /**
+         * Returns the clauses that join the two nodes, with the symbols of the left node on the left.
+         */
+        private static List<JoinNode.EquiJoinClause> getJoinClauses(PlanNode left, PlanNode right, List<JoinNode.EquiJoinClause> criteria)
+        {
+            Set<Symbol> leftSymbols = ImmutableSet.copyOf(left.getOutputSymbols());
+            Set<Symbol> rightSymbols = ImmutableSet.copyOf(right.getOutputSymbols());
+
+            ImmutableList.Builder<JoinNode.EquiJoinClause> clauses = ImmutableList.builder();
+            for (JoinNode.EquiJoinClause clause : criteria) {
+                if (leftSymbols.contains(clause.getLeft()) && rightSymbols.contains(clause.getRight())) {
+                    clauses.add(clause);
+                }
+                else if (leftSymbols.contains(clause.getRight()) && rightSymbols.contains(clause.getLeft())) {
+                    clauses.add(new JoinNode.EquiJoinClause(clause.getRight(), clause.getLeft()));
+                }
+            }
+            return clauses.build();
+        }
+    }
+}
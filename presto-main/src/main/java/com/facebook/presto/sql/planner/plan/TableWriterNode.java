@@ -37,6 +37,7 @@ public class TableWriterNode
     private final List<Symbol> outputs;
     private final List<Symbol> columns;
     private final List<String> columnNames;
+    private final List<String> sortColumnNames;
     private final Optional<Symbol> sampleWeightSymbol;
     private final String catalog;
     private final TableMetadata tableMetadata;
@@ -49,10 +50,11 @@ public class TableWriterNode
             @JsonProperty("target") OutputTableHandle target,
             @JsonProperty("columns") List<Symbol> columns,
             @JsonProperty("columnNames") List<String> columnNames,
+            @JsonProperty("sortColumnNames") List<String> sortColumnNames,
             @JsonProperty("outputs") List<Symbol> outputs,
             @JsonProperty("sampleWeightSymbol") Optional<Symbol> sampleWeightSymbol)
     {
-        this(id, source, target, columns, columnNames, outputs, sampleWeightSymbol, null, null, false);
+        this(id, source, target, columns, columnNames, sortColumnNames, outputs, sampleWeightSymbol, null, null, false);
     }
 
     public TableWriterNode(
@@ -61,6 +63,7 @@ public class TableWriterNode
             OutputTableHandle target,
             List<Symbol> columns,
             List<String> columnNames,
+            List<String> sortColumnNames,
             List<Symbol> outputs,
             Optional<Symbol> sampleWeightSymbol,
             String catalog,
@@ -72,12 +75,15 @@ public class TableWriterNode
         checkNotNull(columns, "columns is null");
         checkNotNull(columnNames, "columnNames is null");
         checkArgument(columns.size() == columnNames.size(), "columns and columnNames sizes don't match");
+        checkNotNull(sortColumnNames, "sortColumnNames is null");
+        checkArgument(columnNames.containsAll(sortColumnNames), "sortColumnNames must be a subset of columnNames");
         checkArgument((target == null) ^ (catalog == null && tableMetadata == null), "exactly one of target or (catalog, tableMetadata) must be set");
 
         this.source = checkNotNull(source, "source is null");
         this.target = target;
         this.columns = ImmutableList.copyOf(columns);
         this.columnNames = ImmutableList.copyOf(columnNames);
+        this.sortColumnNames = ImmutableList.copyOf(sortColumnNames);
         this.outputs = ImmutableList.copyOf(checkNotNull(outputs, "outputs is null"));
         this.sampleWeightSymbol = checkNotNull(sampleWeightSymbol, "sampleWeightSymbol is null");
         this.catalog = catalog;
@@ -130,6 +136,15 @@ public class TableWriterNode
         return columnNames;
     }
 
+    /**
+     * Names of the columns the rows of each file written are sorted by, ascending with nulls last.
+     */
+    @JsonProperty
+    public List<String> getSortColumnNames()
+    {
+        return sortColumnNames;
+    }
+
     @JsonProperty("outputs")
     @Override
     public List<Symbol> getOutputSymbols()
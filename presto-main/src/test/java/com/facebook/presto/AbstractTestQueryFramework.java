@@ -18,6 +18,7 @@ import com.facebook.presto.connector.dual.DualSplitManager;
 import com.facebook.presto.index.IndexManager;
 import com.facebook.presto.metadata.InMemoryNodeManager;
 import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.StatisticsManager;
 import com.facebook.presto.spi.ConnectorSplitManager;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.RecordCursor;
@@ -392,8 +393,9 @@ public abstract class AbstractTestQueryFramework
         metadata.addInternalSchemaMetadata(MetadataManager.INTERNAL_CONNECTOR_ID, new DualMetadata());
         SplitManager splitManager = new SplitManager(ImmutableSet.<ConnectorSplitManager>of(new DualSplitManager(new InMemoryNodeManager())));
         IndexManager indexManager = new IndexManager();
+        StatisticsManager statisticsManager = new StatisticsManager();
         FeaturesConfig featuresConfig = new FeaturesConfig().setExperimentalSyntaxEnabled(true);
-        List<PlanOptimizer> optimizers = new PlanOptimizersFactory(metadata, splitManager, indexManager, featuresConfig).get();
-        return new QueryExplainer(session, optimizers, metadata, featuresConfig.isExperimentalSyntaxEnabled());
+        List<PlanOptimizer> optimizers = new PlanOptimizersFactory(metadata, splitManager, indexManager, statisticsManager, featuresConfig).get();
+        return new QueryExplainer(session, optimizers, metadata, statisticsManager, featuresConfig);
     }
 }
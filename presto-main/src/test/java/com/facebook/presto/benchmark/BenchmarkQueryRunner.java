@@ -24,6 +24,7 @@ import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.metadata.NativeConnectorId;
 import com.facebook.presto.metadata.NativeMetadata;
 import com.facebook.presto.metadata.NativeRecordSinkProvider;
+import com.facebook.presto.metadata.NativeStatisticsProvider;
 import com.facebook.presto.metadata.QualifiedTableName;
 import com.facebook.presto.metadata.TableColumnMapper;
 import com.facebook.presto.spi.NodeManager;
@@ -128,7 +129,8 @@ public final class BenchmarkQueryRunner
             DatabaseShardManager shardManager = new DatabaseShardManager(metadataDbi);
             NativeMetadata nativeMetadata = new NativeMetadata(new NativeConnectorId("default"), metadataDbi, shardManager);
             NativeSplitManager nativeSplitManager = new NativeSplitManager(nodeManager, shardManager, nativeMetadata);
-            NativeConnectorFactory nativeConnectorFactory = new NativeConnectorFactory(nativeMetadata, nativeSplitManager, nativeDataStreamProvider, nativeRecordSinkProvider);
+            NativeStatisticsProvider nativeStatisticsProvider = new NativeStatisticsProvider(nativeMetadata, shardManager);
+            NativeConnectorFactory nativeConnectorFactory = new NativeConnectorFactory(nativeMetadata, nativeSplitManager, nativeDataStreamProvider, nativeRecordSinkProvider, nativeStatisticsProvider);
 
             return nativeConnectorFactory;
         }
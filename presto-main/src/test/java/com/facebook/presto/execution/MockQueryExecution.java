@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.execution.StateMachine.StateChangeListener;
+import com.facebook.presto.spi.Session;
+import com.google.common.base.Optional;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+
+import java.net.URI;
+import java.util.Locale;
+
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static io.airlift.units.DataSize.Unit.BYTE;
+
+/**
+ * A query execution that does no work. Tests drive its state directly and
+ * set the memory it reports as reserved.
+ */
+public class MockQueryExecution
+        implements QueryExecution
+{
+    private final QueryStateMachine stateMachine;
+    private volatile long memoryReservationInBytes;
+    private volatile Throwable failureCause;
+
+    public MockQueryExecution(String queryId, String source, String user)
+    {
+        Session session = new Session(user, source, "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+        this.stateMachine = new QueryStateMachine(new QueryId(queryId), "SELECT 1", session, URI.create("fake://" + queryId), sameThreadExecutor());
+    }
+
+    public void setMemoryReservation(DataSize memoryReservation)
+    {
+        this.memoryReservationInBytes = memoryReservation.toBytes();
+    }
+
+    public QueryState getState()
+    {
+        return stateMachine.getQueryState();
+    }
+
+    public Throwable getFailureCause()
+    {
+        return failureCause;
+    }
+
+    public void finish()
+    {
+        stateMachine.finished();
+    }
+
+    @Override
+    public QueryInfo getQueryInfo()
+    {
+        QueryInfo queryInfo = stateMachine.getQueryInfoWithoutDetails();
+        QueryStats stats = queryInfo.getQueryStats();
+        QueryStats queryStats = new QueryStats(
+                stats.getCreateTime(),
+                stats.getExecutionStartTime(),
+                stats.getLastHeartbeat(),
+                stats.getEndTime(),
+
+                stats.getElapsedTime(),
+                stats.getQueuedTime(),
+                stats.getAnalysisTime(),
+                stats.getDistributedPlanningTime(),
+                stats.getTotalPlanningTime(),
+
+                stats.getTotalTasks(),
+                stats.getRunningTasks(),
+                stats.getCompletedTasks(),
+
+                stats.getTotalDrivers(),
+                stats.getQueuedDrivers(),
+                stats.getRunningDrivers(),
+                stats.getCompletedDrivers(),
+
+                new DataSize(memoryReservationInBytes, BYTE),
+
+                stats.getTotalScheduledTime(),
+                stats.getTotalCpuTime(),
+                stats.getTotalUserTime(),
+                stats.getTotalBlockedTime(),
+
+                stats.getRawInputDataSize(),
+                stats.getRawInputPositions(),
+
+                stats.getProcessedInputDataSize(),
+                stats.getProcessedInputPositions(),
+
+                stats.getOutputDataSize(),
+                stats.getOutputPositions());
+
+        return new QueryInfo(queryInfo.getQueryId(),
+                queryInfo.getSession(),
+                queryInfo.getState(),
+                queryInfo.getSelf(),
+                queryInfo.getFieldNames(),
+                queryInfo.getQuery(),
+                queryStats,
+                null,
+                queryInfo.getFailureInfo(),
+                queryInfo.getErrorCode(),
+                queryInfo.getInputs());
+    }
+
+    @Override
+    public Duration waitForStateChange(QueryState currentState, Duration maxWait)
+            throws InterruptedException
+    {
+        return stateMachine.waitForStateChange(currentState, maxWait);
+    }
+
+    @Override
+    public void start()
+    {
+        stateMachine.recordExecutionStart();
+        stateMachine.running();
+    }
+
+    @Override
+    public void cancel()
+    {
+        stateMachine.cancel();
+    }
+
+    @Override
+    public void fail(Throwable cause)
+    {
+        if (failureCause == null) {
+            failureCause = cause;
+        }
+        stateMachine.fail(cause);
+    }
+
+    @Override
+    public void cancelStage(StageId stageId)
+    {
+        // no-op
+    }
+
+    @Override
+    public void recordHeartbeat()
+    {
+        stateMachine.recordHeartbeat();
+    }
+
+    @Override
+    public void addStateChangeListener(StateChangeListener<QueryState> stateChangeListener)
+    {
+        stateMachine.addStateChangeListener(stateChangeListener);
+    }
+
+    @Override
+    public Optional<String> getResultCacheKey()
+    {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<CachedQueryResult> getCachedResult()
+    {
+        return Optional.absent();
+    }
+}
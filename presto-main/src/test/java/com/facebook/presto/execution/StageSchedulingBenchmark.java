@@ -0,0 +1,437 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.OutputBuffers;
+import com.facebook.presto.UnpartitionedPagePartitionFunction;
+import com.facebook.presto.connector.dual.DualMetadata;
+import com.facebook.presto.connector.dual.DualSplit;
+import com.facebook.presto.execution.StateMachine.StateChangeListener;
+import com.facebook.presto.execution.TestSqlTaskManager.MockLocationFactory;
+import com.facebook.presto.metadata.InMemoryNodeManager;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.NodeVersion;
+import com.facebook.presto.metadata.PrestoNode;
+import com.facebook.presto.metadata.QualifiedTableName;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.FixedSplitSource;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.Split;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.PlanFragment.OutputPartitioning;
+import com.facebook.presto.sql.planner.PlanFragment.PlanDistribution;
+import com.facebook.presto.sql.planner.StageExecutionPlan;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.PlanFragmentId;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+import io.airlift.stats.Distribution;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.joda.time.DateTime;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.facebook.presto.OutputBuffers.INITIAL_EMPTY_OUTPUT_BUFFERS;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.util.Threads.threadsNamed;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Measures how long a source stage takes to schedule a large number of tiny splits on
+ * simulated tasks, and how long it takes until the first split has produced its row.
+ */
+public class StageSchedulingBenchmark
+        implements Closeable
+{
+    private static final Session SESSION = new Session("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+
+    private static final int NODE_COUNT = 4;
+    private static final int SPLIT_COUNT = 10_000;
+    private static final int SPLIT_BATCH_SIZE = 1000;
+    private static final int MAX_PENDING_SPLITS_PER_NODE = 100;
+    private static final Duration SPLIT_DURATION = new Duration(50, TimeUnit.MICROSECONDS);
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 20;
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        try (StageSchedulingBenchmark benchmark = new StageSchedulingBenchmark()) {
+            benchmark.run();
+        }
+    }
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(threadsNamed(getClass().getSimpleName() + "-%d"));
+    private final MetadataManager metadata;
+    private final NodeScheduler nodeScheduler;
+
+    public StageSchedulingBenchmark()
+    {
+        metadata = new MetadataManager(new FeaturesConfig(), new TypeRegistry());
+        metadata.addInternalSchemaMetadata(MetadataManager.INTERNAL_CONNECTOR_ID, new DualMetadata());
+
+        InMemoryNodeManager nodeManager = new InMemoryNodeManager();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            nodeManager.addNode("dual", new PrestoNode("node" + i, URI.create("http://127.0.0.1:" + (11 + i)), NodeVersion.UNKNOWN));
+        }
+        nodeScheduler = new NodeScheduler(nodeManager, new NodeSchedulerConfig());
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+
+    public void run()
+            throws Exception
+    {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runOnce(new Distribution(), new Distribution(), new Distribution());
+        }
+
+        Distribution timeToFirstRow = new Distribution();
+        Distribution schedulingTime = new Distribution();
+        Distribution totalTime = new Distribution();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            runOnce(timeToFirstRow, schedulingTime, totalTime);
+        }
+
+        System.out.printf("%,d splits on %d nodes (%s per split)%n", SPLIT_COUNT, NODE_COUNT, SPLIT_DURATION);
+        print("time to first row", timeToFirstRow);
+        print("scheduling time", schedulingTime);
+        print("total time", totalTime);
+    }
+
+    private void runOnce(Distribution timeToFirstRow, Distribution schedulingTime, Distribution totalTime)
+            throws Exception
+    {
+        SimulatedRemoteTaskFactory remoteTaskFactory = new SimulatedRemoteTaskFactory(executor);
+
+        OutputBuffers outputBuffers = INITIAL_EMPTY_OUTPUT_BUFFERS
+                .withBuffer("out", new UnpartitionedPagePartitionFunction())
+                .withNoMoreBufferIds();
+
+        SqlStageExecution stageExecution = new SqlStageExecution(new QueryId("query"),
+                new MockLocationFactory(),
+                createTableScanPlan(),
+                nodeScheduler,
+                remoteTaskFactory,
+                SESSION,
+                SPLIT_BATCH_SIZE,
+                MAX_PENDING_SPLITS_PER_NODE,
+                8,      // initialHashPartitions
+                executor,
+                outputBuffers);
+
+        final CountDownLatch finished = new CountDownLatch(1);
+        stageExecution.addStateChangeListener(new StateChangeListener<StageInfo>()
+        {
+            @Override
+            public void stateChanged(StageInfo stageInfo)
+            {
+                if (stageInfo.getState().isDone()) {
+                    finished.countDown();
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        Future<?> future = stageExecution.start();
+        future.get();
+        long scheduled = System.nanoTime();
+        finished.await();
+        long end = System.nanoTime();
+
+        if (stageExecution.getState() != StageState.FINISHED) {
+            throw new IllegalStateException("Stage did not finish: " + stageExecution.getState());
+        }
+
+        timeToFirstRow.add(remoteTaskFactory.getFirstSplitCompleted() - start);
+        schedulingTime.add(scheduled - start);
+        totalTime.add(end - start);
+    }
+
+    private StageExecutionPlan createTableScanPlan()
+    {
+        TableHandle tableHandle = metadata.getTableHandle(new QualifiedTableName("default", "default", DualMetadata.NAME)).get();
+        ColumnHandle columnHandle = metadata.getColumnHandle(tableHandle, DualMetadata.COLUMN_NAME).get();
+        Symbol symbol = new Symbol(DualMetadata.COLUMN_NAME);
+
+        PlanNodeId tableScanNodeId = new PlanNodeId("scan");
+        PlanFragment fragment = new PlanFragment(
+                new PlanFragmentId("scan"),
+                new TableScanNode(
+                        tableScanNodeId,
+                        tableHandle,
+                        ImmutableList.of(symbol),
+                        ImmutableMap.of(symbol, columnHandle),
+                        null,
+                        Optional.<GeneratedPartitions>absent()),
+                ImmutableMap.<Symbol, Type>of(symbol, VARCHAR),
+                PlanDistribution.SOURCE,
+                tableScanNodeId,
+                OutputPartitioning.NONE,
+                ImmutableList.<Symbol>of());
+
+        ImmutableList.Builder<Split> splits = ImmutableList.builder();
+        for (int i = 0; i < SPLIT_COUNT; i++) {
+            splits.add(new DualSplit(HostAddress.fromString("127.0.0.1")));
+        }
+
+        return new StageExecutionPlan(fragment,
+                Optional.of(new FixedSplitSource(null, splits.build())),
+                ImmutableList.<StageExecutionPlan>of());
+    }
+
+    private static void print(String name, Distribution distribution)
+    {
+        System.out.printf("%20s :: p50 %10s :: p90 %10s :: max %10s%n",
+                name,
+                new Duration(distribution.getP50(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
+                new Duration(distribution.getP90(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
+                new Duration(distribution.getMax(), NANOSECONDS).convertToMostSuccinctTimeUnit());
+    }
+
+    private static class SimulatedRemoteTaskFactory
+            implements RemoteTaskFactory
+    {
+        private final ExecutorService executor;
+        private final AtomicLong firstSplitCompleted = new AtomicLong();
+
+        private SimulatedRemoteTaskFactory(ExecutorService executor)
+        {
+            this.executor = executor;
+        }
+
+        public long getFirstSplitCompleted()
+        {
+            return firstSplitCompleted.get();
+        }
+
+        @Override
+        public RemoteTask createRemoteTask(Session session, TaskId taskId, Node node, PlanFragment fragment, Multimap<PlanNodeId, Split> initialSplits, OutputBuffers outputBuffers)
+        {
+            return new SimulatedRemoteTask(taskId, node, fragment, initialSplits);
+        }
+
+        /**
+         * Runs the splits of the task one at a time, and reports a new task info after each split like a remote task would.
+         */
+        private class SimulatedRemoteTask
+                implements RemoteTask
+        {
+            private final AtomicLong nextTaskInfoVersion = new AtomicLong(TaskInfo.STARTING_VERSION);
+
+            private final String nodeId;
+            private final URI location;
+            private final PlanFragment fragment;
+            private final TaskStateMachine taskStateMachine;
+            private final TaskContext taskContext;
+            private final SharedBuffer sharedBuffer;
+
+            private final Queue<Split> queuedSplits = new ConcurrentLinkedQueue<>();
+            private final AtomicInteger queuedSplitCount = new AtomicInteger();
+            private final AtomicBoolean running = new AtomicBoolean();
+            private final AtomicBoolean noMoreSplits = new AtomicBoolean();
+            private final List<StateChangeListener<TaskInfo>> stateChangeListeners = new CopyOnWriteArrayList<>();
+
+            private SimulatedRemoteTask(TaskId taskId, Node node, PlanFragment fragment, Multimap<PlanNodeId, Split> initialSplits)
+            {
+                this.nodeId = node.getNodeIdentifier();
+                this.location = URI.create("fake://task/" + taskId);
+                this.fragment = fragment;
+                this.taskStateMachine = new TaskStateMachine(taskId, executor);
+                this.taskContext = new TaskContext(taskStateMachine, executor, SESSION, new DataSize(256, MEGABYTE), new DataSize(1, MEGABYTE), true);
+                this.sharedBuffer = new SharedBuffer(taskId, executor, new DataSize(1, BYTE), INITIAL_EMPTY_OUTPUT_BUFFERS);
+                queue(initialSplits.get(fragment.getPartitionedSource()));
+            }
+
+            @Override
+            public String getNodeId()
+            {
+                return nodeId;
+            }
+
+            @Override
+            public TaskInfo getTaskInfo()
+            {
+                return new TaskInfo(
+                        taskStateMachine.getTaskId(),
+                        nextTaskInfoVersion.getAndIncrement(),
+                        taskStateMachine.getState(),
+                        location,
+                        DateTime.now(),
+                        sharedBuffer.getInfo(),
+                        ImmutableSet.<PlanNodeId>of(),
+                        taskContext.getTaskStats(),
+                        ImmutableList.<ExecutionFailureInfo>of());
+            }
+
+            @Override
+            public void start()
+            {
+                scheduleRun();
+            }
+
+            @Override
+            public void addSplits(PlanNodeId sourceId, Iterable<? extends Split> splits)
+            {
+                if (sourceId.equals(fragment.getPartitionedSource())) {
+                    queue(splits);
+                    scheduleRun();
+                }
+            }
+
+            @Override
+            public void noMoreSplits(PlanNodeId sourceId)
+            {
+                if (sourceId.equals(fragment.getPartitionedSource())) {
+                    noMoreSplits.set(true);
+                    scheduleRun();
+                }
+            }
+
+            @Override
+            public void setOutputBuffers(OutputBuffers outputBuffers)
+            {
+                sharedBuffer.setOutputBuffers(outputBuffers);
+            }
+
+            @Override
+            public void addStateChangeListener(StateChangeListener<TaskInfo> stateChangeListener)
+            {
+                stateChangeListeners.add(stateChangeListener);
+            }
+
+            @Override
+            public void cancel()
+            {
+                taskStateMachine.cancel();
+                fireStateChanged();
+            }
+
+            @Override
+            public int getQueuedSplits()
+            {
+                return queuedSplitCount.get();
+            }
+
+            @Override
+            public int getRunningSplits()
+            {
+                return 0;
+            }
+
+            @Override
+            public Duration waitForTaskToFinish(Duration maxWait)
+                    throws InterruptedException
+            {
+                while (true) {
+                    TaskState currentState = taskStateMachine.getState();
+                    if (maxWait.toMillis() <= 1 || currentState.isDone()) {
+                        return maxWait;
+                    }
+                    maxWait = taskStateMachine.waitForStateChange(currentState, maxWait);
+                }
+            }
+
+            private void queue(Iterable<? extends Split> splits)
+            {
+                for (Split split : splits) {
+                    queuedSplits.add(split);
+                    queuedSplitCount.incrementAndGet();
+                }
+            }
+
+            private void scheduleRun()
+            {
+                if (running.compareAndSet(false, true)) {
+                    executor.execute(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            runSplits();
+                        }
+                    });
+                }
+            }
+
+            private void runSplits()
+            {
+                while (true) {
+                    while (queuedSplits.poll() != null) {
+                        LockSupport.parkNanos((long) SPLIT_DURATION.getValue(NANOSECONDS));
+                        queuedSplitCount.decrementAndGet();
+                        firstSplitCompleted.compareAndSet(0, System.nanoTime());
+                        fireStateChanged();
+                    }
+                    if (noMoreSplits.get() && !taskStateMachine.getState().isDone()) {
+                        taskStateMachine.finished();
+                        fireStateChanged();
+                    }
+
+                    running.set(false);
+                    // splits or the no more splits signal may have arrived after the queue was drained
+                    boolean moreWork = !queuedSplits.isEmpty() || (noMoreSplits.get() && !taskStateMachine.getState().isDone());
+                    if (!moreWork || !running.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            }
+
+            private void fireStateChanged()
+            {
+                TaskInfo taskInfo = getTaskInfo();
+                for (StateChangeListener<TaskInfo> listener : stateChangeListeners) {
+                    listener.stateChanged(taskInfo);
+                }
+            }
+        }
+    }
+}
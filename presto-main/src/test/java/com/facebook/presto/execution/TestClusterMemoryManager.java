@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.StandardErrorCode;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.spi.StandardErrorCode.CLUSTER_OUT_OF_MEMORY;
+import static com.facebook.presto.spi.StandardErrorCode.EXCEEDED_MEMORY_LIMIT;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TestClusterMemoryManager
+{
+    @Test
+    public void testQueryExceedingMaxMemoryIsFailed()
+    {
+        ClusterMemoryManager memoryManager = new ClusterMemoryManager(new ClusterMemoryManagerConfig()
+                .setEnabled(true)
+                .setMaxQueryMemory(new DataSize(10, MEGABYTE)));
+
+        MockQueryExecution large = runningQuery("large", 20);
+        MockQueryExecution small = runningQuery("small", 5);
+        memoryManager.process(ImmutableList.<QueryExecution>of(large, small));
+
+        assertFailed(large, EXCEEDED_MEMORY_LIMIT);
+        assertEquals(small.getState(), QueryState.RUNNING);
+        assertEquals(memoryManager.getRunningQueries(), 1);
+        assertEquals(memoryManager.getReservedBytes(), new DataSize(5, MEGABYTE).toBytes());
+        assertEquals(memoryManager.getQueriesExceededQueryLimit().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testLargestQueryIsKilledWhenClusterIsOutOfMemory()
+    {
+        ClusterMemoryManager memoryManager = new ClusterMemoryManager(new ClusterMemoryManagerConfig()
+                .setEnabled(true)
+                .setMaxQueryMemory(new DataSize(20, MEGABYTE))
+                .setMaxClusterMemory(new DataSize(10, MEGABYTE)));
+
+        MockQueryExecution small = runningQuery("small", 4);
+        MockQueryExecution large = runningQuery("large", 8);
+        memoryManager.process(ImmutableList.<QueryExecution>of(small, large));
+
+        assertFailed(large, CLUSTER_OUT_OF_MEMORY);
+        assertEquals(small.getState(), QueryState.RUNNING);
+        assertEquals(memoryManager.getRunningQueries(), 1);
+        assertEquals(memoryManager.getReservedBytes(), new DataSize(4, MEGABYTE).toBytes());
+        assertEquals(memoryManager.getQueriesKilledForClusterLimit().getTotalCount(), 1);
+
+        // the remaining query fits, so nothing else is killed
+        memoryManager.process(ImmutableList.<QueryExecution>of(small, large));
+        assertEquals(small.getState(), QueryState.RUNNING);
+        assertEquals(memoryManager.getQueriesKilledForClusterLimit().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testQueuedQueriesAreIgnored()
+    {
+        ClusterMemoryManager memoryManager = new ClusterMemoryManager(new ClusterMemoryManagerConfig()
+                .setEnabled(true)
+                .setMaxQueryMemory(new DataSize(10, MEGABYTE))
+                .setMaxClusterMemory(new DataSize(10, MEGABYTE)));
+
+        MockQueryExecution queued = new MockQueryExecution("queued", "cli", "alice");
+        queued.setMemoryReservation(new DataSize(20, MEGABYTE));
+        MockQueryExecution running = runningQuery("running", 5);
+        memoryManager.process(ImmutableList.<QueryExecution>of(queued, running));
+
+        assertEquals(queued.getState(), QueryState.QUEUED);
+        assertNull(queued.getFailureCause());
+        assertEquals(running.getState(), QueryState.RUNNING);
+        assertEquals(memoryManager.getRunningQueries(), 1);
+        assertEquals(memoryManager.getReservedBytes(), new DataSize(5, MEGABYTE).toBytes());
+    }
+
+    @Test
+    public void testDisabledManagerOnlyTracksMemory()
+    {
+        ClusterMemoryManager memoryManager = new ClusterMemoryManager(new ClusterMemoryManagerConfig()
+                .setMaxQueryMemory(new DataSize(10, MEGABYTE))
+                .setMaxClusterMemory(new DataSize(10, MEGABYTE)));
+
+        MockQueryExecution query = runningQuery("query", 20);
+        memoryManager.process(ImmutableList.<QueryExecution>of(query));
+
+        assertEquals(query.getState(), QueryState.RUNNING);
+        assertEquals(memoryManager.getRunningQueries(), 1);
+        assertEquals(memoryManager.getReservedBytes(), new DataSize(20, MEGABYTE).toBytes());
+    }
+
+    private static MockQueryExecution runningQuery(String queryId, long memoryInMegabytes)
+    {
+        MockQueryExecution queryExecution = new MockQueryExecution(queryId, "cli", "alice");
+        queryExecution.start();
+        queryExecution.setMemoryReservation(new DataSize(memoryInMegabytes, MEGABYTE));
+        return queryExecution;
+    }
+
+    private static void assertFailed(MockQueryExecution queryExecution, StandardErrorCode errorCode)
+    {
+        assertEquals(queryExecution.getState(), QueryState.FAILED);
+        assertEquals(((PrestoException) queryExecution.getFailureCause()).getErrorCode().getCode(), errorCode.toErrorCode().getCode());
+    }
+}
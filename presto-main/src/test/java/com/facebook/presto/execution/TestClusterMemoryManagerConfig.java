@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+public class TestClusterMemoryManagerConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(ClusterMemoryManagerConfig.class)
+                .setEnabled(false)
+                .setMaxQueryMemory(new DataSize(20, Unit.GIGABYTE))
+                .setMaxClusterMemory(null));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("query.cluster-memory-manager.enabled", "true")
+                .put("query.max-memory", "2GB")
+                .put("query.max-cluster-memory", "100GB")
+                .build();
+
+        ClusterMemoryManagerConfig expected = new ClusterMemoryManagerConfig()
+                .setEnabled(true)
+                .setMaxQueryMemory(new DataSize(2, Unit.GIGABYTE))
+                .setMaxClusterMemory(new DataSize(100, Unit.GIGABYTE));
+
+        ConfigAssertions.assertFullMapping(properties, expected);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.execution.NodeScheduler.NodeSelector;
+import com.facebook.presto.metadata.InMemoryNodeManager;
+import com.facebook.presto.metadata.NodeVersion;
+import com.facebook.presto.metadata.PrestoNode;
+import com.facebook.presto.spi.BucketedSplit;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.SizedSplit;
+import com.facebook.presto.spi.Split;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestNodeScheduler
+{
+    private NodeScheduler nodeScheduler;
+    private NodeSelector nodeSelector;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        InMemoryNodeManager nodeManager = new InMemoryNodeManager();
+        nodeManager.addNode("foo", ImmutableList.<Node>of(
+                new PrestoNode("other1", URI.create("http://127.0.0.1:11"), NodeVersion.UNKNOWN),
+                new PrestoNode("other2", URI.create("http://127.0.0.1:12"), NodeVersion.UNKNOWN),
+                new PrestoNode("other3", URI.create("http://127.0.0.1:13"), NodeVersion.UNKNOWN)));
+        nodeScheduler = new NodeScheduler(nodeManager, new NodeSchedulerConfig());
+        nodeSelector = nodeScheduler.createNodeSelector(null, new ConcurrentHashMap<Node, RemoteTask>(), 100);
+    }
+
+    @Test
+    public void testBucketAffinity()
+    {
+        Map<Integer, Node> bucketNodes = new HashMap<>();
+        for (int batch = 0; batch < 5; batch++) {
+            ImmutableSet.Builder<Split> splits = ImmutableSet.builder();
+            for (int bucket = 0; bucket < 10; bucket++) {
+                splits.add(new TestBucketedSplit(bucket));
+                splits.add(new TestBucketedSplit(bucket));
+            }
+
+            Multimap<Node, Split> assignments = nodeSelector.computeAssignments(splits.build());
+            assertEquals(assignments.size(), 20);
+            for (Map.Entry<Node, Split> entry : assignments.entries()) {
+                int bucket = ((TestBucketedSplit) entry.getValue()).getBucketNumber();
+                Node previous = bucketNodes.put(bucket, entry.getKey());
+                if (previous != null) {
+                    assertEquals(entry.getKey(), previous, "bucket " + bucket + " was scheduled on different nodes");
+                }
+            }
+        }
+        assertEquals(bucketNodes.size(), 10);
+        assertTrue(nodeScheduler.getScheduleBucket() > 0);
+    }
+
+    @Test
+    public void testUnbucketedSplitsAreNotPinned()
+    {
+        ImmutableSet.Builder<Split> splits = ImmutableSet.builder();
+        for (int i = 0; i < 20; i++) {
+            splits.add(new TestBucketedSplit(BucketedSplit.NOT_BUCKETED));
+        }
+
+        Multimap<Node, Split> assignments = nodeSelector.computeAssignments(splits.build());
+        assertEquals(assignments.size(), 20);
+        assertEquals(nodeScheduler.getScheduleBucket(), 0);
+    }
+
+    @Test
+    public void testSplitsAreBalancedBySize()
+    {
+        long standardSplitSize = new NodeSchedulerConfig().getStandardSplitSize().toBytes();
+
+        ImmutableSet.Builder<Split> splits = ImmutableSet.builder();
+        Split largeSplit = new TestSizedSplit(10 * standardSplitSize);
+        splits.add(largeSplit);
+        for (int i = 0; i < 10; i++) {
+            splits.add(new TestSizedSplit(standardSplitSize));
+        }
+
+        Multimap<Node, Split> assignments = nodeSelector.computeAssignments(splits.build());
+        assertEquals(assignments.size(), 11);
+
+        // the node running the large split does not get any of the small splits
+        Node largeSplitNode = null;
+        for (Map.Entry<Node, Split> entry : assignments.entries()) {
+            if (entry.getValue() == largeSplit) {
+                largeSplitNode = entry.getKey();
+            }
+        }
+        assertEquals(Iterables.getOnlyElement(assignments.get(largeSplitNode)), largeSplit);
+    }
+
+    @Test
+    public void testFindSlowNodes()
+    {
+        Node node1 = new PrestoNode("node1", URI.create("http://127.0.0.1:21"), NodeVersion.UNKNOWN);
+        Node node2 = new PrestoNode("node2", URI.create("http://127.0.0.1:22"), NodeVersion.UNKNOWN);
+        Node node3 = new PrestoNode("node3", URI.create("http://127.0.0.1:23"), NodeVersion.UNKNOWN);
+        Node node4 = new PrestoNode("node4", URI.create("http://127.0.0.1:24"), NodeVersion.UNKNOWN);
+
+        assertEquals(NodeScheduler.findSlowNodes(ImmutableMap.of(node1, 100.0, node2, 90.0, node3, 10.0, node4, 110.0), 0.25), ImmutableSet.of(node3));
+        assertEquals(NodeScheduler.findSlowNodes(ImmutableMap.of(node1, 100.0, node2, 90.0, node3, 30.0, node4, 110.0), 0.25), ImmutableSet.of());
+
+        // too few nodes to tell
+        assertEquals(NodeScheduler.findSlowNodes(ImmutableMap.of(node1, 100.0, node3, 10.0), 0.25), ImmutableSet.of());
+    }
+
+    private static class TestSizedSplit
+            implements SizedSplit
+    {
+        private final long sizeInBytes;
+
+        private TestSizedSplit(long sizeInBytes)
+        {
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        @Override
+        public long getSizeInBytes()
+        {
+            return sizeInBytes;
+        }
+
+        @Override
+        public boolean isRemotelyAccessible()
+        {
+            return true;
+        }
+
+        @Override
+        public List<HostAddress> getAddresses()
+        {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public Object getInfo()
+        {
+            return this;
+        }
+    }
+
+    private static class TestBucketedSplit
+            implements BucketedSplit
+    {
+        private final int bucketNumber;
+
+        private TestBucketedSplit(int bucketNumber)
+        {
+            this.bucketNumber = bucketNumber;
+        }
+
+        @Override
+        public int getBucketNumber()
+        {
+            return bucketNumber;
+        }
+
+        @Override
+        public boolean isRemotelyAccessible()
+        {
+            return true;
+        }
+
+        @Override
+        public List<HostAddress> getAddresses()
+        {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public Object getInfo()
+        {
+            return this;
+        }
+    }
+}
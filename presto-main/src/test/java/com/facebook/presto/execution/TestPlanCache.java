@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.metadata.QualifiedTableName;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.parser.SqlParser;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.PlanFragment.OutputPartitioning;
+import com.facebook.presto.sql.planner.PlanFragment.PlanDistribution;
+import com.facebook.presto.sql.planner.SubPlan;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.PlanFragmentId;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestPlanCache
+{
+    private static final Session SESSION = new Session("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+
+    private final PlanCache planCache = new PlanCache(new PlanCacheConfig().setEnabled(true));
+
+    @Test
+    public void testKeyIgnoresFormatting()
+    {
+        Optional<String> key = createKey(SESSION, "SELECT a, count(*) FROM t WHERE b = 1 GROUP BY a");
+        assertTrue(key.isPresent());
+        assertEquals(createKey(SESSION, "select a,count(*)\nfrom t\n  where b=1\ngroup by a"), key);
+
+        assertNotEquals(createKey(SESSION, "SELECT a, count(*) FROM t WHERE b = 2 GROUP BY a"), key);
+
+        Session otherSchema = new Session("user", "source", "catalog", "other", UTC_KEY, Locale.ENGLISH, "address", "agent");
+        assertNotEquals(createKey(otherSchema, "SELECT a, count(*) FROM t WHERE b = 1 GROUP BY a"), key);
+    }
+
+    @Test
+    public void testNoKeyForStatementsOtherThanQueries()
+    {
+        assertFalse(createKey(SESSION, "SHOW TABLES").isPresent());
+        assertFalse(createKey(SESSION, "CREATE TABLE t AS SELECT 1 a").isPresent());
+        assertFalse(createKey(SESSION, "DROP TABLE t").isPresent());
+    }
+
+    @Test
+    public void testNoKeyForTimeDependentQueries()
+    {
+        assertFalse(createKey(SESSION, "SELECT now()").isPresent());
+        assertFalse(createKey(SESSION, "SELECT a FROM t WHERE b > current_date").isPresent());
+        assertFalse(createKey(SESSION, "SELECT current_timestamp").isPresent());
+        assertFalse(createKey(SESSION, "SELECT a FROM t WHERE b IN (SELECT localtime FROM u)").isPresent());
+    }
+
+    @Test
+    public void testNoKeyWhenDisabled()
+    {
+        PlanCache disabled = new PlanCache(new PlanCacheConfig());
+        assertFalse(disabled.createKey(SESSION, SqlParser.createStatement("SELECT a FROM t")).isPresent());
+    }
+
+    @Test
+    public void testCachedPlanIsReturned()
+    {
+        String key = createKey(SESSION, "SELECT 1").get();
+        assertFalse(planCache.get(key, Predicates.<CachedPlan>alwaysTrue()).isPresent());
+        assertEquals(planCache.getMisses(), 1);
+
+        CachedPlan plan = cachedPlan();
+        planCache.put(key, plan);
+        assertSame(planCache.get(key, Predicates.<CachedPlan>alwaysTrue()).get(), plan);
+        assertEquals(planCache.getHits(), 1);
+        assertEquals(planCache.getSize(), 1);
+
+        planCache.invalidateAll();
+        assertFalse(planCache.get(key, Predicates.<CachedPlan>alwaysTrue()).isPresent());
+        assertEquals(planCache.getMisses(), 2);
+    }
+
+    @Test
+    public void testStalePlanIsDropped()
+    {
+        PlanCache planCache = new PlanCache(new PlanCacheConfig().setEnabled(true));
+        String key = createKey(SESSION, "SELECT 1").get();
+        planCache.put(key, cachedPlan());
+
+        assertFalse(planCache.get(key, Predicates.<CachedPlan>alwaysFalse()).isPresent());
+        assertEquals(planCache.getStale(), 1);
+        assertEquals(planCache.getMisses(), 1);
+        assertEquals(planCache.getSize(), 0);
+
+        // the stale plan is not returned again, even if it would be current now
+        assertFalse(planCache.get(key, Predicates.<CachedPlan>alwaysTrue()).isPresent());
+        assertEquals(planCache.getMisses(), 2);
+    }
+
+    private Optional<String> createKey(Session session, String sql)
+    {
+        return planCache.createKey(session, SqlParser.createStatement(sql));
+    }
+
+    private static CachedPlan cachedPlan()
+    {
+        Symbol symbol = new Symbol("a");
+        ValuesNode values = new ValuesNode(new PlanNodeId("values"), ImmutableList.of(symbol), ImmutableList.<List<Expression>>of(ImmutableList.<Expression>of(new LongLiteral("1"))));
+        PlanFragment fragment = new PlanFragment(
+                new PlanFragmentId("fragment"),
+                values,
+                ImmutableMap.<Symbol, Type>of(symbol, BIGINT),
+                PlanDistribution.NONE,
+                null,
+                OutputPartitioning.NONE,
+                ImmutableList.<Symbol>of());
+        return new CachedPlan(new Plan(values, new SymbolAllocator()), new SubPlan(fragment, ImmutableList.<SubPlan>of()), ImmutableList.<Input>of(),
+                ImmutableMap.<QualifiedTableName, TableHandle>of(),
+                ImmutableMap.<QualifiedTableName, Map<String, ColumnHandle>>of(),
+                1_000_000);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class TestPlanCacheConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(PlanCacheConfig.class)
+                .setEnabled(false)
+                .setMaxEntries(1000)
+                .setTtl(new Duration(1, TimeUnit.MINUTES)));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("query.plan-cache.enabled", "true")
+                .put("query.plan-cache.max-entries", "50")
+                .put("query.plan-cache.ttl", "5m")
+                .build();
+
+        PlanCacheConfig expected = new PlanCacheConfig()
+                .setEnabled(true)
+                .setMaxEntries(50)
+                .setTtl(new Duration(5, TimeUnit.MINUTES));
+
+        ConfigAssertions.assertFullMapping(properties, expected);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+public class TestQueryQueueConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(QueryQueueConfig.class)
+                .setMaxConcurrentQueries(1000)
+                .setMaxQueuedQueries(5000)
+                .setMaxConcurrentQueriesPerSource(1000)
+                .setMaxQueuedQueriesPerSource(5000)
+                .setMaxConcurrentQueriesPerUser(1000)
+                .setMaxQueuedQueriesPerUser(5000)
+                .setSoftMemoryLimit(null));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("query.queue.max-concurrent-queries", "10")
+                .put("query.queue.max-queued-queries", "20")
+                .put("query.queue.max-concurrent-queries-per-source", "5")
+                .put("query.queue.max-queued-queries-per-source", "15")
+                .put("query.queue.max-concurrent-queries-per-user", "2")
+                .put("query.queue.max-queued-queries-per-user", "3")
+                .put("query.queue.soft-memory-limit", "100GB")
+                .build();
+
+        QueryQueueConfig expected = new QueryQueueConfig()
+                .setMaxConcurrentQueries(10)
+                .setMaxQueuedQueries(20)
+                .setMaxConcurrentQueriesPerSource(5)
+                .setMaxQueuedQueriesPerSource(15)
+                .setMaxConcurrentQueriesPerUser(2)
+                .setMaxQueuedQueriesPerUser(3)
+                .setSoftMemoryLimit(new DataSize(100, Unit.GIGABYTE));
+
+        ConfigAssertions.assertFullMapping(properties, expected);
+    }
+}
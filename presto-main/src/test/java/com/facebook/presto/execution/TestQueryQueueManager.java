@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.spi.StandardErrorCode.QUERY_QUEUE_FULL;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestQueryQueueManager
+{
+    @Test
+    public void testQueriesStartInSubmissionOrder()
+    {
+        QueryQueueManager queueManager = new QueryQueueManager(new QueryQueueConfig().setMaxConcurrentQueries(1));
+        List<String> started = new ArrayList<>();
+
+        MockQueryExecution first = submit(queueManager, "first", "cli", "alice", started);
+        MockQueryExecution second = submit(queueManager, "second", "cli", "bob", started);
+        MockQueryExecution third = submit(queueManager, "third", "cli", "alice", started);
+        assertEquals(started, ImmutableList.of("first"));
+        assertEquals(queueManager.getRunningQueries(), 1);
+        assertEquals(queueManager.getQueuedQueries(), 2);
+
+        first.finish();
+        assertEquals(started, ImmutableList.of("first", "second"));
+        assertEquals(third.getState(), QueryState.QUEUED);
+
+        second.finish();
+        assertEquals(started, ImmutableList.of("first", "second", "third"));
+
+        third.finish();
+        assertEquals(queueManager.getRunningQueries(), 0);
+        assertEquals(queueManager.getQueuedQueries(), 0);
+    }
+
+    @Test
+    public void testBusyGroupDoesNotBlockOtherGroups()
+    {
+        QueryQueueManager queueManager = new QueryQueueManager(new QueryQueueConfig().setMaxConcurrentQueriesPerUser(1));
+        List<String> started = new ArrayList<>();
+
+        MockQueryExecution alice1 = submit(queueManager, "alice1", "cli", "alice", started);
+        MockQueryExecution alice2 = submit(queueManager, "alice2", "cli", "alice", started);
+        MockQueryExecution bob = submit(queueManager, "bob", "cli", "bob", started);
+
+        assertEquals(started, ImmutableList.of("alice1", "bob"));
+        assertEquals(alice2.getState(), QueryState.QUEUED);
+        assertEquals(queueManager.getRunningQueries(), 2);
+        assertEquals(queueManager.getQueuedQueries(), 1);
+
+        bob.finish();
+        assertEquals(alice2.getState(), QueryState.QUEUED);
+
+        alice1.finish();
+        assertEquals(started, ImmutableList.of("alice1", "bob", "alice2"));
+    }
+
+    @Test
+    public void testSoftMemoryLimit()
+    {
+        QueryQueueManager queueManager = new QueryQueueManager(new QueryQueueConfig().setSoftMemoryLimit(new DataSize(1, MEGABYTE)));
+        List<String> started = new ArrayList<>();
+
+        MockQueryExecution first = submit(queueManager, "first", "cli", "alice", started);
+        first.setMemoryReservation(new DataSize(2, MEGABYTE));
+
+        MockQueryExecution second = submit(queueManager, "second", "cli", "alice", started);
+        assertEquals(started, ImmutableList.of("first"));
+        assertEquals(second.getState(), QueryState.QUEUED);
+
+        first.setMemoryReservation(new DataSize(0, BYTE));
+        queueManager.processQueue();
+        assertEquals(started, ImmutableList.of("first", "second"));
+
+        // the limit is soft, so a query starts on an idle cluster regardless of the memory it needs
+        first.finish();
+        second.finish();
+        MockQueryExecution third = submit(queueManager, "third", "cli", "alice", started);
+        third.setMemoryReservation(new DataSize(2, MEGABYTE));
+        assertEquals(third.getState(), QueryState.RUNNING);
+    }
+
+    @Test
+    public void testCancelWhileQueuedReleasesQueueSlot()
+    {
+        QueryQueueManager queueManager = new QueryQueueManager(new QueryQueueConfig()
+                .setMaxConcurrentQueries(1)
+                .setMaxQueuedQueries(1));
+        List<String> started = new ArrayList<>();
+
+        MockQueryExecution running = submit(queueManager, "running", "cli", "alice", started);
+        MockQueryExecution queued = submit(queueManager, "queued", "cli", "alice", started);
+
+        MockQueryExecution rejected = new MockQueryExecution("rejected", "cli", "alice");
+        assertFalse(queueManager.submit(rejected.getQueryInfo().getSession(), rejected, starter(rejected, started)));
+        assertEquals(rejected.getState(), QueryState.FAILED);
+        assertEquals(((PrestoException) rejected.getFailureCause()).getErrorCode().getCode(), QUERY_QUEUE_FULL.toErrorCode().getCode());
+        assertEquals(queueManager.getRejectedQueries().getTotalCount(), 1);
+
+        queued.cancel();
+        assertEquals(queueManager.getQueuedQueries(), 0);
+
+        MockQueryExecution next = submit(queueManager, "next", "cli", "alice", started);
+        assertEquals(next.getState(), QueryState.QUEUED);
+
+        running.finish();
+        assertEquals(started, ImmutableList.of("running", "next"));
+        assertEquals(queued.getState(), QueryState.CANCELED);
+    }
+
+    @Test
+    public void testQueryIsAdmittedWithoutQueueOnIdleCluster()
+    {
+        QueryQueueManager queueManager = new QueryQueueManager(new QueryQueueConfig()
+                .setMaxConcurrentQueries(1)
+                .setMaxQueuedQueries(0));
+        List<String> started = new ArrayList<>();
+
+        MockQueryExecution first = submit(queueManager, "first", "cli", "alice", started);
+        assertEquals(first.getState(), QueryState.RUNNING);
+
+        MockQueryExecution second = new MockQueryExecution("second", "cli", "alice");
+        assertFalse(queueManager.submit(second.getQueryInfo().getSession(), second, starter(second, started)));
+        assertEquals(started, ImmutableList.of("first"));
+    }
+
+    private static MockQueryExecution submit(QueryQueueManager queueManager, String queryId, String source, String user, List<String> started)
+    {
+        MockQueryExecution queryExecution = new MockQueryExecution(queryId, source, user);
+        assertTrue(queueManager.submit(queryExecution.getQueryInfo().getSession(), queryExecution, starter(queryExecution, started)));
+        return queryExecution;
+    }
+
+    private static Runnable starter(final MockQueryExecution queryExecution, final List<String> started)
+    {
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                started.add(queryExecution.getQueryInfo().getQueryId().toString());
+                queryExecution.start();
+            }
+        };
+    }
+}
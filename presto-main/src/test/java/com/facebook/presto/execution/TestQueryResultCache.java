@@ -0,0 +1,278 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.connector.dual.DualSplitManager;
+import com.facebook.presto.connector.dual.DualTableHandle;
+import com.facebook.presto.connector.informationSchema.InformationSchemaTableHandle;
+import com.facebook.presto.connector.system.SystemTableHandle;
+import com.facebook.presto.metadata.InMemoryNodeManager;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.OutputTableHandle;
+import com.facebook.presto.spi.Partition;
+import com.facebook.presto.spi.PartitionResult;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.SplitSource;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.split.SplitManager;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SampleNode;
+import com.facebook.presto.sql.planner.plan.TableCommitNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static com.facebook.presto.operator.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestQueryResultCache
+{
+    private static final Session SESSION = new Session("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+
+    private static final TableHandle PARTITIONED_TABLE = new TableHandle() {};
+
+    private SymbolAllocator symbolAllocator;
+    private PlanNodeIdAllocator idAllocator;
+    private Symbol value;
+    private List<String> partitionIds;
+    private SplitManager splitManager;
+    private QueryResultCache cache;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        symbolAllocator = new SymbolAllocator();
+        idAllocator = new PlanNodeIdAllocator();
+        value = symbolAllocator.newSymbol("value", BIGINT);
+        partitionIds = new ArrayList<>();
+        splitManager = new SplitManager(ImmutableSet.<ConnectorSplitManager>of(new DualSplitManager(new InMemoryNodeManager()), new PartitionedTableSplitManager()));
+        cache = new QueryResultCache(new QueryResultCacheConfig()
+                .setEnabled(true)
+                .setMaxResultSize(new DataSize(1, Unit.KILOBYTE)), splitManager);
+    }
+
+    @Test
+    public void testCreateKey()
+    {
+        Plan plan = plan(project(values(), new QualifiedNameReference(value.toQualifiedName())));
+
+        Optional<String> key = cache.createKey(SESSION, plan);
+        assertTrue(key.isPresent());
+        assertEquals(cache.createKey(SESSION, plan), key);
+
+        Session otherSchema = new Session("user", "source", "catalog", "other", UTC_KEY, Locale.ENGLISH, "address", "agent");
+        assertNotEquals(cache.createKey(otherSchema, plan), key);
+
+        QueryResultCache disabled = new QueryResultCache(new QueryResultCacheConfig().setEnabled(false), splitManager);
+        assertFalse(disabled.createKey(SESSION, plan).isPresent());
+    }
+
+    @Test
+    public void testNonDeterministicFunctions()
+    {
+        assertNotCacheable(project(values(), function("rand")));
+        assertNotCacheable(project(values(), function("now")));
+        assertNotCacheable(project(values(), function("current_date")));
+    }
+
+    @Test
+    public void testSample()
+    {
+        assertNotCacheable(new SampleNode(idAllocator.getNextId(), values(), 0.5, SampleNode.Type.BERNOULLI, false, Optional.<Symbol>absent()));
+    }
+
+    @Test
+    public void testTableWriter()
+    {
+        Symbol rows = symbolAllocator.newSymbol("rows", BIGINT);
+        Symbol fragment = symbolAllocator.newSymbol("fragment", BIGINT);
+        TableWriterNode writer = new TableWriterNode(
+                idAllocator.getNextId(),
+                values(),
+                new OutputTableHandle() {},
+                ImmutableList.of(value),
+                ImmutableList.of("value"),
+                ImmutableList.<String>of(),
+                ImmutableList.of(rows, fragment),
+                Optional.<Symbol>absent());
+
+        assertNotCacheable(writer);
+        assertNotCacheable(new TableCommitNode(idAllocator.getNextId(), writer, null, ImmutableList.of(rows)));
+    }
+
+    @Test
+    public void testSystemTables()
+    {
+        assertTrue(cache.createKey(SESSION, plan(tableScan(new DualTableHandle("default")))).isPresent());
+
+        assertNotCacheable(tableScan(new SystemTableHandle("sys", "node")));
+        assertNotCacheable(tableScan(new InformationSchemaTableHandle("catalog", "information_schema", "tables")));
+    }
+
+    @Test
+    public void testKeyChangesWithPartitions()
+    {
+        Plan plan = plan(tableScan(PARTITIONED_TABLE));
+        partitionIds.add("ds=2014-01-01");
+        Optional<String> key = cache.createKey(SESSION, plan);
+        assertTrue(key.isPresent());
+
+        // a new partition changes the key, so results from before it was added are not reused
+        partitionIds.add("ds=2014-01-02");
+        Optional<String> withNewPartition = cache.createKey(SESSION, plan);
+        assertNotEquals(withNewPartition, key);
+
+        // the order the connector lists the partitions in does not matter
+        Collections.reverse(partitionIds);
+        assertEquals(cache.createKey(SESSION, plan), withNewPartition);
+
+        partitionIds.remove("ds=2014-01-02");
+        assertEquals(cache.createKey(SESSION, plan), key);
+    }
+
+    @Test
+    public void testResultSize()
+    {
+        CachedQueryResult small = new CachedQueryResult(ImmutableList.of("value"), ImmutableList.<Type>of(BIGINT), rowPagesBuilder(BIGINT).row(1).build());
+        cache.put("small", small);
+        assertSame(cache.get("small").get(), small);
+        assertFalse(cache.get("large").isPresent());
+        assertEquals(cache.getHits(), 1);
+        assertEquals(cache.getMisses(), 1);
+
+        // larger than the maximum result size
+        CachedQueryResult large = new CachedQueryResult(ImmutableList.of("value"), ImmutableList.<Type>of(BIGINT), rowPagesBuilder(BIGINT).addSequencePage(1000, 0).build());
+        cache.put("large", large);
+        assertFalse(cache.get("large").isPresent());
+        assertEquals(cache.getRejected(), 1);
+        assertEquals(cache.getSize(), 1);
+
+        cache.recordRejected();
+        assertEquals(cache.getRejected(), 2);
+    }
+
+    private void assertNotCacheable(PlanNode root)
+    {
+        assertFalse(cache.createKey(SESSION, plan(root)).isPresent());
+    }
+
+    private Plan plan(PlanNode root)
+    {
+        return new Plan(root, symbolAllocator);
+    }
+
+    private ValuesNode values()
+    {
+        return new ValuesNode(idAllocator.getNextId(), ImmutableList.of(value), ImmutableList.<List<Expression>>of(ImmutableList.<Expression>of(new LongLiteral("1"))));
+    }
+
+    private ProjectNode project(PlanNode source, Expression expression)
+    {
+        return new ProjectNode(idAllocator.getNextId(), source, ImmutableMap.of(symbolAllocator.newSymbol("expr", BIGINT), expression));
+    }
+
+    private TableScanNode tableScan(TableHandle table)
+    {
+        return new TableScanNode(
+                idAllocator.getNextId(),
+                table,
+                ImmutableList.of(value),
+                ImmutableMap.<Symbol, ColumnHandle>of(value, new TestingColumnHandle(value)),
+                null,
+                Optional.<TableScanNode.GeneratedPartitions>absent());
+    }
+
+    private static FunctionCall function(String name)
+    {
+        return new FunctionCall(new QualifiedName(name), ImmutableList.<Expression>of());
+    }
+
+    private class PartitionedTableSplitManager
+            implements ConnectorSplitManager
+    {
+        @Override
+        public String getConnectorId()
+        {
+            return "partitioned";
+        }
+
+        @Override
+        public boolean canHandle(TableHandle handle)
+        {
+            return handle == PARTITIONED_TABLE;
+        }
+
+        @Override
+        public PartitionResult getPartitions(TableHandle table, TupleDomain tupleDomain)
+        {
+            ImmutableList.Builder<Partition> partitions = ImmutableList.builder();
+            for (final String partitionId : partitionIds) {
+                partitions.add(new Partition()
+                {
+                    @Override
+                    public String getPartitionId()
+                    {
+                        return partitionId;
+                    }
+
+                    @Override
+                    public TupleDomain getTupleDomain()
+                    {
+                        return TupleDomain.all();
+                    }
+                });
+            }
+            return new PartitionResult(partitions.build(), tupleDomain);
+        }
+
+        @Override
+        public SplitSource getPartitionSplits(TableHandle table, List<Partition> partitions)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class TestQueryResultCacheConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(QueryResultCacheConfig.class)
+                .setEnabled(false)
+                .setTtl(new Duration(1, TimeUnit.MINUTES))
+                .setMaxSize(new DataSize(256, Unit.MEGABYTE))
+                .setMaxResultSize(new DataSize(8, Unit.MEGABYTE)));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("query.result-cache.enabled", "true")
+                .put("query.result-cache.ttl", "10m")
+                .put("query.result-cache.max-size", "1GB")
+                .put("query.result-cache.max-result-size", "16MB")
+                .build();
+
+        QueryResultCacheConfig expected = new QueryResultCacheConfig()
+                .setEnabled(true)
+                .setTtl(new Duration(10, TimeUnit.MINUTES))
+                .setMaxSize(new DataSize(1, Unit.GIGABYTE))
+                .setMaxResultSize(new DataSize(16, Unit.MEGABYTE));
+
+        ConfigAssertions.assertFullMapping(properties, expected);
+    }
+}
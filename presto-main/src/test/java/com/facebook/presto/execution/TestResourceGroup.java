@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestResourceGroup
+{
+    @Test
+    public void testLimitsOfParentGroupsApply()
+    {
+        ResourceGroup root = new ResourceGroup("global", null, 2, 3);
+        ResourceGroup alice = root.getOrCreateSubGroup("cli", 10, 10).getOrCreateSubGroup("alice", 10, 10);
+        ResourceGroup bob = root.getOrCreateSubGroup("cli", 10, 10).getOrCreateSubGroup("bob", 1, 10);
+        assertEquals(alice.getName(), "global.cli.alice");
+
+        bob.queryQueued();
+        bob.queryStarted();
+        assertFalse(bob.canRunMore());
+        assertTrue(alice.canRunMore());
+
+        alice.queryQueued();
+        alice.queryStarted();
+        assertFalse(alice.canRunMore());
+        assertEquals(root.getRunningQueries(), 2);
+
+        alice.queryQueued();
+        alice.queryQueued();
+        assertNull(bob.findFullQueue());
+        bob.queryQueued();
+        assertSame(alice.findFullQueue(), root);
+        assertEquals(root.getQueuedQueries(), 3);
+
+        bob.queryFinished();
+        assertTrue(alice.canRunMore());
+        assertTrue(bob.canRunMore());
+    }
+
+    @Test
+    public void testQueryThatCanRunIsNotQueued()
+    {
+        ResourceGroup root = new ResourceGroup("global", null, 1, 0);
+        ResourceGroup user = root.getOrCreateSubGroup("cli", 10, 0).getOrCreateSubGroup("alice", 10, 0);
+        assertNull(user.findFullQueue());
+
+        user.queryQueued();
+        user.queryStarted();
+        assertSame(user.findFullQueue(), root);
+    }
+
+    @Test
+    public void testIdleGroupsAreRemoved()
+    {
+        ResourceGroup root = new ResourceGroup("global", null, 10, 10);
+        ResourceGroup user = root.getOrCreateSubGroup("cli", 10, 10).getOrCreateSubGroup("alice", 10, 10);
+
+        user.queryQueued();
+        assertSame(root.getOrCreateSubGroup("cli", 10, 10).getOrCreateSubGroup("alice", 10, 10), user);
+        user.queryStarted();
+        user.queryFinished();
+
+        assertEquals(root.getRunningQueries(), 0);
+        assertNotSame(root.getOrCreateSubGroup("cli", 10, 10).getOrCreateSubGroup("alice", 10, 10), user);
+    }
+}
@@ -500,6 +500,12 @@ public class TestSqlStageExecution
                 }
                 return splits.size();
             }
+
+            @Override
+            public int getRunningSplits()
+            {
+                return 0;
+            }
         }
     }
 }
@@ -123,7 +123,8 @@ public class TestSqlTaskManager
                 new MockLocalStorageManager(new File("target/temp")),
                 new RecordSinkManager(),
                 new MockExchangeClientSupplier(),
-                new ExpressionCompiler(metadata));
+                new ExpressionCompiler(metadata),
+                new TaskManagerConfig());
 
         taskExecutor = new TaskExecutor(8);
         taskExecutor.start();
@@ -169,7 +170,7 @@ public class TestSqlTaskManager
     {
         TaskInfo taskInfo = sqlTaskManager.updateTask(session,
                 taskId,
-                testFragment,
+                Optional.of(testFragment),
                 ImmutableList.<TaskSource>of(),
                 INITIAL_EMPTY_OUTPUT_BUFFERS);
         assertEquals(taskInfo.getState(), TaskState.RUNNING);
@@ -179,7 +180,7 @@ public class TestSqlTaskManager
 
         taskInfo = sqlTaskManager.updateTask(session,
                 taskId,
-                testFragment,
+                Optional.<PlanFragment>absent(),
                 ImmutableList.of(new TaskSource(tableScanNodeId, ImmutableSet.<ScheduledSplit>of(), true)),
                 INITIAL_EMPTY_OUTPUT_BUFFERS.withNoMoreBufferIds());
         assertEquals(taskInfo.getState(), TaskState.FINISHED);
@@ -188,13 +189,47 @@ public class TestSqlTaskManager
         assertEquals(taskInfo.getState(), TaskState.FINISHED);
     }
 
+    @Test
+    public void testTaskInfoVersion()
+            throws Exception
+    {
+        TaskInfo taskInfo = sqlTaskManager.updateTask(session,
+                taskId,
+                Optional.of(testFragment),
+                ImmutableList.<TaskSource>of(),
+                INITIAL_EMPTY_OUTPUT_BUFFERS);
+        assertEquals(taskInfo.getState(), TaskState.RUNNING);
+
+        // the default info is the compact form
+        taskInfo = sqlTaskManager.getTaskInfo(taskId, false);
+        assertTrue(taskInfo.getStats().getPipelines().isEmpty());
+        assertTrue(taskInfo.getVersion() >= TaskInfo.STARTING_VERSION);
+
+        // waiting on an old version returns immediately
+        long start = System.nanoTime();
+        sqlTaskManager.waitForTaskInfoChange(taskId, taskInfo.getVersion() - 1, new Duration(1, TimeUnit.MINUTES));
+        assertTrue(Duration.nanosSince(start).compareTo(new Duration(30, TimeUnit.SECONDS)) < 0);
+
+        long runningVersion = taskInfo.getVersion();
+        taskInfo = sqlTaskManager.updateTask(session,
+                taskId,
+                Optional.<PlanFragment>absent(),
+                ImmutableList.of(new TaskSource(tableScanNodeId, ImmutableSet.<ScheduledSplit>of(), true)),
+                INITIAL_EMPTY_OUTPUT_BUFFERS.withNoMoreBufferIds());
+        assertEquals(taskInfo.getState(), TaskState.FINISHED);
+        assertTrue(taskInfo.getVersion() > runningVersion);
+
+        // the final info is stable
+        assertEquals(sqlTaskManager.getTaskInfo(taskId, false).getVersion(), taskInfo.getVersion());
+    }
+
     @Test
     public void testSimpleQuery()
             throws Exception
     {
         TaskInfo taskInfo = sqlTaskManager.updateTask(session,
                 taskId,
-                testFragment,
+                Optional.of(testFragment),
                 ImmutableList.of(new TaskSource(tableScanNodeId, ImmutableSet.of(new ScheduledSplit(0, split)), true)),
                 INITIAL_EMPTY_OUTPUT_BUFFERS.withBuffer("out", new UnpartitionedPagePartitionFunction()).withNoMoreBufferIds());
         assertEquals(taskInfo.getState(), TaskState.RUNNING);
@@ -219,13 +254,24 @@ public class TestSqlTaskManager
         assertEquals(taskInfo.getState(), TaskState.FINISHED);
     }
 
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCreateWithoutFragment()
+            throws Exception
+    {
+        sqlTaskManager.updateTask(session,
+                taskId,
+                Optional.<PlanFragment>absent(),
+                ImmutableList.<TaskSource>of(),
+                INITIAL_EMPTY_OUTPUT_BUFFERS);
+    }
+
     @Test
     public void testCancel()
             throws Exception
     {
         TaskInfo taskInfo = sqlTaskManager.updateTask(session,
                 taskId,
-                testFragment,
+                Optional.of(testFragment),
                 ImmutableList.<TaskSource>of(),
                 INITIAL_EMPTY_OUTPUT_BUFFERS);
         assertEquals(taskInfo.getState(), TaskState.RUNNING);
@@ -250,7 +296,7 @@ public class TestSqlTaskManager
     {
         TaskInfo taskInfo = sqlTaskManager.updateTask(session,
                 taskId,
-                testFragment,
+                Optional.of(testFragment),
                 ImmutableList.of(new TaskSource(tableScanNodeId, ImmutableSet.of(new ScheduledSplit(0, split)), true)),
                 INITIAL_EMPTY_OUTPUT_BUFFERS.withBuffer("out", new UnpartitionedPagePartitionFunction()).withNoMoreBufferIds());
         assertEquals(taskInfo.getState(), TaskState.RUNNING);
@@ -281,7 +327,7 @@ public class TestSqlTaskManager
 
         TaskInfo taskInfo = sqlTaskManager.updateTask(session,
                 taskId,
-                testFragment,
+                Optional.of(testFragment),
                 ImmutableList.<TaskSource>of(),
                 INITIAL_EMPTY_OUTPUT_BUFFERS);
         assertEquals(taskInfo.getState(), TaskState.RUNNING);
@@ -15,9 +15,12 @@ package com.facebook.presto.metadata;
 
 import com.facebook.presto.block.BlockIterable;
 import com.facebook.presto.metadata.ColumnFileHandle.Builder;
+import com.facebook.presto.serde.BlocksFileStats;
 import com.facebook.presto.spi.ColumnHandle;
+import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.io.Files;
+import io.airlift.units.DataSize;
 
 import java.io.File;
 import java.io.IOException;
@@ -61,12 +64,24 @@ public class MockLocalStorageManager
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Optional<BlocksFileStats> getColumnStats(UUID shardUuid, ColumnHandle columnHandle)
+    {
+        return Optional.absent();
+    }
+
     @Override
     public boolean shardExists(UUID shardUuid)
     {
         return false;
     }
 
+    @Override
+    public DataSize getShardSize(UUID shardUuid)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void dropShard(UUID shardUuid)
     {
@@ -15,6 +15,8 @@ package com.facebook.presto.metadata;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
 import org.testng.annotations.Test;
 
 import javax.validation.constraints.NotNull;
@@ -32,7 +34,8 @@ public class TestDatabaseLocalStorageManagerConfig
         ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(DatabaseLocalStorageManagerConfig.class)
                 .setDataDirectory(new File("var/data"))
                 .setTasksPerNode(32)
-                .setCompressed(true));
+                .setCompressed(true)
+                .setMaxMappedSize(new DataSize(4, Unit.GIGABYTE)));
     }
 
     @Test
@@ -42,12 +45,14 @@ public class TestDatabaseLocalStorageManagerConfig
                 .put("storage-manager.data-directory", "/data")
                 .put("storage-manager.tasks-per-node", "16")
                 .put("storage-manager.compress", "false")
+                .put("storage-manager.max-mapped-size", "1GB")
                 .build();
 
         DatabaseLocalStorageManagerConfig expected = new DatabaseLocalStorageManagerConfig()
                 .setDataDirectory(new File("/data"))
                 .setTasksPerNode(16)
-                .setCompressed(false);
+                .setCompressed(false)
+                .setMaxMappedSize(new DataSize(1, Unit.GIGABYTE));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
@@ -13,14 +13,19 @@
  */
 package com.facebook.presto.metadata;
 
+import com.facebook.presto.serde.RangeStats;
 import com.facebook.presto.spi.PartitionKey;
 import com.facebook.presto.spi.TableHandle;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 import com.google.common.io.Files;
+import io.airlift.slice.Slice;
 import io.airlift.testing.FileUtils;
+import io.airlift.units.Duration;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
@@ -30,14 +35,19 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 @Test(singleThreaded = true)
 public class TestDatabaseShardManager
@@ -94,4 +104,90 @@ public class TestDatabaseShardManager
         Collection<Entry<UUID, String>> partitionShards = allShardNodes.get(partitionId);
         assertEquals(partitionShards.size(), 1);
     }
+
+    @Test
+    public void testReplaceShards()
+            throws Exception
+    {
+        long tableId = 1;
+        TableHandle tableHandle = new NativeTableHandle("demo", "test", tableId, null);
+        UUID shardId1 = UUID.randomUUID();
+        UUID shardId2 = UUID.randomUUID();
+        UUID shardId3 = UUID.randomUUID();
+        UUID newShardId = UUID.randomUUID();
+
+        shardManager.commitPartition(tableHandle, "some-partition", ImmutableList.<PartitionKey>of(), ImmutableMap.of(shardId1, "some-node", shardId2, "some-node", shardId3, "other-node"));
+        long partitionId = Iterables.getOnlyElement(shardManager.getPartitions(tableHandle)).getPartitionId();
+
+        List<ShardNode> nodeShards = shardManager.getNodeShards("some-node");
+        assertEquals(nodeShards.size(), 2);
+        for (ShardNode shardNode : nodeShards) {
+            assertEquals(shardNode.getTableId(), tableId);
+            assertEquals(shardNode.getPartitionId(), partitionId);
+        }
+
+        shardManager.replaceShards(tableId, partitionId, ImmutableSet.of(shardId1, shardId2), newShardId, "some-node", ImmutableMap.<Long, RangeStats>of());
+
+        ShardNode shardNode = Iterables.getOnlyElement(shardManager.getNodeShards("some-node"));
+        assertEquals(shardNode.getShardUuid(), newShardId);
+        assertEquals(shardManager.getShardNodesByPartition(tableHandle).get(partitionId).size(), 2);
+        assertEquals(ImmutableSet.copyOf(shardManager.getOrphanedShardIds(Optional.of("some-node"), new Duration(0, SECONDS))).size(), 2);
+
+        // the replaced shards are kept while running queries may read them
+        assertTrue(Iterables.isEmpty(shardManager.getOrphanedShardIds(Optional.of("some-node"), new Duration(1, HOURS))));
+        assertTrue(Iterables.isEmpty(shardManager.getOrphanedShardIds(Optional.<String>absent(), new Duration(1, HOURS))));
+
+        // the replaced shards are no longer part of the partition
+        try {
+            shardManager.replaceShards(tableId, partitionId, ImmutableSet.of(shardId1, shardId3), UUID.randomUUID(), "other-node", ImmutableMap.<Long, RangeStats>of());
+            fail("expected exception");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(Iterables.getOnlyElement(shardManager.getNodeShards("other-node")).getShardUuid(), shardId3);
+    }
+
+    @Test
+    public void testTableColumnRanges()
+            throws Exception
+    {
+        long tableId = 1;
+        TableHandle tableHandle = new NativeTableHandle("demo", "test", tableId, null);
+        UUID shardId1 = UUID.randomUUID();
+        UUID shardId2 = UUID.randomUUID();
+
+        shardManager.commitPartition(tableHandle, "some-partition", ImmutableList.<PartitionKey>of(), ImmutableMap.of(shardId1, "some-node", shardId2, "some-node"),
+                ImmutableMap.<UUID, Map<Long, RangeStats>>of(
+                        shardId1, ImmutableMap.of(1L, new RangeStats(100, 10, 0L, 10L), 2L, new RangeStats(100, 0, 1.5, 2.5)),
+                        shardId2, ImmutableMap.of(1L, new RangeStats(50, 0, 5L, 20L))));
+
+        // column 2 has no range in one of the shards
+        assertEquals(shardManager.getTableColumnRanges(tableHandle), ImmutableMap.of(1L, new RangeStats(150, 10, 0L, 20L)));
+    }
+
+    @Test
+    public void testColumnRangeDistinctSketch()
+            throws Exception
+    {
+        long tableId = 1;
+        TableHandle tableHandle = new NativeTableHandle("demo", "test", tableId, null);
+        UUID shardId = UUID.randomUUID();
+        Slice sketch = RangeStats.createDistinctSketch();
+        sketch.setByte(0, 3);
+
+        shardManager.commitPartition(tableHandle, "some-partition", ImmutableList.<PartitionKey>of(), ImmutableMap.of(shardId, "some-node"),
+                ImmutableMap.<UUID, Map<Long, RangeStats>>of(shardId, ImmutableMap.of(1L, new RangeStats(100, 10, 0L, 10L, sketch), 2L, new RangeStats(100, 0, 1.5, 2.5))));
+
+        // the sketch is stored apart from the range
+        assertEquals(dummyHandle.select("SELECT * FROM shard_column_sketches").size(), 1);
+        assertEquals(shardManager.getTableColumnRanges(tableHandle), ImmutableMap.of(
+                1L, new RangeStats(100, 10, 0L, 10L, sketch),
+                2L, new RangeStats(100, 0, 1.5, 2.5)));
+
+        Long id = dummyHandle.attach(ShardManagerDao.class).getShardId(shardId);
+        shardManager.disassociateShard(id, null);
+        shardManager.dropShard(id);
+        assertEquals(dummyHandle.select("SELECT * FROM shard_column_sketches").size(), 0);
+    }
 }
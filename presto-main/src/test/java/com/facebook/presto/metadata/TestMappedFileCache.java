@@ -0,0 +1,185 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.google.common.io.Files;
+import io.airlift.slice.Slice;
+import io.airlift.testing.FileUtils;
+import io.airlift.units.DataSize;
+import io.airlift.units.DataSize.Unit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class TestMappedFileCache
+{
+    private File dataDir;
+    private MappedFileCache cache;
+
+    @BeforeMethod
+    public void setup()
+    {
+        dataDir = Files.createTempDir();
+        cache = new MappedFileCache(new DataSize(100, Unit.BYTE));
+    }
+
+    @AfterMethod
+    public void teardown()
+    {
+        FileUtils.deleteRecursively(dataDir);
+    }
+
+    @Test
+    public void testHitAndMiss()
+            throws Exception
+    {
+        File file = createFile("a", 10);
+
+        try (MappedFileCache.Reference reference = cache.acquire(file)) {
+            assertEquals(reference.getSlice().length(), 10);
+        }
+        try (MappedFileCache.Reference reference = cache.acquire(file)) {
+            assertEquals(reference.getSlice().length(), 10);
+        }
+
+        assertEquals(cache.getMissCount(), 1);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getHitRate(), 0.5);
+        assertEquals(cache.getMappedBytes(), 10);
+        assertEquals(cache.getReferencedFileCount(), 0);
+    }
+
+    @Test
+    public void testIdleFilesAreEvicted()
+            throws Exception
+    {
+        File first = createFile("a", 60);
+        File second = createFile("b", 60);
+
+        cache.acquire(first).close();
+        cache.acquire(second).close();
+
+        // the least recently used file is evicted
+        assertEquals(cache.getMappedFileCount(), 1);
+        assertEquals(cache.getMappedBytes(), 60);
+        assertEquals(cache.getEvictionCount(), 1);
+
+        cache.acquire(second).close();
+        assertEquals(cache.getHitCount(), 1);
+    }
+
+    @Test
+    public void testReferencedFilesAreNotEvicted()
+            throws Exception
+    {
+        File first = createFile("a", 60);
+        File second = createFile("b", 60);
+
+        MappedFileCache.Reference reference = cache.acquire(first);
+        cache.acquire(second).close();
+
+        // the referenced file stays mapped, the idle file is evicted
+        assertEquals(cache.getMappedFileCount(), 1);
+        assertEquals(cache.getReferencedFileCount(), 1);
+        assertEquals(cache.getEvictionCount(), 1);
+
+        reference.close();
+        // closing twice does not release twice
+        reference.close();
+        assertEquals(cache.getReferencedFileCount(), 0);
+        assertEquals(cache.getMappedBytes(), 60);
+    }
+
+    @Test
+    public void testInvalidate()
+            throws Exception
+    {
+        File file = createFile("a", 10);
+
+        MappedFileCache.Reference reference = cache.acquire(file);
+        cache.invalidate(file);
+        assertEquals(cache.getMappedFileCount(), 0);
+        assertEquals(cache.getMappedBytes(), 0);
+
+        // outstanding references stay valid
+        assertEquals(reference.getSlice().length(), 10);
+        reference.close();
+        assertEquals(cache.getMappedBytes(), 0);
+    }
+
+    @Test
+    public void testConcurrentMissesShareMapping()
+            throws Exception
+    {
+        final File file = createFile("a", 10);
+        final CyclicBarrier barrier = new CyclicBarrier(8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<MappedFileCache.Reference>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<MappedFileCache.Reference>()
+                {
+                    @Override
+                    public MappedFileCache.Reference call()
+                            throws Exception
+                    {
+                        barrier.await();
+                        return cache.acquire(file);
+                    }
+                }));
+            }
+
+            // callers losing the race to map the file use the cached mapping
+            Slice slice = null;
+            for (Future<MappedFileCache.Reference> future : futures) {
+                try (MappedFileCache.Reference reference = future.get()) {
+                    if (slice == null) {
+                        slice = reference.getSlice();
+                    }
+                    assertSame(reference.getSlice(), slice);
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(cache.getMappedFileCount(), 1);
+        assertEquals(cache.getMappedBytes(), 10);
+        assertEquals(cache.getReferencedFileCount(), 0);
+        assertEquals(cache.getHitCount() + cache.getMissCount(), 8);
+    }
+
+    private File createFile(String name, int size)
+            throws IOException
+    {
+        File file = new File(dataDir, name).getAbsoluteFile();
+        Files.write(new byte[size], file);
+        return file;
+    }
+}
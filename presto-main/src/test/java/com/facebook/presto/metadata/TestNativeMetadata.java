@@ -17,6 +17,7 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorMetadata;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.OutputTableHandle;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
 import com.facebook.presto.spi.TableHandle;
@@ -79,12 +80,25 @@ public class TestNativeMetadata
 
         ConnectorTableMetadata table = metadata.getTableMetadata(tableHandle);
         assertTableEqual(table, getOrdersTable());
+        assertEquals(table.getSortColumns(), ImmutableList.of());
 
         ColumnHandle columnHandle = metadata.getColumnHandle(tableHandle, "orderkey");
         assertInstanceOf(columnHandle, NativeColumnHandle.class);
         assertEquals(((NativeColumnHandle) columnHandle).getColumnId(), 1);
     }
 
+    @Test
+    public void testCreateSortedTable()
+    {
+        ConnectorTableMetadata sortedTable = new ConnectorTableMetadata(DEFAULT_TEST_ORDERS, getOrdersTable().getColumns(), null, false, ImmutableList.of("custkey", "orderkey"));
+        OutputTableHandle outputTableHandle = metadata.beginCreateTable(sortedTable);
+        metadata.commitCreateTable(outputTableHandle, ImmutableList.<String>of());
+
+        ConnectorTableMetadata table = metadata.getTableMetadata(metadata.getTableHandle(DEFAULT_TEST_ORDERS));
+        assertTableEqual(table, getOrdersTable());
+        assertEquals(table.getSortColumns(), ImmutableList.of("custkey", "orderkey"));
+    }
+
     @Test
     public void testListTables()
     {
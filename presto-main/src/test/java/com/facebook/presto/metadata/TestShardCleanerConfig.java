@@ -29,7 +29,8 @@ public class TestShardCleanerConfig
         ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(ShardCleanerConfig.class)
                 .setEnabled(false)
                 .setCleanerInterval(new Duration(60, TimeUnit.SECONDS))
-                .setMaxThreads(32));
+                .setMaxThreads(32)
+                .setReplacedShardRetention(new Duration(1, TimeUnit.HOURS)));
     }
 
     @Test
@@ -39,12 +40,14 @@ public class TestShardCleanerConfig
                 .put("shard-cleaner.enabled", "true")
                 .put("shard-cleaner.interval", "10m")
                 .put("shard-cleaner.max-threads", "100")
+                .put("shard-cleaner.replaced-shard-retention", "2h")
                 .build();
 
         ShardCleanerConfig expected = new ShardCleanerConfig()
                 .setEnabled(true)
                 .setCleanerInterval(new Duration(10, TimeUnit.MINUTES))
-                .setMaxThreads(100);
+                .setMaxThreads(100)
+                .setReplacedShardRetention(new Duration(2, TimeUnit.HOURS));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
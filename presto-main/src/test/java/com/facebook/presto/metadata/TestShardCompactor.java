@@ -0,0 +1,243 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.facebook.presto.block.BlockIterable;
+import com.facebook.presto.operator.Page;
+import com.facebook.presto.serde.RangeStats;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.PartitionKey;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.io.Files;
+import io.airlift.testing.FileUtils;
+import io.airlift.units.Duration;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.facebook.presto.metadata.MetadataDaoUtils.createMetadataTables;
+import static com.facebook.presto.metadata.ShardColumnStats.getColumnRanges;
+import static com.facebook.presto.operator.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.serde.TestingBlockEncodingManager.createTestingBlockEncodingManager;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.testing.Assertions.assertLessThan;
+import static io.airlift.units.Duration.nanosSince;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Test(singleThreaded = true)
+public class TestShardCompactor
+{
+    private Handle dummyHandle;
+    private Handle shardHandle;
+    private Handle storageHandle;
+    private File dataDir;
+    private MetadataDao metadataDao;
+    private ShardManager shardManager;
+    private LocalStorageManager storageManager;
+    private ShardCompactor compactor;
+    private String nodeIdentifier;
+
+    @BeforeMethod
+    public void setup()
+            throws Exception
+    {
+        IDBI metadataDbi = new DBI("jdbc:h2:mem:test-metadata" + System.nanoTime());
+        dummyHandle = metadataDbi.open();
+        metadataDao = metadataDbi.onDemand(MetadataDao.class);
+        createMetadataTables(metadataDao);
+
+        IDBI shardDbi = new DBI("jdbc:h2:mem:test-shards" + System.nanoTime());
+        shardHandle = shardDbi.open();
+        shardManager = new DatabaseShardManager(shardDbi);
+
+        dataDir = Files.createTempDir();
+        IDBI storageDbi = new DBI("jdbc:h2:mem:test-storage" + System.nanoTime());
+        storageHandle = storageDbi.open();
+        storageManager = new DatabaseLocalStorageManager(storageDbi, createTestingBlockEncodingManager(), new DatabaseLocalStorageManagerConfig().setDataDirectory(dataDir));
+
+        InMemoryNodeManager nodeManager = new InMemoryNodeManager();
+        nodeIdentifier = nodeManager.getCurrentNode().getNodeIdentifier();
+        compactor = new ShardCompactor(nodeManager, shardManager, storageManager, metadataDbi, new ShardCompactorConfig().setMinShardCount(2));
+    }
+
+    @AfterMethod
+    public void teardown()
+    {
+        compactor.stop();
+        dummyHandle.close();
+        shardHandle.close();
+        storageHandle.close();
+        FileUtils.deleteRecursively(dataDir);
+    }
+
+    @Test
+    public void testCompactSmallShards()
+            throws Exception
+    {
+        long tableId = metadataDao.insertTable("demo", "test", "orders");
+        metadataDao.insertColumn(tableId, 1, "name", 0, VARCHAR.getName());
+        metadataDao.insertColumn(tableId, 2, "value", 1, BIGINT.getName());
+        List<NativeColumnHandle> columns = ImmutableList.of(new NativeColumnHandle("name", 1), new NativeColumnHandle("value", 2));
+        TableHandle tableHandle = new NativeTableHandle("demo", "test", tableId, null);
+
+        ImmutableMap.Builder<UUID, String> shards = ImmutableMap.builder();
+        ImmutableMap.Builder<UUID, Map<Long, RangeStats>> shardColumnRanges = ImmutableMap.builder();
+        for (int i = 0; i < 3; i++) {
+            UUID shardUuid = UUID.randomUUID();
+            ColumnFileHandle fileHandle = storageManager.createStagingFileHandles(shardUuid, columns);
+            for (Page page : rowPagesBuilder(VARCHAR, BIGINT).row("alice", 2 * i).row("bob", 2 * i + 1).build()) {
+                fileHandle.append(page);
+            }
+            storageManager.commit(fileHandle);
+            shards.put(shardUuid, nodeIdentifier);
+            shardColumnRanges.put(shardUuid, getColumnRanges(fileHandle));
+        }
+        Set<UUID> oldShards = shards.build().keySet();
+        shardManager.commitPartition(tableHandle, "some-partition", ImmutableList.<PartitionKey>of(), shards.build(), shardColumnRanges.build());
+        assertEquals(shardStatsRowCount(), 6);
+
+        compactor.compact();
+
+        assertEquals(compactor.getCompactions(), 1);
+        assertEquals(compactor.getCompactedShards(), 3);
+        assertEquals(compactor.getFailures(), 0);
+
+        // the old shards are replaced by the new shard and orphaned on this node
+        UUID newShard = Iterables.getOnlyElement(shardManager.getNodeShards(nodeIdentifier)).getShardUuid();
+        assertFalse(oldShards.contains(newShard));
+        assertTrue(storageManager.shardExists(newShard));
+        assertEquals(ImmutableSet.copyOf(shardManager.getOrphanedShardIds(Optional.of(nodeIdentifier), new Duration(0, SECONDS))).size(), 3);
+        assertTrue(Iterables.isEmpty(shardManager.getOrphanedShardIds(Optional.of(nodeIdentifier), new Duration(1, HOURS))));
+
+        // the new shard has all the rows and only its own column stats remain
+        for (NativeColumnHandle column : columns) {
+            assertEquals(getRowCount(newShard, column), 6);
+        }
+        assertEquals(shardStatsRowCount(), 2);
+        assertEquals(shardManager.getTableColumnRanges(tableHandle).get(2L).getPositionCount(), 6);
+        assertEquals(shardManager.getTableColumnRanges(tableHandle).get(2L).getMax(), 5L);
+    }
+
+    @Test
+    public void testReplacedShardsAreReadableAfterCompaction()
+            throws Exception
+    {
+        long tableId = metadataDao.insertTable("demo", "test", "lineitem");
+        metadataDao.insertColumn(tableId, 1, "value", 0, BIGINT.getName());
+        List<NativeColumnHandle> columns = ImmutableList.of(new NativeColumnHandle("value", 1));
+        TableHandle tableHandle = new NativeTableHandle("demo", "test", tableId, null);
+
+        ImmutableMap.Builder<UUID, String> shards = ImmutableMap.builder();
+        for (int i = 0; i < 3; i++) {
+            UUID shardUuid = UUID.randomUUID();
+            ColumnFileHandle fileHandle = storageManager.createStagingFileHandles(shardUuid, columns);
+            for (Page page : rowPagesBuilder(BIGINT).row(2 * i).row(2 * i + 1).build()) {
+                fileHandle.append(page);
+            }
+            storageManager.commit(fileHandle);
+            shards.put(shardUuid, nodeIdentifier);
+        }
+        Set<UUID> oldShards = shards.build().keySet();
+        shardManager.commitUnpartitionedTable(tableHandle, shards.build());
+
+        compactor.compact();
+        assertEquals(compactor.getCompactions(), 1);
+
+        // queries that were handed splits for the old shards still read all of their rows
+        for (UUID shardUuid : oldShards) {
+            assertEquals(getRowCount(shardUuid, columns.get(0)), 2);
+        }
+
+        // once the cleaner drops a shard, reading it fails instead of returning no rows
+        UUID droppedShard = Iterables.getFirst(oldShards, null);
+        storageManager.dropShard(droppedShard);
+        long start = System.nanoTime();
+        while (storageManager.shardExists(droppedShard)) {
+            assertLessThan(nanosSince(start), new Duration(10, SECONDS));
+            MILLISECONDS.sleep(10);
+        }
+        try {
+            getRowCount(droppedShard, columns.get(0));
+            fail("expected exception");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSortedTableIsNotCompacted()
+            throws Exception
+    {
+        long tableId = metadataDao.insertTable("demo", "test", "sorted");
+        metadataDao.insertColumn(tableId, 1, "value", 0, BIGINT.getName());
+        metadataDao.insertSortColumn(tableId, 1, 0);
+        List<NativeColumnHandle> columns = ImmutableList.of(new NativeColumnHandle("value", 1));
+        TableHandle tableHandle = new NativeTableHandle("demo", "test", tableId, null);
+
+        ImmutableMap.Builder<UUID, String> shards = ImmutableMap.builder();
+        for (int i = 0; i < 3; i++) {
+            UUID shardUuid = UUID.randomUUID();
+            ColumnFileHandle fileHandle = storageManager.createStagingFileHandles(shardUuid, columns);
+            for (Page page : rowPagesBuilder(BIGINT).row(i).build()) {
+                fileHandle.append(page);
+            }
+            storageManager.commit(fileHandle);
+            shards.put(shardUuid, nodeIdentifier);
+        }
+        shardManager.commitUnpartitionedTable(tableHandle, shards.build());
+
+        compactor.compact();
+
+        assertEquals(compactor.getCompactions(), 0);
+        assertEquals(shardManager.getNodeShards(nodeIdentifier).size(), 3);
+    }
+
+    private long getRowCount(UUID shardUuid, ColumnHandle column)
+    {
+        long rows = 0;
+        BlockIterable blocks = storageManager.getBlocks(shardUuid, column);
+        for (Block block : blocks) {
+            rows += block.getPositionCount();
+        }
+        return rows;
+    }
+
+    private int shardStatsRowCount()
+    {
+        return shardHandle.select("SELECT * FROM shard_column_stats").size();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class TestShardCompactorConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(ShardCompactorConfig.class)
+                .setEnabled(false)
+                .setCompactorInterval(new Duration(5, TimeUnit.MINUTES))
+                .setSmallShardSize(new DataSize(16, MEGABYTE))
+                .setMaxShardSize(new DataSize(256, MEGABYTE))
+                .setMinShardCount(10));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("shard-compactor.enabled", "true")
+                .put("shard-compactor.interval", "10m")
+                .put("shard-compactor.small-shard-size", "32MB")
+                .put("shard-compactor.max-shard-size", "1GB")
+                .put("shard-compactor.min-shard-count", "4")
+                .build();
+
+        ShardCompactorConfig expected = new ShardCompactorConfig()
+                .setEnabled(true)
+                .setCompactorInterval(new Duration(10, TimeUnit.MINUTES))
+                .setSmallShardSize(new DataSize(32, MEGABYTE))
+                .setMaxShardSize(new DataSize(1, DataSize.Unit.GIGABYTE))
+                .setMinShardCount(4);
+
+        ConfigAssertions.assertFullMapping(properties, expected);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.BlockCursor;
+import com.facebook.presto.spi.block.RandomAccessBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkState;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestEncodedPageProcessor
+{
+    private static final List<Type> TYPES = ImmutableList.<Type>of(BIGINT, BIGINT);
+
+    @Test
+    public void testDictionaryPage()
+    {
+        CountingProcessor processor = new CountingProcessor();
+        EncodedPageProcessor encodedPageProcessor = new EncodedPageProcessor(TYPES, processor);
+
+        RandomAccessBlock dictionary = createBlock(3, 7, 10);
+        Page page = new Page(
+                new DictionaryEncodedBlock(dictionary, createBlock(0, 1, 2, 1, 0, 2, 1)),
+                new RunLengthEncodedBlock(createBlock(100), 7));
+
+        PageBuilder pageBuilder = new PageBuilder(TYPES);
+        assertTrue(encodedPageProcessor.process(page, pageBuilder));
+
+        // values greater than 5 pass, and are projected with the run value
+        assertPage(pageBuilder.build(), new long[] {7, 10, 7, 10, 7}, 100);
+        assertEquals(processor.getEvaluations(), 3);
+
+        // the results are kept for the next page of the same dictionary and run
+        page = new Page(
+                new DictionaryEncodedBlock(dictionary, createBlock(2, 2)),
+                page.getBlock(1).getRegion(0, 2));
+        pageBuilder = new PageBuilder(TYPES);
+        assertTrue(encodedPageProcessor.process(page, pageBuilder));
+        assertPage(pageBuilder.build(), new long[] {10, 10}, 100);
+        assertEquals(processor.getEvaluations(), 3);
+    }
+
+    @Test
+    public void testRunLengthPage()
+    {
+        CountingProcessor processor = new CountingProcessor();
+        EncodedPageProcessor encodedPageProcessor = new EncodedPageProcessor(TYPES, processor);
+
+        Page page = new Page(
+                new RunLengthEncodedBlock(createBlock(8), 1000),
+                new RunLengthEncodedBlock(createBlock(42), 1000));
+
+        PageBuilder pageBuilder = new PageBuilder(TYPES);
+        assertTrue(encodedPageProcessor.process(page, pageBuilder));
+        assertEquals(pageBuilder.build().getPositionCount(), 1000);
+        assertEquals(processor.getEvaluations(), 1);
+    }
+
+    @Test
+    public void testUnencodedPageIsNotProcessed()
+    {
+        CountingProcessor processor = new CountingProcessor();
+        EncodedPageProcessor encodedPageProcessor = new EncodedPageProcessor(TYPES, processor);
+
+        Page page = new Page(createBlock(1, 2, 3), new RunLengthEncodedBlock(createBlock(42), 3));
+        assertFalse(encodedPageProcessor.process(page, new PageBuilder(TYPES)));
+        assertEquals(processor.getEvaluations(), 0);
+    }
+
+    private static void assertPage(Page page, long[] expectedValues, long expectedRunValue)
+    {
+        assertEquals(page.getPositionCount(), expectedValues.length);
+        BlockCursor values = page.getBlock(0).cursor();
+        BlockCursor runValues = page.getBlock(1).cursor();
+        for (long expectedValue : expectedValues) {
+            assertTrue(values.advanceNextPosition());
+            assertTrue(runValues.advanceNextPosition());
+            assertEquals(values.getLong(), expectedValue);
+            assertEquals(runValues.getLong(), expectedRunValue);
+        }
+    }
+
+    private static RandomAccessBlock createBlock(long... values)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        for (long value : values) {
+            blockBuilder.append(value);
+        }
+        return blockBuilder.build();
+    }
+
+    /**
+     * Passes the rows with a first column greater than 5, and counts the evaluated rows.
+     */
+    private static class CountingProcessor
+            implements EncodedPageProcessor.RowOrientedProcessor
+    {
+        private int evaluations;
+
+        @Override
+        public void filterAndProject(Page page, PageBuilder pageBuilder)
+        {
+            BlockCursor value = page.getBlock(0).cursor();
+            BlockCursor runValue = page.getBlock(1).cursor();
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                checkState(value.advanceNextPosition());
+                checkState(runValue.advanceNextPosition());
+                evaluations++;
+                if (value.getLong() > 5) {
+                    pageBuilder.declarePosition();
+                    value.appendTo(pageBuilder.getBlockBuilder(0));
+                    runValue.appendTo(pageBuilder.getBlockBuilder(1));
+                }
+            }
+        }
+
+        public int getEvaluations()
+        {
+            return evaluations;
+        }
+    }
+}
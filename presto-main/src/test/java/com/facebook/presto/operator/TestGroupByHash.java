@@ -0,0 +1,127 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.BlockCursor;
+import com.facebook.presto.spi.block.RandomAccessBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+
+public class TestGroupByHash
+{
+    @Test
+    public void testRunLengthPages()
+    {
+        assertGroupIdsMatchGenericPath(ImmutableList.<Type>of(BIGINT, BIGINT),
+                new Page(new RunLengthEncodedBlock(createBlock(1), 5), new RunLengthEncodedBlock(createBlock(2), 5)),
+                new Page(new RunLengthEncodedBlock(createBlock(1), 3), new RunLengthEncodedBlock(createBlock(3), 3)),
+                new Page(new RunLengthEncodedBlock(createBlock(1), 2), new RunLengthEncodedBlock(createBlock(2), 2)));
+    }
+
+    @Test
+    public void testDictionaryPages()
+    {
+        RandomAccessBlock dictionary = createBlock(3, 7, 10);
+        assertGroupIdsMatchGenericPath(ImmutableList.<Type>of(BIGINT),
+                new Page(new DictionaryEncodedBlock(dictionary, createBlock(0, 1, 2, 1, 0))),
+                // same dictionary, the group ids of the values are reused
+                new Page(new DictionaryEncodedBlock(dictionary, createBlock(2, 2, 0))),
+                // new dictionary, sharing a value with the previous one
+                new Page(new DictionaryEncodedBlock(createBlock(10, 11), createBlock(1, 0, 1))));
+    }
+
+    @Test
+    public void testMixedEncodingsAcrossPages()
+    {
+        RandomAccessBlock dictionary = createBlock(3, 7, 10);
+        assertGroupIdsMatchGenericPath(ImmutableList.<Type>of(BIGINT),
+                new Page(createBlock(7, 1, 7)),
+                new Page(new RunLengthEncodedBlock(createBlock(1), 4)),
+                new Page(new DictionaryEncodedBlock(dictionary, createBlock(0, 1, 2, 1))),
+                new Page(new RunLengthEncodedBlock(createBlock(12), 2)),
+                new Page(createBlock(10, 12, 13)),
+                new Page(new DictionaryEncodedBlock(dictionary, createBlock(2, 0))));
+    }
+
+    @Test
+    public void testMixedEncodingsAcrossChannels()
+    {
+        RandomAccessBlock dictionary = createBlock(3, 7, 10);
+        assertGroupIdsMatchGenericPath(ImmutableList.<Type>of(BIGINT, BIGINT),
+                new Page(new RunLengthEncodedBlock(createBlock(7), 3), new RunLengthEncodedBlock(createBlock(1), 3)),
+                // multi channel dictionary and mixed pages use the generic path
+                new Page(new DictionaryEncodedBlock(dictionary, createBlock(1, 2, 1)), new RunLengthEncodedBlock(createBlock(1), 3)),
+                new Page(new DictionaryEncodedBlock(dictionary, createBlock(0, 1)), createBlock(1, 2)),
+                new Page(new RunLengthEncodedBlock(createBlock(3), 2), new RunLengthEncodedBlock(createBlock(1), 2)));
+    }
+
+    /**
+     * Groups the pages, and the same pages with every block decoded, and checks that both assign the same group ids.
+     */
+    private static void assertGroupIdsMatchGenericPath(List<Type> types, Page... pages)
+    {
+        int[] channels = new int[types.size()];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = i;
+        }
+
+        GroupByHash encodedHash = new GroupByHash(types, channels, 4);
+        GroupByHash genericHash = new GroupByHash(types, channels, 4);
+        for (Page page : pages) {
+            GroupByIdBlock encodedGroupIds = encodedHash.getGroupIds(page);
+            GroupByIdBlock genericGroupIds = genericHash.getGroupIds(decode(page));
+
+            assertEquals(encodedGroupIds.getPositionCount(), page.getPositionCount());
+            assertEquals(encodedGroupIds.getGroupCount(), genericGroupIds.getGroupCount());
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                assertEquals(encodedGroupIds.getGroupId(position), genericGroupIds.getGroupId(position));
+            }
+        }
+        assertEquals(encodedHash.getGroupCount(), genericHash.getGroupCount());
+    }
+
+    private static Page decode(Page page)
+    {
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+            BlockCursor cursor = page.getBlock(channel).cursor();
+            while (cursor.advanceNextPosition()) {
+                cursor.appendTo(blockBuilder);
+            }
+            blocks[channel] = blockBuilder.build();
+        }
+        return new Page(blocks);
+    }
+
+    private static RandomAccessBlock createBlock(long... values)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        for (long value : values) {
+            blockBuilder.append(value);
+        }
+        return blockBuilder.build();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.operator.TableWriterOperator.TableWriterOperatorFactory;
+import com.facebook.presto.spi.BlockRecordSink;
+import com.facebook.presto.spi.RecordSink;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockCursor;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.presto.operator.OperatorAssertion.toPages;
+import static com.facebook.presto.operator.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.util.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestTableWriterOperator
+{
+    private static final List<Type> TYPES = ImmutableList.<Type>of(BIGINT, BIGINT);
+
+    private ExecutorService executor;
+    private DriverContext driverContext;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test"));
+        Session session = new Session("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+        driverContext = new TaskContext(new TaskId("query", "stage", "task"), executor, session)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testWrite()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(TYPES)
+                .row(3, 30)
+                .row(1, 10)
+                .pageBreak()
+                .row(2, 20)
+                .build();
+
+        CollectingRecordSink recordSink = new CollectingRecordSink();
+        Operator operator = new TableWriterOperatorFactory(0, recordSink, TYPES, ImmutableList.of(0, 1), Optional.<Integer>absent())
+                .createOperator(driverContext);
+
+        List<Page> output = toPages(operator, input);
+        assertEquals(output.size(), 1);
+        assertEquals(recordSink.getValues(), ImmutableList.of(3L, 30L, 1L, 10L, 2L, 20L));
+    }
+
+    @Test
+    public void testSortedWrite()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(TYPES)
+                .row(3, 30)
+                .row(1, 10)
+                .pageBreak()
+                .row(2, 20)
+                .row(1, 5)
+                .build();
+
+        CollectingRecordSink recordSink = new CollectingRecordSink();
+        Operator operator = new TableWriterOperatorFactory(0, recordSink, TYPES, ImmutableList.of(0, 1), ImmutableList.of(0, 1), Optional.<Integer>absent())
+                .createOperator(driverContext);
+
+        List<Page> output = toPages(operator, input);
+        assertEquals(output.size(), 1);
+        assertEquals(recordSink.getValues(), ImmutableList.of(1L, 5L, 1L, 10L, 2L, 20L, 3L, 30L));
+    }
+
+    @Test
+    public void testBlockWrite()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, BIGINT, BIGINT)
+                .row(3, 30, 2)
+                .row(1, 10, 1)
+                .pageBreak()
+                .row(2, 20, 3)
+                .build();
+
+        CollectingRecordSink recordSink = new CollectingBlockRecordSink();
+        Operator operator = new TableWriterOperatorFactory(0, recordSink, TYPES, ImmutableList.of(0, 1), Optional.of(2))
+                .createOperator(driverContext);
+
+        List<Page> output = toPages(operator, input);
+        assertEquals(output.size(), 1);
+        BlockCursor rowCount = output.get(0).getBlock(0).cursor();
+        assertTrue(rowCount.advanceNextPosition());
+        assertEquals(rowCount.getLong(), 6L);
+        assertEquals(recordSink.getValues(), ImmutableList.of(3L, 30L, 2L, 1L, 10L, 1L, 2L, 20L, 3L));
+    }
+
+    private static class CollectingBlockRecordSink
+            extends CollectingRecordSink
+            implements BlockRecordSink
+    {
+        @Override
+        public void beginRecord(long sampleWeight)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void appendBlocks(Block[] blocks, Block sampleWeights)
+        {
+            BlockCursor[] cursors = new BlockCursor[blocks.length + 1];
+            for (int i = 0; i < blocks.length; i++) {
+                cursors[i] = blocks[i].cursor();
+            }
+            cursors[blocks.length] = sampleWeights.cursor();
+
+            for (int position = 0; position < sampleWeights.getPositionCount(); position++) {
+                for (BlockCursor cursor : cursors) {
+                    assertTrue(cursor.advanceNextPosition());
+                    appendLong(cursor.getLong());
+                }
+            }
+        }
+    }
+
+    private static class CollectingRecordSink
+            implements RecordSink
+    {
+        private final List<Long> values = new ArrayList<>();
+
+        public List<Long> getValues()
+        {
+            return values;
+        }
+
+        @Override
+        public void beginRecord(long sampleWeight)
+        {
+        }
+
+        @Override
+        public void finishRecord()
+        {
+        }
+
+        @Override
+        public void appendNull()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void appendBoolean(boolean value)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void appendLong(long value)
+        {
+            values.add(value);
+        }
+
+        @Override
+        public void appendDouble(double value)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void appendString(byte[] value)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String commit()
+        {
+            return "fragment";
+        }
+    }
+}
@@ -39,6 +39,7 @@ public class TestTaskStats
             6,
             7,
             8,
+            9,
             10,
 
             new DataSize(11, BYTE),
@@ -81,6 +82,7 @@ public class TestTaskStats
         assertEquals(actual.getTotalDrivers(), 6);
         assertEquals(actual.getQueuedDrivers(), 7);
         assertEquals(actual.getRunningDrivers(), 8);
+        assertEquals(actual.getRunningPartitionedDrivers(), 9);
         assertEquals(actual.getCompletedDrivers(), 10);
 
         assertEquals(actual.getMemoryReservation(), new DataSize(11, BYTE));
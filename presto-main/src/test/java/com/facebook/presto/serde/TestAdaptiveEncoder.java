@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.serde;
+
+import com.facebook.presto.block.dictionary.DictionaryBlockEncoding;
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.switching.SwitchingBlockEncoding;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.BlockCursor;
+import com.facebook.presto.spi.block.BlockEncoding;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import io.airlift.slice.DynamicSliceOutput;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.testing.Assertions.assertInstanceOf;
+import static io.airlift.testing.Assertions.assertLessThanOrEqual;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TestAdaptiveEncoder
+{
+    @Test
+    public void testConstantColumnIsRunLengthEncoded()
+    {
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus());
+        for (int i = 0; i < 1000; i++) {
+            blockBuilder.append("constant");
+        }
+
+        assertEquals(AdaptiveEncoder.selectEncoding(ImmutableList.<Block>of(blockBuilder.build())), BlocksFileEncoding.RLE);
+    }
+
+    @Test
+    public void testRandomColumnIsNotEncoded()
+    {
+        Random random = new Random(0);
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        for (int i = 0; i < 1000; i++) {
+            blockBuilder.append(random.nextLong());
+        }
+
+        assertEquals(AdaptiveEncoder.selectEncoding(ImmutableList.<Block>of(blockBuilder.build())), BlocksFileEncoding.RAW);
+    }
+
+    @Test
+    public void testEncodingIsSelectedAfterSample()
+    {
+        AdaptiveEncoder encoder = new AdaptiveEncoder(new DynamicSliceOutput(1024));
+
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        for (int i = 0; i < 10; i++) {
+            blockBuilder.append(42);
+        }
+        encoder.append(blockBuilder.build());
+        assertNull(encoder.getEncoding());
+
+        encoder.finish();
+        assertEquals(encoder.getEncoding(), BlocksFileEncoding.RLE);
+    }
+
+    @Test
+    public void testDictionaryIsLimitedWhenColumnBecomesUnique()
+    {
+        // long values in runs favor a dictionary encoding for the sample
+        Random random = new Random(0);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            StringBuilder value = new StringBuilder();
+            for (int j = 0; j < 200; j++) {
+                value.append((char) ('a' + random.nextInt(26)));
+            }
+            values.add(value.toString());
+        }
+
+        List<String> expected = new ArrayList<>();
+        for (int run = 0; run < 1000; run++) {
+            String value = values.get(random.nextInt(values.size()));
+            for (int i = 0; i < 16; i++) {
+                expected.add(value);
+            }
+        }
+        for (int i = 0; i < 5000; i++) {
+            expected.add("unique-" + i);
+        }
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        AdaptiveEncoder encoder = new AdaptiveEncoder(sliceOutput);
+        for (List<String> page : Lists.partition(expected, 1024)) {
+            BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus());
+            for (String value : page) {
+                blockBuilder.append(value);
+            }
+            encoder.append(blockBuilder.build());
+        }
+        BlockEncoding encoding = encoder.finish();
+        assertInstanceOf(encoding, SwitchingBlockEncoding.class);
+        assertInstanceOf(((SwitchingBlockEncoding) encoding).getFirstEncoding(), DictionaryBlockEncoding.class);
+
+        List<String> actual = new ArrayList<>();
+        for (Block block : new EncodedBlockIterable(encoding, sliceOutput.slice(), expected.size())) {
+            if (block instanceof DictionaryEncodedBlock) {
+                assertLessThanOrEqual(((DictionaryEncodedBlock) block).getDictionary().getPositionCount(), 1000);
+            }
+            BlockCursor cursor = block.cursor();
+            while (cursor.advanceNextPosition()) {
+                actual.add(cursor.getSlice().toStringUtf8());
+            }
+        }
+        assertEquals(actual, expected);
+    }
+}
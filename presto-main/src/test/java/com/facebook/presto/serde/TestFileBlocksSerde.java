@@ -27,6 +27,7 @@ import java.util.List;
 import static com.facebook.presto.serde.BlocksFileReader.readBlocks;
 import static com.facebook.presto.serde.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
 import static org.testng.Assert.assertEquals;
 
 public class TestFileBlocksSerde
@@ -89,6 +90,13 @@ public class TestFileBlocksSerde
         assertEquals(stats.getRowCount(), 12);
         assertEquals(stats.getRunsCount(), 12);
         assertEquals(stats.getUniqueCount(), 4);
+        RangeStats range = stats.getRange().get();
+        assertEquals(range.withDistinctSketch(null), new RangeStats(12, 0, utf8Slice("alice"), utf8Slice("dave")));
+        assertEquals((double) range.getDistinctValuesCount().get(), 4.0, 1.0);
+        assertEquals(stats.getBlockRanges().size(), 3);
+        for (RangeStats blockRange : stats.getBlockRanges()) {
+            assertEquals(blockRange, new RangeStats(4, 0, utf8Slice("alice"), utf8Slice("dave")));
+        }
     }
 
     private static class DynamicSliceOutputSupplier
@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.serde;
+
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.BlockCursor;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestRangeStats
+{
+    @Test
+    public void testBuilder()
+    {
+        Block block = BIGINT.createBlockBuilder(new BlockBuilderStatus())
+                .append(5L)
+                .appendNull()
+                .append(-3L)
+                .append(12L)
+                .build();
+
+        assertEquals(buildStats(block), new RangeStats(4, 1, -3L, 12L));
+    }
+
+    @Test
+    public void testNaNHasUnknownRange()
+    {
+        Block block = DOUBLE.createBlockBuilder(new BlockBuilderStatus())
+                .append(1.0)
+                .append(Double.NaN)
+                .build();
+
+        RangeStats stats = buildStats(block);
+        assertNull(stats.getMin());
+        assertTrue(stats.mightMatch(Domain.singleValue(100.0)));
+    }
+
+    @Test
+    public void testMightMatch()
+    {
+        RangeStats stats = new RangeStats(10, 0, 10L, 20L);
+        assertTrue(stats.mightMatch(Domain.singleValue(15L)));
+        assertTrue(stats.mightMatch(Domain.create(SortedRangeSet.of(Range.greaterThanOrEqual(20L)), false)));
+        assertFalse(stats.mightMatch(Domain.create(SortedRangeSet.of(Range.greaterThan(20L)), false)));
+        assertFalse(stats.mightMatch(Domain.singleValue(5L)));
+        assertFalse(stats.mightMatch(Domain.onlyNull(Long.class)));
+
+        RangeStats withNulls = new RangeStats(10, 2, 10L, 20L);
+        assertTrue(withNulls.mightMatch(Domain.onlyNull(Long.class)));
+        assertFalse(withNulls.mightMatch(Domain.notNull(Long.class).intersect(Domain.singleValue(5L))));
+
+        RangeStats allNull = new RangeStats(10, 10, null, null);
+        assertTrue(allNull.mightMatch(Domain.onlyNull(Long.class)));
+        assertFalse(allNull.mightMatch(Domain.singleValue(5L)));
+    }
+
+    @Test
+    public void testMerge()
+    {
+        RangeStats merged = new RangeStats(10, 0, 10L, 20L).merge(new RangeStats(5, 5, null, null));
+        assertEquals(merged, new RangeStats(15, 5, 10L, 20L));
+
+        merged = merged.merge(new RangeStats(5, 0, -1L, 15L));
+        assertEquals(merged, new RangeStats(20, 5, -1L, 20L));
+
+        // an unknown range makes the merged range unknown
+        merged = merged.merge(new RangeStats(5, 0, null, null));
+        assertEquals(merged, new RangeStats(25, 5, null, null));
+    }
+
+    @Test
+    public void testDistinctValuesCount()
+    {
+        Slice left = RangeStats.createDistinctSketch();
+        Slice right = RangeStats.createDistinctSketch();
+        addToSketch(left, 0, 1000);
+        addToSketch(right, 500, 1500);
+
+        RangeStats leftStats = new RangeStats(1000, 0, 0L, 999L, left);
+        assertDistinctValuesCount(leftStats, 1000);
+
+        RangeStats merged = leftStats.merge(new RangeStats(1000, 0, 500L, 1499L, right));
+        assertEquals(merged.getPositionCount(), 2000);
+        assertDistinctValuesCount(merged, 1500);
+
+        // the merged stats only have a sketch if both sides have one
+        merged = merged.merge(new RangeStats(10, 0, 0L, 1L));
+        assertNull(merged.getDistinctSketch());
+        assertFalse(merged.getDistinctValuesCount().isPresent());
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        assertRoundTrip(new RangeStats(4, 1, -3L, 12L));
+        assertRoundTrip(new RangeStats(4, 0, 1.5, 2.5));
+        assertRoundTrip(new RangeStats(4, 0, false, true));
+        assertRoundTrip(new RangeStats(4, 4, null, null));
+
+        Slice sketch = RangeStats.createDistinctSketch();
+        addToSketch(sketch, 0, 100);
+        assertRoundTrip(new RangeStats(100, 0, 0L, 99L, sketch));
+    }
+
+    @Test
+    public void testDeserializeWithoutSketch()
+    {
+        // stats written before the distinct sketch was added, followed by other data
+        DynamicSliceOutput output = new DynamicSliceOutput(64);
+        output.writeLong(4);
+        output.writeLong(1);
+        // long min and max
+        output.writeByte(2);
+        output.writeLong(-3);
+        output.writeByte(2);
+        output.writeLong(12);
+        output.writeInt(7);
+
+        SliceInput input = output.slice().getInput();
+        assertEquals(RangeStats.deserialize(input), new RangeStats(4, 1, -3L, 12L));
+        assertEquals(input.readInt(), 7);
+    }
+
+    private static void addToSketch(Slice sketch, long start, long end)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        for (long value = start; value < end; value++) {
+            blockBuilder.append(value);
+        }
+        BlockCursor cursor = blockBuilder.build().cursor();
+        while (cursor.advanceNextPosition()) {
+            RangeStats.addToDistinctSketch(sketch, cursor);
+        }
+    }
+
+    private static void assertDistinctValuesCount(RangeStats stats, long expected)
+    {
+        long actual = stats.getDistinctValuesCount().get();
+        assertTrue(Math.abs(actual - expected) < expected * 0.1, "expected about " + expected + " distinct values, but was " + actual);
+    }
+
+    private static RangeStats buildStats(Block block)
+    {
+        RangeStats.Builder builder = new RangeStats.Builder(block.getType());
+        BlockCursor cursor = block.cursor();
+        while (cursor.advanceNextPosition()) {
+            builder.add(cursor);
+        }
+        return builder.build();
+    }
+
+    private static void assertRoundTrip(RangeStats stats)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(64);
+        RangeStats.serialize(stats, output);
+        assertEquals(RangeStats.deserialize(output.slice().getInput()), stats);
+    }
+}
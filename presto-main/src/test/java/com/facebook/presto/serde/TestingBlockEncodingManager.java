@@ -17,6 +17,7 @@ import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.block.dictionary.DictionaryBlockEncoding;
 import com.facebook.presto.block.rle.RunLengthBlockEncoding;
 import com.facebook.presto.block.snappy.SnappyBlockEncoding;
+import com.facebook.presto.block.switching.SwitchingBlockEncoding;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.type.BigintType;
 import com.facebook.presto.spi.type.BooleanType;
@@ -54,6 +55,7 @@ public final class TestingBlockEncodingManager
                 RunLengthBlockEncoding.FACTORY,
                 DictionaryBlockEncoding.FACTORY,
                 SnappyBlockEncoding.FACTORY,
+                SwitchingBlockEncoding.FACTORY,
                 HyperLogLogType.BLOCK_ENCODING_FACTORY);
     }
 }
@@ -18,11 +18,13 @@ import com.facebook.presto.metadata.DatabaseShardManager;
 import com.facebook.presto.metadata.InMemoryNodeManager;
 import com.facebook.presto.metadata.MetadataUtil.TableMetadataBuilder;
 import com.facebook.presto.metadata.NativeConnectorId;
+import com.facebook.presto.metadata.NativeColumnHandle;
 import com.facebook.presto.metadata.NativeMetadata;
 import com.facebook.presto.metadata.NodeVersion;
 import com.facebook.presto.metadata.PrestoNode;
 import com.facebook.presto.metadata.ShardManager;
 import com.facebook.presto.metadata.TableColumnMapper;
+import com.facebook.presto.serde.RangeStats;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.Domain;
@@ -49,6 +51,7 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
@@ -70,6 +73,9 @@ public class TestNativeSplitManager
     private NativeSplitManager nativeSplitManager;
     private TableHandle tableHandle;
     private ColumnHandle dsColumnHandle;
+    private ColumnHandle barColumnHandle;
+    private ShardManager shardManager;
+    private String nodeName;
 
     @BeforeMethod
     public void setup()
@@ -82,16 +88,17 @@ public class TestNativeSplitManager
         dbi.registerMapper(new NativePartitionKey.Mapper(typeRegistry));
         dummyHandle = dbi.open();
         dataDir = Files.createTempDir();
-        ShardManager shardManager = new DatabaseShardManager(dbi);
+        shardManager = new DatabaseShardManager(dbi);
         InMemoryNodeManager nodeManager = new InMemoryNodeManager();
 
-        String nodeName = UUID.randomUUID().toString();
+        nodeName = UUID.randomUUID().toString();
         nodeManager.addNode("native", new PrestoNode(nodeName, new URI("http://127.0.0.1/"), NodeVersion.UNKNOWN));
 
         NativeMetadata metadata = new NativeMetadata(new NativeConnectorId("native"), dbi, shardManager);
 
         tableHandle = metadata.createTable(TEST_TABLE);
         dsColumnHandle = metadata.getColumnHandle(tableHandle, "ds");
+        barColumnHandle = metadata.getColumnHandle(tableHandle, "bar");
 
         UUID shardUuid1 = UUID.randomUUID();
         UUID shardUuid2 = UUID.randomUUID();
@@ -146,4 +153,33 @@ public class TestNativeSplitManager
         }
         assertEquals(splitCount, 4);
     }
+
+    @Test
+    public void testShardPruning()
+            throws InterruptedException
+    {
+        long barColumnId = ((NativeColumnHandle) barColumnHandle).getColumnId();
+        UUID lowShard = UUID.randomUUID();
+        UUID highShard = UUID.randomUUID();
+        shardManager.commitPartition(
+                tableHandle,
+                "ds=3",
+                ImmutableList.<PartitionKey>of(new NativePartitionKey("ds=3", "ds", VARCHAR, "3")),
+                ImmutableMap.of(lowShard, nodeName, highShard, nodeName),
+                ImmutableMap.<UUID, Map<Long, RangeStats>>of(
+                        lowShard, ImmutableMap.of(barColumnId, new RangeStats(100, 0, 0L, 10L)),
+                        highShard, ImmutableMap.of(barColumnId, new RangeStats(100, 0, 20L, 30L))));
+
+        TupleDomain tupleDomain = TupleDomain.withColumnDomains(ImmutableMap.of(barColumnHandle, Domain.singleValue(25L)));
+        PartitionResult partitionResult = nativeSplitManager.getPartitions(tableHandle, tupleDomain);
+        assertEquals(partitionResult.getPartitions().size(), 3);
+
+        // shards without stats are never pruned
+        SplitSource splitSource = nativeSplitManager.getPartitionSplits(tableHandle, partitionResult.getPartitions());
+        int splitCount = 0;
+        while (!splitSource.isFinished()) {
+            splitCount += splitSource.getNextBatch(1000).size();
+        }
+        assertEquals(splitCount, 5);
+    }
 }
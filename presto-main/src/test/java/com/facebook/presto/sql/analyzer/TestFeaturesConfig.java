@@ -29,7 +29,10 @@ public class TestFeaturesConfig
     public void testDefaults()
     {
         assertRecordedDefaults(ConfigAssertions.recordDefaults(FeaturesConfig.class)
-                .setExperimentalSyntaxEnabled(false));
+                .setExperimentalSyntaxEnabled(false)
+                .setJoinReorderingEnabled(true)
+                .setDistributedJoinsEnabled(false)
+                .setBroadcastJoinMaxRows(1_000_000));
     }
 
     @Test
@@ -37,13 +40,22 @@ public class TestFeaturesConfig
     {
         Map<String, String> propertiesLegacy = new ImmutableMap.Builder<String, String>()
                 .put("analyzer.experimental-syntax-enabled", "true")
+                .put("optimizer.reorder-joins", "false")
+                .put("distributed-joins-enabled", "true")
+                .put("optimizer.broadcast-join-max-rows", "1000")
                 .build();
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("experimental-syntax-enabled", "true")
+                .put("optimizer.reorder-joins", "false")
+                .put("distributed-joins-enabled", "true")
+                .put("optimizer.broadcast-join-max-rows", "1000")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
-                .setExperimentalSyntaxEnabled(true);
+                .setExperimentalSyntaxEnabled(true)
+                .setJoinReorderingEnabled(false)
+                .setDistributedJoinsEnabled(true)
+                .setBroadcastJoinMaxRows(1000);
 
         assertFullMapping(properties, expected);
         assertDeprecatedEquivalence(FeaturesConfig.class, properties, propertiesLegacy);
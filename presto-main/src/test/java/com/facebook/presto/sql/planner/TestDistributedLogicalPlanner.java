@@ -0,0 +1,392 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.connector.dual.DualTableHandle;
+import com.facebook.presto.metadata.InMemoryMetadata;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.metadata.StatisticsManager;
+import com.facebook.presto.metadata.TableMetadata;
+import com.facebook.presto.spi.BucketedPartition;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ColumnStatistics;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
+import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.Partition;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.planner.PlanFragment.OutputPartitioning;
+import com.facebook.presto.sql.planner.PlanFragment.PlanDistribution;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SinkNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.tree.ArithmeticExpression;
+import com.facebook.presto.sql.tree.ComparisonExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static io.airlift.testing.Assertions.assertInstanceOf;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestDistributedLogicalPlanner
+{
+    private static final Session SESSION = new Session("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+
+    private final Map<TableHandle, TableStatistics> tableStatistics = new HashMap<>();
+    private PlanNodeIdAllocator idAllocator;
+    private SymbolAllocator symbolAllocator;
+    private StatisticsManager statisticsManager;
+    private MetadataManager metadata;
+    private TableHandle sortedTable;
+    private TableHandle unsortedTable;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        metadata = new MetadataManager(new FeaturesConfig(), new TypeRegistry());
+        metadata.addConnectorMetadata("memory", "memory", new InMemoryMetadata());
+        sortedTable = createTable("sorted", ImmutableList.of("a", "b"));
+        unsortedTable = createTable("unsorted", ImmutableList.<String>of());
+
+        tableStatistics.clear();
+        idAllocator = new PlanNodeIdAllocator();
+        symbolAllocator = new SymbolAllocator();
+        statisticsManager = new StatisticsManager();
+        statisticsManager.addStatisticsProvider(new ConnectorStatisticsProvider()
+        {
+            @Override
+            public boolean canHandle(TableHandle tableHandle)
+            {
+                return true;
+            }
+
+            @Override
+            public TableStatistics getTableStatistics(TableHandle tableHandle)
+            {
+                return tableStatistics.get(tableHandle);
+            }
+        });
+    }
+
+    @Test
+    public void testBroadcastJoin()
+    {
+        Symbol leftKey = symbolAllocator.newSymbol("left_key", BIGINT);
+        Symbol rightKey = symbolAllocator.newSymbol("right_key", BIGINT);
+        JoinNode join = join(tableScan(leftKey, Optional.<Long>absent()), tableScan(rightKey, Optional.<Long>absent()), leftKey, rightKey);
+
+        SubPlan subPlan = createSubPlans(join, new FeaturesConfig());
+
+        // the build side is replicated to the tasks scanning the probe side
+        assertEquals(subPlan.getFragment().getDistribution(), PlanDistribution.SOURCE);
+        assertEquals(subPlan.getChildren().size(), 1);
+        assertEquals(subPlan.getChildren().get(0).getFragment().getOutputPartitioning(), OutputPartitioning.NONE);
+    }
+
+    @Test
+    public void testPartitionedJoin()
+    {
+        Symbol leftKey = symbolAllocator.newSymbol("left_key", BIGINT);
+        Symbol rightKey = symbolAllocator.newSymbol("right_key", BIGINT);
+        JoinNode join = join(tableScan(leftKey, Optional.of(10_000_000L)), tableScan(rightKey, Optional.of(5_000_000L)), leftKey, rightKey);
+
+        SubPlan subPlan = createSubPlans(join, new FeaturesConfig().setDistributedJoinsEnabled(true));
+
+        assertEquals(subPlan.getFragment().getDistribution(), PlanDistribution.FIXED);
+        assertEquals(subPlan.getChildren().size(), 2);
+
+        PlanFragment left = subPlan.getChildren().get(0).getFragment();
+        assertEquals(left.getOutputPartitioning(), OutputPartitioning.HASH);
+        assertEquals(left.getPartitionBy(), ImmutableList.of(leftKey));
+
+        PlanFragment right = subPlan.getChildren().get(1).getFragment();
+        assertEquals(right.getOutputPartitioning(), OutputPartitioning.HASH);
+        assertEquals(right.getPartitionBy(), ImmutableList.of(rightKey));
+    }
+
+    @Test
+    public void testSmallBuildSideIsBroadcast()
+    {
+        Symbol leftKey = symbolAllocator.newSymbol("left_key", BIGINT);
+        Symbol rightKey = symbolAllocator.newSymbol("right_key", BIGINT);
+        JoinNode join = join(tableScan(leftKey, Optional.of(10_000_000L)), tableScan(rightKey, Optional.of(1_000L)), leftKey, rightKey);
+
+        SubPlan subPlan = createSubPlans(join, new FeaturesConfig().setDistributedJoinsEnabled(true));
+        assertEquals(subPlan.getFragment().getDistribution(), PlanDistribution.SOURCE);
+        assertEquals(subPlan.getChildren().size(), 1);
+
+        // unless the limit is lowered below the size of the build side
+        subPlan = createSubPlans(join, new FeaturesConfig().setDistributedJoinsEnabled(true).setBroadcastJoinMaxRows(100));
+        assertEquals(subPlan.getFragment().getDistribution(), PlanDistribution.FIXED);
+        assertEquals(subPlan.getChildren().size(), 2);
+    }
+
+    @Test
+    public void testAggregationOnBucketColumnsStaysInSourceFragment()
+    {
+        Symbol bucketKey = symbolAllocator.newSymbol("bucket_key", BIGINT);
+        Symbol value = symbolAllocator.newSymbol("value", BIGINT);
+        AggregationNode aggregation = aggregation(bucketedTableScan(bucketKey, value), ImmutableList.of(bucketKey, value));
+
+        SubPlan subPlan = createSubPlans(aggregation, new FeaturesConfig());
+
+        // every group is in one bucket, so the rows are aggregated where they are scanned
+        assertEquals(subPlan.getFragment().getDistribution(), PlanDistribution.SOURCE);
+        assertEquals(subPlan.getChildren().size(), 0);
+        PlanNode root = subPlan.getFragment().getRoot();
+        assertTrue(root instanceof AggregationNode);
+        assertEquals(((AggregationNode) root).getStep(), SINGLE);
+    }
+
+    @Test
+    public void testAggregationOnOtherColumnsIsRepartitioned()
+    {
+        Symbol bucketKey = symbolAllocator.newSymbol("bucket_key", BIGINT);
+        Symbol value = symbolAllocator.newSymbol("value", BIGINT);
+        AggregationNode aggregation = aggregation(bucketedTableScan(bucketKey, value), ImmutableList.of(value));
+
+        SubPlan subPlan = createSubPlans(aggregation, new FeaturesConfig());
+
+        // rows of a group may be in any bucket
+        assertEquals(subPlan.getChildren().size(), 1);
+        assertEquals(subPlan.getChildren().get(0).getFragment().getDistribution(), PlanDistribution.SOURCE);
+    }
+
+    @Test
+    public void testTopNOnSortColumnsIsLimit()
+    {
+        Symbol a = symbolAllocator.newSymbol("a", BIGINT);
+        Symbol b = symbolAllocator.newSymbol("b", BIGINT);
+        Symbol c = symbolAllocator.newSymbol("c", BIGINT);
+
+        // the order is a prefix of the sort columns of the table
+        assertSourceRoot(topN(tableScan(sortedTable, a, b, c), ImmutableList.of(a), SortOrder.ASC_NULLS_LAST), LimitNode.class);
+        assertSourceRoot(topN(tableScan(sortedTable, a, b, c), ImmutableList.of(a, b), SortOrder.ASC_NULLS_LAST), LimitNode.class);
+
+        // filters and renames keep the order of the scan
+        PlanNode filter = new FilterNode(idAllocator.getNextId(), tableScan(sortedTable, a, b, c), new ComparisonExpression(ComparisonExpression.Type.GREATER_THAN, reference(c), new LongLiteral("0")));
+        assertSourceRoot(topN(filter, ImmutableList.of(a), SortOrder.ASC_NULLS_LAST), LimitNode.class);
+        Symbol renamed = symbolAllocator.newSymbol("renamed", BIGINT);
+        PlanNode rename = new ProjectNode(idAllocator.getNextId(), tableScan(sortedTable, a, b, c), ImmutableMap.<Symbol, Expression>of(renamed, reference(a)));
+        assertSourceRoot(topN(rename, ImmutableList.of(renamed), SortOrder.ASC_NULLS_LAST), LimitNode.class);
+    }
+
+    @Test
+    public void testTopNOnOtherOrderIsKept()
+    {
+        Symbol a = symbolAllocator.newSymbol("a", BIGINT);
+        Symbol b = symbolAllocator.newSymbol("b", BIGINT);
+        Symbol c = symbolAllocator.newSymbol("c", BIGINT);
+
+        // descending order
+        assertSourceRoot(topN(tableScan(sortedTable, a, b, c), ImmutableList.of(a), SortOrder.DESC_NULLS_LAST), TopNNode.class);
+
+        // columns that are not a prefix of the sort columns
+        assertSourceRoot(topN(tableScan(sortedTable, a, b, c), ImmutableList.of(b), SortOrder.ASC_NULLS_LAST), TopNNode.class);
+        assertSourceRoot(topN(tableScan(sortedTable, a, b, c), ImmutableList.of(a, c), SortOrder.ASC_NULLS_LAST), TopNNode.class);
+        assertSourceRoot(topN(tableScan(sortedTable, a, b, c), ImmutableList.of(a, b, c), SortOrder.ASC_NULLS_LAST), TopNNode.class);
+
+        // an expression of a sort column
+        Symbol expression = symbolAllocator.newSymbol("expr", BIGINT);
+        PlanNode project = new ProjectNode(idAllocator.getNextId(), tableScan(sortedTable, a, b, c), ImmutableMap.<Symbol, Expression>of(
+                expression, new ArithmeticExpression(ArithmeticExpression.Type.SUBTRACT, new LongLiteral("0"), reference(a))));
+        assertSourceRoot(topN(project, ImmutableList.of(expression), SortOrder.ASC_NULLS_LAST), TopNNode.class);
+
+        // a table without sort columns
+        assertSourceRoot(topN(tableScan(unsortedTable, a, b, c), ImmutableList.of(a), SortOrder.ASC_NULLS_LAST), TopNNode.class);
+    }
+
+    private void assertSourceRoot(PlanNode root, Class<? extends PlanNode> expected)
+    {
+        SubPlan subPlan = createSubPlans(root, new FeaturesConfig());
+
+        // the top n is merged on a single node from the results of the source fragment
+        assertTrue(subPlan.getFragment().getRoot() instanceof TopNNode);
+        assertEquals(subPlan.getChildren().size(), 1);
+        PlanNode sourceRoot = subPlan.getChildren().get(0).getFragment().getRoot();
+        assertTrue(sourceRoot instanceof SinkNode);
+        assertInstanceOf(((SinkNode) sourceRoot).getSource(), expected);
+    }
+
+    private SubPlan createSubPlans(PlanNode root, FeaturesConfig featuresConfig)
+    {
+        DistributedLogicalPlanner planner = new DistributedLogicalPlanner(
+                SESSION,
+                metadata,
+                statisticsManager,
+                featuresConfig,
+                idAllocator);
+        SubPlan subPlan = planner.createSubPlans(new Plan(root, symbolAllocator), false);
+        subPlan.sanityCheck();
+        return subPlan;
+    }
+
+    private TableScanNode tableScan(Symbol symbol, Optional<Long> rowCount)
+    {
+        ColumnHandle column = new TestingColumnHandle(symbol);
+        TableHandle table = new DualTableHandle("default");
+        if (rowCount.isPresent()) {
+            ColumnStatistics columnStatistics = new ColumnStatistics(0, rowCount.get(), null, null);
+            tableStatistics.put(table, new TableStatistics(rowCount.get(), ImmutableMap.of(column, columnStatistics)));
+        }
+
+        return new TableScanNode(
+                idAllocator.getNextId(),
+                table,
+                ImmutableList.of(symbol),
+                ImmutableMap.of(symbol, column),
+                null,
+                Optional.<TableScanNode.GeneratedPartitions>absent());
+    }
+
+    private TableScanNode tableScan(TableHandle table, Symbol a, Symbol b, Symbol c)
+    {
+        Map<String, ColumnHandle> columns = metadata.getColumnHandles(table);
+        return new TableScanNode(
+                idAllocator.getNextId(),
+                table,
+                ImmutableList.of(a, b, c),
+                ImmutableMap.of(a, columns.get("a"), b, columns.get("b"), c, columns.get("c")),
+                null,
+                Optional.<TableScanNode.GeneratedPartitions>absent());
+    }
+
+    private TableHandle createTable(String name, List<String> sortColumns)
+    {
+        List<ColumnMetadata> columns = ImmutableList.of(
+                new ColumnMetadata("a", BIGINT, 0, false),
+                new ColumnMetadata("b", BIGINT, 1, false),
+                new ColumnMetadata("c", BIGINT, 2, false));
+        ConnectorTableMetadata table = new ConnectorTableMetadata(new SchemaTableName("default", name), columns, null, false, sortColumns);
+        return metadata.createTable("memory", new TableMetadata("memory", table));
+    }
+
+    private TopNNode topN(PlanNode source, List<Symbol> orderBy, SortOrder sortOrder)
+    {
+        ImmutableMap.Builder<Symbol, SortOrder> orderings = ImmutableMap.builder();
+        for (Symbol symbol : orderBy) {
+            orderings.put(symbol, sortOrder);
+        }
+        return new TopNNode(idAllocator.getNextId(), source, 10, orderBy, orderings.build(), false, Optional.<Symbol>absent());
+    }
+
+    private static QualifiedNameReference reference(Symbol symbol)
+    {
+        return new QualifiedNameReference(symbol.toQualifiedName());
+    }
+
+    private TableScanNode bucketedTableScan(Symbol bucketSymbol, Symbol otherSymbol)
+    {
+        ColumnHandle bucketColumn = new TestingColumnHandle(bucketSymbol);
+        ColumnHandle otherColumn = new TestingColumnHandle(otherSymbol);
+        List<Partition> partitions = ImmutableList.<Partition>of(
+                new TestingBucketedPartition("p1", ImmutableList.of(bucketColumn), 8),
+                new TestingBucketedPartition("p2", ImmutableList.of(bucketColumn), 8));
+
+        return new TableScanNode(
+                idAllocator.getNextId(),
+                new DualTableHandle("default"),
+                ImmutableList.of(bucketSymbol, otherSymbol),
+                ImmutableMap.of(bucketSymbol, bucketColumn, otherSymbol, otherColumn),
+                null,
+                Optional.of(new TableScanNode.GeneratedPartitions(TupleDomain.all(), partitions)));
+    }
+
+    private AggregationNode aggregation(PlanNode source, List<Symbol> groupBy)
+    {
+        return new AggregationNode(
+                idAllocator.getNextId(),
+                source,
+                groupBy,
+                ImmutableMap.<Symbol, FunctionCall>of(),
+                ImmutableMap.<Symbol, Signature>of(),
+                ImmutableMap.<Symbol, Symbol>of(),
+                Optional.<Symbol>absent(),
+                1.0);
+    }
+
+    private JoinNode join(TableScanNode left, TableScanNode right, Symbol leftSymbol, Symbol rightSymbol)
+    {
+        return new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(leftSymbol, rightSymbol)));
+    }
+
+    private static class TestingBucketedPartition
+            implements BucketedPartition
+    {
+        private final String partitionId;
+        private final List<ColumnHandle> bucketColumns;
+        private final int bucketCount;
+
+        private TestingBucketedPartition(String partitionId, List<ColumnHandle> bucketColumns, int bucketCount)
+        {
+            this.partitionId = partitionId;
+            this.bucketColumns = bucketColumns;
+            this.bucketCount = bucketCount;
+        }
+
+        @Override
+        public String getPartitionId()
+        {
+            return partitionId;
+        }
+
+        @Override
+        public TupleDomain getTupleDomain()
+        {
+            return TupleDomain.all();
+        }
+
+        @Override
+        public List<ColumnHandle> getBucketColumns()
+        {
+            return bucketColumns;
+        }
+
+        @Override
+        public int getBucketCount()
+        {
+            return bucketCount;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.index.IndexManager;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.operator.Driver;
+import com.facebook.presto.operator.DriverContext;
+import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.MaterializingOperator;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.OperatorFactory;
+import com.facebook.presto.operator.OutputFactory;
+import com.facebook.presto.operator.RecordSinkManager;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spi.ConnectorRecordSinkProvider;
+import com.facebook.presto.spi.OutputTableHandle;
+import com.facebook.presto.spi.RecordSink;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.split.DataStreamManager;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.gen.ExpressionCompiler;
+import com.facebook.presto.sql.planner.LocalExecutionPlanner.LocalExecutionPlan;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.facebook.presto.type.TypeRegistry;
+import com.facebook.presto.util.MaterializedResult;
+import com.facebook.presto.util.MaterializedRow;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.node.NodeConfig;
+import io.airlift.node.NodeInfo;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.facebook.presto.metadata.MockLocalStorageManager.createMockLocalStorageManager;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.util.Threads.daemonThreadsNamed;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+
+@Test(singleThreaded = true)
+public class TestLocalExecutionPlanner
+{
+    private static final Session SESSION = new Session("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+
+    private static final Symbol VALUE = new Symbol("value");
+    private static final Symbol ROW_COUNT = new Symbol("rows");
+    private static final Symbol FRAGMENT = new Symbol("fragment");
+
+    private ExecutorService executor;
+    private TestingRecordSinkProvider recordSinkProvider;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+        recordSinkProvider = new TestingRecordSinkProvider();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testTableWriter()
+    {
+        MaterializedResult result = executeTableWriter(1, 5);
+
+        assertEquals(recordSinkProvider.getRecordSinks().size(), 1);
+        assertEquals(result.getMaterializedRows(), ImmutableList.of(new MaterializedRow(MaterializedResult.DEFAULT_PRECISION, 5L, "fragment-0")));
+    }
+
+    @Test
+    public void testTableWriterWithSeveralWriters()
+    {
+        MaterializedResult result = executeTableWriter(2, 5);
+
+        // every writer commits its record sink, and the fragments of all writers are passed on
+        List<TestingRecordSink> recordSinks = recordSinkProvider.getRecordSinks();
+        assertEquals(recordSinks.size(), 2);
+
+        long rows = 0;
+        Set<String> fragments = new HashSet<>();
+        for (TestingRecordSink recordSink : recordSinks) {
+            assertEquals(recordSink.getCommits(), 1);
+            rows += recordSink.getRecords();
+            fragments.add(recordSink.getFragment());
+        }
+        assertEquals(rows, 5);
+
+        assertEquals(result.getMaterializedRows().size(), 2);
+        long resultRows = 0;
+        Set<String> resultFragments = new HashSet<>();
+        for (MaterializedRow row : result.getMaterializedRows()) {
+            resultRows += (Long) row.getField(0);
+            resultFragments.add((String) row.getField(1));
+        }
+        assertEquals(resultRows, 5);
+        assertEquals(resultFragments, fragments);
+    }
+
+    private MaterializedResult executeTableWriter(int writerCount, int rowCount)
+    {
+        MetadataManager metadata = new MetadataManager(new FeaturesConfig(), new TypeRegistry());
+        LocalExecutionPlanner planner = new LocalExecutionPlanner(
+                new NodeInfo(new NodeConfig()
+                        .setEnvironment("test")
+                        .setNodeId("test-node")),
+                metadata,
+                new DataStreamManager(),
+                new IndexManager(),
+                createMockLocalStorageManager(),
+                new RecordSinkManager(recordSinkProvider),
+                null,
+                new ExpressionCompiler(metadata),
+                new TaskManagerConfig().setWriterCount(writerCount));
+
+        ImmutableList.Builder<List<Expression>> rows = ImmutableList.builder();
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(ImmutableList.<Expression>of(new LongLiteral(String.valueOf(i))));
+        }
+        PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+        TableWriterNode writer = new TableWriterNode(
+                idAllocator.getNextId(),
+                new ValuesNode(idAllocator.getNextId(), ImmutableList.of(VALUE), rows.build()),
+                new TestingOutputTableHandle(),
+                ImmutableList.of(VALUE),
+                ImmutableList.of("value"),
+                ImmutableList.<String>of(),
+                ImmutableList.of(ROW_COUNT, FRAGMENT),
+                Optional.<Symbol>absent());
+
+        MaterializedOutputFactory outputFactory = new MaterializedOutputFactory();
+        LocalExecutionPlan plan = planner.plan(SESSION, writer, ImmutableMap.<Symbol, Type>of(VALUE, BIGINT, ROW_COUNT, BIGINT, FRAGMENT, VARCHAR), outputFactory);
+
+        TaskContext taskContext = new TaskContext(new TaskId("query", "stage", "task"), executor, SESSION);
+        List<Driver> drivers = new ArrayList<>();
+        for (DriverFactory driverFactory : plan.getDriverFactories()) {
+            DriverContext driverContext = taskContext.addPipelineContext(driverFactory.isInputDriver(), driverFactory.isOutputDriver()).addDriverContext();
+            drivers.add(driverFactory.createDriver(driverContext));
+            driverFactory.close();
+        }
+
+        boolean done = false;
+        while (!done) {
+            boolean processed = false;
+            for (Driver driver : drivers) {
+                if (!driver.isFinished()) {
+                    driver.process();
+                    processed = true;
+                }
+            }
+            done = !processed;
+        }
+
+        return outputFactory.getMaterializingOperator().getMaterializedResult();
+    }
+
+    private static class MaterializedOutputFactory
+            implements OutputFactory
+    {
+        private final AtomicReference<MaterializingOperator> materializingOperator = new AtomicReference<>();
+
+        private MaterializingOperator getMaterializingOperator()
+        {
+            MaterializingOperator operator = materializingOperator.get();
+            checkState(operator != null, "Output not created");
+            return operator;
+        }
+
+        @Override
+        public OperatorFactory createOutputOperator(final int operatorId, final List<Type> sourceTypes)
+        {
+            return new OperatorFactory()
+            {
+                @Override
+                public List<Type> getTypes()
+                {
+                    return ImmutableList.of();
+                }
+
+                @Override
+                public MaterializingOperator createOperator(DriverContext driverContext)
+                {
+                    OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, MaterializingOperator.class.getSimpleName());
+                    MaterializingOperator operator = new MaterializingOperator(operatorContext, sourceTypes);
+                    checkState(materializingOperator.compareAndSet(null, operator), "Output already created");
+                    return operator;
+                }
+
+                @Override
+                public void close()
+                {
+                }
+            };
+        }
+    }
+
+    private static class TestingOutputTableHandle
+            implements OutputTableHandle
+    {
+    }
+
+    private static class TestingRecordSinkProvider
+            implements ConnectorRecordSinkProvider
+    {
+        private final List<TestingRecordSink> recordSinks = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean canHandle(OutputTableHandle tableHandle)
+        {
+            return tableHandle instanceof TestingOutputTableHandle;
+        }
+
+        @Override
+        public RecordSink getRecordSink(OutputTableHandle tableHandle)
+        {
+            TestingRecordSink recordSink = new TestingRecordSink("fragment-" + recordSinks.size());
+            recordSinks.add(recordSink);
+            return recordSink;
+        }
+
+        public List<TestingRecordSink> getRecordSinks()
+        {
+            return ImmutableList.copyOf(recordSinks);
+        }
+    }
+
+    private static class TestingRecordSink
+            implements RecordSink
+    {
+        private final String fragment;
+        private long records;
+        private int commits;
+
+        private TestingRecordSink(String fragment)
+        {
+            this.fragment = fragment;
+        }
+
+        public String getFragment()
+        {
+            return fragment;
+        }
+
+        public long getRecords()
+        {
+            return records;
+        }
+
+        public int getCommits()
+        {
+            return commits;
+        }
+
+        @Override
+        public void beginRecord(long sampleWeight)
+        {
+        }
+
+        @Override
+        public void finishRecord()
+        {
+            records++;
+        }
+
+        @Override
+        public void appendNull()
+        {
+        }
+
+        @Override
+        public void appendBoolean(boolean value)
+        {
+        }
+
+        @Override
+        public void appendLong(long value)
+        {
+        }
+
+        @Override
+        public void appendDouble(double value)
+        {
+        }
+
+        @Override
+        public void appendString(byte[] value)
+        {
+        }
+
+        @Override
+        public String commit()
+        {
+            commits++;
+            return fragment;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.metadata.InMemoryMetadata;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.TableMetadata;
+import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.sql.analyzer.Analyzer;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.analyzer.QueryExplainer;
+import com.facebook.presto.sql.parser.SqlParser;
+import com.facebook.presto.sql.planner.optimizations.PlanOptimizer;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.SortNode;
+import com.facebook.presto.sql.planner.plan.TableWriterNode;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestLogicalPlanner
+{
+    private static final Session SESSION = new Session("user", "test", "tpch", "default", UTC_KEY, Locale.ENGLISH, null, null);
+
+    private MetadataManager metadata;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        metadata = new MetadataManager(new FeaturesConfig(), new TypeRegistry());
+        metadata.addConnectorMetadata("tpch", "tpch", new InMemoryMetadata());
+        metadata.createTable("tpch", new TableMetadata("tpch", new ConnectorTableMetadata(new SchemaTableName("default", "t1"),
+                ImmutableList.<ColumnMetadata>of(
+                        new ColumnMetadata("a", BIGINT, 0, false),
+                        new ColumnMetadata("b", BIGINT, 1, false),
+                        new ColumnMetadata("c", BIGINT, 2, false)))));
+    }
+
+    @Test
+    public void testCreateTableWithAscendingOrderDropsSort()
+    {
+        Plan plan = plan("CREATE TABLE sorted AS SELECT a, b, c FROM t1 ORDER BY a, b");
+
+        // the rows are sorted per file by the writers instead
+        assertTrue(find(plan.getRoot(), SortNode.class).isEmpty());
+        assertEquals(getOnlyTableWriter(plan).getSortColumnNames(), ImmutableList.of("a", "b"));
+    }
+
+    @Test
+    public void testCreateTableWithAliasedOrder()
+    {
+        Plan plan = plan("CREATE TABLE sorted AS SELECT b x, a y FROM t1 ORDER BY a");
+
+        assertTrue(find(plan.getRoot(), SortNode.class).isEmpty());
+        assertEquals(getOnlyTableWriter(plan).getSortColumnNames(), ImmutableList.of("y"));
+    }
+
+    @Test
+    public void testCreateTableWithOtherOrderKeepsSort()
+    {
+        // descending order
+        assertKeepsSort("CREATE TABLE sorted AS SELECT a, b FROM t1 ORDER BY a DESC");
+        assertKeepsSort("CREATE TABLE sorted AS SELECT a, b FROM t1 ORDER BY a, b DESC");
+
+        // an expression that is not a column of the table
+        assertKeepsSort("CREATE TABLE sorted AS SELECT a, b FROM t1 ORDER BY a + b");
+    }
+
+    @Test
+    public void testQueryKeepsSort()
+    {
+        assertEquals(find(plan("SELECT a, b FROM t1 ORDER BY a, b").getRoot(), SortNode.class).size(), 1);
+    }
+
+    private void assertKeepsSort(@Language("SQL") String sql)
+    {
+        Plan plan = plan(sql);
+        assertEquals(find(plan.getRoot(), SortNode.class).size(), 1);
+        assertEquals(getOnlyTableWriter(plan).getSortColumnNames(), ImmutableList.<String>of());
+    }
+
+    private Plan plan(@Language("SQL") String sql)
+    {
+        Analyzer analyzer = new Analyzer(SESSION, metadata, Optional.<QueryExplainer>absent(), false);
+        LogicalPlanner planner = new LogicalPlanner(SESSION, ImmutableList.<PlanOptimizer>of(), new PlanNodeIdAllocator(), metadata);
+        return planner.plan(analyzer.analyze(SqlParser.createStatement(sql)));
+    }
+
+    private static TableWriterNode getOnlyTableWriter(Plan plan)
+    {
+        List<TableWriterNode> tableWriters = find(plan.getRoot(), TableWriterNode.class);
+        assertEquals(tableWriters.size(), 1);
+        return tableWriters.get(0);
+    }
+
+    private static <T extends PlanNode> List<T> find(PlanNode node, Class<T> nodeClass)
+    {
+        ImmutableList.Builder<T> nodes = ImmutableList.builder();
+        if (nodeClass.isInstance(node)) {
+            nodes.add(nodeClass.cast(node));
+        }
+        for (PlanNode source : node.getSources()) {
+            nodes.addAll(find(source, nodeClass));
+        }
+        return nodes.build();
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.connector.dual.DualTableHandle;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.StatisticsManager;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ColumnStatistics;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
+import com.facebook.presto.spi.Session;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.planner.optimizations.ReorderJoins;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestReorderJoins
+{
+    private static final Session SESSION = new Session("user", "source", "catalog", "schema", UTC_KEY, Locale.ENGLISH, "address", "agent");
+
+    private static final Symbol FACT_KEY1 = new Symbol("fact_key1");
+    private static final Symbol FACT_KEY2 = new Symbol("fact_key2");
+    private static final Symbol DIM1_KEY = new Symbol("dim1_key");
+    private static final Symbol DIM2_KEY = new Symbol("dim2_key");
+
+    private final Map<TableHandle, TableStatistics> tableStatistics = new HashMap<>();
+    private PlanNodeIdAllocator idAllocator;
+    private StatisticsManager statisticsManager;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        tableStatistics.clear();
+        idAllocator = new PlanNodeIdAllocator();
+        statisticsManager = new StatisticsManager();
+        statisticsManager.addStatisticsProvider(new ConnectorStatisticsProvider()
+        {
+            @Override
+            public boolean canHandle(TableHandle tableHandle)
+            {
+                return true;
+            }
+
+            @Override
+            public TableStatistics getTableStatistics(TableHandle tableHandle)
+            {
+                return tableStatistics.get(tableHandle);
+            }
+        });
+    }
+
+    @Test
+    public void testReorder()
+    {
+        TableScanNode fact = tableScan(1_000_000, ImmutableMap.of(FACT_KEY1, 1_000L, FACT_KEY2, 10L));
+        TableScanNode dim1 = tableScan(100, ImmutableMap.of(DIM1_KEY, 100L));
+        TableScanNode dim2 = tableScan(10, ImmutableMap.of(DIM2_KEY, 10L));
+
+        // (dim2 JOIN fact) JOIN dim1
+        JoinNode plan = join(join(dim2, fact, DIM2_KEY, FACT_KEY2), dim1, FACT_KEY1, DIM1_KEY);
+
+        // dim1 only matches a tenth of the fact rows, so it is joined first
+        PlanNode optimized = optimize(plan);
+        assertTrue(optimized instanceof ProjectNode);
+        assertEquals(optimized.getOutputSymbols(), plan.getOutputSymbols());
+
+        JoinNode top = (JoinNode) ((ProjectNode) optimized).getSource();
+        assertSame(top.getRight(), dim2);
+        assertEquals(top.getCriteria().get(0).getLeft(), FACT_KEY2);
+        assertEquals(top.getCriteria().get(0).getRight(), DIM2_KEY);
+
+        JoinNode bottom = (JoinNode) top.getLeft();
+        assertSame(bottom.getLeft(), fact);
+        assertSame(bottom.getRight(), dim1);
+    }
+
+    @Test
+    public void testSmallerSideIsBuilt()
+    {
+        TableScanNode fact = tableScan(1_000_000, ImmutableMap.of(FACT_KEY1, 100L));
+        TableScanNode dim1 = tableScan(100, ImmutableMap.of(DIM1_KEY, 100L));
+
+        PlanNode optimized = optimize(join(dim1, fact, DIM1_KEY, FACT_KEY1));
+        JoinNode join = (JoinNode) ((ProjectNode) optimized).getSource();
+        assertSame(join.getLeft(), fact);
+        assertSame(join.getRight(), dim1);
+
+        // already in the right order
+        JoinNode plan = join(fact, dim1, FACT_KEY1, DIM1_KEY);
+        optimized = optimize(plan);
+        assertTrue(optimized instanceof JoinNode);
+        assertSame(((JoinNode) optimized).getLeft(), fact);
+        assertSame(((JoinNode) optimized).getRight(), dim1);
+    }
+
+    @Test
+    public void testSmallerJoinIsBuilt()
+    {
+        TableScanNode fact = tableScan(1_000_000, ImmutableMap.of(FACT_KEY1, 1_000_000L, FACT_KEY2, 10L));
+        TableScanNode dim1 = tableScan(10, ImmutableMap.of(DIM1_KEY, 10L));
+        TableScanNode dim2 = tableScan(100_000, ImmutableMap.of(DIM2_KEY, 100_000L));
+
+        // (fact JOIN dim2) JOIN dim1
+        JoinNode plan = join(join(fact, dim2, FACT_KEY2, DIM2_KEY), dim1, FACT_KEY1, DIM1_KEY);
+
+        // dim1 leaves about ten fact rows, which are then smaller than dim2
+        PlanNode optimized = optimize(plan);
+        assertEquals(optimized.getOutputSymbols(), plan.getOutputSymbols());
+
+        JoinNode top = (JoinNode) ((ProjectNode) optimized).getSource();
+        assertSame(top.getLeft(), dim2);
+        assertEquals(top.getCriteria().get(0).getLeft(), DIM2_KEY);
+        assertEquals(top.getCriteria().get(0).getRight(), FACT_KEY2);
+
+        JoinNode bottom = (JoinNode) top.getRight();
+        assertSame(bottom.getLeft(), fact);
+        assertSame(bottom.getRight(), dim1);
+    }
+
+    @Test
+    public void testNoStatistics()
+    {
+        TableScanNode fact = tableScan(1_000_000, ImmutableMap.of(FACT_KEY1, 100L));
+        TableScanNode dim1 = new TableScanNode(
+                idAllocator.getNextId(),
+                new DualTableHandle("default"),
+                ImmutableList.of(DIM1_KEY),
+                ImmutableMap.<Symbol, ColumnHandle>of(DIM1_KEY, new TestingColumnHandle(DIM1_KEY)),
+                null,
+                Optional.<TableScanNode.GeneratedPartitions>absent());
+
+        JoinNode plan = join(dim1, fact, DIM1_KEY, FACT_KEY1);
+        assertSame(optimize(plan), plan);
+    }
+
+    private PlanNode optimize(PlanNode plan)
+    {
+        Map<Symbol, Type> types = ImmutableMap.<Symbol, Type>of(FACT_KEY1, BIGINT, FACT_KEY2, BIGINT, DIM1_KEY, BIGINT, DIM2_KEY, BIGINT);
+        ReorderJoins optimizer = new ReorderJoins(new MetadataManager(new FeaturesConfig(), new TypeRegistry()), statisticsManager);
+        return optimizer.optimize(plan, SESSION, types, new SymbolAllocator(), idAllocator);
+    }
+
+    private TableScanNode tableScan(long rowCount, Map<Symbol, Long> distinctValuesCounts)
+    {
+        ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+        ImmutableMap.Builder<ColumnHandle, ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        for (Map.Entry<Symbol, Long> entry : distinctValuesCounts.entrySet()) {
+            ColumnHandle column = new TestingColumnHandle(entry.getKey());
+            assignments.put(entry.getKey(), column);
+            columnStatistics.put(column, new ColumnStatistics(0, entry.getValue(), null, null));
+        }
+
+        TableHandle table = new DualTableHandle("default");
+        tableStatistics.put(table, new TableStatistics(rowCount, columnStatistics.build()));
+
+        return new TableScanNode(
+                idAllocator.getNextId(),
+                table,
+                ImmutableList.copyOf(distinctValuesCounts.keySet()),
+                assignments.build(),
+                null,
+                Optional.<TableScanNode.GeneratedPartitions>absent());
+    }
+
+    private JoinNode join(PlanNode left, PlanNode right, Symbol leftSymbol, Symbol rightSymbol)
+    {
+        return new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(leftSymbol, rightSymbol)));
+    }
+}
@@ -22,6 +22,7 @@ import com.facebook.presto.spi.ConnectorOutputHandleResolver;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 import com.facebook.presto.spi.NodeManager;
 import com.google.common.base.Objects;
 
@@ -97,6 +98,12 @@ public class IndexedTpchConnectorFactory
             {
                 return new TpchIndexResolver(connectorId, indexedData);
             }
+
+            @Override
+            public ConnectorStatisticsProvider getStatisticsProvider()
+            {
+                throw new UnsupportedOperationException();
+            }
         };
     }
 
@@ -28,6 +28,7 @@ import com.facebook.presto.connector.system.SystemSplitManager;
 import com.facebook.presto.connector.system.SystemTablesManager;
 import com.facebook.presto.connector.system.SystemTablesMetadata;
 import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.index.IndexManager;
 import com.facebook.presto.metadata.HandleResolver;
 import com.facebook.presto.metadata.InMemoryNodeManager;
@@ -36,6 +37,7 @@ import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.metadata.MockLocalStorageManager;
 import com.facebook.presto.metadata.OutputTableHandleResolver;
 import com.facebook.presto.metadata.QualifiedTableName;
+import com.facebook.presto.metadata.StatisticsManager;
 import com.facebook.presto.operator.Driver;
 import com.facebook.presto.operator.DriverContext;
 import com.facebook.presto.operator.DriverFactory;
@@ -117,6 +119,7 @@ public class LocalQueryRunner
     private final SplitManager splitManager;
     private final DataStreamManager dataStreamProvider;
     private final IndexManager indexManager;
+    private final StatisticsManager statisticsManager;
     private final LocalStorageManager storageManager;
     private final RecordSinkManager recordSinkManager;
 
@@ -136,6 +139,7 @@ public class LocalQueryRunner
         this.splitManager = new SplitManager(ImmutableSet.<ConnectorSplitManager>of());
         this.dataStreamProvider = new DataStreamManager();
         this.indexManager = new IndexManager();
+        this.statisticsManager = new StatisticsManager();
         this.recordSinkManager = new RecordSinkManager();
         this.storageManager = MockLocalStorageManager.createMockLocalStorageManager();
 
@@ -146,6 +150,7 @@ public class LocalQueryRunner
                 splitManager,
                 dataStreamProvider,
                 indexManager,
+                statisticsManager,
                 recordSinkManager,
                 new HandleResolver(),
                 new OutputTableHandleResolver(),
@@ -292,9 +297,9 @@ public class LocalQueryRunner
 
         PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
         FeaturesConfig featuresConfig = new FeaturesConfig().setExperimentalSyntaxEnabled(true);
-        PlanOptimizersFactory planOptimizersFactory = new PlanOptimizersFactory(metadata, splitManager, indexManager, featuresConfig);
+        PlanOptimizersFactory planOptimizersFactory = new PlanOptimizersFactory(metadata, splitManager, indexManager, statisticsManager, featuresConfig);
 
-        QueryExplainer queryExplainer = new QueryExplainer(session, planOptimizersFactory.get(), metadata, featuresConfig.isExperimentalSyntaxEnabled());
+        QueryExplainer queryExplainer = new QueryExplainer(session, planOptimizersFactory.get(), metadata, statisticsManager, featuresConfig);
         Analyzer analyzer = new Analyzer(session, metadata, Optional.of(queryExplainer), featuresConfig.isExperimentalSyntaxEnabled());
 
         Analysis analysis = analyzer.analyze(statement);
@@ -304,7 +309,7 @@ public class LocalQueryRunner
             System.out.println(PlanPrinter.textLogicalPlan(plan.getRoot(), plan.getTypes()));
         }
 
-        SubPlan subplan = new DistributedLogicalPlanner(metadata, idAllocator).createSubPlans(plan, true);
+        SubPlan subplan = new DistributedLogicalPlanner(session, metadata, statisticsManager, featuresConfig, idAllocator).createSubPlans(plan, true);
         assertTrue(subplan.getChildren().isEmpty(), "Expected subplan to have no children");
 
         LocalExecutionPlanner executionPlanner = new LocalExecutionPlanner(
@@ -317,7 +322,8 @@ public class LocalQueryRunner
                 storageManager,
                 recordSinkManager,
                 null,
-                compiler);
+                compiler,
+                new TaskManagerConfig());
 
         // plan query
         LocalExecutionPlan localExecutionPlan = executionPlanner.plan(session,
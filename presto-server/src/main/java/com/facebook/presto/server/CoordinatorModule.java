@@ -13,13 +13,21 @@
  */
 package com.facebook.presto.server;
 
+import com.facebook.presto.execution.ClusterMemoryManager;
+import com.facebook.presto.execution.ClusterMemoryManagerConfig;
 import com.facebook.presto.execution.DropTableExecution;
 import com.facebook.presto.execution.NodeScheduler;
 import com.facebook.presto.execution.NodeSchedulerConfig;
+import com.facebook.presto.execution.PlanCache;
+import com.facebook.presto.execution.PlanCacheConfig;
 import com.facebook.presto.execution.QueryExecution;
 import com.facebook.presto.execution.QueryIdGenerator;
 import com.facebook.presto.execution.QueryManager;
 import com.facebook.presto.execution.QueryManagerConfig;
+import com.facebook.presto.execution.QueryQueueConfig;
+import com.facebook.presto.execution.QueryQueueManager;
+import com.facebook.presto.execution.QueryResultCache;
+import com.facebook.presto.execution.QueryResultCacheConfig;
 import com.facebook.presto.execution.SqlQueryExecution;
 import com.facebook.presto.execution.SqlQueryManager;
 import com.facebook.presto.guice.AbstractConfigurationAwareModule;
@@ -30,6 +38,7 @@ import com.facebook.presto.metadata.InternalNodeManager;
 import com.facebook.presto.metadata.NativeConnectorId;
 import com.facebook.presto.metadata.NativeMetadata;
 import com.facebook.presto.metadata.NativeRecordSinkProvider;
+import com.facebook.presto.metadata.NativeStatisticsProvider;
 import com.facebook.presto.metadata.ShardCleaner;
 import com.facebook.presto.metadata.ShardCleanerConfig;
 import com.facebook.presto.metadata.ShardManager;
@@ -83,6 +92,26 @@ public class CoordinatorModule
         newExporter(binder).export(QueryManager.class).withGeneratedName();
         bindConfig(binder).to(QueryManagerConfig.class);
 
+        // query admission
+        bindConfig(binder).to(QueryQueueConfig.class);
+        binder.bind(QueryQueueManager.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(QueryQueueManager.class).withGeneratedName();
+
+        // cluster memory
+        bindConfig(binder).to(ClusterMemoryManagerConfig.class);
+        binder.bind(ClusterMemoryManager.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ClusterMemoryManager.class).withGeneratedName();
+
+        // query result cache
+        bindConfig(binder).to(QueryResultCacheConfig.class);
+        binder.bind(QueryResultCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(QueryResultCache.class).withGeneratedName();
+
+        // plan cache
+        bindConfig(binder).to(PlanCacheConfig.class);
+        binder.bind(PlanCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(PlanCache.class).withGeneratedName();
+
         // analyzer
         bindConfig(binder).to(FeaturesConfig.class);
 
@@ -92,6 +121,7 @@ public class CoordinatorModule
         binder.bind(NativeSplitManager.class).in(Scopes.SINGLETON);
         binder.bind(NativeDataStreamProvider.class).in(Scopes.SINGLETON);
         binder.bind(NativeRecordSinkProvider.class).in(Scopes.SINGLETON);
+        binder.bind(NativeStatisticsProvider.class).in(Scopes.SINGLETON);
 
         // split manager
         binder.bind(SplitManager.class).in(Scopes.SINGLETON);
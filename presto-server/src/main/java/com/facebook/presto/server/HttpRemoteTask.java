@@ -38,6 +38,7 @@ import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.util.SetThreadName;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
@@ -140,6 +141,7 @@ public class HttpRemoteTask
     private final Queue<Throwable> errorsSinceLastSuccess = new ConcurrentLinkedQueue<>();
 
     private final AtomicBoolean needsUpdate = new AtomicBoolean(true);
+    private final AtomicBoolean sendPlan = new AtomicBoolean(true);
 
     public HttpRemoteTask(Session session,
             TaskId taskId,
@@ -287,6 +289,14 @@ public class HttpRemoteTask
         }
     }
 
+    @Override
+    public int getRunningSplits()
+    {
+        try (SetThreadName setThreadName = new SetThreadName("HttpRemoteTask-%s", taskId)) {
+            return taskInfo.get().getStats().getRunningPartitionedDrivers();
+        }
+    }
+
     @Override
     public void addStateChangeListener(StateChangeListener<TaskInfo> stateChangeListener)
     {
@@ -360,9 +370,11 @@ public class HttpRemoteTask
             errorRequestRateLimiter.acquire();
         }
 
+        // the fragment is only needed to create the task, so it is not sent once the task has acknowledged an update
         List<TaskSource> sources = getSources();
+        Optional<PlanFragment> fragment = sendPlan.get() ? Optional.of(planFragment) : Optional.<PlanFragment>absent();
         TaskUpdateRequest updateRequest = new TaskUpdateRequest(session,
-                planFragment,
+                fragment,
                 sources,
                 outputBuffers.get());
 
@@ -457,6 +469,7 @@ public class HttpRemoteTask
     {
         try (SetThreadName setThreadName = new SetThreadName("HttpRemoteTask-%s", taskId)) {
             updateTaskInfo(newValue);
+            sendPlan.set(false);
             lastSuccessfulRequest.set(System.nanoTime());
             errorCount.set(0);
             errorsSinceLastSuccess.clear();
@@ -649,7 +662,8 @@ public class HttpRemoteTask
                         .setUri(taskInfo.getSelf())
                         .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
                         .setHeader(PrestoHeaders.PRESTO_CURRENT_STATE, taskInfo.getState().toString())
-                        .setHeader(PrestoHeaders.PRESTO_MAX_WAIT, "200ms")
+                        .setHeader(PrestoHeaders.PRESTO_CURRENT_VERSION, String.valueOf(taskInfo.getVersion()))
+                        .setHeader(PrestoHeaders.PRESTO_MAX_WAIT, "1s")
                         .build();
 
                 future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
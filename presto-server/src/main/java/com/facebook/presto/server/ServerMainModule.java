@@ -17,6 +17,7 @@ import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.block.dictionary.DictionaryBlockEncoding;
 import com.facebook.presto.block.rle.RunLengthBlockEncoding;
 import com.facebook.presto.block.snappy.SnappyBlockEncoding;
+import com.facebook.presto.block.switching.SwitchingBlockEncoding;
 import com.facebook.presto.client.QueryResults;
 import com.facebook.presto.connector.ConnectorManager;
 import com.facebook.presto.connector.NativeConnectorFactory;
@@ -53,6 +54,9 @@ import com.facebook.presto.metadata.LocalStorageManager;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.metadata.NodeVersion;
+import com.facebook.presto.metadata.ShardCompactor;
+import com.facebook.presto.metadata.ShardCompactorConfig;
+import com.facebook.presto.metadata.StatisticsManager;
 import com.facebook.presto.metadata.TableColumnMapper;
 import com.facebook.presto.operator.ExchangeClient;
 import com.facebook.presto.operator.ExchangeClientConfig;
@@ -64,6 +68,7 @@ import com.facebook.presto.operator.RecordSinkProvider;
 import com.facebook.presto.spi.ConnectorFactory;
 import com.facebook.presto.spi.ConnectorIndexResolver;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 import com.facebook.presto.spi.Split;
 import com.facebook.presto.spi.block.BlockEncoding.BlockEncodingFactory;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -184,6 +189,9 @@ public class ServerMainModule
         bindConfig(binder).to(DatabaseLocalStorageManagerConfig.class);
         binder.bind(LocalStorageManager.class).to(DatabaseLocalStorageManager.class).in(Scopes.SINGLETON);
         newExporter(binder).export(LocalStorageManager.class).withGeneratedName();
+        bindConfig(binder).to(ShardCompactorConfig.class);
+        binder.bind(ShardCompactor.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ShardCompactor.class).withGeneratedName();
 
         // data stream provider
         binder.bind(DataStreamManager.class).in(Scopes.SINGLETON);
@@ -211,6 +219,10 @@ public class ServerMainModule
         binder.bind(IndexManager.class).in(Scopes.SINGLETON);
         newSetBinder(binder, ConnectorIndexResolver.class);
 
+        // statistics manager
+        binder.bind(StatisticsManager.class).in(Scopes.SINGLETON);
+        newSetBinder(binder, ConnectorStatisticsProvider.class);
+
         // handle resolver
         binder.install(new HandleJsonModule());
 
@@ -305,6 +317,7 @@ public class ServerMainModule
         blockEncodingFactoryBinder.addBinding().toInstance(RunLengthBlockEncoding.FACTORY);
         blockEncodingFactoryBinder.addBinding().toInstance(DictionaryBlockEncoding.FACTORY);
         blockEncodingFactoryBinder.addBinding().toInstance(SnappyBlockEncoding.FACTORY);
+        blockEncodingFactoryBinder.addBinding().toInstance(SwitchingBlockEncoding.FACTORY);
         blockEncodingFactoryBinder.addBinding().toInstance(HyperLogLogType.BLOCK_ENCODING_FACTORY);
 
         // thread visualizer
@@ -20,9 +20,11 @@ import com.facebook.presto.client.QueryResults;
 import com.facebook.presto.client.StageStats;
 import com.facebook.presto.client.StatementStats;
 import com.facebook.presto.execution.BufferInfo;
+import com.facebook.presto.execution.CachedQueryResult;
 import com.facebook.presto.execution.QueryId;
 import com.facebook.presto.execution.QueryInfo;
 import com.facebook.presto.execution.QueryManager;
+import com.facebook.presto.execution.QueryResultCache;
 import com.facebook.presto.execution.QueryState;
 import com.facebook.presto.execution.QueryStats;
 import com.facebook.presto.execution.StageInfo;
@@ -36,6 +38,7 @@ import com.facebook.presto.spi.type.TimeZoneKey;
 import com.facebook.presto.spi.type.TimeZoneNotSupported;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.util.IterableTransformer;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
@@ -115,15 +118,17 @@ public class StatementResource
 
     private final QueryManager queryManager;
     private final Supplier<ExchangeClient> exchangeClientSupplier;
+    private final QueryResultCache queryResultCache;
 
     private final ConcurrentMap<QueryId, Query> queries = new ConcurrentHashMap<>();
     private final ScheduledExecutorService queryPurger = Executors.newSingleThreadScheduledExecutor(threadsNamed("query-purger-%d"));
 
     @Inject
-    public StatementResource(QueryManager queryManager, Supplier<ExchangeClient> exchangeClientSupplier)
+    public StatementResource(QueryManager queryManager, Supplier<ExchangeClient> exchangeClientSupplier, QueryResultCache queryResultCache)
     {
         this.queryManager = checkNotNull(queryManager, "queryManager is null");
         this.exchangeClientSupplier = checkNotNull(exchangeClientSupplier, "exchangeClientSupplier is null");
+        this.queryResultCache = checkNotNull(queryResultCache, "queryResultCache is null");
 
         queryPurger.scheduleWithFixedDelay(new PurgeQueriesRunnable(queries.keySet(), queryManager), 200, 200, TimeUnit.MILLISECONDS);
     }
@@ -168,7 +173,7 @@ public class StatementResource
         }
 
         ExchangeClient exchangeClient = exchangeClientSupplier.get();
-        Query query = new Query(session, statement, queryManager, exchangeClient);
+        Query query = new Query(session, statement, queryManager, exchangeClient, queryResultCache);
         queries.put(query.getQueryId(), query);
         return Response.ok(query.getNextResults(uriInfo, new Duration(1, TimeUnit.MILLISECONDS))).build();
     }
@@ -225,6 +230,7 @@ public class StatementResource
         private final QueryManager queryManager;
         private final QueryId queryId;
         private final ExchangeClient exchangeClient;
+        private final QueryResultCache queryResultCache;
 
         private final AtomicLong resultId = new AtomicLong();
         private final Session session;
@@ -238,15 +244,37 @@ public class StatementResource
         @GuardedBy("this")
         private List<Column> columns;
 
+        @GuardedBy("this")
+        private boolean resultCacheChecked;
+
+        // results of an earlier run of the query, served instead of the output of the query
+        @GuardedBy("this")
+        private CachedQueryResult cachedResult;
+
+        @GuardedBy("this")
+        private int cachedResultPosition;
+
+        // output of the query, collected to be cached when the query finishes
+        @GuardedBy("this")
+        private String resultCacheKey;
+
+        @GuardedBy("this")
+        private List<Page> resultPages;
+
+        @GuardedBy("this")
+        private long resultBytes;
+
         public Query(Session session,
                 String query,
                 QueryManager queryManager,
-                ExchangeClient exchangeClient)
+                ExchangeClient exchangeClient,
+                QueryResultCache queryResultCache)
         {
             checkNotNull(session, "session is null");
             checkNotNull(query, "query is null");
             checkNotNull(queryManager, "queryManager is null");
             checkNotNull(exchangeClient, "exchangeClient is null");
+            checkNotNull(queryResultCache, "queryResultCache is null");
 
             this.session = session;
             this.queryManager = queryManager;
@@ -254,6 +282,7 @@ public class StatementResource
             QueryInfo queryInfo = queryManager.createQuery(session, query);
             queryId = queryInfo.getQueryId();
             this.exchangeClient = exchangeClient;
+            this.queryResultCache = queryResultCache;
         }
 
         @Override
@@ -310,8 +339,9 @@ public class StatementResource
             if (queryInfo.getState().isDone()) {
                 if (queryInfo.getState() != QueryState.FINISHED) {
                     exchangeClient.close();
+                    resultPages = null;
                 }
-                else if (queryInfo.getOutputStage() == null) {
+                else if (queryInfo.getOutputStage() == null && cachedResult == null) {
                     // For simple executions (e.g. drop table), there will never be an output stage,
                     // so close the exchange as soon as the query is done.
                     exchangeClient.close();
@@ -326,6 +356,12 @@ public class StatementResource
                 }
             }
 
+            // all of the output of a finished query has been read
+            if (resultPages != null && queryInfo.getState() == QueryState.FINISHED && exchangeClient.isClosed()) {
+                queryResultCache.put(resultCacheKey, new CachedQueryResult(queryInfo.getFieldNames(), queryInfo.getOutputStage().getTypes(), resultPages));
+                resultPages = null;
+            }
+
             // only return a next if the query is not done or there is more data to send (due to buffering)
             URI nextResultsUri = null;
             if ((!queryInfo.getState().isDone()) || (!exchangeClient.isClosed())) {
@@ -364,8 +400,21 @@ public class StatementResource
                 queryInfo = queryManager.getQueryInfo(queryId);
             }
 
-            // if query did not finish starting or does not have output, just return
-            if (!isQueryStarted(queryInfo) || queryInfo.getOutputStage() == null) {
+            // if query did not finish starting, just return
+            if (!isQueryStarted(queryInfo)) {
+                return null;
+            }
+
+            if (!resultCacheChecked) {
+                checkResultCache();
+                resultCacheChecked = true;
+            }
+            if (cachedResult != null) {
+                return getCachedData();
+            }
+
+            // if query does not have output, just return
+            if (queryInfo.getOutputStage() == null) {
                 return null;
             }
 
@@ -385,6 +434,7 @@ public class StatementResource
                 }
                 bytes += page.getDataSize().toBytes();
                 pages.add(new RowIterable(session, page));
+                collectResultPage(page);
 
                 // only wait on first call
                 maxWait = new Duration(0, TimeUnit.MILLISECONDS);
@@ -397,6 +447,61 @@ public class StatementResource
             return Iterables.concat(pages.build());
         }
 
+        private synchronized void checkResultCache()
+        {
+            Optional<CachedQueryResult> cachedResult = queryManager.getCachedResult(queryId);
+            if (cachedResult.isPresent()) {
+                this.cachedResult = cachedResult.get();
+                columns = createColumnsList(this.cachedResult.getFieldNames(), this.cachedResult.getTypes());
+                return;
+            }
+
+            Optional<String> resultCacheKey = queryManager.getResultCacheKey(queryId);
+            if (resultCacheKey.isPresent()) {
+                this.resultCacheKey = resultCacheKey.get();
+                resultPages = new ArrayList<>();
+            }
+        }
+
+        private synchronized Iterable<List<Object>> getCachedData()
+        {
+            List<Page> cachedPages = cachedResult.getPages();
+
+            ImmutableList.Builder<RowIterable> pages = ImmutableList.builder();
+            long bytes = 0;
+            while (bytes < DESIRED_RESULT_BYTES && cachedResultPosition < cachedPages.size()) {
+                Page page = cachedPages.get(cachedResultPosition);
+                cachedResultPosition++;
+                bytes += page.getDataSize().toBytes();
+                pages.add(new RowIterable(session, page));
+            }
+
+            // the exchange is never used, closing it marks the end of the results
+            if (cachedResultPosition == cachedPages.size()) {
+                exchangeClient.close();
+            }
+
+            if (bytes == 0) {
+                return null;
+            }
+            return Iterables.concat(pages.build());
+        }
+
+        private synchronized void collectResultPage(Page page)
+        {
+            if (resultPages == null) {
+                return;
+            }
+
+            resultPages.add(page);
+            resultBytes += page.getDataSize().toBytes();
+            if (resultBytes > queryResultCache.getMaxResultSizeInBytes()) {
+                // too large to cache
+                resultPages = null;
+                queryResultCache.recordRejected();
+            }
+        }
+
         private static boolean isQueryStarted(QueryInfo queryInfo)
         {
             QueryState state = queryInfo.getState();
@@ -438,9 +543,11 @@ public class StatementResource
                 checkNotNull(outputStage, "outputStage is null");
             }
 
-            List<String> names = queryInfo.getFieldNames();
-            List<Type> types = outputStage.getTypes();
+            return createColumnsList(queryInfo.getFieldNames(), outputStage.getTypes());
+        }
 
+        private static List<Column> createColumnsList(List<String> names, List<Type> types)
+        {
             checkArgument(names.size() == types.size(), "names and types size mismatch");
 
             ImmutableList.Builder<Column> list = ImmutableList.builder();
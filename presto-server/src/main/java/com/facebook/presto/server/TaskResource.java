@@ -46,6 +46,7 @@ import java.util.List;
 import java.util.NoSuchElementException;
 
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_VERSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
@@ -100,6 +101,7 @@ public class TaskResource
     @Produces(MediaType.APPLICATION_JSON)
     public Response getTaskInfo(@PathParam("taskId") TaskId taskId,
             @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
+            @HeaderParam(PRESTO_CURRENT_VERSION) Long currentVersion,
             @HeaderParam(PRESTO_MAX_WAIT) Duration maxWait,
             @Context() UriInfo uriInfo)
             throws InterruptedException
@@ -107,7 +109,12 @@ public class TaskResource
         checkNotNull(taskId, "taskId is null");
 
         if (maxWait != null) {
-            taskManager.waitForStateChange(taskId, currentState, maxWait);
+            if (currentVersion != null) {
+                taskManager.waitForTaskInfoChange(taskId, currentVersion, maxWait);
+            }
+            else {
+                taskManager.waitForStateChange(taskId, currentState, maxWait);
+            }
         }
 
         try {
@@ -20,6 +20,7 @@ import com.facebook.presto.sql.planner.PlanFragment;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
@@ -28,14 +29,14 @@ import java.util.List;
 public class TaskUpdateRequest
 {
     private final Session session;
-    private final PlanFragment fragment;
+    private final Optional<PlanFragment> fragment;
     private final List<TaskSource> sources;
     private final OutputBuffers outputIds;
 
     @JsonCreator
     public TaskUpdateRequest(
             @JsonProperty("session") Session session,
-            @JsonProperty("fragment") PlanFragment fragment,
+            @JsonProperty("fragment") Optional<PlanFragment> fragment,
             @JsonProperty("sources") List<TaskSource> sources,
             @JsonProperty("outputIds") OutputBuffers outputIds)
     {
@@ -57,7 +58,7 @@ public class TaskUpdateRequest
     }
 
     @JsonProperty
-    public PlanFragment getFragment()
+    public Optional<PlanFragment> getFragment()
     {
         return fragment;
     }
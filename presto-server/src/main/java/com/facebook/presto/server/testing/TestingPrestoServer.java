@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.net.HostAndPort;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Module;
 import io.airlift.bootstrap.Bootstrap;
 import io.airlift.bootstrap.LifeCycleManager;
@@ -57,6 +58,7 @@ public class TestingPrestoServer
         implements Closeable
 {
     private final Path baseDataDir;
+    private final Injector injector;
     private final LifeCycleManager lifeCycleManager;
     private final PluginManager pluginManager;
     private final ConnectorManager connectorManager;
@@ -120,7 +122,7 @@ public class TestingPrestoServer
 
         Bootstrap app = new Bootstrap(modules.build());
 
-        Injector injector = app
+        injector = app
                 .strictConfig()
                 .doNotInitializeLogging()
                 .setRequiredConfigurationProperties(serverProperties.build())
@@ -185,6 +187,11 @@ public class TestingPrestoServer
         return metadata;
     }
 
+    public <T> T getInstance(Key<T> key)
+    {
+        return injector.getInstance(key);
+    }
+
     public final AllNodes refreshNodes()
     {
         serviceSelectorManager.forceRefresh();
@@ -15,6 +15,7 @@ package com.facebook.presto.server;
 
 import com.facebook.presto.TaskSource;
 import com.facebook.presto.UnpartitionedPagePartitionFunction;
+import com.facebook.presto.execution.CachedQueryResult;
 import com.facebook.presto.execution.ExecutionFailureInfo;
 import com.facebook.presto.execution.LocationFactory;
 import com.facebook.presto.execution.QueryId;
@@ -30,7 +31,9 @@ import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.spi.Session;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
@@ -119,7 +122,7 @@ public class MockQueryManager
 
         mockTaskManager.updateTask(session,
                 outputTaskId,
-                null,
+                Optional.<PlanFragment>absent(),
                 ImmutableList.<TaskSource>of(),
                 INITIAL_EMPTY_OUTPUT_BUFFERS.withBuffer("out", new UnpartitionedPagePartitionFunction()).withNoMoreBufferIds());
 
@@ -140,6 +143,18 @@ public class MockQueryManager
         // mock queries don't have stages
     }
 
+    @Override
+    public Optional<String> getResultCacheKey(QueryId queryId)
+    {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<CachedQueryResult> getCachedResult(QueryId queryId)
+    {
+        return Optional.absent();
+    }
+
     private static class SimpleQuery
     {
         private final TaskId outputTaskId;
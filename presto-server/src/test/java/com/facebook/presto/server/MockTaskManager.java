@@ -29,6 +29,7 @@ import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.execution.ExecutionFailureInfo;
 import com.facebook.presto.util.Threads;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -102,6 +103,12 @@ public class MockTaskManager
     {
     }
 
+    @Override
+    public void waitForTaskInfoChange(TaskId taskId, long currentVersion, Duration maxWait)
+            throws InterruptedException
+    {
+    }
+
     @Override
     public synchronized TaskInfo getTaskInfo(TaskId taskId, boolean full)
     {
@@ -115,7 +122,7 @@ public class MockTaskManager
     }
 
     @Override
-    public synchronized TaskInfo updateTask(Session session, TaskId taskId, PlanFragment ignored, List<TaskSource> sources, OutputBuffers outputBuffers)
+    public synchronized TaskInfo updateTask(Session session, TaskId taskId, Optional<PlanFragment> ignored, List<TaskSource> sources, OutputBuffers outputBuffers)
     {
         checkNotNull(session, "session is null");
         checkNotNull(taskId, "taskId is null");
@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.client.ClientSession;
+import com.facebook.presto.client.Column;
+import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.client.StatementClient;
+import com.facebook.presto.metadata.AllNodes;
+import com.facebook.presto.server.testing.TestingPrestoServer;
+import com.facebook.presto.tpch.TpchMetadata;
+import com.facebook.presto.tpch.TpchPlugin;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Module;
+import io.airlift.http.client.AsyncHttpClient;
+import io.airlift.http.client.jetty.JettyHttpClient;
+import io.airlift.json.JsonCodec;
+import io.airlift.testing.Closeables;
+import io.airlift.units.Duration;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.testing.Assertions.assertLessThan;
+import static io.airlift.units.Duration.nanosSince;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+@Test(singleThreaded = true)
+public class TestQueryResultCacheServer
+{
+    private static final String ENVIRONMENT = "testing";
+
+    private final JsonCodec<QueryResults> queryResultsCodec = jsonCodec(QueryResults.class);
+
+    private TestingDiscoveryServer discoveryServer;
+    private TestingPrestoServer coordinator;
+    private TestingPrestoServer worker;
+    private AsyncHttpClient httpClient;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        discoveryServer = new TestingDiscoveryServer(ENVIRONMENT);
+        coordinator = createTestingPrestoServer(true);
+        worker = createTestingPrestoServer(false);
+        httpClient = new JettyHttpClient();
+
+        long start = System.nanoTime();
+        while (!allNodesGloballyVisible()) {
+            assertLessThan(nanosSince(start), new Duration(10, SECONDS));
+            MILLISECONDS.sleep(10);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @AfterClass
+    public void tearDown()
+    {
+        Closeables.closeQuietly(httpClient);
+        Closeables.closeQuietly(worker);
+        Closeables.closeQuietly(coordinator);
+        Closeables.closeQuietly(discoveryServer);
+    }
+
+    @Test
+    public void testRepeatedQueryIsServedFromCache()
+            throws Exception
+    {
+        @Language("SQL") String sql = "SELECT orderstatus, count(*) FROM orders GROUP BY orderstatus ORDER BY orderstatus";
+
+        QueryOutput first = execute(sql);
+        assertNotNull(first.getResults().getStats().getRootStage());
+        assertFalse(first.getRows().isEmpty());
+
+        // the second run has no stages, since it does not execute
+        QueryOutput second = execute(sql);
+        assertNull(second.getResults().getStats().getRootStage());
+        assertEquals(second.getColumnNames(), first.getColumnNames());
+        assertEquals(second.getColumnTypes(), first.getColumnTypes());
+        assertEquals(second.getRows(), first.getRows());
+    }
+
+    @Test
+    public void testTimeDependentQueryIsNotCached()
+            throws Exception
+    {
+        @Language("SQL") String sql = "SELECT count(*), now() FROM orders";
+
+        execute(sql);
+        QueryOutput second = execute(sql);
+        assertNotNull(second.getResults().getStats().getRootStage());
+    }
+
+    private QueryOutput execute(@Language("SQL") String sql)
+    {
+        ClientSession session = new ClientSession(coordinator.getBaseUrl(), "user", "test", "tpch", TpchMetadata.TINY_SCHEMA_NAME, "UTC", Locale.ENGLISH, true);
+        try (StatementClient client = new StatementClient(httpClient, queryResultsCodec, session, sql)) {
+            List<Column> columns = null;
+            ImmutableList.Builder<List<Object>> rows = ImmutableList.builder();
+            while (client.isValid()) {
+                QueryResults results = client.current();
+                if (columns == null && results.getColumns() != null) {
+                    columns = results.getColumns();
+                }
+                if (results.getData() != null) {
+                    for (List<Object> row : results.getData()) {
+                        rows.add(row);
+                    }
+                }
+                client.advance();
+            }
+
+            QueryResults results = client.finalResults();
+            assertNull(results.getError());
+            assertNotNull(columns);
+            return new QueryOutput(results, columns, rows.build());
+        }
+    }
+
+    private boolean allNodesGloballyVisible()
+    {
+        for (TestingPrestoServer server : ImmutableList.of(coordinator, worker)) {
+            AllNodes allNodes = server.refreshNodes();
+            if (!allNodes.getInactiveNodes().isEmpty() || (allNodes.getActiveNodes().size() != 2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TestingPrestoServer createTestingPrestoServer(boolean coordinator)
+            throws Exception
+    {
+        ImmutableMap.Builder<String, String> properties = ImmutableMap.<String, String>builder()
+                .put("datasources", "native,tpch");
+        if (coordinator) {
+            properties.put("query.result-cache.enabled", "true");
+        }
+
+        TestingPrestoServer server = new TestingPrestoServer(coordinator, properties.build(), ENVIRONMENT, discoveryServer.getBaseUrl(), ImmutableList.<Module>of());
+        server.installPlugin(new TpchPlugin(), "tpch", "tpch");
+        return server;
+    }
+
+    private static class QueryOutput
+    {
+        private final QueryResults results;
+        private final List<Column> columns;
+        private final List<List<Object>> rows;
+
+        private QueryOutput(QueryResults results, List<Column> columns, List<List<Object>> rows)
+        {
+            this.results = results;
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        public QueryResults getResults()
+        {
+            return results;
+        }
+
+        public List<String> getColumnNames()
+        {
+            ImmutableList.Builder<String> names = ImmutableList.builder();
+            for (Column column : columns) {
+                names.add(column.getName());
+            }
+            return names.build();
+        }
+
+        public List<String> getColumnTypes()
+        {
+            ImmutableList.Builder<String> types = ImmutableList.builder();
+            for (Column column : columns) {
+                types.add(column.getType());
+            }
+            return types.build();
+        }
+
+        public List<List<Object>> getRows()
+        {
+            return rows;
+        }
+    }
+}
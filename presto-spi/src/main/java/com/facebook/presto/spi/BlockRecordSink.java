@@ -0,0 +1,30 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import com.facebook.presto.spi.block.Block;
+
+/**
+ * A record sink that also accepts whole blocks of rows, which avoids appending the
+ * rows one value at a time. Rows appended as blocks and as records are kept in order.
+ */
+public interface BlockRecordSink
+        extends RecordSink
+{
+    /**
+     * @param blocks one block per column, all with the same position count
+     * @param sampleWeights the sample weight of each row; connectors that don't support sampling can safely ignore this parameter, as all weights will be 1
+     */
+    void appendBlocks(Block[] blocks, Block sampleWeights);
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.List;
+
+/**
+ * A Partition whose rows are divided into a fixed number of buckets by hashing the bucket columns.
+ *
+ * All rows with the same values in the bucket columns are in the same bucket, and the splits
+ * for the partition report the bucket of their data with {@link BucketedSplit}. The engine
+ * keeps all splits of a bucket on the same node, so operations grouped on the bucket columns
+ * do not need to repartition the data.
+ */
+public interface BucketedPartition
+        extends Partition
+{
+    /**
+     * Gets the columns used to compute the bucket of a row, or an empty list if the partition is not bucketed.
+     */
+    List<ColumnHandle> getBucketColumns();
+
+    /**
+     * Gets the number of buckets in the partition.
+     */
+    int getBucketCount();
+}
@@ -0,0 +1,28 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+/**
+ * A Split that contains rows from a single bucket of a {@link BucketedPartition}.
+ */
+public interface BucketedSplit
+        extends Split
+{
+    int NOT_BUCKETED = -1;
+
+    /**
+     * Gets the bucket of the rows in this split, or {@link #NOT_BUCKETED} if the rows are not bucketed.
+     */
+    int getBucketNumber();
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+/**
+ * Estimated statistics of a column. The min and max values are native values of the column type
+ * (Boolean, Long, Double or Slice), and are null when unknown.
+ */
+public class ColumnStatistics
+{
+    public static final long UNKNOWN_DISTINCT_VALUES_COUNT = -1;
+
+    private final double nullsFraction;
+    private final long distinctValuesCount;
+    /* nullable */
+    private final Comparable<?> min;
+    /* nullable */
+    private final Comparable<?> max;
+
+    public ColumnStatistics(double nullsFraction, long distinctValuesCount, Comparable<?> min, Comparable<?> max)
+    {
+        if (nullsFraction < 0 || nullsFraction > 1) {
+            throw new IllegalArgumentException("nullsFraction must be between 0 and 1");
+        }
+        if (distinctValuesCount < 0 && distinctValuesCount != UNKNOWN_DISTINCT_VALUES_COUNT) {
+            throw new IllegalArgumentException("distinctValuesCount is negative");
+        }
+        if ((min == null) != (max == null)) {
+            throw new IllegalArgumentException("min and max must both be known or unknown");
+        }
+        this.nullsFraction = nullsFraction;
+        this.distinctValuesCount = distinctValuesCount;
+        this.min = min;
+        this.max = max;
+    }
+
+    public double getNullsFraction()
+    {
+        return nullsFraction;
+    }
+
+    /**
+     * Estimated number of distinct non-null values, or {@link #UNKNOWN_DISTINCT_VALUES_COUNT}.
+     */
+    public long getDistinctValuesCount()
+    {
+        return distinctValuesCount;
+    }
+
+    public Comparable<?> getMin()
+    {
+        return min;
+    }
+
+    public Comparable<?> getMax()
+    {
+        return max;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("ColumnStatistics{");
+        sb.append("nullsFraction=").append(nullsFraction);
+        sb.append(", distinctValuesCount=").append(distinctValuesCount);
+        sb.append(", min=").append(min);
+        sb.append(", max=").append(max);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -23,4 +23,5 @@ public interface Connector
     ConnectorRecordSetProvider getRecordSetProvider();
     ConnectorRecordSinkProvider getRecordSinkProvider();
     ConnectorIndexResolver getIndexResolver();
+    ConnectorStatisticsProvider getStatisticsProvider();
 }
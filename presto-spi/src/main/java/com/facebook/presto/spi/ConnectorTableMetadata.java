@@ -24,6 +24,7 @@ public class ConnectorTableMetadata
     /* nullable */
     private final String owner;
     private final boolean sampled;
+    private final List<String> sortColumns;
 
     public ConnectorTableMetadata(SchemaTableName table, List<ColumnMetadata> columns)
     {
@@ -36,6 +37,11 @@ public class ConnectorTableMetadata
     }
 
     public ConnectorTableMetadata(SchemaTableName table, List<ColumnMetadata> columns, String owner, boolean sampled)
+    {
+        this(table, columns, owner, sampled, Collections.<String>emptyList());
+    }
+
+    public ConnectorTableMetadata(SchemaTableName table, List<ColumnMetadata> columns, String owner, boolean sampled, List<String> sortColumns)
     {
         if (table == null) {
             throw new NullPointerException("table is null or empty");
@@ -43,11 +49,15 @@ public class ConnectorTableMetadata
         if (columns == null) {
             throw new NullPointerException("columns is null");
         }
+        if (sortColumns == null) {
+            throw new NullPointerException("sortColumns is null");
+        }
 
         this.table = table;
         this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
         this.owner = owner;
         this.sampled = sampled;
+        this.sortColumns = Collections.unmodifiableList(new ArrayList<>(sortColumns));
     }
 
     public boolean isSampled()
@@ -65,6 +75,14 @@ public class ConnectorTableMetadata
         return columns;
     }
 
+    /**
+     * @return names of the columns the rows of each file of the table are sorted by, ascending with nulls last
+     */
+    public List<String> getSortColumns()
+    {
+        return sortColumns;
+    }
+
     /**
      * @return table owner or null
      */
@@ -80,6 +98,7 @@ public class ConnectorTableMetadata
         sb.append("table=").append(table);
         sb.append(", columns=").append(columns);
         sb.append(", owner=").append(owner);
+        sb.append(", sortColumns=").append(sortColumns);
         sb.append('}');
         return sb.toString();
     }
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Estimated statistics of a table. Columns without statistics are not in the column statistics.
+ */
+public class TableStatistics
+{
+    private final long rowCount;
+    private final Map<ColumnHandle, ColumnStatistics> columnStatistics;
+
+    public TableStatistics(long rowCount, Map<ColumnHandle, ColumnStatistics> columnStatistics)
+    {
+        if (rowCount < 0) {
+            throw new IllegalArgumentException("rowCount is negative");
+        }
+        this.rowCount = rowCount;
+        this.columnStatistics = Collections.unmodifiableMap(new HashMap<>(Objects.requireNonNull(columnStatistics, "columnStatistics is null")));
+    }
+
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
+    public Map<ColumnHandle, ColumnStatistics> getColumnStatistics()
+    {
+        return columnStatistics;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("TableStatistics{");
+        sb.append("rowCount=").append(rowCount);
+        sb.append(", columnStatistics=").append(columnStatistics);
+        sb.append('}');
+        return sb.toString();
+    }
+}
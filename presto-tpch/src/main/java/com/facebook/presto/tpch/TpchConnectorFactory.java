@@ -22,6 +22,7 @@ import com.facebook.presto.spi.ConnectorOutputHandleResolver;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 import com.facebook.presto.spi.NodeManager;
 import com.google.common.base.Objects;
 
@@ -99,6 +100,12 @@ public class TpchConnectorFactory
             {
                 throw new UnsupportedOperationException();
             }
+
+            @Override
+            public ConnectorStatisticsProvider getStatisticsProvider()
+            {
+                throw new UnsupportedOperationException();
+            }
         };
     }
 